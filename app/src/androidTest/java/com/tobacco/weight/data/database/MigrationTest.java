@@ -0,0 +1,404 @@
+package com.tobacco.weight.data.database;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Color;
+
+import androidx.room.Room;
+import androidx.room.migration.Migration;
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.tobacco.weight.data.entity.FarmerInfoEntity;
+import com.tobacco.weight.data.photo.PhotoMaintenance;
+import com.tobacco.weight.data.photo.PhotoStore;
+import com.tobacco.weight.scheduler.AppScheduler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+/**
+ * 数据库迁移测试
+ * 用 app/schemas 中导出的各版本表结构建库、写入旧版本数据，执行 DatabaseMigrations 后由
+ * MigrationTestHelper 校验表结构与最新版本一致，并检查数据、触发器和照片文件是否正确迁移。
+ */
+@RunWith(AndroidJUnit4.class)
+public class MigrationTest {
+
+    private static final String TEST_DB = "migration-test";
+    private static final String ID_CARD = "110101199001011234";
+    private static final int LATEST_VERSION = 13;
+
+    @Rule
+    public MigrationTestHelper helper = new MigrationTestHelper(
+            InstrumentationRegistry.getInstrumentation(), TobaccoDatabase.class);
+
+    private File photoRoot;
+    private PhotoStore photoStore;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        photoRoot = new File(context.getCacheDir(), "migration-test-photos");
+        deleteRecursively(photoRoot);
+        photoStore = new PhotoStore(photoRoot);
+    }
+
+    @After
+    public void tearDown() {
+        deleteRecursively(photoRoot);
+    }
+
+    @Test
+    public void migrate1ToLatestKeepsRecords() throws IOException {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 1);
+        insertV1Record(db, 1, "上部叶", 3, 30.5, 1_700_000_000_000L);
+        insertV1Record(db, 2, "下部叶", 2, 12.25, 1_700_000_060_000L);
+        // 早期版本可能没有写入创建时间
+        db.execSQL("UPDATE weight_records SET create_time = NULL WHERE id = 2");
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, LATEST_VERSION, true, allMigrations());
+
+        // v2 → v3：单一部位拆分到对应部位列
+        try (Cursor cursor = db.query("SELECT upper_leaf_bundles, upper_leaf_weight, lower_leaf_bundles, " +
+                "lower_leaf_weight, total_weight, primary_tobacco_part FROM weight_records ORDER BY id")) {
+            assertTrue(cursor.moveToNext());
+            assertEquals(3, cursor.getInt(0));
+            assertEquals(30.5, cursor.getDouble(1), 1e-9);
+            assertEquals(0, cursor.getInt(2));
+            assertEquals(30.5, cursor.getDouble(4), 1e-9);
+            assertEquals("上部叶", cursor.getString(5));
+            assertTrue(cursor.moveToNext());
+            assertEquals(0, cursor.getInt(0));
+            assertEquals(2, cursor.getInt(2));
+            assertEquals(12.25, cursor.getDouble(3), 1e-9);
+        }
+
+        // v10 → v11：缺失的创建时间用时间戳补齐，分页不会漏掉这条记录
+        assertEquals(1_700_000_060_000L, queryLong(db, "SELECT create_time FROM weight_records WHERE id = 2"));
+
+        // v4 → v5 回填汇总表，v5 → v6 回填全文索引（身份证尾号可检索）
+        assertEquals(2, queryLong(db, "SELECT SUM(record_count) FROM farmer_aggregates WHERE id_card_number = '" + ID_CARD + "'"));
+        // 日期键按北京时间计算，与设备时区无关（2023-11-14 22:13:20 UTC = 2023-11-15 06:13:20 UTC+8）
+        assertEquals(20231115, queryLong(db, "SELECT day FROM farmer_aggregates WHERE id_card_number = '" + ID_CARD + "'"));
+        assertEquals(2, queryLong(db, "SELECT COUNT(*) FROM search_index WHERE search_index MATCH '1234' AND rowid > 0"));
+
+        // 触发器随迁移建立：新插入的记录同步到汇总表和全文索引
+        insertLatestRecord(db, 3, 1_700_000_120_000L);
+        assertEquals(3, queryLong(db, "SELECT SUM(record_count) FROM farmer_aggregates WHERE id_card_number = '" + ID_CARD + "'"));
+        assertEquals(3, queryLong(db, "SELECT COUNT(*) FROM search_index WHERE search_index MATCH '1234' AND rowid > 0"));
+        db.close();
+
+        // 迁移结果可由 Room 正常打开（表结构哈希与编译期一致）
+        TobaccoDatabase database = openDatabase();
+        try {
+            assertEquals(3, database.weightRecordDao().getTotalRecordCount());
+
+            // 按身份证号替换烟农时沿用原 id，全文索引只保留一条
+            FarmerInfoEntity farmer = new FarmerInfoEntity();
+            farmer.setIdCardNumber(ID_CARD);
+            farmer.setFarmerName("张三");
+            long farmerId = database.farmerInfoDao().insertReplace(farmer);
+            FarmerInfoEntity replacement = new FarmerInfoEntity();
+            replacement.setIdCardNumber(ID_CARD);
+            replacement.setFarmerName("张三丰");
+            assertEquals(farmerId, database.farmerInfoDao().insertReplace(replacement));
+            assertEquals(1, queryLong(database.getOpenHelper().getReadableDatabase(),
+                    "SELECT COUNT(*) FROM search_index WHERE rowid < 0"));
+        } finally {
+            database.close();
+        }
+    }
+
+    @Test
+    public void migrate11To12PurgesOrphanFarmerEntries() throws IOException {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 11);
+        db.execSQL("INSERT INTO farmer_info (id, farmer_name, id_card_number, is_active) " +
+                "VALUES (1, '张三', '" + ID_CARD + "', 1)");
+        db.execSQL("INSERT INTO search_index (docid, farmer_name) VALUES (-1, '张三')");
+        // 旧触发器下 REPLACE 遗留的条目
+        db.execSQL("INSERT INTO search_index (docid, farmer_name) VALUES (-9, '李四')");
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 12, true, DatabaseMigrations.MIGRATION_11_12);
+
+        assertEquals(-1, queryLong(db, "SELECT rowid FROM search_index WHERE rowid < 0"));
+        db.close();
+    }
+
+    @Test
+    public void migrate7To8MovesPhotosToStore() throws Exception {
+        byte[] bmp = bmp(32, 40, Color.rgb(200, 40, 40));
+        byte[] jpeg = jpeg(24, 30, Color.BLUE);
+
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 7);
+        insertV7Farmer(db, 1, "110101199001011111", bmp);
+        insertV7Farmer(db, 2, "110101199001012222", bmp.clone());
+        insertV7Farmer(db, 3, "110101199001013333", jpeg);
+        insertV7Farmer(db, 4, "110101199001014444", null);
+        insertV7Farmer(db, 5, "110101199001015555", new byte[]{1, 2, 3, 4});
+        db.close();
+
+        // 迁移只把照片暂存到 pending_farmer_photos（不在 Room 实体中，因此不校验多余的表）
+        db = helper.runMigrationsAndValidate(TEST_DB, LATEST_VERSION, false, allMigrations());
+        assertNull(photoHashOf(db, 1));
+        assertEquals(4, queryLong(db, "SELECT COUNT(*) FROM " + DatabaseMigrations.PENDING_PHOTOS_TABLE));
+        assertFalse(photoRoot.exists());
+        db.close();
+
+        TobaccoDatabase database = openDatabase();
+        try {
+            GroupCommitWriter writer = new GroupCommitWriter(database, new AppScheduler());
+            assertEquals(3, new PhotoMaintenance(database, photoStore, writer).importPending());
+            db = database.getOpenHelper().getReadableDatabase();
+
+            // 读卡器输出的 BMP 转存为 JPEG，同一张照片只存一份
+            String bmpHash = photoHashOf(db, 1);
+            assertNotNull(bmpHash);
+            assertEquals(bmpHash, photoHashOf(db, 2));
+            assertTrue(photoStore.contains(bmpHash));
+            Bitmap decoded = BitmapFactory.decodeFile(photoStore.file(bmpHash).getPath());
+            assertNotNull(decoded);
+            assertEquals(32, decoded.getWidth());
+            assertEquals(40, decoded.getHeight());
+
+            // JPEG 原样保存
+            String jpegHash = photoHashOf(db, 3);
+            assertNotNull(jpegHash);
+            assertArrayEquals(jpeg, Files.readAllBytes(photoStore.file(jpegHash).toPath()));
+
+            // 没有照片或照片无法识别时只丢弃照片，烟农信息保留
+            assertNull(photoHashOf(db, 4));
+            assertNull(photoHashOf(db, 5));
+            assertEquals(5, queryLong(db, "SELECT COUNT(*) FROM farmer_info"));
+
+            // 全部导入后删除暂存表
+            assertEquals(0, queryLong(db, "SELECT COUNT(*) FROM sqlite_master WHERE name = '"
+                    + DatabaseMigrations.PENDING_PHOTOS_TABLE + "'"));
+
+            // 重建 farmer_info 后全文检索触发器仍然有效
+            database.getOpenHelper().getWritableDatabase().execSQL("INSERT INTO farmer_info " +
+                    "(id, farmer_name, id_card_number, is_active) VALUES (6, '新烟农', '110101199001016666', 1)");
+            assertEquals(-6, queryLong(db, "SELECT rowid FROM search_index WHERE search_index MATCH '6666'"));
+        } finally {
+            database.close();
+        }
+    }
+
+    @Test
+    public void importKeepsStagedPhotosWhenStoreFails() throws Exception {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 7);
+        insertV7Farmer(db, 1, "110101199001011111", jpeg(24, 30, Color.BLUE));
+        db.close();
+        helper.runMigrationsAndValidate(TEST_DB, LATEST_VERSION, false, allMigrations()).close();
+
+        // 照片目录位置被普通文件占用：照片目录无法创建，模拟存储暂时不可用
+        assertTrue(photoRoot.createNewFile());
+        TobaccoDatabase database = openDatabase();
+        try {
+            PhotoMaintenance maintenance = new PhotoMaintenance(database, photoStore,
+                    new GroupCommitWriter(database, new AppScheduler()));
+            try {
+                maintenance.importPending();
+                fail("照片写入失败时应抛出 IOException");
+            } catch (IOException expected) {
+                // 暂存照片保留，等待下次重试
+            }
+            SupportSQLiteDatabase readable = database.getOpenHelper().getReadableDatabase();
+            assertEquals(1, queryLong(readable, "SELECT COUNT(*) FROM " + DatabaseMigrations.PENDING_PHOTOS_TABLE));
+            assertNull(photoHashOf(readable, 1));
+
+            // 存储恢复后重试成功
+            assertTrue(photoRoot.delete());
+            assertEquals(1, maintenance.importPending());
+            assertNotNull(photoHashOf(readable, 1));
+        } finally {
+            database.close();
+        }
+    }
+
+    @Test
+    public void removeOrphansDeletesOnlyStaleUnreferencedPhotos() throws Exception {
+        helper.createDatabase(TEST_DB, LATEST_VERSION).close();
+        TobaccoDatabase database = openDatabase();
+        try {
+            String kept = photoStore.put(jpeg(24, 30, Color.BLUE));
+            String orphan = photoStore.put(jpeg(24, 30, Color.RED));
+            String fresh = photoStore.put(jpeg(24, 30, Color.GREEN));
+            insertFarmer(database, "110101199001011111", kept);
+            insertFarmer(database, "110101199001012222", orphan);
+            database.farmerInfoDao().delete(database.farmerInfoDao().getFarmerByIdCardSync("110101199001012222"));
+
+            long stale = System.currentTimeMillis() - PhotoMaintenance.ORPHAN_MIN_AGE_MS - 60_000L;
+            assertTrue(photoStore.file(kept).setLastModified(stale));
+            assertTrue(photoStore.file(orphan).setLastModified(stale));
+
+            GroupCommitWriter writer = new GroupCommitWriter(database, new AppScheduler());
+            assertEquals(1, new PhotoMaintenance(database, photoStore, writer).removeOrphans());
+            assertTrue(photoStore.contains(kept));
+            assertFalse(photoStore.contains(orphan));
+            // 刚读卡、烟农信息尚未保存的照片保留
+            assertTrue(photoStore.contains(fresh));
+        } finally {
+            database.close();
+        }
+    }
+
+    private TobaccoDatabase openDatabase() {
+        return Room.databaseBuilder(
+                InstrumentationRegistry.getInstrumentation().getTargetContext(), TobaccoDatabase.class, TEST_DB)
+                .addMigrations(allMigrations())
+                .build();
+    }
+
+    private static void insertFarmer(TobaccoDatabase database, String idCard, String photoHash) {
+        FarmerInfoEntity farmer = new FarmerInfoEntity();
+        farmer.setIdCardNumber(idCard);
+        farmer.setFarmerName("烟农");
+        farmer.setPhotoHash(photoHash);
+        database.farmerInfoDao().insertReplace(farmer);
+    }
+
+    private static Migration[] allMigrations() {
+        return DatabaseMigrations.ALL;
+    }
+
+    private static void insertV1Record(SupportSQLiteDatabase db, long id, String part, int bundles,
+                                       double weight, long timestamp) {
+        ContentValues values = new ContentValues();
+        values.put("id", id);
+        values.put("record_number", "R" + id);
+        values.put("farmer_name", "张三");
+        values.put("id_card_number", ID_CARD);
+        values.put("tobacco_part", part);
+        values.put("tobacco_bundles", bundles);
+        values.put("weight", weight);
+        values.put("total_amount", 0.0);
+        values.put("create_time", timestamp);
+        values.put("timestamp", timestamp);
+        values.put("purchase_price", 0.0);
+        values.put("moisture_content", 0.0);
+        values.put("impurity_rate", 0.0);
+        values.put("is_printed", 0);
+        values.put("print_count", 0);
+        values.put("is_exported", 0);
+        db.insert("weight_records", SQLiteDatabase.CONFLICT_ABORT, values);
+    }
+
+    private static void insertLatestRecord(SupportSQLiteDatabase db, long id, long timestamp) {
+        ContentValues values = new ContentValues();
+        values.put("id", id);
+        values.put("record_number", "R" + id);
+        values.put("farmer_name", "张三");
+        values.put("id_card_number", ID_CARD);
+        values.put("upper_leaf_bundles", 0);
+        values.put("upper_leaf_weight", 0.0);
+        values.put("middle_leaf_bundles", 1);
+        values.put("middle_leaf_weight", 8.0);
+        values.put("lower_leaf_bundles", 0);
+        values.put("lower_leaf_weight", 0.0);
+        values.put("total_bundles", 1);
+        values.put("total_weight", 8.0);
+        values.put("primary_tobacco_part", "中部叶");
+        values.put("weight", 8.0);
+        values.put("total_amount", 0.0);
+        values.put("create_time", timestamp);
+        values.put("timestamp", timestamp);
+        values.put("purchase_price", 0.0);
+        values.put("moisture_content", 0.0);
+        values.put("impurity_rate", 0.0);
+        values.put("is_printed", 0);
+        values.put("print_count", 0);
+        values.put("is_exported", 0);
+        db.insert("weight_records", SQLiteDatabase.CONFLICT_ABORT, values);
+    }
+
+    private static void insertV7Farmer(SupportSQLiteDatabase db, long id, String idCard, byte[] photo) {
+        ContentValues values = new ContentValues();
+        values.put("id", id);
+        values.put("farmer_name", "烟农" + id);
+        values.put("id_card_number", idCard);
+        values.put("photo", photo);
+        values.put("is_active", 1);
+        db.insert("farmer_info", SQLiteDatabase.CONFLICT_ABORT, values);
+    }
+
+    private static String photoHashOf(SupportSQLiteDatabase db, long farmerId) {
+        try (Cursor cursor = db.query("SELECT photo_hash FROM farmer_info WHERE id = ?", new Object[]{farmerId})) {
+            assertTrue(cursor.moveToFirst());
+            return cursor.isNull(0) ? null : cursor.getString(0);
+        }
+    }
+
+    private static long queryLong(SupportSQLiteDatabase db, String sql) {
+        try (Cursor cursor = db.query(sql)) {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getLong(0);
+        }
+    }
+
+    /**
+     * 24 位 BMP（与读卡器解码输出的照片格式相同）
+     */
+    private static byte[] bmp(int width, int height, int color) {
+        int rowSize = (width * 3 + 3) & ~3;
+        int imageSize = rowSize * height;
+        ByteBuffer buffer = ByteBuffer.allocate(54 + imageSize).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put((byte) 'B').put((byte) 'M').putInt(54 + imageSize).putInt(0).putInt(54);
+        buffer.putInt(40).putInt(width).putInt(height).putShort((short) 1).putShort((short) 24)
+                .putInt(0).putInt(imageSize).putInt(2835).putInt(2835).putInt(0).putInt(0);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                buffer.put((byte) Color.blue(color)).put((byte) Color.green(color)).put((byte) Color.red(color));
+            }
+            for (int pad = width * 3; pad < rowSize; pad++) {
+                buffer.put((byte) 0);
+            }
+        }
+        return buffer.array();
+    }
+
+    private static byte[] jpeg(int width, int height, int color) {
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(color);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bitmap.compress(Bitmap.CompressFormat.JPEG, 90, out);
+        bitmap.recycle();
+        return out.toByteArray();
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
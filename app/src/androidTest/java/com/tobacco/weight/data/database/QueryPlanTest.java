@@ -0,0 +1,232 @@
+package com.tobacco.weight.data.database;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.room.Room;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.tobacco.weight.data.entity.FarmerInfoEntity;
+import com.tobacco.weight.data.entity.PrintJobEntity;
+import com.tobacco.weight.data.model.WeightRecord;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 查询计划测试
+ * 逐个调用 TobaccoDatabase 全部 DAO 的全部方法，经 Room 的 QueryCallback 截获实际执行的 SQL 和参数，
+ * 对每条语句执行 EXPLAIN QUERY PLAN：出现未使用索引的全表扫描（SCAN 表名）即失败。
+ * 新增 DAO 方法自动纳入检查，不需要另外维护 SQL 列表。
+ */
+@RunWith(AndroidJUnit4.class)
+public class QueryPlanTest {
+
+    // 本身就是全表操作（全表统计、全量列表、清空、汇总表重建），允许全表扫描
+    private static final Set<String> FULL_TABLE_OPERATIONS = new HashSet<>(Arrays.asList(
+            "WeightRecordDao.getTotalWeight",
+            "WeightRecordDao.getTotalLeafCount",
+            "WeightRecordDao.getSystemDetailedLeafStatistics",
+            "WeightRecordDao.deleteAll",
+            "FarmerInfoDao.getAllFarmers",
+            "FarmerInfoDao.deleteAll",
+            "FarmerInfoDao.getPhotoHashes",
+            "FarmerAggregateDao.getTotalRecordCount",
+            "FarmerAggregateDao.getTotalWeight",
+            "FarmerAggregateDao.getTotalLeafCount",
+            "FarmerAggregateDao.getAll",
+            "FarmerAggregateDao.computeFromRecords",
+            "FarmerAggregateDao.insertFromRecords",
+            "FarmerAggregateDao.rebuild"
+    ));
+
+    // SQLite 3.36 之前为 "SCAN TABLE x"，之后为 "SCAN x"；使用索引时带 "USING [COVERING] INDEX"
+    private static final Pattern TABLE_SCAN = Pattern.compile(
+            "^SCAN (?:TABLE )?(weight_records|farmer_info|farmer_aggregates|print_jobs)\\b");
+
+    private final List<Object[]> captured = new ArrayList<>();
+    private TobaccoDatabase database;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        // 查询和回调都在调用线程同步执行，截获的语句与当前调用的 DAO 方法一一对应
+        database = Room.inMemoryDatabaseBuilder(context, TobaccoDatabase.class)
+                .addCallback(TobaccoDatabase.CREATE_TRIGGERS)
+                .setQueryCallback((sql, args) -> captured.add(new Object[]{sql, args.toArray()}), Runnable::run)
+                .setQueryExecutor(Runnable::run)
+                .setTransactionExecutor(Runnable::run)
+                .allowMainThreadQueries()
+                .build();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void everyDaoQueryUsesAnIndex() throws Exception {
+        List<String> violations = new ArrayList<>();
+        List<String> silent = new ArrayList<>();
+        int checked = 0;
+
+        for (Method accessor : TobaccoDatabase.class.getDeclaredMethods()) {
+            if (!Modifier.isAbstract(accessor.getModifiers()) || accessor.getParameterCount() != 0
+                    || !accessor.getReturnType().isInterface()) {
+                continue;
+            }
+            Class<?> daoType = accessor.getReturnType();
+            Object dao = accessor.invoke(database);
+
+            for (Method method : daoType.getDeclaredMethods()) {
+                if (Modifier.isStatic(method.getModifiers()) || method.isSynthetic()) {
+                    continue;
+                }
+                String name = daoType.getSimpleName() + "." + method.getName();
+                List<Object[]> statements = execute(dao, method);
+                if (statements.isEmpty()) {
+                    silent.add(name);
+                    continue;
+                }
+                for (Object[] statement : statements) {
+                    String sql = (String) statement[0];
+                    if (!isDaoStatement(sql)) {
+                        continue;
+                    }
+                    checked++;
+                    for (String detail : explain(sql, (Object[]) statement[1])) {
+                        if (TABLE_SCAN.matcher(detail).find() && !detail.contains("INDEX")
+                                && !FULL_TABLE_OPERATIONS.contains(name)) {
+                            violations.add(name + ": " + detail + "\n    " + sql);
+                        }
+                    }
+                }
+            }
+        }
+
+        assertTrue("以下 DAO 方法未执行任何 SQL，无法检查查询计划: " + silent, silent.isEmpty());
+        assertTrue("未截获任何 DAO 语句", checked > 0);
+        assertTrue("以下查询未使用索引:\n" + String.join("\n", violations), violations.isEmpty());
+    }
+
+    @Test
+    public void aggregateTriggerLookupUsesIndex() {
+        // 触发器内的语句不经过 QueryCallback：单独检查删除/修改当天最近一条记录时回查最近时间的子查询
+        String[] statements = {
+                FarmerAggregateTriggers.latestTimestamp("?1", "?2"),
+                FarmerAggregateTriggers.latestTimestamp("NULL", "?2")
+        };
+        for (String sql : statements) {
+            List<String> details = explain(sql, new Object[]{"1234", 1_700_000_000_000L});
+            for (String detail : details) {
+                assertFalse(detail + "\n    " + sql, TABLE_SCAN.matcher(detail).find() && !detail.contains("INDEX"));
+            }
+            assertTrue(details + "\n    " + sql, details.stream()
+                    .anyMatch(detail -> detail.contains("index_weight_records_id_card_number_timestamp")));
+        }
+    }
+
+    /**
+     * 调用一个 DAO 方法，返回期间执行的全部语句
+     * LiveData 在主线程订阅一次以触发查询；执行失败（如约束冲突）不影响已截获的语句
+     */
+    private List<Object[]> execute(Object dao, Method method) throws IllegalAccessException {
+        captured.clear();
+        Object result;
+        try {
+            result = method.invoke(dao, arguments(method.getGenericParameterTypes()));
+        } catch (InvocationTargetException e) {
+            result = null;
+        }
+        if (result instanceof LiveData) {
+            LiveData<?> liveData = (LiveData<?>) result;
+            Observer<Object> observer = value -> { };
+            InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+                liveData.observeForever(observer);
+                liveData.removeObserver(observer);
+            });
+        } else if (result instanceof Cursor) {
+            ((Cursor) result).close();
+        }
+        return new ArrayList<>(captured);
+    }
+
+    private List<String> explain(String sql, Object[] args) {
+        List<String> details = new ArrayList<>();
+        SupportSQLiteDatabase db = database.getOpenHelper().getReadableDatabase();
+        try (Cursor cursor = db.query(new SimpleSQLiteQuery("EXPLAIN QUERY PLAN " + sql, args))) {
+            int detailIndex = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                details.add(cursor.getString(detailIndex));
+            }
+        }
+        return details;
+    }
+
+    /**
+     * 排除 Room 自身的事务控制和失效跟踪语句
+     */
+    private static boolean isDaoStatement(String sql) {
+        String head = sql.trim().toUpperCase();
+        boolean dml = head.startsWith("SELECT") || head.startsWith("INSERT") || head.startsWith("UPDATE")
+                || head.startsWith("DELETE") || head.startsWith("REPLACE") || head.startsWith("WITH");
+        return dml && !sql.contains("room_table_modification_log") && !sql.contains("room_master_table");
+    }
+
+    private static Object[] arguments(Type[] types) {
+        Object[] args = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            args[i] = argument(types[i]);
+        }
+        return args;
+    }
+
+    private static Object argument(Type type) {
+        if (type instanceof ParameterizedType && ((ParameterizedType) type).getRawType() == List.class) {
+            // IN (:list) 参数按元素类型生成单元素列表
+            return Collections.singletonList(argument(((ParameterizedType) type).getActualTypeArguments()[0]));
+        } else if (type == String.class) {
+            return "1234";
+        } else if (type == long.class || type == Long.class) {
+            return 1L;
+        } else if (type == int.class || type == Integer.class) {
+            return 1;
+        } else if (type == double.class || type == Double.class) {
+            return 1.0;
+        } else if (type == boolean.class || type == Boolean.class) {
+            return true;
+        } else if (type == WeightRecord.class) {
+            return new WeightRecord();
+        } else if (type == FarmerInfoEntity.class) {
+            return new FarmerInfoEntity();
+        } else if (type == PrintJobEntity.class) {
+            return new PrintJobEntity();
+        }
+        throw new IllegalArgumentException("不支持的 DAO 参数类型: " + type.getTypeName()
+                + "，请在 QueryPlanTest.argument() 中补充");
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * 非阻塞串口 I/O（com.tobacco.weight.hardware.serial.NativeSerialPort）
+ *
+ * - 显式 termios 配置：原始模式、数据位/停止位/校验、流控、VMIN/VTIME
+ * - 设备以 O_NONBLOCK 打开，读写都通过 poll() 等待，可设置超时
+ * - 每个串口配一个 eventfd 唤醒描述符，关闭时写入即可立即解除阻塞的读写
+ * - 读写直接使用调用方提供的 direct ByteBuffer，不经过 Java 堆数组
+ *
+ * 只依赖 POSIX/Linux 接口，可在宿主机上针对伪终端（openpty）测试。
+ */
+
+#include <errno.h>
+#include <fcntl.h>
+#include <poll.h>
+#include <stdint.h>
+#include <stdio.h>
+#include <string.h>
+#include <sys/eventfd.h>
+#include <termios.h>
+#include <unistd.h>
+#include <jni.h>
+
+#ifdef __ANDROID__
+#include <android/log.h>
+#define LOGD(fmt, args...) __android_log_print(ANDROID_LOG_DEBUG, "native_serial", fmt, ##args)
+#else
+#define LOGD(fmt, args...) ((void) 0)
+#endif
+
+/* 与 NativeSerialPort 中的常量保持一致 */
+#define PARITY_NONE 0
+#define PARITY_ODD 1
+#define PARITY_EVEN 2
+
+#define FLOW_NONE 0
+#define FLOW_RTS_CTS 1
+#define FLOW_XON_XOFF 2
+
+#define RESULT_TIMEOUT 0
+#define RESULT_CLOSED (-1)
+
+static speed_t toSpeed(jint baudRate)
+{
+	switch (baudRate) {
+	case 1200: return B1200;
+	case 2400: return B2400;
+	case 4800: return B4800;
+	case 9600: return B9600;
+	case 19200: return B19200;
+	case 38400: return B38400;
+	case 57600: return B57600;
+	case 115200: return B115200;
+	case 230400: return B230400;
+	case 460800: return B460800;
+	case 921600: return B921600;
+	default: return (speed_t) -1;
+	}
+}
+
+static void throwIOException(JNIEnv *env, const char *message, int error)
+{
+	char text[256];
+	jclass cls = (*env)->FindClass(env, "java/io/IOException");
+	if (cls == NULL) {
+		return;
+	}
+	if (error != 0) {
+		snprintf(text, sizeof(text), "%s: %s", message, strerror(error));
+	} else {
+		snprintf(text, sizeof(text), "%s", message);
+	}
+	(*env)->ThrowNew(env, cls, text);
+}
+
+static int configure(int fd, speed_t speed, jint dataBits, jint stopBits, jint parity,
+		jint flowControl, jint vmin, jint vtime)
+{
+	struct termios cfg;
+	if (tcgetattr(fd, &cfg) != 0) {
+		return -1;
+	}
+
+	cfmakeraw(&cfg);
+	cfsetispeed(&cfg, speed);
+	cfsetospeed(&cfg, speed);
+	cfg.c_cflag |= CLOCAL | CREAD;
+
+	cfg.c_cflag &= ~CSIZE;
+	switch (dataBits) {
+	case 5: cfg.c_cflag |= CS5; break;
+	case 6: cfg.c_cflag |= CS6; break;
+	case 7: cfg.c_cflag |= CS7; break;
+	default: cfg.c_cflag |= CS8; break;
+	}
+
+	if (stopBits == 2) {
+		cfg.c_cflag |= CSTOPB;
+	} else {
+		cfg.c_cflag &= ~CSTOPB;
+	}
+
+	cfg.c_cflag &= ~(PARENB | PARODD);
+	cfg.c_iflag &= ~INPCK;
+	if (parity == PARITY_ODD) {
+		cfg.c_cflag |= PARENB | PARODD;
+		cfg.c_iflag |= INPCK;
+	} else if (parity == PARITY_EVEN) {
+		cfg.c_cflag |= PARENB;
+		cfg.c_iflag |= INPCK;
+	}
+
+	cfg.c_cflag &= ~CRTSCTS;
+	cfg.c_iflag &= ~(IXON | IXOFF | IXANY);
+	if (flowControl == FLOW_RTS_CTS) {
+		cfg.c_cflag |= CRTSCTS;
+	} else if (flowControl == FLOW_XON_XOFF) {
+		cfg.c_iflag |= IXON | IXOFF;
+	}
+
+	/*
+	 * 非规范模式下 n_tty 的 poll() 同样遵守 VMIN/VTIME：
+	 * VTIME 为 0 时输入队列达到 VMIN 字节才报告可读，一帧只唤醒一次。
+	 */
+	cfg.c_cc[VMIN] = (cc_t) (vmin < 0 ? 0 : (vmin > 255 ? 255 : vmin));
+	cfg.c_cc[VTIME] = (cc_t) (vtime < 0 ? 0 : (vtime > 255 ? 255 : vtime));
+
+	tcflush(fd, TCIOFLUSH);
+	return tcsetattr(fd, TCSANOW, &cfg);
+}
+
+/*
+ * 等待 fd 满足 events 或唤醒描述符被触发
+ * 返回 1 就绪，0 超时，RESULT_CLOSED 已唤醒或设备挂断，-2 出错（errno 有效）
+ */
+static int waitFor(int fd, int wakeFd, short events, jint timeoutMs)
+{
+	struct pollfd fds[2];
+	fds[0].fd = fd;
+	fds[0].events = events;
+	fds[0].revents = 0;
+	fds[1].fd = wakeFd;
+	fds[1].events = POLLIN;
+	fds[1].revents = 0;
+
+	for (;;) {
+		int ready = poll(fds, 2, timeoutMs < 0 ? -1 : timeoutMs);
+		if (ready < 0) {
+			if (errno == EINTR) {
+				continue;
+			}
+			return -2;
+		}
+		if (ready == 0) {
+			return 0;
+		}
+		/* 唤醒描述符不清零，之后的读写都会立即返回，直到关闭 */
+		if (fds[1].revents != 0) {
+			return RESULT_CLOSED;
+		}
+		if (fds[0].revents & events) {
+			return 1;
+		}
+		if (fds[0].revents & (POLLHUP | POLLERR | POLLNVAL)) {
+			return RESULT_CLOSED;
+		}
+	}
+}
+
+static jbyte *bufferAddress(JNIEnv *env, jobject buffer, jint offset, jint length)
+{
+	jbyte *address = (jbyte *) (*env)->GetDirectBufferAddress(env, buffer);
+	jlong capacity = (*env)->GetDirectBufferCapacity(env, buffer);
+	if (address == NULL || offset < 0 || length < 0 || (jlong) offset + length > capacity) {
+		throwIOException(env, "Invalid direct buffer", 0);
+		return NULL;
+	}
+	return address + offset;
+}
+
+JNIEXPORT jint JNICALL Java_com_tobacco_weight_hardware_serial_NativeSerialPort_nativeOpen
+  (JNIEnv *env, jclass clazz, jstring path, jint baudRate, jint dataBits, jint stopBits,
+   jint parity, jint flowControl, jint vmin, jint vtime)
+{
+	speed_t speed = toSpeed(baudRate);
+	if (speed == (speed_t) -1) {
+		throwIOException(env, "Unsupported baud rate", 0);
+		return -1;
+	}
+
+	const char *pathUtf = (*env)->GetStringUTFChars(env, path, NULL);
+	if (pathUtf == NULL) {
+		return -1;
+	}
+	int fd = open(pathUtf, O_RDWR | O_NOCTTY | O_NONBLOCK | O_CLOEXEC);
+	int openError = errno;
+	LOGD("open(%s) fd = %d", pathUtf, fd);
+	(*env)->ReleaseStringUTFChars(env, path, pathUtf);
+	if (fd < 0) {
+		throwIOException(env, "Cannot open serial port", openError);
+		return -1;
+	}
+
+	if (configure(fd, speed, dataBits, stopBits, parity, flowControl, vmin, vtime) != 0) {
+		int error = errno;
+		close(fd);
+		throwIOException(env, "Cannot configure serial port", error);
+		return -1;
+	}
+	return fd;
+}
+
+JNIEXPORT jint JNICALL Java_com_tobacco_weight_hardware_serial_NativeSerialPort_nativeCreateWakeFd
+  (JNIEnv *env, jclass clazz)
+{
+	int fd = eventfd(0, EFD_NONBLOCK | EFD_CLOEXEC);
+	if (fd < 0) {
+		throwIOException(env, "Cannot create wake-up fd", errno);
+	}
+	return fd;
+}
+
+JNIEXPORT void JNICALL Java_com_tobacco_weight_hardware_serial_NativeSerialPort_nativeWakeup
+  (JNIEnv *env, jclass clazz, jint wakeFd)
+{
+	uint64_t one = 1;
+	ssize_t ignored = write(wakeFd, &one, sizeof(one));
+	(void) ignored;
+}
+
+/*
+ * 读取到 buffer[offset, offset + length)
+ * 返回读到的字节数；超时返回 0；已唤醒或设备断开返回 -1
+ */
+JNIEXPORT jint JNICALL Java_com_tobacco_weight_hardware_serial_NativeSerialPort_nativeRead
+  (JNIEnv *env, jclass clazz, jint fd, jint wakeFd, jobject buffer, jint offset, jint length,
+   jint timeoutMs)
+{
+	jbyte *address = bufferAddress(env, buffer, offset, length);
+	if (address == NULL || length == 0) {
+		return 0;
+	}
+
+	int ready = waitFor(fd, wakeFd, POLLIN, timeoutMs);
+	if (ready == -2) {
+		throwIOException(env, "poll() failed", errno);
+		return RESULT_CLOSED;
+	}
+	if (ready == RESULT_CLOSED) {
+		return RESULT_CLOSED;
+	}
+
+	/* 超时后也尝试一次：VMIN 大于 1 时不足一帧的尾部数据在这里取走 */
+	for (;;) {
+		ssize_t n = read(fd, address, (size_t) length);
+		if (n > 0) {
+			return (jint) n;
+		}
+		if (n == 0) {
+			return ready == 1 ? RESULT_CLOSED : RESULT_TIMEOUT;
+		}
+		if (errno == EINTR) {
+			continue;
+		}
+		if (errno == EAGAIN || errno == EWOULDBLOCK) {
+			return RESULT_TIMEOUT;
+		}
+		if (errno == EIO) {
+			/* 伪终端对端关闭、USB 串口拔出 */
+			return RESULT_CLOSED;
+		}
+		throwIOException(env, "read() failed", errno);
+		return RESULT_CLOSED;
+	}
+}
+
+/*
+ * 写出 buffer[offset, offset + length) 的全部内容
+ * 返回写出的字节数（超时时可能小于 length）；已唤醒或设备断开返回 -1
+ */
+JNIEXPORT jint JNICALL Java_com_tobacco_weight_hardware_serial_NativeSerialPort_nativeWrite
+  (JNIEnv *env, jclass clazz, jint fd, jint wakeFd, jobject buffer, jint offset, jint length,
+   jint timeoutMs)
+{
+	jbyte *address = bufferAddress(env, buffer, offset, length);
+	if (address == NULL) {
+		return 0;
+	}
+
+	jint written = 0;
+	while (written < length) {
+		ssize_t n = write(fd, address + written, (size_t) (length - written));
+		if (n > 0) {
+			written += (jint) n;
+			continue;
+		}
+		if (n < 0 && errno == EINTR) {
+			continue;
+		}
+		if (n < 0 && errno != EAGAIN && errno != EWOULDBLOCK) {
+			if (errno == EIO) {
+				return RESULT_CLOSED;
+			}
+			throwIOException(env, "write() failed", errno);
+			return RESULT_CLOSED;
+		}
+
+		/* 输出队列已满（或硬件流控暂停），等待可写 */
+		int ready = waitFor(fd, wakeFd, POLLOUT, timeoutMs);
+		if (ready == -2) {
+			throwIOException(env, "poll() failed", errno);
+			return RESULT_CLOSED;
+		}
+		if (ready == RESULT_CLOSED) {
+			return RESULT_CLOSED;
+		}
+		if (ready == 0) {
+			break;
+		}
+	}
+	return written;
+}
+
+JNIEXPORT void JNICALL Java_com_tobacco_weight_hardware_serial_NativeSerialPort_nativeClose
+  (JNIEnv *env, jclass clazz, jint fd)
+{
+	LOGD("close(fd = %d)", fd);
+	if (fd >= 0) {
+		close(fd);
+	}
+}
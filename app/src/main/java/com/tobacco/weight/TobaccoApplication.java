@@ -4,7 +4,17 @@ import android.app.Application;
 import android.content.Context;
 import android.util.Log;
 
+import com.tobacco.weight.data.photo.PhotoMaintenance;
+import com.tobacco.weight.scheduler.AppScheduler;
+import com.tobacco.weight.scheduler.Lane;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.inject.Inject;
+
 import dagger.hilt.android.HiltAndroidApp;
+import io.reactivex.rxjava3.exceptions.UndeliverableException;
+import io.reactivex.rxjava3.plugins.RxJavaPlugins;
 
 /**
  * 烟叶称重应用主类
@@ -16,6 +26,12 @@ public class TobaccoApplication extends Application {
     private static final String TAG = "TobaccoApplication";
     private static Context applicationContext;
 
+    @Inject
+    PhotoMaintenance photoMaintenance;
+
+    @Inject
+    AppScheduler scheduler;
+
     @Override
     public void onCreate() {
         super.onCreate();
@@ -26,6 +42,10 @@ public class TobaccoApplication extends Application {
         // 初始化应用配置
         initializeAppConfig();
 
+        // 导入迁移暂存的照片、清理无引用的照片文件，不阻塞启动
+        AppScheduler.submit(scheduler.executor(Lane.EXPORT), photoMaintenance::run,
+                e -> Log.w(TAG, "后台通道繁忙，照片维护下次启动时执行"));
+
         Log.i(TAG, "TobaccoApplication 初始化完成");
     }
 
@@ -43,6 +63,16 @@ public class TobaccoApplication extends Application {
         // 设置未捕获异常处理器
         Thread.setDefaultUncaughtExceptionHandler(new GlobalExceptionHandler());
 
+        // RxJava 无法投递的异常（订阅已取消后的错误、通道队列满被拒绝的任务）只记录，不终止应用
+        RxJavaPlugins.setErrorHandler(error -> {
+            Throwable cause = error instanceof UndeliverableException ? error.getCause() : error;
+            if (cause instanceof RejectedExecutionException) {
+                Log.w(TAG, "后台通道繁忙，任务被丢弃: " + cause.getMessage());
+            } else {
+                Log.e(TAG, "RxJava 未投递的异常", cause);
+            }
+        });
+
         Log.i(TAG, "应用配置初始化完成");
     }
 
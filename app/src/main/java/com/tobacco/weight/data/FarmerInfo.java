@@ -26,14 +26,14 @@ public class FarmerInfo {
     private final String department;        // 签发机关
     private final String startDate;         // 有效期开始
     private final String endDate;           // 有效期结束
-    private final byte[] photo;             // 照片数据
+    private final String photoHash;         // 照片哈希（PhotoStore）
 
     /**
      * 完整构造函数（包含所有身份信息）
      */
     public FarmerInfo(String farmerName, String contractNumber, String idCardNumber, 
                      String gender, String nationality, String birthDate, String address,
-                     String department, String startDate, String endDate, byte[] photo) {
+                     String department, String startDate, String endDate, String photoHash) {
         this.farmerName = farmerName != null ? farmerName.trim() : "";
         this.contractNumber = contractNumber != null ? contractNumber.trim() : "";
         
@@ -46,7 +46,7 @@ public class FarmerInfo {
         this.department = department != null ? department.trim() : "";
         this.startDate = startDate != null ? startDate.trim() : "";
         this.endDate = endDate != null ? endDate.trim() : "";
-        this.photo = photo; // 可以为null
+        this.photoHash = photoHash; // 可以为null
     }
 
     /**
@@ -62,9 +62,9 @@ public class FarmerInfo {
     public static FarmerInfo createWithIdCard(String farmerName, String contractNumber, 
                                             String idCardNumber, String gender, String nationality, 
                                             String birthDate, String address, String department, 
-                                            String startDate, String endDate, byte[] photo) {
+                                            String startDate, String endDate, String photoHash) {
         return new FarmerInfo(farmerName, contractNumber, idCardNumber, gender, nationality, 
-                            birthDate, address, department, startDate, endDate, photo);
+                            birthDate, address, department, startDate, endDate, photoHash);
     }
 
     /**
@@ -162,8 +162,11 @@ public class FarmerInfo {
         return endDate;
     }
 
-    public byte[] getPhoto() {
-        return photo; // 返回引用，调用者应该不修改
+    /**
+     * 照片在 PhotoStore 中的内容哈希，无照片时为 null
+     */
+    public String getPhotoHash() {
+        return photoHash;
     }
 
     @Override
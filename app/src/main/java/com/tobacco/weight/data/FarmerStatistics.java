@@ -47,10 +47,10 @@ public class FarmerStatistics {
     public static FarmerStatistics createWithFullInfo(String farmerName, String contractNumber, 
                                                     String idCardNumber, String gender, String nationality, 
                                                     String birthDate, String address, String department, 
-                                                    String startDate, String endDate, byte[] photo) {
+                                                    String startDate, String endDate, String photoHash) {
         FarmerInfo farmerInfo = FarmerInfo.createWithIdCard(farmerName, contractNumber, idCardNumber, 
                                                           gender, nationality, birthDate, address, 
-                                                          department, startDate, endDate, photo);
+                                                          department, startDate, endDate, photoHash);
         return new FarmerStatistics(farmerInfo);
     }
 
@@ -222,10 +222,10 @@ public class FarmerStatistics {
     }
 
     /**
-     * 获取照片
+     * 获取照片哈希
      */
-    public byte[] getPhoto() {
-        return farmerInfo.getPhoto();
+    public String getPhotoHash() {
+        return farmerInfo.getPhotoHash();
     }
     
     /**
@@ -0,0 +1,96 @@
+package com.tobacco.weight.data.dao;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.tobacco.weight.data.database.FarmerAggregateTriggers;
+import com.tobacco.weight.data.entity.FarmerAggregateEntity;
+
+import java.util.List;
+
+/**
+ * 农户汇总数据访问接口
+ *
+ * 汇总行由 weight_records 上的触发器维护，这里只提供读取、重建和校验用的查询
+ */
+@Dao
+public interface FarmerAggregateDao {
+
+    String FARMER_TOTAL_COLUMNS = "id_card_number, " +
+           "SUM(record_count) AS record_count, SUM(total_bundles) AS total_bundles, " +
+           "SUM(total_weight) AS total_weight, " +
+           "SUM(upper_bundles) AS upper_bundles, SUM(upper_weight) AS upper_weight, " +
+           "SUM(middle_bundles) AS middle_bundles, SUM(middle_weight) AS middle_weight, " +
+           "SUM(lower_bundles) AS lower_bundles, SUM(lower_weight) AS lower_weight, " +
+           "SUM(upper_part_count) AS upper_part_count, SUM(upper_part_weight) AS upper_part_weight, " +
+           "SUM(middle_part_count) AS middle_part_count, SUM(middle_part_weight) AS middle_part_weight, " +
+           "SUM(lower_part_count) AS lower_part_count, SUM(lower_part_weight) AS lower_part_weight, " +
+           "MAX(last_timestamp) AS last_timestamp ";
+
+    /**
+     * 获取所有农户的汇总统计（每个农户按天汇总行求和）
+     */
+    @Query("SELECT " + FARMER_TOTAL_COLUMNS +
+           "FROM farmer_aggregates WHERE id_card_number != '' GROUP BY id_card_number")
+    List<FarmerRecordSummary> getAllFarmerSummaries();
+
+    /**
+     * 获取指定农户的汇总统计
+     */
+    @Query("SELECT " + FARMER_TOTAL_COLUMNS +
+           "FROM farmer_aggregates WHERE id_card_number = :idCardNumber")
+    FarmerRecordSummary getFarmerSummary(String idCardNumber);
+
+    /**
+     * 获取指定农户在日期范围内（北京时间 yyyyMMdd，含两端）的按天汇总
+     */
+    @Query("SELECT * FROM farmer_aggregates WHERE id_card_number = :idCardNumber " +
+           "AND day BETWEEN :startDay AND :endDay ORDER BY day")
+    List<FarmerAggregateEntity> getFarmerDailyAggregates(String idCardNumber, int startDay, int endDay);
+
+    /**
+     * 获取称重记录总数
+     */
+    @Query("SELECT COALESCE(SUM(record_count), 0) FROM farmer_aggregates")
+    int getTotalRecordCount();
+
+    /**
+     * 获取所有记录的总重量
+     */
+    @Query("SELECT COALESCE(SUM(total_weight), 0.0) FROM farmer_aggregates")
+    double getTotalWeight();
+
+    /**
+     * 获取所有记录的总捆数
+     */
+    @Query("SELECT COALESCE(SUM(total_bundles), 0) FROM farmer_aggregates")
+    int getTotalLeafCount();
+
+    /**
+     * 获取全部汇总行（校验使用）
+     */
+    @Query("SELECT * FROM farmer_aggregates")
+    List<FarmerAggregateEntity> getAll();
+
+    /**
+     * 从原始称重记录重新计算汇总行（不写入）
+     */
+    @Query(FarmerAggregateTriggers.AGGREGATE_SELECT)
+    List<FarmerAggregateEntity> computeFromRecords();
+
+    @Query("DELETE FROM farmer_aggregates")
+    void deleteAll();
+
+    @Query("INSERT INTO farmer_aggregates " + FarmerAggregateTriggers.AGGREGATE_SELECT)
+    void insertFromRecords();
+
+    /**
+     * 用原始称重记录重建汇总表
+     */
+    @Transaction
+    default void rebuild() {
+        deleteAll();
+        insertFromRecords();
+    }
+}
@@ -6,6 +6,7 @@ import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 
 import com.tobacco.weight.data.entity.FarmerInfoEntity;
@@ -32,10 +33,28 @@ public interface FarmerInfoDao {
 
     /**
      * 插入新的烟农信息（替换冲突，更新现有信息）
-     * 如果身份证号已存在，则替换原有记录
+     * 如果身份证号已存在，则沿用原记录的 id 替换原有记录，全文索引按 id 同步
+     */
+    @Transaction
+    default long insertReplace(FarmerInfoEntity farmerInfo) {
+        Long existingId = getIdByIdCard(farmerInfo.getIdCardNumber());
+        if (existingId != null) {
+            farmerInfo.setId(existingId);
+        }
+        return replace(farmerInfo);
+    }
+
+    /**
+     * 按主键插入或替换烟农信息
      */
     @Insert(onConflict = OnConflictStrategy.REPLACE)
-    long insertReplace(FarmerInfoEntity farmerInfo);
+    long replace(FarmerInfoEntity farmerInfo);
+
+    /**
+     * 根据身份证号查询烟农 id
+     */
+    @Query("SELECT id FROM farmer_info WHERE id_card_number = :idCardNumber")
+    Long getIdByIdCard(String idCardNumber);
 
     /**
      * 更新烟农信息
@@ -139,6 +158,18 @@ public interface FarmerInfoDao {
     @Query("DELETE FROM farmer_info")
     int deleteAll();
 
+    /**
+     * 全部照片哈希（清理无引用的照片文件）
+     */
+    @Query("SELECT DISTINCT photo_hash FROM farmer_info WHERE photo_hash IS NOT NULL")
+    List<String> getPhotoHashes();
+
+    /**
+     * 补上照片哈希（迁移暂存的照片导入后调用，已有照片时不覆盖）
+     */
+    @Query("UPDATE farmer_info SET photo_hash = :photoHash WHERE id = :id AND photo_hash IS NULL")
+    int setPhotoHashIfMissing(long id, String photoHash);
+
     /**
      * 获取所有身份证号列表（用于统计）
      */
@@ -164,10 +195,12 @@ public interface FarmerInfoDao {
     boolean validateFarmerIdentity(String farmerName, String idCardNumber);
 
     /**
-     * 根据姓名搜索农户（模糊查询）
+     * 根据姓名搜索农户（全文检索，参数为 FtsQuery 生成的 MATCH 表达式）
      */
-    @Query("SELECT * FROM farmer_info WHERE farmer_name LIKE '%' || :searchQuery || '%' AND is_active = 1 ORDER BY farmer_name")
-    LiveData<List<FarmerInfoEntity>> searchFarmersByName(String searchQuery);
+    @Query("SELECT * FROM farmer_info WHERE id IN " +
+           "(SELECT -rowid FROM search_index WHERE search_index MATCH :match AND rowid < 0) " +
+           "AND is_active = 1 ORDER BY farmer_name")
+    LiveData<List<FarmerInfoEntity>> searchFarmersByName(String match);
 
     /**
      * 获取激活农户数量
@@ -0,0 +1,65 @@
+package com.tobacco.weight.data.dao;
+
+import androidx.room.ColumnInfo;
+
+/**
+ * 农户称重记录汇总（按身份证号分组的单次聚合结果）
+ * 一次扫描即可得到记录数、捆数、重量、各部叶数据和最近称重时间
+ */
+public class FarmerRecordSummary {
+
+    @ColumnInfo(name = "id_card_number")
+    public String idCardNumber;
+
+    @ColumnInfo(name = "record_count")
+    public int recordCount;          // 记录数
+
+    @ColumnInfo(name = "total_bundles")
+    public int totalBundles;         // 总捆数
+
+    @ColumnInfo(name = "total_weight")
+    public double totalWeight;       // 总重量(kg)
+
+    // 各部叶捆数/重量（来自分部位字段）
+    @ColumnInfo(name = "upper_bundles")
+    public int upperBundles;
+
+    @ColumnInfo(name = "upper_weight")
+    public double upperWeight;
+
+    @ColumnInfo(name = "middle_bundles")
+    public int middleBundles;
+
+    @ColumnInfo(name = "middle_weight")
+    public double middleWeight;
+
+    @ColumnInfo(name = "lower_bundles")
+    public int lowerBundles;
+
+    @ColumnInfo(name = "lower_weight")
+    public double lowerWeight;
+
+    // 按主要部位分类的记录数/重量
+    @ColumnInfo(name = "upper_part_count")
+    public int upperPartCount;
+
+    @ColumnInfo(name = "upper_part_weight")
+    public double upperPartWeight;
+
+    @ColumnInfo(name = "middle_part_count")
+    public int middlePartCount;
+
+    @ColumnInfo(name = "middle_part_weight")
+    public double middlePartWeight;
+
+    @ColumnInfo(name = "lower_part_count")
+    public int lowerPartCount;
+
+    @ColumnInfo(name = "lower_part_weight")
+    public double lowerPartWeight;
+
+    @ColumnInfo(name = "last_timestamp")
+    public Long lastTimestamp;       // 最近称重时间，无记录时为 null
+
+    public FarmerRecordSummary() {}
+}
@@ -0,0 +1,122 @@
+package com.tobacco.weight.data.dao;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+
+import com.tobacco.weight.data.entity.PrintJobEntity;
+
+import java.util.List;
+
+/**
+ * 打印队列数据访问接口
+ *
+ * 只由 PrintSpooler 使用：提交线程写入任务，打印机写线程取任务并更新状态
+ */
+@Dao
+public interface PrintJobDao {
+
+    /**
+     * 写入新任务
+     */
+    @Insert
+    long insert(PrintJobEntity job);
+
+    /**
+     * 根据ID获取任务
+     */
+    @Query("SELECT * FROM print_jobs WHERE id = :id")
+    PrintJobEntity getJobById(long id);
+
+    /**
+     * 获取下一个可执行的任务：优先级高的先打，同优先级按提交顺序；跳过仍在退避中的任务
+     *
+     * @param jobTypes 打印机当前能打印的任务类型，其他类型留在队列中
+     */
+    @Query("SELECT * FROM print_jobs WHERE printer_id = :printerId AND status = 'PENDING' " +
+           "AND job_type IN (:jobTypes) AND next_attempt_time <= :now ORDER BY priority, id LIMIT 1")
+    PrintJobEntity getNextDueJob(String printerId, List<String> jobTypes, long now);
+
+    /**
+     * 指定类型的等待中任务的最早可执行时间，没有返回 null
+     */
+    @Query("SELECT MIN(next_attempt_time) FROM print_jobs " +
+           "WHERE printer_id = :printerId AND status = 'PENDING' AND job_type IN (:jobTypes)")
+    Long getNextAttemptTime(String printerId, List<String> jobTypes);
+
+    /**
+     * 标记为正在打印
+     */
+    @Query("UPDATE print_jobs SET status = 'PRINTING', attempts = attempts + 1, update_time = :now " +
+           "WHERE id = :id AND status = 'PENDING'")
+    int markPrinting(long id, long now);
+
+    /**
+     * 标记为打印完成
+     */
+    @Query("UPDATE print_jobs SET status = 'DONE', last_error = NULL, update_time = :now WHERE id = :id")
+    void markDone(long id, long now);
+
+    /**
+     * 打印失败，等待到 nextAttemptTime 后重试
+     */
+    @Query("UPDATE print_jobs SET status = 'PENDING', next_attempt_time = :nextAttemptTime, " +
+           "last_error = :error, update_time = :now WHERE id = :id")
+    void scheduleRetry(long id, long nextAttemptTime, String error, long now);
+
+    /**
+     * 打印机故障（缺纸、开盖等）导致失败：放回队列等待恢复，本次不计入尝试次数
+     */
+    @Query("UPDATE print_jobs SET status = 'PENDING', attempts = MAX(attempts - 1, 0), next_attempt_time = 0, " +
+           "last_error = :error, update_time = :now WHERE id = :id")
+    void holdForPrinter(long id, String error, long now);
+
+    /**
+     * 打印失败且不再重试
+     */
+    @Query("UPDATE print_jobs SET status = 'FAILED', last_error = :error, update_time = :now WHERE id = :id")
+    void markFailed(long id, String error, long now);
+
+    /**
+     * 取消尚未开始打印的任务
+     *
+     * @return 1 表示已取消，0 表示任务不存在或已开始打印
+     */
+    @Query("UPDATE print_jobs SET status = 'CANCELLED', update_time = :now " +
+           "WHERE id = :id AND status = 'PENDING'")
+    int cancel(long id, long now);
+
+    /**
+     * 重新提交失败的任务（重置尝试次数）
+     */
+    @Query("UPDATE print_jobs SET status = 'PENDING', attempts = 0, next_attempt_time = 0, " +
+           "update_time = :now WHERE id = :id AND status = 'FAILED'")
+    int resubmit(long id, long now);
+
+    /**
+     * 启动时恢复上次中断的任务（打印过程中程序退出，状态停留在 PRINTING）
+     */
+    @Query("UPDATE print_jobs SET status = 'PENDING', next_attempt_time = 0 " +
+           "WHERE printer_id = :printerId AND status = 'PRINTING'")
+    int requeueInterrupted(String printerId);
+
+    /**
+     * 清理早于指定时间的已完成/已取消任务
+     */
+    @Query("DELETE FROM print_jobs WHERE status IN ('DONE', 'CANCELLED') AND update_time < :before")
+    int deleteFinishedBefore(long before);
+
+    /**
+     * 观察未完成的任务（等待中和正在打印），按打印顺序
+     */
+    @Query("SELECT * FROM print_jobs WHERE printer_id = :printerId AND status IN ('PENDING', 'PRINTING') " +
+           "ORDER BY status = 'PENDING', priority, id")
+    LiveData<List<PrintJobEntity>> observeActiveJobs(String printerId);
+
+    /**
+     * 观察打印失败的任务，最新的在前
+     */
+    @Query("SELECT * FROM print_jobs WHERE printer_id = :printerId AND status = 'FAILED' ORDER BY id DESC")
+    LiveData<List<PrintJobEntity>> observeFailedJobs(String printerId);
+}
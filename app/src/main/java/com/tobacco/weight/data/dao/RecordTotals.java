@@ -0,0 +1,20 @@
+package com.tobacco.weight.data.dao;
+
+import androidx.room.ColumnInfo;
+
+/**
+ * 称重记录筛选结果汇总（记录数、总重量、总金额）
+ */
+public class RecordTotals {
+
+    @ColumnInfo(name = "record_count")
+    public int recordCount;          // 记录数
+
+    @ColumnInfo(name = "total_weight")
+    public double totalWeight;       // 总重量(kg)
+
+    @ColumnInfo(name = "total_amount")
+    public double totalAmount;       // 总金额
+
+    public RecordTotals() {}
+}
@@ -0,0 +1,17 @@
+package com.tobacco.weight.data.dao;
+
+import androidx.room.ColumnInfo;
+
+/**
+ * 全文检索候选（docid + matchinfo，用于排序）
+ */
+public class SearchCandidate {
+
+    @ColumnInfo(name = "doc_id")
+    public long docId;               // 负数为烟农（-farmer_info.id），正数为称重记录 id
+
+    @ColumnInfo(name = "match_info")
+    public byte[] matchInfo;         // matchinfo(search_index, 'pcnx')
+
+    public SearchCandidate() {}
+}
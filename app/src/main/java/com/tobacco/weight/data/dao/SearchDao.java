@@ -0,0 +1,46 @@
+package com.tobacco.weight.data.dao;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+
+import java.util.List;
+
+/**
+ * 全文检索数据访问接口
+ *
+ * search_index 由触发器维护，这里只提供查询
+ */
+@Dao
+public interface SearchDao {
+
+    /**
+     * 检索烟农和称重记录，返回全部命中的 docid 和 matchinfo
+     * 只取排序所需的两列，在调用方对全部命中打分后再截取前 N 条
+     *
+     * @param match MATCH 表达式（见 FtsQuery）
+     */
+    @Query("SELECT rowid AS doc_id, matchinfo(search_index, 'pcnx') AS match_info " +
+           "FROM search_index WHERE search_index MATCH :match")
+    List<SearchCandidate> match(String match);
+
+    /**
+     * 只检索烟农
+     */
+    @Query("SELECT rowid AS doc_id, matchinfo(search_index, 'pcnx') AS match_info " +
+           "FROM search_index WHERE search_index MATCH :match AND rowid < 0")
+    List<SearchCandidate> matchFarmers(String match);
+
+    /**
+     * 只检索称重记录
+     */
+    @Query("SELECT rowid AS doc_id, matchinfo(search_index, 'pcnx') AS match_info " +
+           "FROM search_index WHERE search_index MATCH :match AND rowid > 0")
+    List<SearchCandidate> matchRecords(String match);
+
+    /**
+     * 按 docid 取出排序后入选条目的内容
+     */
+    @Query("SELECT rowid AS doc_id, farmer_name, id_card_number, pre_check_number, contract_number, " +
+           "record_number, address FROM search_index WHERE rowid IN (:docIds)")
+    List<SearchMatch> getByDocIds(List<Long> docIds);
+}
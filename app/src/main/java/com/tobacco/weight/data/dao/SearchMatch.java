@@ -0,0 +1,32 @@
+package com.tobacco.weight.data.dao;
+
+import androidx.room.ColumnInfo;
+
+/**
+ * 全文检索命中行（search_index 的列）
+ */
+public class SearchMatch {
+
+    @ColumnInfo(name = "doc_id")
+    public long docId;               // 负数为烟农（-farmer_info.id），正数为称重记录 id
+
+    @ColumnInfo(name = "farmer_name")
+    public String farmerName;
+
+    @ColumnInfo(name = "id_card_number")
+    public String idCardNumber;
+
+    @ColumnInfo(name = "pre_check_number")
+    public String preCheckNumber;
+
+    @ColumnInfo(name = "contract_number")
+    public String contractNumber;
+
+    @ColumnInfo(name = "record_number")
+    public String recordNumber;
+
+    @ColumnInfo(name = "address")
+    public String address;
+
+    public SearchMatch() {}
+}
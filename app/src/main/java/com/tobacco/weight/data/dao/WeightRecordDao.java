@@ -1,5 +1,7 @@
 package com.tobacco.weight.data.dao;
 
+import android.database.Cursor;
+
 import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Delete;
@@ -185,6 +187,106 @@ public interface WeightRecordDao {
     @Query("DELETE FROM weight_records")
     int deleteAll();
 
+    // === 键集分页（create_time, id）===
+
+    // 搜索和日期筛选条件；search 为 search_index 的 MATCH 表达式（见 FtsQuery），null 表示不搜索
+    String RECORD_SEARCH_FILTER = "(:search IS NULL OR id IN " +
+           "(SELECT rowid FROM search_index WHERE search_index MATCH :search AND rowid > 0)) " +
+           "AND create_time BETWEEN :startTime AND :endTime ";
+
+    /**
+     * 获取排在 (createTime, id) 之后的一页记录（按时间倒序）
+     */
+    @Query("SELECT * FROM weight_records WHERE " + RECORD_SEARCH_FILTER +
+           "AND (create_time < :createTime OR (create_time = :createTime AND id < :id)) " +
+           "ORDER BY create_time DESC, id DESC LIMIT :limit")
+    List<WeightRecord> getRecordsPageAfter(String search, long startTime, long endTime,
+                                           long createTime, long id, int limit);
+
+    /**
+     * 获取排在 (createTime, id) 之前的一页记录（按时间正序返回，由调用方反转）
+     */
+    @Query("SELECT * FROM weight_records WHERE " + RECORD_SEARCH_FILTER +
+           "AND (create_time > :createTime OR (create_time = :createTime AND id > :id)) " +
+           "ORDER BY create_time ASC, id ASC LIMIT :limit")
+    List<WeightRecord> getRecordsPageBefore(String search, long startTime, long endTime,
+                                            long createTime, long id, int limit);
+
+    /**
+     * 获取指定农户排在 (createTime, id) 之后的一页记录（按时间倒序）
+     */
+    @Query("SELECT * FROM weight_records WHERE id_card_number = :idCardNumber " +
+           "AND (create_time < :createTime OR (create_time = :createTime AND id < :id)) " +
+           "ORDER BY create_time DESC, id DESC LIMIT :limit")
+    List<WeightRecord> getRecordsByIdCardPageAfter(String idCardNumber, long createTime, long id, int limit);
+
+    /**
+     * 获取指定农户排在 (createTime, id) 之前的一页记录（按时间正序返回，由调用方反转）
+     */
+    @Query("SELECT * FROM weight_records WHERE id_card_number = :idCardNumber " +
+           "AND (create_time > :createTime OR (create_time = :createTime AND id > :id)) " +
+           "ORDER BY create_time ASC, id ASC LIMIT :limit")
+    List<WeightRecord> getRecordsByIdCardPageBefore(String idCardNumber, long createTime, long id, int limit);
+
+    /**
+     * 获取筛选条件下的记录数、总重量和总金额
+     */
+    @Query("SELECT COUNT(*) AS record_count, COALESCE(SUM(weight), 0.0) AS total_weight, " +
+           "COALESCE(SUM(total_amount), 0.0) AS total_amount " +
+           "FROM weight_records WHERE " + RECORD_SEARCH_FILTER)
+    RecordTotals getFilteredTotals(String search, long startTime, long endTime);
+
+    // === 流式导出 ===
+
+    // 导出列（与 DataExportUtils 的CSV表头一一对应）
+    String EXPORT_COLUMNS = "record_number, farmer_name, id_card_number, primary_tobacco_part, " +
+           "total_bundles, weight, pre_check_number, operator_name, warehouse_number, create_time, status";
+
+    /**
+     * 以游标方式读取全部记录用于导出（调用方负责关闭游标）
+     */
+    @Query("SELECT " + EXPORT_COLUMNS + " FROM weight_records ORDER BY create_time DESC, id DESC")
+    Cursor queryAllRecordsForExport();
+
+    /**
+     * 以游标方式读取指定烟农的记录用于导出（调用方负责关闭游标）
+     */
+    @Query("SELECT " + EXPORT_COLUMNS + " FROM weight_records WHERE farmer_name = :farmerName " +
+           "ORDER BY create_time DESC, id DESC")
+    Cursor queryRecordsForExportByFarmerName(String farmerName);
+
+    // === 单次聚合：农户汇总统计 ===
+
+    String FARMER_SUMMARY_COLUMNS = "id_card_number, " +
+           "COUNT(*) AS record_count, " +
+           "COALESCE(SUM(total_bundles), 0) AS total_bundles, " +
+           "COALESCE(SUM(weight), 0.0) AS total_weight, " +
+           "COALESCE(SUM(upper_leaf_bundles), 0) AS upper_bundles, COALESCE(SUM(upper_leaf_weight), 0.0) AS upper_weight, " +
+           "COALESCE(SUM(middle_leaf_bundles), 0) AS middle_bundles, COALESCE(SUM(middle_leaf_weight), 0.0) AS middle_weight, " +
+           "COALESCE(SUM(lower_leaf_bundles), 0) AS lower_bundles, COALESCE(SUM(lower_leaf_weight), 0.0) AS lower_weight, " +
+           "SUM(CASE WHEN primary_tobacco_part = '上部叶' THEN 1 ELSE 0 END) AS upper_part_count, " +
+           "SUM(CASE WHEN primary_tobacco_part = '上部叶' THEN total_weight ELSE 0.0 END) AS upper_part_weight, " +
+           "SUM(CASE WHEN primary_tobacco_part = '中部叶' THEN 1 ELSE 0 END) AS middle_part_count, " +
+           "SUM(CASE WHEN primary_tobacco_part = '中部叶' THEN total_weight ELSE 0.0 END) AS middle_part_weight, " +
+           "SUM(CASE WHEN primary_tobacco_part = '下部叶' THEN 1 ELSE 0 END) AS lower_part_count, " +
+           "SUM(CASE WHEN primary_tobacco_part = '下部叶' THEN total_weight ELSE 0.0 END) AS lower_part_weight, " +
+           "MAX(timestamp) AS last_timestamp ";
+
+    /**
+     * 一次扫描获取所有农户的汇总统计（按身份证号分组）
+     */
+    @Query("SELECT " + FARMER_SUMMARY_COLUMNS +
+           "FROM weight_records WHERE id_card_number IS NOT NULL AND id_card_number != '' " +
+           "GROUP BY id_card_number")
+    List<FarmerRecordSummary> getAllFarmerSummaries();
+
+    /**
+     * 一次查询获取指定农户的汇总统计
+     */
+    @Query("SELECT " + FARMER_SUMMARY_COLUMNS +
+           "FROM weight_records WHERE id_card_number = :idCardNumber")
+    FarmerRecordSummary getFarmerSummary(String idCardNumber);
+
     // === 新增：详细烟叶分级数据查询方法 ===
     
     /**
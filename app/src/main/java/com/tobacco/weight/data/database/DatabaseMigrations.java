@@ -0,0 +1,320 @@
+package com.tobacco.weight.data.database;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * 数据库版本迁移
+ * 每次升级表结构都必须在此添加对应的 Migration，保证收购季数据不丢失。
+ * 各版本的表结构见 app/schemas 目录下导出的 JSON。
+ */
+public final class DatabaseMigrations {
+
+    private DatabaseMigrations() {
+    }
+
+    /**
+     * v1 → v2：新增烟农信息表
+     */
+    public static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `farmer_info` (" +
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`farmer_name` TEXT, `contract_number` TEXT, `id_card_number` TEXT, " +
+                    "`gender` TEXT, `nationality` TEXT, `birth_date` TEXT, `address` TEXT, " +
+                    "`department` TEXT, `start_date` TEXT, `end_date` TEXT, `photo` BLOB, " +
+                    "`create_time` INTEGER, `update_time` INTEGER, `first_record_time` INTEGER, " +
+                    "`is_active` INTEGER NOT NULL, `remark` TEXT)");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_farmer_info_id_card_number` " +
+                    "ON `farmer_info` (`id_card_number`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_farmer_info_farmer_name` " +
+                    "ON `farmer_info` (`farmer_name`)");
+        }
+    };
+
+    /**
+     * v2 → v3：称重记录由单一部位改为上/中/下部叶独立存储
+     * 原 tobacco_part / tobacco_bundles / weight 按部位写入对应列
+     */
+    public static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `weight_records_new` (" +
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`record_number` TEXT, `farmer_name` TEXT, `id_card_number` TEXT, " +
+                    "`farmer_address` TEXT, `farmer_gender` TEXT, " +
+                    "`upper_leaf_bundles` INTEGER NOT NULL, `upper_leaf_weight` REAL NOT NULL, " +
+                    "`middle_leaf_bundles` INTEGER NOT NULL, `middle_leaf_weight` REAL NOT NULL, " +
+                    "`lower_leaf_bundles` INTEGER NOT NULL, `lower_leaf_weight` REAL NOT NULL, " +
+                    "`total_bundles` INTEGER NOT NULL, `total_weight` REAL NOT NULL, " +
+                    "`primary_tobacco_part` TEXT, `weight` REAL NOT NULL, `total_amount` REAL NOT NULL, " +
+                    "`create_time` INTEGER, `timestamp` INTEGER NOT NULL, `qr_code` TEXT, " +
+                    "`operator_name` TEXT, `warehouse_number` TEXT, `pre_check_number` TEXT, " +
+                    "`status` TEXT, `tobacco_grade` TEXT, `purchase_price` REAL NOT NULL, " +
+                    "`moisture_content` REAL NOT NULL, `impurity_rate` REAL NOT NULL, `remark` TEXT, " +
+                    "`update_time` INTEGER, `is_printed` INTEGER NOT NULL, `print_count` INTEGER NOT NULL, " +
+                    "`is_exported` INTEGER NOT NULL)");
+            db.execSQL("INSERT INTO `weight_records_new` (" +
+                    "`id`, `record_number`, `farmer_name`, `id_card_number`, `farmer_address`, `farmer_gender`, " +
+                    "`upper_leaf_bundles`, `upper_leaf_weight`, `middle_leaf_bundles`, `middle_leaf_weight`, " +
+                    "`lower_leaf_bundles`, `lower_leaf_weight`, `total_bundles`, `total_weight`, " +
+                    "`primary_tobacco_part`, `weight`, `total_amount`, `create_time`, `timestamp`, `qr_code`, " +
+                    "`operator_name`, `warehouse_number`, `pre_check_number`, `status`, `tobacco_grade`, " +
+                    "`purchase_price`, `moisture_content`, `impurity_rate`, `remark`, `update_time`, " +
+                    "`is_printed`, `print_count`, `is_exported`) " +
+                    "SELECT `id`, `record_number`, `farmer_name`, `id_card_number`, `farmer_address`, `farmer_gender`, " +
+                    "CASE WHEN `tobacco_part` = '上部叶' THEN `tobacco_bundles` ELSE 0 END, " +
+                    "CASE WHEN `tobacco_part` = '上部叶' THEN `weight` ELSE 0.0 END, " +
+                    "CASE WHEN `tobacco_part` = '中部叶' THEN `tobacco_bundles` ELSE 0 END, " +
+                    "CASE WHEN `tobacco_part` = '中部叶' THEN `weight` ELSE 0.0 END, " +
+                    "CASE WHEN `tobacco_part` = '下部叶' THEN `tobacco_bundles` ELSE 0 END, " +
+                    "CASE WHEN `tobacco_part` = '下部叶' THEN `weight` ELSE 0.0 END, " +
+                    "`tobacco_bundles`, `weight`, " +
+                    "`tobacco_part`, `weight`, `total_amount`, `create_time`, `timestamp`, `qr_code`, " +
+                    "`operator_name`, `warehouse_number`, `pre_check_number`, `status`, `tobacco_grade`, " +
+                    "`purchase_price`, `moisture_content`, `impurity_rate`, `remark`, `update_time`, " +
+                    "`is_printed`, `print_count`, `is_exported` " +
+                    "FROM `weight_records`");
+            db.execSQL("DROP TABLE `weight_records`");
+            db.execSQL("ALTER TABLE `weight_records_new` RENAME TO `weight_records`");
+        }
+    };
+
+    /**
+     * v3 → v4：为称重记录的常用查询路径建立复合索引
+     */
+    public static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            createWeightRecordIndexes(db);
+        }
+    };
+
+    /**
+     * v4 → v5：新增农户按天汇总表，由触发器增量维护，并从现有记录回填
+     */
+    public static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL(FarmerAggregateTriggers.CREATE_TABLE);
+            FarmerAggregateTriggers.create(db);
+            FarmerAggregateTriggers.backfill(db);
+        }
+    };
+
+    /**
+     * v5 → v6：新增烟农/称重记录全文检索表，由触发器同步，并从现有数据回填；烟农表加合同号索引
+     */
+    public static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL(SearchIndexTriggers.CREATE_TABLE);
+            SearchIndexTriggers.create(db);
+            SearchIndexTriggers.backfill(db);
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_farmer_info_contract_number` " +
+                    "ON `farmer_info` (`contract_number`)");
+        }
+    };
+
+    /**
+     * v6 → v7：新增打印队列表
+     */
+    public static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `print_jobs` (" +
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`printer_id` TEXT NOT NULL, `job_type` TEXT NOT NULL, `priority` INTEGER NOT NULL, " +
+                    "`payload` TEXT NOT NULL, `description` TEXT, `status` TEXT NOT NULL, " +
+                    "`attempts` INTEGER NOT NULL, `next_attempt_time` INTEGER NOT NULL, " +
+                    "`last_error` TEXT, `create_time` INTEGER NOT NULL, `update_time` INTEGER NOT NULL)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_print_jobs_printer_id_status_priority_id` " +
+                    "ON `print_jobs` (`printer_id`, `status`, `priority`, `id`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_print_jobs_status_update_time` " +
+                    "ON `print_jobs` (`status`, `update_time`)");
+        }
+    };
+
+    /**
+     * 迁移暂存的烟农照片（v7 → v8），由 PhotoMaintenance 导入 PhotoStore 后删除；没有照片时不建表
+     */
+    public static final String PENDING_PHOTOS_TABLE = "pending_farmer_photos";
+
+    /**
+     * v7 → v8：烟农照片移出数据库，farmer_info 只保存照片哈希（photo BLOB → photo_hash TEXT）
+     * 迁移事务内只把照片原样复制到暂存表，BMP 转 JPEG 和写文件由 PhotoMaintenance 在启动后逐张完成，
+     * 升级时不会因照片多而长时间卡在迁移上
+     */
+    public static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `farmer_info_new` (" +
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`farmer_name` TEXT, `contract_number` TEXT, `id_card_number` TEXT, " +
+                    "`gender` TEXT, `nationality` TEXT, `birth_date` TEXT, `address` TEXT, " +
+                    "`department` TEXT, `start_date` TEXT, `end_date` TEXT, `photo_hash` TEXT, " +
+                    "`create_time` INTEGER, `update_time` INTEGER, `first_record_time` INTEGER, " +
+                    "`is_active` INTEGER NOT NULL, `remark` TEXT)");
+            db.execSQL("INSERT INTO `farmer_info_new` (" +
+                    "`id`, `farmer_name`, `contract_number`, `id_card_number`, `gender`, `nationality`, " +
+                    "`birth_date`, `address`, `department`, `start_date`, `end_date`, " +
+                    "`create_time`, `update_time`, `first_record_time`, `is_active`, `remark`) " +
+                    "SELECT `id`, `farmer_name`, `contract_number`, `id_card_number`, `gender`, `nationality`, " +
+                    "`birth_date`, `address`, `department`, `start_date`, `end_date`, " +
+                    "`create_time`, `update_time`, `first_record_time`, `is_active`, `remark` " +
+                    "FROM `farmer_info`");
+
+            // 照片原样暂存（不解码、不写文件），同一张照片在导入时只存一份
+            boolean hasPhotos;
+            try (Cursor cursor = db.query("SELECT EXISTS (SELECT 1 FROM `farmer_info` WHERE `photo` IS NOT NULL)")) {
+                hasPhotos = cursor.moveToFirst() && cursor.getInt(0) != 0;
+            }
+            if (hasPhotos) {
+                db.execSQL("CREATE TABLE IF NOT EXISTS `" + PENDING_PHOTOS_TABLE + "` (" +
+                        "`farmer_id` INTEGER PRIMARY KEY NOT NULL, `photo` BLOB NOT NULL)");
+                db.execSQL("INSERT INTO `" + PENDING_PHOTOS_TABLE + "` (`farmer_id`, `photo`) " +
+                        "SELECT `id`, `photo` FROM `farmer_info` WHERE `photo` IS NOT NULL");
+            }
+
+            db.execSQL("DROP TABLE `farmer_info`");
+            db.execSQL("ALTER TABLE `farmer_info_new` RENAME TO `farmer_info`");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_farmer_info_id_card_number` " +
+                    "ON `farmer_info` (`id_card_number`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_farmer_info_farmer_name` " +
+                    "ON `farmer_info` (`farmer_name`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_farmer_info_contract_number` " +
+                    "ON `farmer_info` (`contract_number`)");
+            // 删表时 farmer_info 上的全文检索触发器一并删除，重建（id 不变，索引内容无需回填）
+            SearchIndexTriggers.create(db);
+        }
+    };
+
+    /**
+     * v8 → v9：烟农表按 (is_active, create_time) 加索引，烟农缓存启动时读取在册烟农不再全表扫描排序
+     */
+    public static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_farmer_info_is_active_create_time` " +
+                    "ON `farmer_info` (`is_active`, `create_time`)");
+        }
+    };
+
+    /**
+     * v9 → v10：汇总表日期键由设备本地时区改为固定北京时间，重建触发器并按新规则重算汇总
+     */
+    public static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            FarmerAggregateTriggers.create(db);
+            FarmerAggregateTriggers.backfill(db);
+        }
+    };
+
+    /**
+     * v10 → v11：weight_records.create_time 改为 NOT NULL，缺失的创建时间用称重时间戳补齐
+     * 记录列表按 (create_time, id) 游标分页，create_time 为 NULL 的记录会被分页条件漏掉
+     */
+    public static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `weight_records_new` (" +
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`record_number` TEXT, `farmer_name` TEXT, `id_card_number` TEXT, " +
+                    "`farmer_address` TEXT, `farmer_gender` TEXT, " +
+                    "`upper_leaf_bundles` INTEGER NOT NULL, `upper_leaf_weight` REAL NOT NULL, " +
+                    "`middle_leaf_bundles` INTEGER NOT NULL, `middle_leaf_weight` REAL NOT NULL, " +
+                    "`lower_leaf_bundles` INTEGER NOT NULL, `lower_leaf_weight` REAL NOT NULL, " +
+                    "`total_bundles` INTEGER NOT NULL, `total_weight` REAL NOT NULL, " +
+                    "`primary_tobacco_part` TEXT, `weight` REAL NOT NULL, `total_amount` REAL NOT NULL, " +
+                    "`create_time` INTEGER NOT NULL, `timestamp` INTEGER NOT NULL, `qr_code` TEXT, " +
+                    "`operator_name` TEXT, `warehouse_number` TEXT, `pre_check_number` TEXT, " +
+                    "`status` TEXT, `tobacco_grade` TEXT, `purchase_price` REAL NOT NULL, " +
+                    "`moisture_content` REAL NOT NULL, `impurity_rate` REAL NOT NULL, `remark` TEXT, " +
+                    "`update_time` INTEGER, `is_printed` INTEGER NOT NULL, `print_count` INTEGER NOT NULL, " +
+                    "`is_exported` INTEGER NOT NULL)");
+            db.execSQL("INSERT INTO `weight_records_new` (" + WEIGHT_RECORD_COLUMNS + ") " +
+                    "SELECT " + WEIGHT_RECORD_COLUMNS.replace("`create_time`", "COALESCE(`create_time`, `timestamp`)") +
+                    " FROM `weight_records`");
+            // 保留自增序号，已删除记录的 id 不会被重新使用
+            db.execSQL("UPDATE sqlite_sequence SET seq = " +
+                    "(SELECT seq FROM sqlite_sequence WHERE name = 'weight_records') WHERE name = 'weight_records_new'");
+            db.execSQL("DROP TABLE `weight_records`");
+            db.execSQL("ALTER TABLE `weight_records_new` RENAME TO `weight_records`");
+            createWeightRecordIndexes(db);
+            // 删表时 weight_records 上的触发器一并删除，重建（id 和时间戳不变，汇总表和全文索引无需回填）
+            FarmerAggregateTriggers.create(db);
+            SearchIndexTriggers.create(db);
+        }
+    };
+
+    /**
+     * v11 → v12：烟农插入触发器改为按 docid 清理旧条目（不再每次插入全表比对），
+     * 并一次性清除此前 REPLACE 遗留的失效烟农条目
+     */
+    public static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            SearchIndexTriggers.create(db);
+            SearchIndexTriggers.purgeOrphanFarmers(db);
+        }
+    };
+
+    /**
+     * v12 → v13：汇总表触发器回查当天最近记录时间改为按时间范围走索引（不再逐行计算日期），重建触发器
+     */
+    public static final Migration MIGRATION_12_13 = new Migration(12, 13) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            FarmerAggregateTriggers.create(db);
+        }
+    };
+
+    /**
+     * 全部迁移（按版本顺序）
+     */
+    public static final Migration[] ALL = {
+            MIGRATION_1_2,
+            MIGRATION_2_3,
+            MIGRATION_3_4,
+            MIGRATION_4_5,
+            MIGRATION_5_6,
+            MIGRATION_6_7,
+            MIGRATION_7_8,
+            MIGRATION_8_9,
+            MIGRATION_9_10,
+            MIGRATION_10_11,
+            MIGRATION_11_12,
+            MIGRATION_12_13
+    };
+
+    // weight_records 全部列（v3 起）
+    private static final String WEIGHT_RECORD_COLUMNS =
+            "`id`, `record_number`, `farmer_name`, `id_card_number`, `farmer_address`, `farmer_gender`, " +
+            "`upper_leaf_bundles`, `upper_leaf_weight`, `middle_leaf_bundles`, `middle_leaf_weight`, " +
+            "`lower_leaf_bundles`, `lower_leaf_weight`, `total_bundles`, `total_weight`, " +
+            "`primary_tobacco_part`, `weight`, `total_amount`, `create_time`, `timestamp`, `qr_code`, " +
+            "`operator_name`, `warehouse_number`, `pre_check_number`, `status`, `tobacco_grade`, " +
+            "`purchase_price`, `moisture_content`, `impurity_rate`, `remark`, `update_time`, " +
+            "`is_printed`, `print_count`, `is_exported`";
+
+    /**
+     * weight_records 常用查询路径的复合索引（与 WeightRecord 的 @Entity indices 一致）
+     */
+    private static void createWeightRecordIndexes(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_weight_records_id_card_number_primary_tobacco_part_total_weight` " +
+                "ON `weight_records` (`id_card_number`, `primary_tobacco_part`, `total_weight`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_weight_records_id_card_number_timestamp` " +
+                "ON `weight_records` (`id_card_number`, `timestamp`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_weight_records_farmer_name_create_time` " +
+                "ON `weight_records` (`farmer_name`, `create_time`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_weight_records_pre_check_number_create_time` " +
+                "ON `weight_records` (`pre_check_number`, `create_time`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_weight_records_create_time` " +
+                "ON `weight_records` (`create_time`)");
+    }
+}
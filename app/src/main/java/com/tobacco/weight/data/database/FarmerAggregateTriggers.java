@@ -0,0 +1,156 @@
+package com.tobacco.weight.data.database;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * farmer_aggregates 维护触发器
+ * weight_records 的每次插入/更新/删除都在同一事务内把增量写入对应的
+ * （身份证号, 日期）汇总行，汇总表始终与原始记录一致。
+ * Room 不管理触发器，新建数据库（onCreate）和迁移时都需调用 create()。
+ */
+public final class FarmerAggregateTriggers {
+
+    static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS `farmer_aggregates` (" +
+            "`id_card_number` TEXT NOT NULL, `day` INTEGER NOT NULL, " +
+            "`record_count` INTEGER NOT NULL, `total_bundles` INTEGER NOT NULL, `total_weight` REAL NOT NULL, " +
+            "`upper_bundles` INTEGER NOT NULL, `upper_weight` REAL NOT NULL, " +
+            "`middle_bundles` INTEGER NOT NULL, `middle_weight` REAL NOT NULL, " +
+            "`lower_bundles` INTEGER NOT NULL, `lower_weight` REAL NOT NULL, " +
+            "`upper_part_count` INTEGER NOT NULL, `upper_part_weight` REAL NOT NULL, " +
+            "`middle_part_count` INTEGER NOT NULL, `middle_part_weight` REAL NOT NULL, " +
+            "`lower_part_count` INTEGER NOT NULL, `lower_part_weight` REAL NOT NULL, " +
+            "`last_timestamp` INTEGER NOT NULL, " +
+            "PRIMARY KEY(`id_card_number`, `day`))";
+
+    // 日期键按固定的北京时间（UTC+8，无夏令时）计算，不随设备时区/夏令时变化，与 FarmerAggregateEntity.day 一致
+    private static final String DAY_OFFSET = "'+8 hours'";
+
+    private static final long DAY_OFFSET_MS = 8 * 3_600_000L;
+    private static final long DAY_MS = 86_400_000L;
+
+    private static final String DAY_OF_TIMESTAMP =
+            "CAST(strftime('%Y%m%d', timestamp / 1000, 'unixepoch', " + DAY_OFFSET + ") AS INTEGER)";
+
+    /**
+     * 从原始记录计算汇总行（列顺序与表一致，rebuild 与 verify 共用）
+     */
+    public static final String AGGREGATE_SELECT = "SELECT " +
+            "COALESCE(id_card_number, '') AS id_card_number, " +
+            DAY_OF_TIMESTAMP + " AS day, " +
+            "COUNT(*) AS record_count, " +
+            "SUM(total_bundles) AS total_bundles, SUM(weight) AS total_weight, " +
+            "SUM(upper_leaf_bundles) AS upper_bundles, SUM(upper_leaf_weight) AS upper_weight, " +
+            "SUM(middle_leaf_bundles) AS middle_bundles, SUM(middle_leaf_weight) AS middle_weight, " +
+            "SUM(lower_leaf_bundles) AS lower_bundles, SUM(lower_leaf_weight) AS lower_weight, " +
+            "SUM(CASE WHEN primary_tobacco_part = '上部叶' THEN 1 ELSE 0 END) AS upper_part_count, " +
+            "SUM(CASE WHEN primary_tobacco_part = '上部叶' THEN total_weight ELSE 0.0 END) AS upper_part_weight, " +
+            "SUM(CASE WHEN primary_tobacco_part = '中部叶' THEN 1 ELSE 0 END) AS middle_part_count, " +
+            "SUM(CASE WHEN primary_tobacco_part = '中部叶' THEN total_weight ELSE 0.0 END) AS middle_part_weight, " +
+            "SUM(CASE WHEN primary_tobacco_part = '下部叶' THEN 1 ELSE 0 END) AS lower_part_count, " +
+            "SUM(CASE WHEN primary_tobacco_part = '下部叶' THEN total_weight ELSE 0.0 END) AS lower_part_weight, " +
+            "MAX(timestamp) AS last_timestamp " +
+            "FROM weight_records GROUP BY 1, 2";
+
+    private FarmerAggregateTriggers() {
+    }
+
+    /**
+     * 创建（或重建）全部触发器
+     */
+    public static void create(SupportSQLiteDatabase db) {
+        db.execSQL("DROP TRIGGER IF EXISTS `farmer_aggregates_after_insert`");
+        db.execSQL("DROP TRIGGER IF EXISTS `farmer_aggregates_after_update`");
+        db.execSQL("DROP TRIGGER IF EXISTS `farmer_aggregates_after_delete`");
+
+        db.execSQL("CREATE TRIGGER `farmer_aggregates_after_insert` AFTER INSERT ON `weight_records` BEGIN " +
+                addRow("NEW") +
+                "END");
+        db.execSQL("CREATE TRIGGER `farmer_aggregates_after_update` AFTER UPDATE OF " +
+                "`id_card_number`, `timestamp`, `total_bundles`, `weight`, `total_weight`, " +
+                "`upper_leaf_bundles`, `upper_leaf_weight`, `middle_leaf_bundles`, `middle_leaf_weight`, " +
+                "`lower_leaf_bundles`, `lower_leaf_weight`, `primary_tobacco_part` " +
+                "ON `weight_records` BEGIN " +
+                removeRow("OLD") +
+                addRow("NEW") +
+                "END");
+        db.execSQL("CREATE TRIGGER `farmer_aggregates_after_delete` AFTER DELETE ON `weight_records` BEGIN " +
+                removeRow("OLD") +
+                "END");
+    }
+
+    /**
+     * 用原始记录完整重建汇总表（迁移回填、日期键规则变更时使用）
+     */
+    static void backfill(SupportSQLiteDatabase db) {
+        db.execSQL("DELETE FROM `farmer_aggregates`");
+        db.execSQL("INSERT INTO `farmer_aggregates` " + AGGREGATE_SELECT);
+    }
+
+    private static String dayOf(String timestampExpr) {
+        return "CAST(strftime('%Y%m%d', " + timestampExpr + " / 1000, 'unixepoch', " + DAY_OFFSET + ") AS INTEGER)";
+    }
+
+    /**
+     * 某烟农当天（timestampExpr 所在的北京时间日期）最近一条记录的时间，没有记录时为 0
+     * 按毫秒时间范围而不是 dayOf() 比较，可走 (id_card_number, timestamp) 索引，不扫描全表
+     */
+    static String latestTimestamp(String idCardExpr, String timestampExpr) {
+        String dayStart = "((" + timestampExpr + " + " + DAY_OFFSET_MS + ") / " + DAY_MS + " * " + DAY_MS +
+                " - " + DAY_OFFSET_MS + ")";
+        return "SELECT COALESCE(MAX(timestamp), 0) FROM weight_records " +
+                "WHERE id_card_number IS " + idCardExpr + " " +
+                "AND timestamp >= " + dayStart + " AND timestamp < " + dayStart + " + " + DAY_MS;
+    }
+
+    private static String keyOf(String row) {
+        return "id_card_number = COALESCE(" + row + ".id_card_number, '') AND day = " +
+                dayOf(row + ".timestamp");
+    }
+
+    private static String partCount(String row, String part) {
+        return "CASE WHEN " + row + ".primary_tobacco_part = '" + part + "' THEN 1 ELSE 0 END";
+    }
+
+    private static String partWeight(String row, String part) {
+        return "CASE WHEN " + row + ".primary_tobacco_part = '" + part + "' THEN " +
+                row + ".total_weight ELSE 0.0 END";
+    }
+
+    private static String applyDelta(String row, String sign) {
+        return "record_count = record_count " + sign + " 1, " +
+                "total_bundles = total_bundles " + sign + " " + row + ".total_bundles, " +
+                "total_weight = total_weight " + sign + " " + row + ".weight, " +
+                "upper_bundles = upper_bundles " + sign + " " + row + ".upper_leaf_bundles, " +
+                "upper_weight = upper_weight " + sign + " " + row + ".upper_leaf_weight, " +
+                "middle_bundles = middle_bundles " + sign + " " + row + ".middle_leaf_bundles, " +
+                "middle_weight = middle_weight " + sign + " " + row + ".middle_leaf_weight, " +
+                "lower_bundles = lower_bundles " + sign + " " + row + ".lower_leaf_bundles, " +
+                "lower_weight = lower_weight " + sign + " " + row + ".lower_leaf_weight, " +
+                "upper_part_count = upper_part_count " + sign + " (" + partCount(row, "上部叶") + "), " +
+                "upper_part_weight = upper_part_weight " + sign + " (" + partWeight(row, "上部叶") + "), " +
+                "middle_part_count = middle_part_count " + sign + " (" + partCount(row, "中部叶") + "), " +
+                "middle_part_weight = middle_part_weight " + sign + " (" + partWeight(row, "中部叶") + "), " +
+                "lower_part_count = lower_part_count " + sign + " (" + partCount(row, "下部叶") + "), " +
+                "lower_part_weight = lower_part_weight " + sign + " (" + partWeight(row, "下部叶") + ")";
+    }
+
+    private static String addRow(String row) {
+        return "INSERT OR IGNORE INTO farmer_aggregates VALUES (COALESCE(" + row + ".id_card_number, ''), " +
+                dayOf(row + ".timestamp") + ", 0, 0, 0.0, 0, 0.0, 0, 0.0, 0, 0.0, 0, 0.0, 0, 0.0, 0, 0.0, 0); " +
+                "UPDATE farmer_aggregates SET " + applyDelta(row, "+") + ", " +
+                "last_timestamp = MAX(last_timestamp, " + row + ".timestamp) " +
+                "WHERE " + keyOf(row) + "; ";
+    }
+
+    private static String removeRow(String row) {
+        // 删除的正好是当天最近一条时才需要回查最近时间；身份证号为 NULL 和 '' 的记录汇总在同一行，两者都要查
+        String timestamp = row + ".timestamp";
+        return "UPDATE farmer_aggregates SET " + applyDelta(row, "-") + ", " +
+                "last_timestamp = CASE WHEN last_timestamp > " + timestamp + " THEN last_timestamp " +
+                "WHEN COALESCE(" + row + ".id_card_number, '') = '' THEN MAX((" +
+                latestTimestamp("NULL", timestamp) + "), (" + latestTimestamp("''", timestamp) + ")) " +
+                "ELSE (" + latestTimestamp(row + ".id_card_number", timestamp) + ") END " +
+                "WHERE " + keyOf(row) + "; " +
+                "DELETE FROM farmer_aggregates WHERE record_count <= 0 AND " + keyOf(row) + "; ";
+    }
+}
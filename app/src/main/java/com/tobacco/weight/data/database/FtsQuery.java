@@ -0,0 +1,62 @@
+package com.tobacco.weight.data.database;
+
+import java.util.Locale;
+
+/**
+ * 把用户输入转换为 search_index 的 MATCH 表达式
+ * 每个空白分隔的关键字只保留字母和数字（去掉 FTS 语法字符），并作为前缀匹配，多个关键字为"与"关系。
+ */
+public final class FtsQuery {
+
+    private FtsQuery() {
+    }
+
+    /**
+     * 在全部列中前缀匹配
+     *
+     * @return MATCH 表达式；输入没有可检索内容时返回 null
+     */
+    public static String prefixMatch(String input) {
+        return build(input, null);
+    }
+
+    /**
+     * 只在指定列中前缀匹配
+     */
+    public static String prefixMatch(String input, String column) {
+        return build(input, column);
+    }
+
+    private static String build(String input, String column) {
+        if (input == null) {
+            return null;
+        }
+        StringBuilder match = new StringBuilder(input.length() + 8);
+        for (String token : input.trim().split("\\s+")) {
+            String term = sanitize(token);
+            if (term.isEmpty()) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            if (column != null) {
+                match.append(column).append(':');
+            }
+            match.append(term).append('*');
+        }
+        return match.length() > 0 ? match.toString() : null;
+    }
+
+    // 小写化可避免 AND/OR/NOT/NEAR 被当作运算符
+    private static String sanitize(String token) {
+        StringBuilder term = new StringBuilder(token.length());
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                term.append(c);
+            }
+        }
+        return term.toString().toLowerCase(Locale.ROOT);
+    }
+}
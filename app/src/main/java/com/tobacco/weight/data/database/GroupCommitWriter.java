@@ -0,0 +1,235 @@
+package com.tobacco.weight.data.database;
+
+import android.util.Log;
+
+import androidx.room.RoomDatabase;
+
+import com.tobacco.weight.scheduler.AppScheduler;
+import com.tobacco.weight.scheduler.Lane;
+import com.tobacco.weight.scheduler.LaneMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据库单写线程（组提交）
+ * 称重记录、烟农信息等写操作都提交到这里，由一个写线程按顺序执行：
+ * 第一条写入到达后最多再等 MAX_DELAY_MS 或凑满 MAX_BATCH 条，整批放在一个事务中提交，
+ * 农户汇总表由触发器在同一事务内更新。多个写入方不再争抢 SQLite 的写锁，每次提交的同步开销由整批分摊。
+ * 单条写入失败时该条回调失败，其余写入在新事务中重新执行；
+ * Ack 在事务提交成功后才回调（持久化确认），事务提交失败时整批回调失败。
+ * 写线程是 AppScheduler 的 DB_WRITE 常驻线程，待提交写入最多 Lane.DB_WRITE 的队列容量条，
+ * 超出时该条写入以 RejectedExecutionException 回调失败。
+ * 回调运行在写线程上，不要在回调中做耗时操作。
+ */
+public final class GroupCommitWriter {
+
+    private static final String TAG = "GroupCommitWriter";
+
+    // 每批最多写入条数
+    static final int MAX_BATCH = 64;
+
+    // 第一条写入后等待后续写入的最长时间（保存延迟上限）
+    static final long MAX_DELAY_MS = 4;
+
+    private final RoomDatabase database;
+    private final LaneMetrics metrics;
+    private final BlockingQueue<Op<?>> queue = new LinkedBlockingQueue<>(Lane.DB_WRITE.getQueueCapacity());
+
+    /**
+     * 在写事务中执行的操作
+     */
+    public interface Write<T> {
+        T run() throws Exception;
+    }
+
+    /**
+     * 写入结果回调（写线程）
+     */
+    public interface Ack<T> {
+        void onCommitted(T result);
+        void onFailed(Exception e);
+    }
+
+    public GroupCommitWriter(RoomDatabase database, AppScheduler scheduler) {
+        this.database = database;
+        this.metrics = scheduler.metrics(Lane.DB_WRITE);
+        scheduler.newPinnedThread(Lane.DB_WRITE, "writer", this::loop).start();
+    }
+
+    /**
+     * 提交写入，事务提交后回调
+     */
+    public <T> void submit(Write<T> write, Ack<T> ack) {
+        Op<T> op = new Op<>(write, ack);
+        metrics.onQueued();
+        if (queue.offer(op)) {
+            metrics.onAccepted(queue.size());
+        } else {
+            metrics.onRejected();
+            op.fail(new RejectedExecutionException("待提交写入已满（" + Lane.DB_WRITE.getQueueCapacity() + "）"));
+        }
+    }
+
+    /**
+     * 提交写入并等待事务提交（不要在写线程的回调中调用）
+     */
+    public <T> T await(Write<T> write) throws Exception {
+        CompletableFuture<T> done = new CompletableFuture<>();
+        submit(write, new Ack<T>() {
+            @Override
+            public void onCommitted(T result) {
+                done.complete(result);
+            }
+
+            @Override
+            public void onFailed(Exception e) {
+                done.completeExceptionally(e);
+            }
+        });
+        try {
+            return done.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    private void loop() {
+        List<Op<?>> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_DELAY_MS);
+                while (batch.size() < MAX_BATCH) {
+                    long wait = deadline - System.nanoTime();
+                    Op<?> next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                Log.w(TAG, "写线程被中断，剩余 " + (batch.size() + queue.size()) + " 条写入未执行");
+                return;
+            } catch (RuntimeException e) {
+                // 回调已在 commit() 中处理，写线程不能退出
+                Log.e(TAG, "批量写入异常", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<Op<?>> batch) {
+        long start = System.nanoTime();
+        for (Op<?> op : batch) {
+            metrics.onStarted(start - op.queuedAt);
+        }
+        List<Op<?>> pending = new ArrayList<>(batch);
+        Object[] results = new Object[pending.size()];
+        while (!pending.isEmpty()) {
+            List<Op<?>> attempt = pending;
+            try {
+                database.runInTransaction(() -> {
+                    for (int i = 0; i < attempt.size(); i++) {
+                        try {
+                            results[i] = attempt.get(i).write.run();
+                        } catch (Exception e) {
+                            throw new OpFailed(i, e);
+                        }
+                    }
+                });
+                break;
+            } catch (OpFailed e) {
+                // 嵌套的 DAO 事务失败后整个事务只能回滚：该条回调失败，其余重新提交
+                pending = new ArrayList<>(attempt);
+                pending.remove(e.index).fail(e.error);
+                metrics.onFinished(0, false);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "事务提交失败，" + attempt.size() + " 条写入未保存", e);
+                for (Op<?> op : attempt) {
+                    op.fail(e);
+                }
+                finished(attempt.size(), false, start);
+                return;
+            }
+        }
+
+        if (pending.size() > 1) {
+            Log.d(TAG, "组提交 " + pending.size() + " 条，耗时 " + (System.nanoTime() - start) / 1_000_000 + "ms");
+        }
+        for (int i = 0; i < pending.size(); i++) {
+            pending.get(i).commit(results[i]);
+        }
+        finished(pending.size(), true, start);
+    }
+
+    /**
+     * 记录整批耗时：每条写入的执行时间按整批事务计
+     */
+    private void finished(int count, boolean success, long start) {
+        long elapsed = System.nanoTime() - start;
+        for (int i = 0; i < count; i++) {
+            metrics.onFinished(elapsed, success);
+        }
+    }
+
+    /**
+     * 单条写入失败，中止本次事务
+     */
+    private static final class OpFailed extends RuntimeException {
+        final int index;
+        final Exception error;
+
+        OpFailed(int index, Exception error) {
+            super(error);
+            this.index = index;
+            this.error = error;
+        }
+    }
+
+    private static final class Op<T> {
+        final Write<T> write;
+        final Ack<T> ack;
+        final long queuedAt = System.nanoTime();
+
+        Op(Write<T> write, Ack<T> ack) {
+            this.write = write;
+            this.ack = ack;
+        }
+
+        @SuppressWarnings("unchecked")
+        void commit(Object result) {
+            if (ack == null) {
+                return;
+            }
+            try {
+                ack.onCommitted((T) result);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "写入回调异常", e);
+            }
+        }
+
+        void fail(Exception e) {
+            if (ack == null) {
+                return;
+            }
+            try {
+                ack.onFailed(e);
+            } catch (RuntimeException callbackError) {
+                Log.e(TAG, "写入回调异常", callbackError);
+            }
+        }
+    }
+}
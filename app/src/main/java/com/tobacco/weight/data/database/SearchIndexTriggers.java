@@ -0,0 +1,103 @@
+package com.tobacco.weight.data.database;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * search_index 全文索引同步触发器
+ * farmer_info（docid = -id）和 weight_records（docid = id）的插入/更新/删除
+ * 在同一事务内同步到 FTS 表。Room 不管理这些触发器，新建数据库和迁移时都需调用 create()。
+ */
+public final class SearchIndexTriggers {
+
+    static final String CREATE_TABLE = "CREATE VIRTUAL TABLE IF NOT EXISTS `search_index` USING FTS4(" +
+            "`farmer_name` TEXT, `id_card_number` TEXT, `id_card_suffix` TEXT, `pre_check_number` TEXT, " +
+            "`contract_number` TEXT, `record_number` TEXT, `address` TEXT, tokenize=icu)";
+
+    private static final String COLUMNS = "docid, farmer_name, id_card_number, id_card_suffix, " +
+            "pre_check_number, contract_number, record_number, address";
+
+    private SearchIndexTriggers() {
+    }
+
+    /**
+     * 创建（或重建）全部触发器
+     */
+    public static void create(SupportSQLiteDatabase db) {
+        String[] triggers = {
+                "search_index_farmer_after_insert", "search_index_farmer_after_update",
+                "search_index_farmer_after_delete", "search_index_record_after_insert",
+                "search_index_record_after_update", "search_index_record_after_delete"
+        };
+        for (String trigger : triggers) {
+            db.execSQL("DROP TRIGGER IF EXISTS `" + trigger + "`");
+        }
+
+        // 烟农信息：REPLACE 删除旧行时不会触发删除触发器，插入时按 docid 清理同 id 的旧条目
+        // （FarmerInfoDao.insertReplace 在身份证号冲突时沿用原 id，旧条目总是同 id）
+        db.execSQL("CREATE TRIGGER `search_index_farmer_after_insert` AFTER INSERT ON `farmer_info` BEGIN " +
+                "DELETE FROM search_index WHERE docid = -NEW.id; " +
+                insertFarmer("NEW") +
+                "END");
+        db.execSQL("CREATE TRIGGER `search_index_farmer_after_update` AFTER UPDATE OF " +
+                "`farmer_name`, `id_card_number`, `contract_number`, `address` ON `farmer_info` BEGIN " +
+                "DELETE FROM search_index WHERE docid = -OLD.id; " +
+                insertFarmer("NEW") +
+                "END");
+        db.execSQL("CREATE TRIGGER `search_index_farmer_after_delete` AFTER DELETE ON `farmer_info` BEGIN " +
+                "DELETE FROM search_index WHERE docid = -OLD.id; " +
+                "END");
+
+        // 称重记录
+        db.execSQL("CREATE TRIGGER `search_index_record_after_insert` AFTER INSERT ON `weight_records` BEGIN " +
+                insertRecord("NEW") +
+                "END");
+        db.execSQL("CREATE TRIGGER `search_index_record_after_update` AFTER UPDATE OF " +
+                "`farmer_name`, `id_card_number`, `pre_check_number`, `record_number`, `farmer_address` " +
+                "ON `weight_records` BEGIN " +
+                "DELETE FROM search_index WHERE docid = OLD.id; " +
+                insertRecord("NEW") +
+                "END");
+        db.execSQL("CREATE TRIGGER `search_index_record_after_delete` AFTER DELETE ON `weight_records` BEGIN " +
+                "DELETE FROM search_index WHERE docid = OLD.id; " +
+                "END");
+    }
+
+    /**
+     * 删除已不存在的烟农条目（迁移使用）
+     */
+    static void purgeOrphanFarmers(SupportSQLiteDatabase db) {
+        db.execSQL("DELETE FROM search_index WHERE docid < 0 AND -docid NOT IN (SELECT id FROM farmer_info)");
+    }
+
+    /**
+     * 用现有数据完整重建全文索引（迁移回填使用）
+     */
+    static void backfill(SupportSQLiteDatabase db) {
+        db.execSQL("DELETE FROM search_index");
+        db.execSQL("INSERT INTO search_index (" + COLUMNS + ") " +
+                "SELECT -id, farmer_name, id_card_number, " + suffixOf("id_card_number") + ", " +
+                "NULL, contract_number, NULL, address FROM farmer_info");
+        db.execSQL("INSERT INTO search_index (" + COLUMNS + ") " +
+                "SELECT id, farmer_name, id_card_number, " + suffixOf("id_card_number") + ", " +
+                "pre_check_number, NULL, record_number, farmer_address FROM weight_records");
+    }
+
+    // 身份证后4位和后6位，作为独立词条支持尾号检索
+    private static String suffixOf(String column) {
+        return "CASE WHEN length(" + column + ") >= 6 " +
+                "THEN substr(" + column + ", -4) || ' ' || substr(" + column + ", -6) " +
+                "ELSE " + column + " END";
+    }
+
+    private static String insertFarmer(String row) {
+        return "INSERT INTO search_index (" + COLUMNS + ") VALUES (-" + row + ".id, " +
+                row + ".farmer_name, " + row + ".id_card_number, " + suffixOf(row + ".id_card_number") + ", " +
+                "NULL, " + row + ".contract_number, NULL, " + row + ".address); ";
+    }
+
+    private static String insertRecord(String row) {
+        return "INSERT INTO search_index (" + COLUMNS + ") VALUES (" + row + ".id, " +
+                row + ".farmer_name, " + row + ".id_card_number, " + suffixOf(row + ".id_card_number") + ", " +
+                row + ".pre_check_number, NULL, " + row + ".record_number, " + row + ".farmer_address); ";
+    }
+}
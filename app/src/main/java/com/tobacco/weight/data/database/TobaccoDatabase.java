@@ -1,34 +1,62 @@
 package com.tobacco.weight.data.database;
 
+import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 import android.content.Context;
 
 import com.tobacco.weight.data.dao.WeightRecordDao;
+import com.tobacco.weight.data.dao.FarmerAggregateDao;
 import com.tobacco.weight.data.dao.FarmerInfoDao;
+import com.tobacco.weight.data.dao.PrintJobDao;
+import com.tobacco.weight.data.dao.SearchDao;
+import com.tobacco.weight.data.entity.FarmerAggregateEntity;
 import com.tobacco.weight.data.entity.FarmerInfoEntity;
+import com.tobacco.weight.data.entity.PrintJobEntity;
+import com.tobacco.weight.data.entity.SearchIndexEntity;
 import com.tobacco.weight.data.model.WeightRecord;
 
 /**
  * 烟叶称重数据库
  * 
- * 包含两个主要表：
+ * 包含以下表：
  * - farmer_info: 烟农身份信息表（每个身份证号只存储一次）
  * - weight_records: 称重记录表（通过身份证号关联烟农信息）
+ * - farmer_aggregates: 农户按天汇总表（由weight_records触发器维护）
+ * - search_index: 烟农和称重记录的全文检索索引（由触发器同步）
+ * - print_jobs: 打印队列（崩溃或重启后继续打印）
  * 
  * 版本历史：
  * v1: 初始版本
  * v2: 添加烟农信息表和身份证关联
  * v3: 重构WeightRecord以支持详细的烟叶部位分级存储（上部叶/中部叶/下部叶独立记录）
+ * v4: 为weight_records常用查询路径添加复合索引
+ * v5: 添加farmer_aggregates农户按天汇总表（触发器增量维护）
+ * v6: 添加search_index全文检索表（FTS4，触发器同步），farmer_info合同号索引
+ * v7: 添加print_jobs打印队列表
+ * v8: farmer_info照片移至PhotoStore，只保存photo_hash（照片在启动后由PhotoMaintenance导入）
+ * v9: farmer_info在册烟农索引（烟农缓存启动预热）
+ * v10: farmer_aggregates日期键改为固定北京时间（重算汇总）
+ * v11: weight_records.create_time改为NOT NULL（分页游标列）
+ * v12: 全文索引烟农插入触发器按docid清理（重建触发器）
+ * v13: 汇总表删除/修改触发器按时间范围回查最近记录（重建触发器）
+ * 
+ * 升级通过 DatabaseMigrations 中的迁移完成，不再使用破坏性迁移；
+ * 迁移和查询计划由 androidTest 中的 MigrationTest、QueryPlanTest 覆盖
+ * 写操作由 GroupCommitWriter 单线程组提交（DatabaseModule 提供，全应用一个写线程）
  */
 @Database(
     entities = { 
         WeightRecord.class, 
-        FarmerInfoEntity.class 
+        FarmerInfoEntity.class,
+        FarmerAggregateEntity.class,
+        SearchIndexEntity.class,
+        PrintJobEntity.class
     }, 
-    version = 3, 
+    version = 13, 
     exportSchema = true
 )
 @TypeConverters({ DateConverter.class })
@@ -36,6 +64,17 @@ public abstract class TobaccoDatabase extends RoomDatabase {
 
     private static volatile TobaccoDatabase INSTANCE;
 
+    /**
+     * Room 不创建触发器，新库需手动建立
+     */
+    static final RoomDatabase.Callback CREATE_TRIGGERS = new RoomDatabase.Callback() {
+        @Override
+        public void onCreate(@NonNull SupportSQLiteDatabase db) {
+            FarmerAggregateTriggers.create(db);
+            SearchIndexTriggers.create(db);
+        }
+    };
+
     /**
      * 获取称重记录DAO
      */
@@ -46,6 +85,21 @@ public abstract class TobaccoDatabase extends RoomDatabase {
      */
     public abstract FarmerInfoDao farmerInfoDao();
 
+    /**
+     * 获取农户汇总DAO
+     */
+    public abstract FarmerAggregateDao farmerAggregateDao();
+
+    /**
+     * 获取全文检索DAO
+     */
+    public abstract SearchDao searchDao();
+
+    /**
+     * 获取打印队列DAO
+     */
+    public abstract PrintJobDao printJobDao();
+
     /**
      * 获取数据库实例（单例模式）
      */
@@ -57,7 +111,8 @@ public abstract class TobaccoDatabase extends RoomDatabase {
                             context.getApplicationContext(),
                             TobaccoDatabase.class,
                             "tobacco_database")
-                            .fallbackToDestructiveMigration() // 开发阶段可以使用
+                            .addMigrations(DatabaseMigrations.ALL)
+                            .addCallback(CREATE_TRIGGERS)
                             .build();
                 }
             }
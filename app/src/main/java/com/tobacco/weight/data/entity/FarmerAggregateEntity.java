@@ -0,0 +1,261 @@
+package com.tobacco.weight.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+
+/**
+ * 农户称重汇总实体（按身份证号 + 日期）
+ * 
+ * 设计原则：
+ * - 由 weight_records 上的触发器在同一事务内增量维护，不在代码中直接写入
+ * - 管理统计只读取汇总行，不再扫描整季的称重记录
+ * - 可通过 FarmerAggregateDao.rebuild() 从原始记录重建
+ */
+@Entity(
+    tableName = "farmer_aggregates",
+    primaryKeys = { "id_card_number", "day" }
+)
+public class FarmerAggregateEntity {
+
+    @ColumnInfo(name = "id_card_number")
+    @NonNull
+    private String idCardNumber = "";   // 身份证号（无身份证的记录归入空串）
+
+    @ColumnInfo(name = "day")
+    private int day;                    // 日期键 yyyyMMdd（北京时间）
+
+    @ColumnInfo(name = "record_count")
+    private int recordCount;            // 记录数
+
+    @ColumnInfo(name = "total_bundles")
+    private int totalBundles;           // 总捆数
+
+    @ColumnInfo(name = "total_weight")
+    private double totalWeight;         // 总重量(kg)
+
+    @ColumnInfo(name = "upper_bundles")
+    private int upperBundles;           // 上部叶捆数
+
+    @ColumnInfo(name = "upper_weight")
+    private double upperWeight;         // 上部叶重量
+
+    @ColumnInfo(name = "middle_bundles")
+    private int middleBundles;          // 中部叶捆数
+
+    @ColumnInfo(name = "middle_weight")
+    private double middleWeight;        // 中部叶重量
+
+    @ColumnInfo(name = "lower_bundles")
+    private int lowerBundles;           // 下部叶捆数
+
+    @ColumnInfo(name = "lower_weight")
+    private double lowerWeight;         // 下部叶重量
+
+    @ColumnInfo(name = "upper_part_count")
+    private int upperPartCount;         // 主要部位为上部叶的记录数
+
+    @ColumnInfo(name = "upper_part_weight")
+    private double upperPartWeight;     // 主要部位为上部叶的重量
+
+    @ColumnInfo(name = "middle_part_count")
+    private int middlePartCount;        // 主要部位为中部叶的记录数
+
+    @ColumnInfo(name = "middle_part_weight")
+    private double middlePartWeight;    // 主要部位为中部叶的重量
+
+    @ColumnInfo(name = "lower_part_count")
+    private int lowerPartCount;         // 主要部位为下部叶的记录数
+
+    @ColumnInfo(name = "lower_part_weight")
+    private double lowerPartWeight;     // 主要部位为下部叶的重量
+
+    @ColumnInfo(name = "last_timestamp")
+    private long lastTimestamp;         // 当天最近称重时间
+
+    public FarmerAggregateEntity() {
+    }
+
+    // Getters and Setters
+    @NonNull
+    public String getIdCardNumber() {
+        return idCardNumber;
+    }
+
+    public void setIdCardNumber(@NonNull String idCardNumber) {
+        this.idCardNumber = idCardNumber;
+    }
+
+    public int getDay() {
+        return day;
+    }
+
+    public void setDay(int day) {
+        this.day = day;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    public void setRecordCount(int recordCount) {
+        this.recordCount = recordCount;
+    }
+
+    public int getTotalBundles() {
+        return totalBundles;
+    }
+
+    public void setTotalBundles(int totalBundles) {
+        this.totalBundles = totalBundles;
+    }
+
+    public double getTotalWeight() {
+        return totalWeight;
+    }
+
+    public void setTotalWeight(double totalWeight) {
+        this.totalWeight = totalWeight;
+    }
+
+    public int getUpperBundles() {
+        return upperBundles;
+    }
+
+    public void setUpperBundles(int upperBundles) {
+        this.upperBundles = upperBundles;
+    }
+
+    public double getUpperWeight() {
+        return upperWeight;
+    }
+
+    public void setUpperWeight(double upperWeight) {
+        this.upperWeight = upperWeight;
+    }
+
+    public int getMiddleBundles() {
+        return middleBundles;
+    }
+
+    public void setMiddleBundles(int middleBundles) {
+        this.middleBundles = middleBundles;
+    }
+
+    public double getMiddleWeight() {
+        return middleWeight;
+    }
+
+    public void setMiddleWeight(double middleWeight) {
+        this.middleWeight = middleWeight;
+    }
+
+    public int getLowerBundles() {
+        return lowerBundles;
+    }
+
+    public void setLowerBundles(int lowerBundles) {
+        this.lowerBundles = lowerBundles;
+    }
+
+    public double getLowerWeight() {
+        return lowerWeight;
+    }
+
+    public void setLowerWeight(double lowerWeight) {
+        this.lowerWeight = lowerWeight;
+    }
+
+    public int getUpperPartCount() {
+        return upperPartCount;
+    }
+
+    public void setUpperPartCount(int upperPartCount) {
+        this.upperPartCount = upperPartCount;
+    }
+
+    public double getUpperPartWeight() {
+        return upperPartWeight;
+    }
+
+    public void setUpperPartWeight(double upperPartWeight) {
+        this.upperPartWeight = upperPartWeight;
+    }
+
+    public int getMiddlePartCount() {
+        return middlePartCount;
+    }
+
+    public void setMiddlePartCount(int middlePartCount) {
+        this.middlePartCount = middlePartCount;
+    }
+
+    public double getMiddlePartWeight() {
+        return middlePartWeight;
+    }
+
+    public void setMiddlePartWeight(double middlePartWeight) {
+        this.middlePartWeight = middlePartWeight;
+    }
+
+    public int getLowerPartCount() {
+        return lowerPartCount;
+    }
+
+    public void setLowerPartCount(int lowerPartCount) {
+        this.lowerPartCount = lowerPartCount;
+    }
+
+    public double getLowerPartWeight() {
+        return lowerPartWeight;
+    }
+
+    public void setLowerPartWeight(double lowerPartWeight) {
+        this.lowerPartWeight = lowerPartWeight;
+    }
+
+    public long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    public void setLastTimestamp(long lastTimestamp) {
+        this.lastTimestamp = lastTimestamp;
+    }
+
+    /**
+     * 比较统计值是否一致（重量允许浮点累加误差）
+     */
+    public boolean sameTotals(FarmerAggregateEntity other) {
+        return recordCount == other.recordCount
+                && totalBundles == other.totalBundles
+                && upperBundles == other.upperBundles
+                && middleBundles == other.middleBundles
+                && lowerBundles == other.lowerBundles
+                && upperPartCount == other.upperPartCount
+                && middlePartCount == other.middlePartCount
+                && lowerPartCount == other.lowerPartCount
+                && lastTimestamp == other.lastTimestamp
+                && closeTo(totalWeight, other.totalWeight)
+                && closeTo(upperWeight, other.upperWeight)
+                && closeTo(middleWeight, other.middleWeight)
+                && closeTo(lowerWeight, other.lowerWeight)
+                && closeTo(upperPartWeight, other.upperPartWeight)
+                && closeTo(middlePartWeight, other.middlePartWeight)
+                && closeTo(lowerPartWeight, other.lowerPartWeight);
+    }
+
+    private static boolean closeTo(double a, double b) {
+        return Math.abs(a - b) < 0.001;
+    }
+
+    @Override
+    public String toString() {
+        return "FarmerAggregate{" +
+                "idCard='" + idCardNumber + '\'' +
+                ", day=" + day +
+                ", records=" + recordCount +
+                ", bundles=" + totalBundles +
+                ", weight=" + totalWeight +
+                '}';
+    }
+}
@@ -20,7 +20,9 @@ import java.util.Date;
     tableName = "farmer_info",
     indices = {
         @Index(value = "id_card_number", unique = true), // 身份证号唯一索引
-        @Index(value = "farmer_name")                    // 姓名索引，提高查询性能
+        @Index(value = "farmer_name"),                   // 姓名索引，提高查询性能
+        @Index(value = "contract_number"),               // 按合同号查找
+        @Index(value = {"is_active", "create_time"})     // 在册烟农列表（按建档时间排序）
     }
 )
 public class FarmerInfoEntity {
@@ -61,8 +63,8 @@ public class FarmerInfoEntity {
     @ColumnInfo(name = "end_date")
     private String endDate;           // 有效期结束
     
-    @ColumnInfo(name = "photo")
-    private byte[] photo;             // 照片数据
+    @ColumnInfo(name = "photo_hash")
+    private String photoHash;         // 照片哈希（文件在 PhotoStore 中）
     
     // 元数据
     @ColumnInfo(name = "create_time")
@@ -94,7 +96,7 @@ public class FarmerInfoEntity {
      */
     public FarmerInfoEntity(String farmerName, String contractNumber, String idCardNumber, 
                            String gender, String nationality, String birthDate, String address,
-                           String department, String startDate, String endDate, byte[] photo) {
+                           String department, String startDate, String endDate, String photoHash) {
         this();
         this.farmerName = farmerName;
         this.contractNumber = contractNumber;
@@ -106,7 +108,7 @@ public class FarmerInfoEntity {
         this.department = department;
         this.startDate = startDate;
         this.endDate = endDate;
-        this.photo = photo;
+        this.photoHash = photoHash;
         this.firstRecordTime = new Date();
     }
     
@@ -125,7 +127,7 @@ public class FarmerInfoEntity {
         entity.setDepartment(farmerInfo.getDepartment());
         entity.setStartDate(farmerInfo.getStartDate());
         entity.setEndDate(farmerInfo.getEndDate());
-        entity.setPhoto(farmerInfo.getPhoto());
+        entity.setPhotoHash(farmerInfo.getPhotoHash());
         entity.setFirstRecordTime(new Date());
         return entity;
     }
@@ -136,7 +138,7 @@ public class FarmerInfoEntity {
     public com.tobacco.weight.data.FarmerInfo toFarmerInfo() {
         return com.tobacco.weight.data.FarmerInfo.createWithIdCard(
             farmerName, contractNumber, idCardNumber, gender, nationality,
-            birthDate, address, department, startDate, endDate, photo
+            birthDate, address, department, startDate, endDate, photoHash
         );
     }
     
@@ -238,12 +240,12 @@ public class FarmerInfoEntity {
         this.endDate = endDate;
     }
 
-    public byte[] getPhoto() {
-        return photo;
+    public String getPhotoHash() {
+        return photoHash;
     }
 
-    public void setPhoto(byte[] photo) {
-        this.photo = photo;
+    public void setPhotoHash(String photoHash) {
+        this.photoHash = photoHash;
     }
 
     public Date getCreateTime() {
@@ -0,0 +1,142 @@
+package com.tobacco.weight.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * 打印任务实体（打印队列）
+ *
+ * 设计原则：
+ * - 提交打印时先写入本表再返回，程序崩溃或重启后未完成的任务继续打印
+ * - 每台打印机只有一个写线程按 优先级 → 提交顺序 取任务，两个打印请求不会交错发送
+ * - 打印失败按退避时间重试，超过次数后标记为失败
+ * - payload 保存小票/标签数据的 JSON，打印时再生成指令
+ */
+@Entity(
+    tableName = "print_jobs",
+    indices = {
+        @Index(value = {"printer_id", "status", "priority", "id"}), // 取下一个任务
+        @Index(value = {"status", "update_time"})                  // 清理已完成任务
+    }
+)
+public class PrintJobEntity {
+
+    // 任务类型
+    public static final String TYPE_RECEIPT = "RECEIPT";
+    public static final String TYPE_LABEL = "LABEL";
+    public static final String TYPE_TEMPLATE = "TEMPLATE";  // 小票模板：编译模板 + 变量值
+    public static final String TYPE_LABEL_TEMPLATE = "LABEL_TEMPLATE";  // 标签模板
+
+    // 任务状态
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_PRINTING = "PRINTING";
+    public static final String STATUS_DONE = "DONE";
+    public static final String STATUS_FAILED = "FAILED";
+    public static final String STATUS_CANCELLED = "CANCELLED";
+
+    // 优先级（数值越小越先打印）：收购小票 → 标签 → 补打
+    public static final int PRIORITY_RECEIPT = 0;
+    public static final int PRIORITY_LABEL = 1;
+    public static final int PRIORITY_REPRINT = 2;
+
+    @PrimaryKey(autoGenerate = true)
+    @ColumnInfo(name = "id")
+    private long id;
+
+    @ColumnInfo(name = "printer_id")
+    @NonNull
+    private String printerId = "";     // 打印机编号
+
+    @ColumnInfo(name = "job_type")
+    @NonNull
+    private String jobType = TYPE_RECEIPT;  // 任务类型
+
+    @ColumnInfo(name = "priority")
+    private int priority;              // 优先级
+
+    @ColumnInfo(name = "payload")
+    @NonNull
+    private String payload = "";       // 打印数据（JSON）
+
+    @ColumnInfo(name = "description")
+    private String description;        // 任务说明（日志和界面显示）
+
+    @ColumnInfo(name = "status")
+    @NonNull
+    private String status = STATUS_PENDING; // 任务状态
+
+    @ColumnInfo(name = "attempts")
+    private int attempts;              // 已尝试次数
+
+    @ColumnInfo(name = "next_attempt_time")
+    private long nextAttemptTime;      // 最早可执行时间（重试退避）
+
+    @ColumnInfo(name = "last_error")
+    private String lastError;          // 最近一次失败原因
+
+    @ColumnInfo(name = "create_time")
+    private long createTime;           // 提交时间
+
+    @ColumnInfo(name = "update_time")
+    private long updateTime;           // 最后更新时间
+
+    public PrintJobEntity() {
+    }
+
+    // Getters and Setters
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+
+    @NonNull
+    public String getPrinterId() { return printerId; }
+    public void setPrinterId(@NonNull String printerId) { this.printerId = printerId; }
+
+    @NonNull
+    public String getJobType() { return jobType; }
+    public void setJobType(@NonNull String jobType) { this.jobType = jobType; }
+
+    public int getPriority() { return priority; }
+    public void setPriority(int priority) { this.priority = priority; }
+
+    @NonNull
+    public String getPayload() { return payload; }
+    public void setPayload(@NonNull String payload) { this.payload = payload; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    @NonNull
+    public String getStatus() { return status; }
+    public void setStatus(@NonNull String status) { this.status = status; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public long getNextAttemptTime() { return nextAttemptTime; }
+    public void setNextAttemptTime(long nextAttemptTime) { this.nextAttemptTime = nextAttemptTime; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public long getCreateTime() { return createTime; }
+    public void setCreateTime(long createTime) { this.createTime = createTime; }
+
+    public long getUpdateTime() { return updateTime; }
+    public void setUpdateTime(long updateTime) { this.updateTime = updateTime; }
+
+    @Override
+    public String toString() {
+        return "PrintJob{" +
+                "id=" + id +
+                ", printerId='" + printerId + '\'' +
+                ", type=" + jobType +
+                ", priority=" + priority +
+                ", status=" + status +
+                ", attempts=" + attempts +
+                ", description='" + description + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,114 @@
+package com.tobacco.weight.data.entity;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+import androidx.room.PrimaryKey;
+
+/**
+ * 全文检索索引（FTS4 虚拟表）
+ *
+ * 设计原则：
+ * - 同时索引烟农信息和称重记录：rowid 为负数表示烟农（-farmer_info.id），正数表示称重记录（weight_records.id）
+ * - 由 farmer_info / weight_records 上的触发器同步维护，不在代码中直接写入
+ * - 使用 ICU 分词，中文姓名、地址可按词检索
+ * - id_card_suffix 保存身份证号后4位和后6位，支持按尾号查找
+ */
+@Fts4(tokenizer = FtsOptions.TOKENIZER_ICU)
+@Entity(tableName = "search_index")
+public class SearchIndexEntity {
+
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    private long rowId;
+
+    @ColumnInfo(name = "farmer_name")
+    private String farmerName;        // 烟农姓名
+
+    @ColumnInfo(name = "id_card_number")
+    private String idCardNumber;      // 身份证号
+
+    @ColumnInfo(name = "id_card_suffix")
+    private String idCardSuffix;      // 身份证尾号（后4位 + 后6位）
+
+    @ColumnInfo(name = "pre_check_number")
+    private String preCheckNumber;    // 预检编号（仅称重记录）
+
+    @ColumnInfo(name = "contract_number")
+    private String contractNumber;    // 合同号（仅烟农）
+
+    @ColumnInfo(name = "record_number")
+    private String recordNumber;      // 记录编号（仅称重记录）
+
+    @ColumnInfo(name = "address")
+    private String address;           // 地址
+
+    public SearchIndexEntity() {
+    }
+
+    // Getters and Setters
+    public long getRowId() {
+        return rowId;
+    }
+
+    public void setRowId(long rowId) {
+        this.rowId = rowId;
+    }
+
+    public String getFarmerName() {
+        return farmerName;
+    }
+
+    public void setFarmerName(String farmerName) {
+        this.farmerName = farmerName;
+    }
+
+    public String getIdCardNumber() {
+        return idCardNumber;
+    }
+
+    public void setIdCardNumber(String idCardNumber) {
+        this.idCardNumber = idCardNumber;
+    }
+
+    public String getIdCardSuffix() {
+        return idCardSuffix;
+    }
+
+    public void setIdCardSuffix(String idCardSuffix) {
+        this.idCardSuffix = idCardSuffix;
+    }
+
+    public String getPreCheckNumber() {
+        return preCheckNumber;
+    }
+
+    public void setPreCheckNumber(String preCheckNumber) {
+        this.preCheckNumber = preCheckNumber;
+    }
+
+    public String getContractNumber() {
+        return contractNumber;
+    }
+
+    public void setContractNumber(String contractNumber) {
+        this.contractNumber = contractNumber;
+    }
+
+    public String getRecordNumber() {
+        return recordNumber;
+    }
+
+    public void setRecordNumber(String recordNumber) {
+        this.recordNumber = recordNumber;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+}
@@ -1,7 +1,9 @@
 package com.tobacco.weight.data.model;
 
+import androidx.annotation.NonNull;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 import java.util.Date;
@@ -11,7 +13,21 @@ import java.util.Date;
  * 用于存储烟叶收购称重相关的所有信息
  * 包含完整的身份证信息，便于保存和显示
  */
-@Entity(tableName = "weight_records")
+@Entity(
+    tableName = "weight_records",
+    indices = {
+        // 按身份证号统计各部叶数量/重量（覆盖索引，无需回表）
+        @Index(value = {"id_card_number", "primary_tobacco_part", "total_weight"}),
+        // 按身份证号查询记录、最近称重时间
+        @Index(value = {"id_card_number", "timestamp"}),
+        // 按姓名查询记录
+        @Index(value = {"farmer_name", "create_time"}),
+        // 按预检编号查询记录
+        @Index(value = {"pre_check_number", "create_time"}),
+        // 全部记录按时间排序、日期范围查询
+        @Index(value = "create_time")
+    }
+)
 public class WeightRecord {
 
     @PrimaryKey(autoGenerate = true)
@@ -73,7 +89,8 @@ public class WeightRecord {
     private double totalAmount; // 总金额
 
     @ColumnInfo(name = "create_time")
-    private Date createTime; // 创建时间
+    @NonNull
+    private Date createTime; // 创建时间（记录列表按此分页，不能为空）
 
     @ColumnInfo(name = "timestamp")
     private long timestamp; // 时间戳
@@ -263,15 +280,21 @@ public class WeightRecord {
         this.totalAmount = totalAmount;
     }
 
+    @NonNull
     public Date getCreateTime() {
         return createTime;
     }
 
+    /**
+     * 设置创建时间，同时更新时间戳；传入 null 时按当前时间戳补齐
+     */
     public void setCreateTime(Date createTime) {
-        this.createTime = createTime;
-        if (createTime != null) {
-            this.timestamp = createTime.getTime();
+        if (createTime == null) {
+            this.createTime = new Date(timestamp);
+            return;
         }
+        this.createTime = createTime;
+        this.timestamp = createTime.getTime();
     }
 
     public long getTimestamp() {
@@ -0,0 +1,85 @@
+package com.tobacco.weight.data.paging;
+
+import com.tobacco.weight.data.database.FtsQuery;
+
+import java.util.Objects;
+
+/**
+ * 称重记录分页筛选条件（不可变）
+ * 搜索关键字和日期范围直接下推到 SQL，不在内存中过滤
+ */
+public final class RecordFilter {
+
+    private final String searchQuery;   // 搜索关键字（姓名/记录编号/身份证号），null 表示不搜索
+    private final String idCardNumber;  // 指定农户，null 表示全部农户
+    private final long startTime;       // 开始时间（含）
+    private final long endTime;         // 结束时间（含）
+
+    private RecordFilter(String searchQuery, String idCardNumber, long startTime, long endTime) {
+        this.searchQuery = searchQuery;
+        this.idCardNumber = idCardNumber;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    /**
+     * 全部记录
+     */
+    public static RecordFilter all() {
+        return new RecordFilter(null, null, 0L, Long.MAX_VALUE);
+    }
+
+    /**
+     * 按关键字和日期范围筛选
+     */
+    public static RecordFilter search(String query, long startTime, long endTime) {
+        String trimmed = query != null ? query.trim() : "";
+        return new RecordFilter(trimmed.isEmpty() ? null : trimmed, null, startTime, endTime);
+    }
+
+    /**
+     * 指定农户的全部记录
+     */
+    public static RecordFilter forIdCard(String idCardNumber) {
+        return new RecordFilter(null, idCardNumber, 0L, Long.MAX_VALUE);
+    }
+
+    public String getSearchQuery() {
+        return searchQuery;
+    }
+
+    public String getIdCardNumber() {
+        return idCardNumber;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    /**
+     * 转换为 search_index 的 MATCH 表达式（各关键字前缀匹配），null 表示不搜索
+     */
+    public String getMatchExpression() {
+        return FtsQuery.prefixMatch(searchQuery);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RecordFilter)) return false;
+        RecordFilter that = (RecordFilter) o;
+        return startTime == that.startTime
+                && endTime == that.endTime
+                && Objects.equals(searchQuery, that.searchQuery)
+                && Objects.equals(idCardNumber, that.idCardNumber);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(searchQuery, idCardNumber, startTime, endTime);
+    }
+}
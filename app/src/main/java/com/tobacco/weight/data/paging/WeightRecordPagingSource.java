@@ -0,0 +1,161 @@
+package com.tobacco.weight.data.paging;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.paging.PagingState;
+import androidx.paging.rxjava3.RxPagingSource;
+import androidx.room.InvalidationTracker;
+
+import com.tobacco.weight.data.dao.WeightRecordDao;
+import com.tobacco.weight.data.database.TobaccoDatabase;
+import com.tobacco.weight.data.model.WeightRecord;
+import com.tobacco.weight.scheduler.AppScheduler;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.reactivex.rxjava3.core.Single;
+import kotlin.Unit;
+
+/**
+ * 称重记录键集分页数据源
+ *
+ * 按 (create_time, id) 倒序分页：每页以上一页最后一条记录为游标，
+ * 查询直接走 create_time 索引定位，不使用 OFFSET，翻到任意深度代价都相同。
+ * weight_records 表发生变化时通过 Room 的 InvalidationTracker 使数据源失效并重新加载。
+ */
+public class WeightRecordPagingSource extends RxPagingSource<WeightRecordPagingSource.PageKey, WeightRecord> {
+
+    private final WeightRecordDao weightRecordDao;
+    private final RecordFilter filter;
+    private final InvalidationTracker invalidationTracker;
+    private final InvalidationTracker.Observer observer;
+    private final AtomicBoolean observerRegistered = new AtomicBoolean(false);
+    private final Executor loadExecutor;
+
+    /**
+     * @param loadExecutor 执行查询的通道（DB_READ）
+     */
+    public WeightRecordPagingSource(TobaccoDatabase database, WeightRecordDao weightRecordDao,
+                                    RecordFilter filter, Executor loadExecutor) {
+        this.weightRecordDao = weightRecordDao;
+        this.filter = filter;
+        this.loadExecutor = loadExecutor;
+        this.invalidationTracker = database.getInvalidationTracker();
+        this.observer = new InvalidationTracker.Observer("weight_records") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                invalidate();
+            }
+        };
+        registerInvalidatedCallback(() -> {
+            if (observerRegistered.get()) {
+                invalidationTracker.removeObserver(observer);
+            }
+            return Unit.INSTANCE;
+        });
+    }
+
+    @NonNull
+    @Override
+    public Single<LoadResult<PageKey, WeightRecord>> loadSingle(@NonNull LoadParams<PageKey> params) {
+        // 查询通道队列已满时以 LoadResult.Error 结束本次加载（界面可重试），不会一直处于加载中
+        return Single.create(emitter -> AppScheduler.submit(loadExecutor, () -> {
+            try {
+                emitter.onSuccess(load(params));
+            } catch (Exception e) {
+                emitter.tryOnError(e);
+            }
+        }, e -> emitter.onSuccess(new LoadResult.Error<>(e))));
+    }
+
+    private LoadResult<PageKey, WeightRecord> load(LoadParams<PageKey> params) {
+        // 首次加载时才注册观察者（需在后台线程）
+        if (observerRegistered.compareAndSet(false, true)) {
+            invalidationTracker.addObserver(observer);
+        }
+
+        int limit = params.getLoadSize();
+        PageKey key = params.getKey();
+        LoadResult.Page<PageKey, WeightRecord> page;
+
+        if (params instanceof LoadParams.Prepend) {
+            // 向前加载：查询游标之前的记录，反转为倒序
+            List<WeightRecord> records = queryBefore(key, limit);
+            Collections.reverse(records);
+            PageKey prevKey = records.size() < limit ? null : PageKey.of(records.get(0));
+            PageKey nextKey = records.isEmpty() ? null : PageKey.of(records.get(records.size() - 1));
+            page = new LoadResult.Page<>(records, prevKey, nextKey);
+        } else {
+            // 刷新/向后加载：key 为空时从最新记录开始
+            List<WeightRecord> records = queryAfter(key != null ? key : PageKey.FIRST, limit);
+            PageKey prevKey = key == null || records.isEmpty() ? null : PageKey.of(records.get(0));
+            PageKey nextKey = records.size() < limit ? null : PageKey.of(records.get(records.size() - 1));
+            page = new LoadResult.Page<>(records, prevKey, nextKey);
+        }
+
+        if (getInvalid()) {
+            return new LoadResult.Invalid<>();
+        }
+        return page;
+    }
+
+    private List<WeightRecord> queryAfter(PageKey key, int limit) {
+        if (filter.getIdCardNumber() != null) {
+            return weightRecordDao.getRecordsByIdCardPageAfter(filter.getIdCardNumber(),
+                    key.createTime, key.id, limit);
+        }
+        return weightRecordDao.getRecordsPageAfter(filter.getMatchExpression(),
+                filter.getStartTime(), filter.getEndTime(), key.createTime, key.id, limit);
+    }
+
+    private List<WeightRecord> queryBefore(PageKey key, int limit) {
+        if (filter.getIdCardNumber() != null) {
+            return weightRecordDao.getRecordsByIdCardPageBefore(filter.getIdCardNumber(),
+                    key.createTime, key.id, limit);
+        }
+        return weightRecordDao.getRecordsPageBefore(filter.getMatchExpression(),
+                filter.getStartTime(), filter.getEndTime(), key.createTime, key.id, limit);
+    }
+
+    /**
+     * 失效后从可见位置附近重新加载，保持滚动位置
+     */
+    @Nullable
+    @Override
+    public PageKey getRefreshKey(@NonNull PagingState<PageKey, WeightRecord> state) {
+        Integer anchorPosition = state.getAnchorPosition();
+        if (anchorPosition == null) {
+            return null;
+        }
+        WeightRecord anchor = state.closestItemToPosition(anchorPosition);
+        if (anchor == null) {
+            return null;
+        }
+        // 游标为"之后"语义，id + 1 使锚点记录本身包含在刷新结果中
+        return new PageKey(anchor.getCreateTime().getTime(), anchor.getId() + 1);
+    }
+
+    /**
+     * 分页游标 (create_time, id)
+     */
+    public static final class PageKey {
+
+        static final PageKey FIRST = new PageKey(Long.MAX_VALUE, Long.MAX_VALUE);
+
+        final long createTime;
+        final long id;
+
+        PageKey(long createTime, long id) {
+            this.createTime = createTime;
+            this.id = id;
+        }
+
+        static PageKey of(WeightRecord record) {
+            return new PageKey(record.getCreateTime().getTime(), record.getId());
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.tobacco.weight.data.photo;
+
+import android.database.Cursor;
+import android.util.Log;
+
+import com.tobacco.weight.data.dao.FarmerInfoDao;
+import com.tobacco.weight.data.database.DatabaseMigrations;
+import com.tobacco.weight.data.database.GroupCommitWriter;
+import com.tobacco.weight.data.database.TobaccoDatabase;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 照片文件维护（应用启动后在后台通道执行）
+ * - 导入 v7 → v8 迁移暂存的照片：迁移事务内只复制照片字节，BMP 转 JPEG 和写文件在这里逐张完成，
+ *   每张照片导入后单独提交，中途退出时下次启动继续
+ * - 删除没有烟农引用（farmer_info.photo_hash）的照片文件
+ * 有磁盘 I/O 和图片解码，不要在主线程调用。
+ */
+public class PhotoMaintenance {
+
+    private static final String TAG = "PhotoMaintenance";
+
+    // 无引用的照片至少保留这么久才删除（读卡后烟农信息可能还没有保存）
+    static final long ORPHAN_MIN_AGE_MS = TimeUnit.DAYS.toMillis(1);
+
+    private static final String PENDING_TABLE = "`" + DatabaseMigrations.PENDING_PHOTOS_TABLE + "`";
+
+    private final TobaccoDatabase database;
+    private final FarmerInfoDao farmerInfoDao;
+    private final PhotoStore photoStore;
+    private final GroupCommitWriter writer;
+
+    public PhotoMaintenance(TobaccoDatabase database, PhotoStore photoStore, GroupCommitWriter writer) {
+        this.database = database;
+        this.farmerInfoDao = database.farmerInfoDao();
+        this.photoStore = photoStore;
+        this.writer = writer;
+    }
+
+    /**
+     * 导入暂存照片，然后清理无引用的照片文件
+     */
+    public void run() {
+        try {
+            int imported = importPending();
+            int removed = removeOrphans();
+            if (imported > 0 || removed > 0) {
+                Log.i(TAG, "照片维护完成: 导入 " + imported + " 张，删除无引用文件 " + removed + " 个");
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "照片维护失败，下次启动时继续", e);
+        }
+    }
+
+    /**
+     * 导入迁移暂存的照片，全部处理完后删除暂存表
+     * 无法识别的照片只丢弃照片，烟农信息保留；写入失败（磁盘满等）时保留暂存照片并停止，下次启动重试
+     *
+     * @return 导入的照片数
+     * @throws Exception 照片写入失败（IOException）或数据库写入失败
+     */
+    public int importPending() throws Exception {
+        if (!hasPendingPhotos()) {
+            return 0;
+        }
+        List<Long> farmerIds = new ArrayList<>();
+        try (Cursor cursor = database.query("SELECT `farmer_id` FROM " + PENDING_TABLE, null)) {
+            while (cursor.moveToNext()) {
+                farmerIds.add(cursor.getLong(0));
+            }
+        }
+
+        int imported = 0;
+        for (long farmerId : farmerIds) {
+            // 一次只读一张照片，解码和写文件在事务外
+            byte[] photo = null;
+            try (Cursor cursor = database.query("SELECT `photo` FROM " + PENDING_TABLE + " WHERE `farmer_id` = ?",
+                    new Object[]{farmerId})) {
+                if (cursor.moveToFirst()) {
+                    photo = cursor.getBlob(0);
+                }
+            }
+            // put() 写入失败时抛出异常，暂存照片不会被删除
+            String hash = photo != null ? photoStore.put(photo) : null;
+            writer.await(() -> {
+                if (hash != null) {
+                    farmerInfoDao.setPhotoHashIfMissing(farmerId, hash);
+                }
+                database.getOpenHelper().getWritableDatabase().execSQL(
+                        "DELETE FROM " + PENDING_TABLE + " WHERE `farmer_id` = ?", new Object[]{farmerId});
+                return null;
+            });
+            if (hash != null) {
+                imported++;
+            }
+        }
+
+        writer.await(() -> {
+            database.getOpenHelper().getWritableDatabase().execSQL("DROP TABLE IF EXISTS " + PENDING_TABLE);
+            return null;
+        });
+        return imported;
+    }
+
+    /**
+     * 删除没有烟农引用的照片文件（删除烟农、更换照片后遗留）
+     *
+     * @return 删除的文件数
+     */
+    public int removeOrphans() {
+        if (hasPendingPhotos()) {
+            // 暂存照片尚未全部导入，数据库中的引用不完整
+            return 0;
+        }
+        return photoStore.removeUnreferenced(new HashSet<>(farmerInfoDao.getPhotoHashes()), ORPHAN_MIN_AGE_MS);
+    }
+
+    private boolean hasPendingPhotos() {
+        try (Cursor cursor = database.query("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?",
+                new Object[]{DatabaseMigrations.PENDING_PHOTOS_TABLE})) {
+            return cursor.moveToFirst();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.tobacco.weight.data.photo;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+
+/**
+ * 身份证照片磁盘存储（按内容寻址）
+ * 照片以压缩后的 JPEG/PNG 字节保存在 files/photos/xx/<sha256>，文件名即内容的 SHA-256；
+ * 数据库和内存中的烟农信息只保存哈希，同一张照片只存一份，文件写入后不再改变。
+ * 显示时由 Glide 直接加载 file(hash)：按控件大小降采样解码，解码结果进入 Glide 的 LRU 内存缓存，
+ * 文件路径随内容唯一，可直接作为缓存键。
+ * 删除烟农不删除照片（同一张照片可能被多个烟农引用），无引用的文件由 removeUnreferenced() 统一清理。
+ * 线程安全；put() 有磁盘 I/O，不要在主线程调用。
+ */
+public class PhotoStore {
+
+    private static final String TAG = "PhotoStore";
+
+    private static final String DIRECTORY = "photos";
+
+    // 非 JPEG/PNG 的照片（读卡器输出的 BMP）转存为 JPEG 的质量
+    private static final int JPEG_QUALITY = 90;
+
+    private final File root;
+
+    public PhotoStore(Context context) {
+        this(new File(context.getApplicationContext().getFilesDir(), DIRECTORY));
+    }
+
+    public PhotoStore(File root) {
+        this.root = root;
+    }
+
+    /**
+     * 保存照片
+     *
+     * @param encoded 照片文件字节（JPEG/PNG 原样保存，其他格式解码后转存为 JPEG）
+     * @return 内容哈希；没有照片或照片无法识别时返回 null
+     * @throws IOException 写入失败（磁盘满、目录无法创建等），照片本身可能完好，调用方可稍后重试
+     */
+    public String put(byte[] encoded) throws IOException {
+        if (encoded == null || encoded.length == 0) {
+            return null;
+        }
+        byte[] data = isCompressed(encoded) ? encoded : toJpeg(encoded);
+        if (data == null) {
+            Log.w(TAG, "无法识别的照片格式，" + encoded.length + " 字节");
+            return null;
+        }
+
+        String hash = sha256(data);
+        File file = file(hash);
+        if (file.exists()) {
+            // 刷新修改时间：刚读卡、烟农信息尚未保存的照片不会被当作无引用文件清理
+            file.setLastModified(System.currentTimeMillis());
+            return hash;
+        }
+        File dir = file.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("无法创建照片目录: " + dir);
+        }
+        // 先写临时文件再改名，读到的照片不会是半个文件
+        File temp = new File(dir, hash + "." + Thread.currentThread().getId() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(data);
+            out.getFD().sync();
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+        if (!temp.renameTo(file) && !file.exists()) {
+            temp.delete();
+            throw new IOException("照片保存失败: " + hash);
+        }
+        temp.delete();
+        return hash;
+    }
+
+    /**
+     * 照片文件（可交给 Glide 加载）
+     */
+    public File file(String hash) {
+        return new File(new File(root, hash.substring(0, 2)), hash);
+    }
+
+    public boolean contains(String hash) {
+        return hash != null && hash.length() > 2 && file(hash).exists();
+    }
+
+    /**
+     * 删除不在 referenced 中的照片文件（包括写入中断遗留的临时文件）
+     * 只删除 minAgeMs 之前写入或被 put() 复用的文件，避免删掉刚读卡、尚未保存到烟农信息的照片
+     *
+     * @param referenced 数据库中仍被引用的照片哈希
+     * @return 删除的文件数
+     */
+    public int removeUnreferenced(Set<String> referenced, long minAgeMs) {
+        File[] dirs = root.listFiles(File::isDirectory);
+        if (dirs == null) {
+            return 0;
+        }
+        long cutoff = System.currentTimeMillis() - minAgeMs;
+        int removed = 0;
+        for (File dir : dirs) {
+            File[] files = dir.listFiles();
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                if (!referenced.contains(file.getName()) && file.lastModified() < cutoff && file.delete()) {
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    private static boolean isCompressed(byte[] data) {
+        boolean jpeg = data.length > 2 && (data[0] & 0xFF) == 0xFF && (data[1] & 0xFF) == 0xD8;
+        boolean png = data.length > 4 && (data[0] & 0xFF) == 0x89 && data[1] == 'P' && data[2] == 'N' && data[3] == 'G';
+        return jpeg || png;
+    }
+
+    private static byte[] toJpeg(byte[] encoded) {
+        Bitmap bitmap = BitmapFactory.decodeByteArray(encoded, 0, encoded.length);
+        if (bitmap == null) {
+            return null;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(encoded.length / 4);
+        bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+        bitmap.recycle();
+        return out.toByteArray();
+    }
+
+    private static String sha256(byte[] data) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] hash = digest.digest(data);
+        StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
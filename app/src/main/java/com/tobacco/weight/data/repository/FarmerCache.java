@@ -0,0 +1,175 @@
+package com.tobacco.weight.data.repository;
+
+import com.tobacco.weight.data.entity.FarmerInfoEntity;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 烟农身份缓存（按身份证号）
+ * - 读卡、保存时按身份证号 O(1) 查找，命中不访问数据库；
+ * - 未命中时同一身份证号只有一个线程访问数据库（single-flight），其他线程等待并共享结果；
+ * - 条目数超过 MAX_ENTRIES 时按近似 LRU（CLOCK：最近访问过的跳过一轮）淘汰。
+ * 仓库的写操作写库成功后同步更新缓存（write-through）。
+ * 缓存中的实体会被多个调用方共享，取出后不要修改。
+ */
+final class FarmerCache {
+
+    // 一个收购站一季的烟农通常在几千人以内
+    static final int MAX_ENTRIES = 4096;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<FarmerInfoEntity>> loads = new ConcurrentHashMap<>();
+
+    /**
+     * 查找缓存，未命中返回 null
+     */
+    FarmerInfoEntity get(String idCardNumber) {
+        if (idCardNumber == null) {
+            return null;
+        }
+        Entry entry = entries.get(idCardNumber);
+        if (entry == null) {
+            return null;
+        }
+        entry.referenced = true;
+        return entry.farmer;
+    }
+
+    /**
+     * 查找缓存，未命中时执行 loader 并缓存结果（loader 返回 null 不缓存）
+     * 同一身份证号并发调用时只有第一个线程执行 loader，其余线程等待其结果
+     */
+    FarmerInfoEntity getOrLoad(String idCardNumber, Callable<FarmerInfoEntity> loader) throws Exception {
+        FarmerInfoEntity cached = get(idCardNumber);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<FarmerInfoEntity> load = new CompletableFuture<>();
+        CompletableFuture<FarmerInfoEntity> running = loads.putIfAbsent(idCardNumber, load);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            // 上一次加载可能刚刚完成
+            FarmerInfoEntity farmer = get(idCardNumber);
+            if (farmer == null) {
+                farmer = loader.call();
+                if (farmer != null) {
+                    putIfAbsent(farmer);
+                    farmer = get(idCardNumber);
+                }
+            }
+            load.complete(farmer);
+            return farmer;
+        } catch (Exception e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(idCardNumber, load);
+        }
+    }
+
+    /**
+     * 写入或覆盖（实体已写库）
+     */
+    void put(FarmerInfoEntity farmer) {
+        String key = key(farmer);
+        if (key == null) {
+            return;
+        }
+        if (entries.put(key, new Entry(farmer)) == null) {
+            trim();
+        }
+    }
+
+    /**
+     * 预热：已有（更新的）条目不覆盖，满了即停止
+     */
+    void warm(List<FarmerInfoEntity> farmers) {
+        for (FarmerInfoEntity farmer : farmers) {
+            if (entries.size() >= MAX_ENTRIES) {
+                return;
+            }
+            putIfAbsent(farmer);
+        }
+    }
+
+    void remove(String idCardNumber) {
+        if (idCardNumber != null) {
+            entries.remove(idCardNumber);
+        }
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void putIfAbsent(FarmerInfoEntity farmer) {
+        String key = key(farmer);
+        if (key != null && entries.putIfAbsent(key, new Entry(farmer)) == null) {
+            trim();
+        }
+    }
+
+    /**
+     * 超出容量时淘汰：跳过并清除最近访问过的条目，淘汰第一个未访问的
+     */
+    private void trim() {
+        // 一轮内全部被访问过时标记已清除，下一轮必定淘汰
+        while (entries.size() > MAX_ENTRIES) {
+            Iterator<Entry> it = entries.values().iterator();
+            boolean evicted = false;
+            while (it.hasNext() && !evicted) {
+                Entry entry = it.next();
+                if (entry.referenced) {
+                    entry.referenced = false;
+                } else {
+                    it.remove();
+                    evicted = true;
+                }
+            }
+        }
+    }
+
+    private static String key(FarmerInfoEntity farmer) {
+        if (farmer == null || farmer.getIdCardNumber() == null || farmer.getIdCardNumber().isEmpty()) {
+            return null;
+        }
+        return farmer.getIdCardNumber();
+    }
+
+    private static FarmerInfoEntity await(CompletableFuture<FarmerInfoEntity> load) throws Exception {
+        try {
+            return load.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Entry {
+        final FarmerInfoEntity farmer;
+        volatile boolean referenced;
+
+        Entry(FarmerInfoEntity farmer) {
+            this.farmer = farmer;
+        }
+    }
+}
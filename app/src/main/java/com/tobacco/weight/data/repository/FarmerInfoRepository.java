@@ -1,16 +1,21 @@
 package com.tobacco.weight.data.repository;
 
 import android.app.Application;
+import android.util.Log;
 import androidx.lifecycle.LiveData;
 
 import com.tobacco.weight.data.dao.FarmerInfoDao;
+import com.tobacco.weight.data.database.FtsQuery;
+import com.tobacco.weight.data.database.GroupCommitWriter;
 import com.tobacco.weight.data.database.TobaccoDatabase;
 import com.tobacco.weight.data.entity.FarmerInfoEntity;
 import com.tobacco.weight.data.FarmerInfo;
+import com.tobacco.weight.scheduler.AppScheduler;
+import com.tobacco.weight.scheduler.Lane;
 
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -22,18 +27,41 @@ import javax.inject.Singleton;
  * - 确保每个身份证号只存储一次
  * - 提供农户信息的增删改查
  * - 管理农户状态和统计
+ * 
+ * 按身份证号的查找和插入经过 FarmerCache：启动时后台预热，命中不访问数据库，
+ * 写操作经 GroupCommitWriter 与称重记录一起组提交，事务提交后更新缓存并回调（写线程上）。
  */
 @Singleton
 public class FarmerInfoRepository {
 
+    private static final String TAG = "FarmerInfoRepository";
+
     private final FarmerInfoDao farmerInfoDao;
-    private final ExecutorService executor;
+    private final GroupCommitWriter writer;
+    private final Executor executor;
+    private final FarmerCache farmerCache = new FarmerCache();
 
     @Inject
-    public FarmerInfoRepository(Application application) {
+    public FarmerInfoRepository(Application application, AppScheduler scheduler, GroupCommitWriter writer) {
         TobaccoDatabase database = TobaccoDatabase.getInstance(application);
         farmerInfoDao = database.farmerInfoDao();
-        executor = Executors.newFixedThreadPool(4);
+        this.writer = writer;
+        executor = scheduler.executor(Lane.DB_READ);
+        AppScheduler.submit(executor, this::warmCache,
+                e -> Log.w(TAG, "烟农缓存预热未执行，按需加载: " + e.getMessage()));
+    }
+
+    /**
+     * 预热烟农缓存（激活烟农，按建档时间从新到旧）
+     */
+    private void warmCache() {
+        try {
+            farmerCache.warm(farmerInfoDao.getAllActiveFarmersSync());
+            Log.d(TAG, "烟农缓存已预热: " + farmerCache.size() + " 人");
+        } catch (Exception e) {
+            // 预热失败不影响使用，按需加载
+            Log.w(TAG, "烟农缓存预热失败: " + e.getMessage());
+        }
     }
 
     /**
@@ -50,29 +78,19 @@ public class FarmerInfoRepository {
         
         FarmerInfoEntity entity = FarmerInfoEntity.fromFarmerInfo(farmerInfo);
         
-        executor.execute(() -> {
-            try {
-                // 使用 IGNORE 策略，如果身份证号已存在则忽略插入
-                long id = farmerInfoDao.insertIgnore(entity);
-                if (listener != null) {
-                    if (id > 0) {
-                        listener.onSuccess(id);
-                    } else {
-                        // id = 0 表示记录已存在，被忽略
-                        listener.onSuccess(0L); // 可以根据需要修改返回值
-                    }
-                }
-            } catch (Exception e) {
-                if (listener != null) {
-                    listener.onError(e);
-                }
+        // 使用 IGNORE 策略，如果身份证号已存在则忽略插入（返回 0）
+        writer.submit(() -> Math.max(farmerInfoDao.insertIgnore(entity), 0L), ack(listener, id -> {
+            if (id > 0) {
+                entity.setId(id);
+                farmerCache.put(entity);
             }
-        });
+        }));
     }
 
     /**
      * 检查身份证号是否已存在，如果不存在则插入
-     * 这是更安全的方式，先检查再插入
+     * 这是更安全的方式，先检查再插入；缓存命中时不访问数据库，
+     * 同一身份证号并发调用只查询/插入一次
      */
     public void insertIfIdCardNotExists(FarmerInfo farmerInfo, OnResultListener<InsertResult> listener) {
         if (farmerInfo == null || farmerInfo.getIdCardNumber() == null || farmerInfo.getIdCardNumber().trim().isEmpty()) {
@@ -82,23 +100,23 @@ public class FarmerInfoRepository {
             return;
         }
         
-        executor.execute(() -> {
+        String idCardNumber = farmerInfo.getIdCardNumber();
+        AppScheduler.submit(executor, () -> {
             try {
-                // 先检查是否已存在
-                int existingCount = farmerInfoDao.checkIdCardExists(farmerInfo.getIdCardNumber());
-                
-                if (existingCount > 0) {
-                    // 已存在，返回现有记录
-                    FarmerInfoEntity existingEntity = farmerInfoDao.getFarmerByIdCardSync(farmerInfo.getIdCardNumber());
-                    if (listener != null) {
-                        listener.onSuccess(new InsertResult(existingEntity.getId(), false, "身份证号已存在"));
-                    }
-                } else {
-                    // 不存在，插入新记录
-                    FarmerInfoEntity entity = FarmerInfoEntity.fromFarmerInfo(farmerInfo);
-                    long newId = farmerInfoDao.insertIgnore(entity);
-                    if (listener != null) {
-                        listener.onSuccess(new InsertResult(newId, true, "新农户信息已保存"));
+                FarmerInfoEntity[] inserted = new FarmerInfoEntity[1];
+                FarmerInfoEntity farmer = farmerCache.getOrLoad(idCardNumber, () -> findOrInsert(farmerInfo, inserted));
+                if (farmer == null) {
+                    // 与同一身份证号的只读查询合并了，查询结果为不存在，自己再插入一次
+                    farmer = farmerCache.getOrLoad(idCardNumber, () -> findOrInsert(farmerInfo, inserted));
+                }
+                if (farmer == null) {
+                    throw new IllegalStateException("烟农信息保存失败: " + farmerInfo.getMaskedIdCardNumber());
+                }
+                if (listener != null) {
+                    if (farmer == inserted[0]) {
+                        listener.onSuccess(new InsertResult(farmer.getId(), true, "新农户信息已保存"));
+                    } else {
+                        listener.onSuccess(new InsertResult(farmer.getId(), false, "身份证号已存在"));
                     }
                 }
             } catch (Exception e) {
@@ -106,6 +124,33 @@ public class FarmerInfoRepository {
                     listener.onError(e);
                 }
             }
+        }, e -> {
+            if (listener != null) {
+                listener.onError(e);
+            }
+        });
+    }
+
+    /**
+     * 查询烟农，不存在则插入（在 executor 线程、single-flight 中执行，插入经写线程组提交并等待提交）
+     * 
+     * @param inserted 插入了新记录时写入 [0]
+     */
+    private FarmerInfoEntity findOrInsert(FarmerInfo farmerInfo, FarmerInfoEntity[] inserted) throws Exception {
+        FarmerInfoEntity existing = farmerInfoDao.getFarmerByIdCardSync(farmerInfo.getIdCardNumber());
+        if (existing != null) {
+            return existing;
+        }
+        FarmerInfoEntity entity = FarmerInfoEntity.fromFarmerInfo(farmerInfo);
+        return writer.await(() -> {
+            long newId = farmerInfoDao.insertIgnore(entity);
+            if (newId <= 0) {
+                // 其他途径刚刚写入
+                return farmerInfoDao.getFarmerByIdCardSync(farmerInfo.getIdCardNumber());
+            }
+            entity.setId(newId);
+            inserted[0] = entity;
+            return entity;
         });
     }
 
@@ -122,72 +167,41 @@ public class FarmerInfoRepository {
         
         FarmerInfoEntity entity = FarmerInfoEntity.fromFarmerInfo(farmerInfo);
         
-        executor.execute(() -> {
-            try {
-                long id = farmerInfoDao.insertReplace(entity);
-                if (listener != null) {
-                    listener.onSuccess(id);
-                }
-            } catch (Exception e) {
-                if (listener != null) {
-                    listener.onError(e);
-                }
-            }
-        });
+        writer.submit(() -> farmerInfoDao.insertReplace(entity), ack(listener, id -> {
+            entity.setId(id);
+            farmerCache.put(entity);
+        }));
     }
 
     /**
      * 更新烟农信息
      */
     public void update(FarmerInfoEntity farmerInfo, OnResultListener<Integer> listener) {
-        executor.execute(() -> {
-            try {
-                int count = farmerInfoDao.update(farmerInfo);
-                if (listener != null) {
-                    listener.onSuccess(count);
-                }
-            } catch (Exception e) {
-                if (listener != null) {
-                    listener.onError(e);
-                }
+        writer.submit(() -> farmerInfoDao.update(farmerInfo), ack(listener, count -> {
+            if (count > 0) {
+                farmerCache.put(farmerInfo);
             }
-        });
+        }));
     }
 
     /**
      * 更新首次称重时间
      */
     public void updateFirstRecordTime(String idCardNumber, OnResultListener<Integer> listener) {
-        executor.execute(() -> {
-            try {
-                int count = farmerInfoDao.updateFirstRecordTime(idCardNumber);
-                if (listener != null) {
-                    listener.onSuccess(count);
-                }
-            } catch (Exception e) {
-                if (listener != null) {
-                    listener.onError(e);
-                }
+        writer.submit(() -> farmerInfoDao.updateFirstRecordTime(idCardNumber), ack(listener, count -> {
+            if (count > 0) {
+                // 时间由数据库写入，下次查询时重新加载
+                farmerCache.remove(idCardNumber);
             }
-        });
+        }));
     }
 
     /**
      * 删除烟农信息
      */
     public void delete(FarmerInfoEntity farmerInfo, OnResultListener<Integer> listener) {
-        executor.execute(() -> {
-            try {
-                int count = farmerInfoDao.delete(farmerInfo);
-                if (listener != null) {
-                    listener.onSuccess(count);
-                }
-            } catch (Exception e) {
-                if (listener != null) {
-                    listener.onError(e);
-                }
-            }
-        });
+        writer.submit(() -> farmerInfoDao.delete(farmerInfo),
+                ack(listener, count -> farmerCache.remove(farmerInfo.getIdCardNumber())));
     }
 
     // === 查询方法 ===
@@ -200,12 +214,21 @@ public class FarmerInfoRepository {
     }
 
     /**
-     * 同步方式根据身份证号查询烟农信息
+     * 从缓存查找烟农（不访问数据库，可在主线程调用），未缓存返回 null
+     * 返回的实体与缓存共享，不要修改
+     */
+    public FarmerInfoEntity getCachedFarmer(String idCardNumber) {
+        return farmerCache.get(idCardNumber);
+    }
+
+    /**
+     * 同步方式根据身份证号查询烟农信息（先查缓存）
      */
     public void getFarmerByIdCardSync(String idCardNumber, OnResultListener<FarmerInfoEntity> listener) {
-        executor.execute(() -> {
+        AppScheduler.submit(executor, () -> {
             try {
-                FarmerInfoEntity farmer = farmerInfoDao.getFarmerByIdCardSync(idCardNumber);
+                FarmerInfoEntity farmer = farmerCache.getOrLoad(idCardNumber,
+                        () -> farmerInfoDao.getFarmerByIdCardSync(idCardNumber));
                 if (listener != null) {
                     listener.onSuccess(farmer);
                 }
@@ -214,6 +237,10 @@ public class FarmerInfoRepository {
                     listener.onError(e);
                 }
             }
+        }, e -> {
+            if (listener != null) {
+                listener.onError(e);
+            }
         });
     }
 
@@ -242,7 +269,7 @@ public class FarmerInfoRepository {
      * 获取所有活跃的农户
      */
     public void getAllActiveFarmers(FarmerListCallback callback) {
-        executor.execute(() -> {
+        AppScheduler.submit(executor, () -> {
             try {
                 List<FarmerInfoEntity> farmers = farmerInfoDao.getAllActiveFarmersSync();
                 if (callback != null) {
@@ -253,6 +280,10 @@ public class FarmerInfoRepository {
                     callback.onFailure("获取农户列表失败: " + e.getMessage());
                 }
             }
+        }, e -> {
+            if (callback != null) {
+                callback.onFailure("获取农户列表失败: " + e.getMessage());
+            }
         });
     }
 
@@ -264,20 +295,25 @@ public class FarmerInfoRepository {
     }
 
     /**
-     * 同步检查身份证号是否已存在
+     * 同步检查身份证号是否已存在（先查缓存）
      */
     public void checkIdCardExistsSync(String idCardNumber, OnResultListener<Boolean> listener) {
-        executor.execute(() -> {
+        AppScheduler.submit(executor, () -> {
             try {
-                int count = farmerInfoDao.checkIdCardExists(idCardNumber);
+                boolean exists = farmerCache.get(idCardNumber) != null
+                        || farmerInfoDao.checkIdCardExists(idCardNumber) > 0;
                 if (listener != null) {
-                    listener.onSuccess(count > 0);
+                    listener.onSuccess(exists);
                 }
             } catch (Exception e) {
                 if (listener != null) {
                     listener.onError(e);
                 }
             }
+        }, e -> {
+            if (listener != null) {
+                listener.onError(e);
+            }
         });
     }
 
@@ -285,7 +321,7 @@ public class FarmerInfoRepository {
      * 验证烟农身份信息
      */
     public void validateFarmerIdentity(String farmerName, String idCardNumber, OnResultListener<Boolean> listener) {
-        executor.execute(() -> {
+        AppScheduler.submit(executor, () -> {
             try {
                 boolean isValid = farmerInfoDao.validateFarmerIdentity(farmerName, idCardNumber);
                 if (listener != null) {
@@ -296,14 +332,22 @@ public class FarmerInfoRepository {
                     listener.onError(e);
                 }
             }
+        }, e -> {
+            if (listener != null) {
+                listener.onError(e);
+            }
         });
     }
 
     /**
-     * 搜索烟农
+     * 搜索烟农（按姓名前缀，全文检索）
      */
     public LiveData<List<FarmerInfoEntity>> searchFarmersByName(String searchQuery) {
-        return farmerInfoDao.searchFarmersByName(searchQuery);
+        String match = FtsQuery.prefixMatch(searchQuery, "farmer_name");
+        if (match == null) {
+            return farmerInfoDao.getAllActiveFarmers();
+        }
+        return farmerInfoDao.searchFarmersByName(match);
     }
 
     /**
@@ -324,7 +368,7 @@ public class FarmerInfoRepository {
      * 获取农户总数（异步回调）
      */
     public void getTotalFarmerCount(CountCallback callback) {
-        executor.execute(() -> {
+        AppScheduler.submit(executor, () -> {
             try {
                 int count = farmerInfoDao.getTotalFarmerCount();
                 if (callback != null) {
@@ -335,18 +379,42 @@ public class FarmerInfoRepository {
                     callback.onFailure("获取农户总数失败: " + e.getMessage());
                 }
             }
+        }, e -> {
+            if (callback != null) {
+                callback.onFailure("获取农户总数失败: " + e.getMessage());
+            }
         });
     }
 
     // === 工具方法 ===
 
     /**
-     * 关闭线程池
+     * 写入提交后先更新缓存，再回调结果
+     */
+    private static <T> GroupCommitWriter.Ack<T> ack(OnResultListener<T> listener, Consumer<T> onCommitted) {
+        return new GroupCommitWriter.Ack<T>() {
+            @Override
+            public void onCommitted(T result) {
+                onCommitted.accept(result);
+                if (listener != null) {
+                    listener.onSuccess(result);
+                }
+            }
+
+            @Override
+            public void onFailed(Exception e) {
+                if (listener != null) {
+                    listener.onError(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * 清空烟农缓存（线程池由 AppScheduler 管理）
      */
     public void shutdown() {
-        if (executor != null && !executor.isShutdown()) {
-            executor.shutdown();
-        }
+        farmerCache.clear();
     }
 
     // === 回调接口 ===
@@ -0,0 +1,228 @@
+package com.tobacco.weight.data.repository;
+
+import android.app.Application;
+
+import com.tobacco.weight.data.dao.SearchCandidate;
+import com.tobacco.weight.data.dao.SearchDao;
+import com.tobacco.weight.data.dao.SearchMatch;
+import com.tobacco.weight.data.database.FtsQuery;
+import com.tobacco.weight.data.database.TobaccoDatabase;
+import com.tobacco.weight.scheduler.AppScheduler;
+import com.tobacco.weight.scheduler.Lane;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * 全文检索仓库类
+ *
+ * 职责：
+ * - 在 search_index 上按前缀检索烟农和称重记录
+ * - 按命中列加权（姓名 > 身份证/尾号 > 预检编号 > 合同/记录编号 > 地址）对结果排序
+ */
+@Singleton
+public class SearchRepository {
+
+    // 默认返回条数
+    public static final int DEFAULT_LIMIT = 50;
+
+    // 单次最多返回条数（按 docid 取内容时受 SQLite 参数个数限制）
+    public static final int MAX_LIMIT = 500;
+
+    // search_index 各列权重（与表列顺序一致）：
+    // farmer_name, id_card_number, id_card_suffix, pre_check_number, contract_number, record_number, address
+    private static final double[] COLUMN_WEIGHTS = { 10.0, 8.0, 8.0, 6.0, 5.0, 5.0, 1.0 };
+
+    private final SearchDao searchDao;
+    // 检索按输入顺序串行执行（DB_READ 通道）
+    private final Executor executor;
+
+    @Inject
+    public SearchRepository(Application application, AppScheduler scheduler) {
+        TobaccoDatabase database = TobaccoDatabase.getInstance(application);
+        searchDao = database.searchDao();
+        executor = scheduler.serial(Lane.DB_READ);
+    }
+
+    /**
+     * 检索烟农和称重记录
+     *
+     * @param query 用户输入，空白分隔的多个关键字均需命中（前缀匹配）
+     * @param limit 最多返回条数（不超过 MAX_LIMIT）
+     */
+    public void search(String query, int limit, SearchCallback callback) {
+        search(query, HitType.ALL, limit, callback);
+    }
+
+    /**
+     * 按类型检索
+     */
+    public void search(String query, HitType type, int limit, SearchCallback callback) {
+        String match = FtsQuery.prefixMatch(query);
+        if (match == null) {
+            if (callback != null) {
+                callback.onSuccess(Collections.emptyList());
+            }
+            return;
+        }
+
+        int count = Math.min(limit, MAX_LIMIT);
+        AppScheduler.submit(executor, () -> {
+            try {
+                List<SearchCandidate> candidates;
+                switch (type) {
+                    case FARMER:
+                        candidates = searchDao.matchFarmers(match);
+                        break;
+                    case RECORD:
+                        candidates = searchDao.matchRecords(match);
+                        break;
+                    default:
+                        candidates = searchDao.match(match);
+                        break;
+                }
+
+                // 对全部命中打分，保留得分最高的 count 条（小顶堆）
+                PriorityQueue<ScoredDoc> top = new PriorityQueue<>(count + 1,
+                        (a, b) -> Double.compare(a.score, b.score));
+                for (SearchCandidate candidate : candidates) {
+                    top.offer(new ScoredDoc(candidate.docId, score(candidate.matchInfo)));
+                    if (top.size() > count) {
+                        top.poll();
+                    }
+                }
+
+                List<SearchHit> hits = new ArrayList<>(top.size());
+                if (!top.isEmpty()) {
+                    Map<Long, Double> scores = new HashMap<>(top.size() * 2);
+                    for (ScoredDoc doc : top) {
+                        scores.put(doc.docId, doc.score);
+                    }
+                    for (SearchMatch m : searchDao.getByDocIds(new ArrayList<>(scores.keySet()))) {
+                        hits.add(new SearchHit(m, scores.get(m.docId)));
+                    }
+                    hits.sort((a, b) -> Double.compare(b.score, a.score));
+                }
+
+                if (callback != null) {
+                    callback.onSuccess(hits);
+                }
+            } catch (Exception e) {
+                if (callback != null) {
+                    callback.onFailure("检索失败: " + e.getMessage());
+                }
+            }
+        }, e -> {
+            if (callback != null) {
+                callback.onFailure("检索失败: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 根据 matchinfo('pcnx') 计算得分：
+     * 每个关键字在每列的命中次数 × 列权重 × 逆文档频率
+     */
+    static double score(byte[] matchInfo) {
+        if (matchInfo == null || matchInfo.length < 12) {
+            return 0.0;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder());
+        int phraseCount = buffer.getInt(0);
+        int columnCount = buffer.getInt(4);
+        int documentCount = buffer.getInt(8);
+
+        double score = 0.0;
+        for (int p = 0; p < phraseCount; p++) {
+            for (int c = 0; c < columnCount; c++) {
+                int base = 12 + 12 * (p * columnCount + c);
+                if (base + 12 > matchInfo.length) {
+                    return score;
+                }
+                int hitsInRow = buffer.getInt(base);
+                if (hitsInRow == 0) {
+                    continue;
+                }
+                int docsWithHits = buffer.getInt(base + 8);
+                double weight = c < COLUMN_WEIGHTS.length ? COLUMN_WEIGHTS[c] : 1.0;
+                double idf = Math.log(1.0 + (double) documentCount / (1 + docsWithHits));
+                score += weight * hitsInRow * idf;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * 排序用的 docid 和得分
+     */
+    private static final class ScoredDoc {
+        final long docId;
+        final double score;
+
+        ScoredDoc(long docId, double score) {
+            this.docId = docId;
+            this.score = score;
+        }
+    }
+
+    // === 回调接口 ===
+
+    /**
+     * 检索结果回调接口
+     */
+    public interface SearchCallback {
+        void onSuccess(List<SearchHit> hits);
+        void onFailure(String error);
+    }
+
+    /**
+     * 命中类型
+     */
+    public enum HitType {
+        ALL,
+        FARMER,
+        RECORD
+    }
+
+    /**
+     * 检索命中结果
+     */
+    public static class SearchHit {
+        public final HitType type;          // FARMER 或 RECORD
+        public final long id;               // farmer_info.id 或 weight_records.id
+        public final String farmerName;
+        public final String idCardNumber;
+        public final String preCheckNumber;
+        public final String contractNumber;
+        public final String recordNumber;
+        public final String address;
+        public final double score;          // 相关度，越大越相关
+
+        SearchHit(SearchMatch match, double score) {
+            this.type = match.docId < 0 ? HitType.FARMER : HitType.RECORD;
+            this.id = Math.abs(match.docId);
+            this.farmerName = match.farmerName;
+            this.idCardNumber = match.idCardNumber;
+            this.preCheckNumber = match.preCheckNumber;
+            this.contractNumber = match.contractNumber;
+            this.recordNumber = match.recordNumber;
+            this.address = match.address;
+            this.score = score;
+        }
+
+        @Override
+        public String toString() {
+            return "SearchHit{" + type + " #" + id + ", " + farmerName + ", score=" + score + '}';
+        }
+    }
+}
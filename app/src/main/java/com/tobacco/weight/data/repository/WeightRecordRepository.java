@@ -1,18 +1,35 @@
 package com.tobacco.weight.data.repository;
 
 import android.app.Application;
+import android.database.Cursor;
+import android.util.Log;
 import androidx.lifecycle.LiveData;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
 
+import com.tobacco.weight.data.dao.FarmerAggregateDao;
+import com.tobacco.weight.data.dao.FarmerRecordSummary;
+import com.tobacco.weight.data.dao.RecordTotals;
 import com.tobacco.weight.data.dao.WeightRecordDao;
+import com.tobacco.weight.data.database.GroupCommitWriter;
 import com.tobacco.weight.data.database.TobaccoDatabase;
+import com.tobacco.weight.data.entity.FarmerAggregateEntity;
 import com.tobacco.weight.data.model.WeightRecord;
+import com.tobacco.weight.data.paging.RecordFilter;
+import com.tobacco.weight.data.paging.WeightRecordPagingSource;
+import com.tobacco.weight.scheduler.AppScheduler;
+import com.tobacco.weight.scheduler.Lane;
+import com.tobacco.weight.utils.DataExportUtils;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -20,88 +37,138 @@ import javax.inject.Singleton;
 /**
  * 称重记录仓库类
  * 管理数据访问逻辑，提供统一的数据接口
+ * 插入、更新、删除经 GroupCommitWriter 组提交，回调在事务提交后（写线程上）触发
+ * 查询在 DB_READ 通道执行，CSV 导出在 EXPORT 通道执行
  */
 @Singleton
 public class WeightRecordRepository {
 
+    private static final String TAG = "WeightRecordRepository";
+
+    // 记录列表每页条数
+    private static final int PAGE_SIZE = 50;
+
+    private final TobaccoDatabase database;
     private final WeightRecordDao weightRecordDao;
-    private final ExecutorService executor;
+    private final FarmerAggregateDao farmerAggregateDao;
+    private final GroupCommitWriter writer;
+    private final AppScheduler scheduler;
+    private final Executor executor;
+    private final Executor exportExecutor;
 
     @Inject
-    public WeightRecordRepository(Application application) {
-        TobaccoDatabase database = TobaccoDatabase.getInstance(application);
+    public WeightRecordRepository(Application application, AppScheduler scheduler, GroupCommitWriter writer) {
+        database = TobaccoDatabase.getInstance(application);
         weightRecordDao = database.weightRecordDao();
-        executor = Executors.newFixedThreadPool(4);
+        farmerAggregateDao = database.farmerAggregateDao();
+        this.writer = writer;
+        this.scheduler = scheduler;
+        executor = scheduler.executor(Lane.DB_READ);
+        exportExecutor = scheduler.executor(Lane.EXPORT);
     }
 
     /**
      * 插入新的称重记录
      */
     public void insert(WeightRecord record, OnResultListener<Long> listener) {
-        executor.execute(() -> {
-            try {
-                long id = weightRecordDao.insert(record);
-                if (listener != null) {
-                    listener.onSuccess(id);
-                }
-            } catch (Exception e) {
-                if (listener != null) {
-                    listener.onError(e);
-                }
-            }
-        });
+        writer.submit(() -> weightRecordDao.insert(record), ack(listener));
     }
 
     /**
      * 更新称重记录
      */
     public void update(WeightRecord record, OnResultListener<Integer> listener) {
-        executor.execute(() -> {
-            try {
-                int count = weightRecordDao.update(record);
-                if (listener != null) {
-                    listener.onSuccess(count);
-                }
-            } catch (Exception e) {
-                if (listener != null) {
-                    listener.onError(e);
-                }
-            }
-        });
+        writer.submit(() -> weightRecordDao.update(record), ack(listener));
     }
 
     /**
      * 删除称重记录
      */
     public void delete(WeightRecord record, OnResultListener<Integer> listener) {
-        executor.execute(() -> {
+        writer.submit(() -> weightRecordDao.delete(record), ack(listener));
+    }
+
+    /**
+     * 获取所有记录
+     */
+    public LiveData<List<WeightRecord>> getAllRecords() {
+        return weightRecordDao.getAllRecords();
+    }
+
+    /**
+     * 创建称重记录分页加载器（键集分页，筛选条件在SQL中执行）
+     */
+    public Pager<WeightRecordPagingSource.PageKey, WeightRecord> createRecordPager(RecordFilter filter) {
+        PagingConfig config = new PagingConfig(PAGE_SIZE, PAGE_SIZE / 2, false);
+        return new Pager<>(config, null,
+                () -> new WeightRecordPagingSource(database, weightRecordDao, filter, executor));
+    }
+
+    /**
+     * 获取筛选条件下的记录数、总重量和总金额
+     */
+    public void getFilteredTotals(RecordFilter filter, OnResultListener<RecordTotals> listener) {
+        AppScheduler.submit(executor, () -> {
             try {
-                int count = weightRecordDao.delete(record);
+                RecordTotals totals = weightRecordDao.getFilteredTotals(filter.getMatchExpression(),
+                        filter.getStartTime(), filter.getEndTime());
                 if (listener != null) {
-                    listener.onSuccess(count);
+                    listener.onSuccess(totals);
                 }
             } catch (Exception e) {
                 if (listener != null) {
                     listener.onError(e);
                 }
             }
+        }, e -> {
+            if (listener != null) {
+                listener.onError(e);
+            }
         });
     }
 
     /**
-     * 获取所有记录
+     * 流式导出全部称重记录到CSV
+     *
+     * @return 导出任务，可用于取消
      */
-    public LiveData<List<WeightRecord>> getAllRecords() {
-        return weightRecordDao.getAllRecords();
+    public DataExportUtils.ExportTask exportAllRecordsToCsv(DataExportUtils.ExportCallback callback) {
+        return exportToCsv(weightRecordDao::queryAllRecordsForExport,
+                DataExportUtils.allRecordsFileName(), "没有数据可导出", callback);
+    }
+
+    /**
+     * 流式导出指定烟农的称重记录到CSV
+     *
+     * @return 导出任务，可用于取消
+     */
+    public DataExportUtils.ExportTask exportFarmerRecordsToCsv(String farmerName,
+                                                               DataExportUtils.ExportCallback callback) {
+        return exportToCsv(() -> weightRecordDao.queryRecordsForExportByFarmerName(farmerName),
+                DataExportUtils.farmerRecordsFileName(farmerName), farmerName + "没有称重记录", callback);
+    }
+
+    private DataExportUtils.ExportTask exportToCsv(Supplier<Cursor> query, String filename, String emptyMessage,
+                                                   DataExportUtils.ExportCallback callback) {
+        DataExportUtils.ExportTask task = new DataExportUtils.ExportTask();
+        AppScheduler.submit(exportExecutor, () -> {
+            try (Cursor cursor = query.get()) {
+                DataExportUtils.exportCursorToCSV(cursor, filename, emptyMessage, task, callback, scheduler);
+            } catch (Exception e) {
+                Log.e(TAG, "导出CSV失败", e);
+                callback.onError("导出失败：" + e.getMessage());
+            }
+        }, e -> callback.onError("导出任务过多，请稍后再试"));
+        return task;
     }
 
     /**
      * 获取称重记录总数
      */
     public void getTotalRecordCount(CountCallback callback) {
-        executor.execute(() -> {
+        AppScheduler.submit(executor, () -> {
             try {
-                int count = weightRecordDao.getTotalRecordCount();
+                int count = farmerAggregateDao.getTotalRecordCount();
                 if (callback != null) {
                     callback.onSuccess(count);
                 }
@@ -110,6 +177,10 @@ public class WeightRecordRepository {
                     callback.onFailure("获取记录总数失败: " + e.getMessage());
                 }
             }
+        }, e -> {
+            if (callback != null) {
+                callback.onFailure("获取记录总数失败: " + e.getMessage());
+            }
         });
     }
 
@@ -117,9 +188,9 @@ public class WeightRecordRepository {
      * 获取所有记录的总重量
      */
     public void getTotalWeight(WeightCallback callback) {
-        executor.execute(() -> {
+        AppScheduler.submit(executor, () -> {
             try {
-                double totalWeight = weightRecordDao.getTotalWeight();
+                double totalWeight = farmerAggregateDao.getTotalWeight();
                 if (callback != null) {
                     callback.onSuccess(totalWeight);
                 }
@@ -128,6 +199,10 @@ public class WeightRecordRepository {
                     callback.onFailure("获取总重量失败: " + e.getMessage());
                 }
             }
+        }, e -> {
+            if (callback != null) {
+                callback.onFailure("获取总重量失败: " + e.getMessage());
+            }
         });
     }
 
@@ -135,9 +210,9 @@ public class WeightRecordRepository {
      * 获取所有记录的总叶片数量（总捆数）
      */
     public void getTotalLeafCount(CountCallback callback) {
-        executor.execute(() -> {
+        AppScheduler.submit(executor, () -> {
             try {
-                int totalLeafCount = weightRecordDao.getTotalLeafCount();
+                int totalLeafCount = farmerAggregateDao.getTotalLeafCount();
                 if (callback != null) {
                     callback.onSuccess(totalLeafCount);
                 }
@@ -146,6 +221,10 @@ public class WeightRecordRepository {
                     callback.onFailure("获取总叶片数量失败: " + e.getMessage());
                 }
             }
+        }, e -> {
+            if (callback != null) {
+                callback.onFailure("获取总叶片数量失败: " + e.getMessage());
+            }
         });
     }
 
@@ -153,26 +232,23 @@ public class WeightRecordRepository {
      * 获取指定农户的记录统计
      */
     public void getFarmerRecordStatistics(String idCardNumber, FarmerStatsCallback callback) {
-        executor.execute(() -> {
+        AppScheduler.submit(executor, () -> {
             try {
-                int totalLeafCount = weightRecordDao.getFarmerTotalLeafCount(idCardNumber);
-                double totalWeight = weightRecordDao.getFarmerTotalWeight(idCardNumber);
-                Long lastRecordTimestamp = weightRecordDao.getFarmerLastRecordTimestamp(idCardNumber);
-                
-                String lastRecordDate = null;
-                if (lastRecordTimestamp != null) {
-                    SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
-                    lastRecordDate = sdf.format(new Date(lastRecordTimestamp));
-                }
+                FarmerRecordSummary summary = farmerAggregateDao.getFarmerSummary(idCardNumber);
                 
                 if (callback != null) {
-                    callback.onSuccess(totalLeafCount, totalWeight, lastRecordDate);
+                    callback.onSuccess(summary.totalBundles, summary.totalWeight,
+                            formatRecordDate(summary.lastTimestamp));
                 }
             } catch (Exception e) {
                 if (callback != null) {
                     callback.onFailure("获取农户统计失败: " + e.getMessage());
                 }
             }
+        }, e -> {
+            if (callback != null) {
+                callback.onFailure("获取农户统计失败: " + e.getMessage());
+            }
         });
     }
 
@@ -180,27 +256,46 @@ public class WeightRecordRepository {
      * 获取指定农户的完整统计信息（包含记录数和捆数）
      */
     public void getFarmerCompleteStatistics(String idCardNumber, CompleteStatsCallback callback) {
-        executor.execute(() -> {
+        AppScheduler.submit(executor, () -> {
             try {
-                int recordCount = weightRecordDao.getFarmerRecordCount(idCardNumber);
-                int totalLeafCount = weightRecordDao.getFarmerTotalLeafCount(idCardNumber);
-                double totalWeight = weightRecordDao.getFarmerTotalWeight(idCardNumber);
-                Long lastRecordTimestamp = weightRecordDao.getFarmerLastRecordTimestamp(idCardNumber);
-                
-                String lastRecordDate = null;
-                if (lastRecordTimestamp != null) {
-                    SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
-                    lastRecordDate = sdf.format(new Date(lastRecordTimestamp));
-                }
+                FarmerRecordSummary summary = farmerAggregateDao.getFarmerSummary(idCardNumber);
                 
                 if (callback != null) {
-                    callback.onSuccess(recordCount, totalLeafCount, totalWeight, lastRecordDate);
+                    callback.onSuccess(summary.recordCount, summary.totalBundles, summary.totalWeight,
+                            formatRecordDate(summary.lastTimestamp));
                 }
             } catch (Exception e) {
                 if (callback != null) {
                     callback.onFailure("获取农户完整统计失败: " + e.getMessage());
                 }
             }
+        }, e -> {
+            if (callback != null) {
+                callback.onFailure("获取农户完整统计失败: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 获取所有农户的汇总统计
+     * 读取触发器维护的汇总表，不扫描称重记录
+     */
+    public void getAllFarmerSummaries(FarmerSummaryListCallback callback) {
+        AppScheduler.submit(executor, () -> {
+            try {
+                List<FarmerRecordSummary> summaries = farmerAggregateDao.getAllFarmerSummaries();
+                if (callback != null) {
+                    callback.onSuccess(summaries);
+                }
+            } catch (Exception e) {
+                if (callback != null) {
+                    callback.onFailure("获取农户汇总统计失败: " + e.getMessage());
+                }
+            }
+        }, e -> {
+            if (callback != null) {
+                callback.onFailure("获取农户汇总统计失败: " + e.getMessage());
+            }
         });
     }
 
@@ -208,16 +303,17 @@ public class WeightRecordRepository {
      * 获取指定农户的叶型统计详情（包含数量和重量）
      */
     public void getFarmerLeafTypeStatistics(String idCardNumber, LeafTypeStatsCallback callback) {
-        executor.execute(() -> {
+        AppScheduler.submit(executor, () -> {
             try {
-                // 获取各部叶的数量和重量
-                int upperCount = weightRecordDao.getLeafTypeCountByIdCard(idCardNumber, "上部叶");
-                int middleCount = weightRecordDao.getLeafTypeCountByIdCard(idCardNumber, "中部叶");
-                int lowerCount = weightRecordDao.getLeafTypeCountByIdCard(idCardNumber, "下部叶");
+                // 一次查询获取各部叶的数量和重量
+                FarmerRecordSummary summary = farmerAggregateDao.getFarmerSummary(idCardNumber);
+                int upperCount = summary.upperPartCount;
+                int middleCount = summary.middlePartCount;
+                int lowerCount = summary.lowerPartCount;
                 
-                double upperWeight = weightRecordDao.getLeafTypeWeightByIdCard(idCardNumber, "上部叶");
-                double middleWeight = weightRecordDao.getLeafTypeWeightByIdCard(idCardNumber, "中部叶");
-                double lowerWeight = weightRecordDao.getLeafTypeWeightByIdCard(idCardNumber, "下部叶");
+                double upperWeight = summary.upperPartWeight;
+                double middleWeight = summary.middlePartWeight;
+                double lowerWeight = summary.lowerPartWeight;
                 
                 // 计算总数量和总重量
                 int totalCount = upperCount + middleCount + lowerCount;
@@ -255,6 +351,10 @@ public class WeightRecordRepository {
                     callback.onFailure("获取叶型统计失败: " + e.getMessage());
                 }
             }
+        }, e -> {
+            if (callback != null) {
+                callback.onFailure("获取叶型统计失败: " + e.getMessage());
+            }
         });
     }
 
@@ -304,27 +404,112 @@ public class WeightRecordRepository {
      * 清空所有记录
      */
     public void deleteAll(OnResultListener<Integer> listener) {
-        executor.execute(() -> {
+        writer.submit(weightRecordDao::deleteAll, ack(listener));
+    }
+
+    /**
+     * 校验汇总表：从原始记录重新计算并与汇总表逐行比较，返回差异描述（为空表示一致）
+     */
+    public void verifyFarmerAggregates(OnResultListener<List<String>> listener) {
+        AppScheduler.submit(executor, () -> {
             try {
-                int count = weightRecordDao.deleteAll();
+                List<String> drifts = findAggregateDrift();
                 if (listener != null) {
-                    listener.onSuccess(count);
+                    listener.onSuccess(drifts);
                 }
             } catch (Exception e) {
                 if (listener != null) {
                     listener.onError(e);
                 }
             }
+        }, e -> {
+            if (listener != null) {
+                listener.onError(e);
+            }
         });
     }
 
     /**
-     * 关闭执行器
+     * 重建汇总表：报告重建前的差异数量后，用原始记录完整重算
      */
-    public void shutdown() {
-        if (executor != null && !executor.isShutdown()) {
-            executor.shutdown();
+    public void rebuildFarmerAggregates(OnResultListener<Integer> listener) {
+        AppScheduler.submit(executor, () -> {
+            try {
+                List<String> drifts = findAggregateDrift();
+                writer.await(() -> {
+                    farmerAggregateDao.rebuild();
+                    return null;
+                });
+                Log.i(TAG, "农户汇总表已重建，修正差异 " + drifts.size() + " 处");
+                if (listener != null) {
+                    listener.onSuccess(drifts.size());
+                }
+            } catch (Exception e) {
+                if (listener != null) {
+                    listener.onError(e);
+                }
+            }
+        }, e -> {
+            if (listener != null) {
+                listener.onError(e);
+            }
+        });
+    }
+
+    private List<String> findAggregateDrift() {
+        Map<String, FarmerAggregateEntity> stored = new HashMap<>();
+        for (FarmerAggregateEntity aggregate : farmerAggregateDao.getAll()) {
+            stored.put(aggregate.getIdCardNumber() + "@" + aggregate.getDay(), aggregate);
+        }
+
+        List<String> drifts = new ArrayList<>();
+        for (FarmerAggregateEntity expected : farmerAggregateDao.computeFromRecords()) {
+            FarmerAggregateEntity actual = stored.remove(expected.getIdCardNumber() + "@" + expected.getDay());
+            if (actual == null) {
+                drifts.add("缺少汇总行: " + expected);
+            } else if (!actual.sameTotals(expected)) {
+                drifts.add("汇总不一致: " + actual + " 应为 " + expected);
+            }
+        }
+        for (FarmerAggregateEntity orphan : stored.values()) {
+            drifts.add("多余汇总行: " + orphan);
         }
+
+        for (String drift : drifts) {
+            Log.w(TAG, drift);
+        }
+        return drifts;
+    }
+
+    /**
+     * 把结果回调转换为写线程的提交确认
+     */
+    private static <T> GroupCommitWriter.Ack<T> ack(OnResultListener<T> listener) {
+        if (listener == null) {
+            return null;
+        }
+        return new GroupCommitWriter.Ack<T>() {
+            @Override
+            public void onCommitted(T result) {
+                listener.onSuccess(result);
+            }
+
+            @Override
+            public void onFailed(Exception e) {
+                listener.onError(e);
+            }
+        };
+    }
+
+    /**
+     * 格式化最近记录时间，无记录时返回 null
+     */
+    private static String formatRecordDate(Long timestamp) {
+        if (timestamp == null) {
+            return null;
+        }
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
+        return sdf.format(new Date(timestamp));
     }
 
     /**
@@ -370,6 +555,14 @@ public class WeightRecordRepository {
         void onFailure(String error);
     }
 
+    /**
+     * 农户汇总列表回调接口
+     */
+    public interface FarmerSummaryListCallback {
+        void onSuccess(List<FarmerRecordSummary> summaries);
+        void onFailure(String error);
+    }
+
     /**
      * 叶型统计回调接口
      */
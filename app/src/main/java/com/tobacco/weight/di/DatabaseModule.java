@@ -5,9 +5,17 @@ import android.content.Context;
 
 import com.tobacco.weight.data.dao.WeightRecordDao;
 import com.tobacco.weight.data.dao.FarmerInfoDao;
+import com.tobacco.weight.data.dao.FarmerAggregateDao;
+import com.tobacco.weight.data.dao.SearchDao;
+import com.tobacco.weight.data.dao.PrintJobDao;
+import com.tobacco.weight.data.database.GroupCommitWriter;
 import com.tobacco.weight.data.database.TobaccoDatabase;
+import com.tobacco.weight.data.photo.PhotoMaintenance;
+import com.tobacco.weight.data.photo.PhotoStore;
 import com.tobacco.weight.data.repository.WeightRecordRepository;
 import com.tobacco.weight.data.repository.FarmerInfoRepository;
+import com.tobacco.weight.data.repository.SearchRepository;
+import com.tobacco.weight.scheduler.AppScheduler;
 
 import javax.inject.Singleton;
 
@@ -33,6 +41,15 @@ public class DatabaseModule {
         return TobaccoDatabase.getInstance(context);
     }
 
+    /**
+     * 提供数据库单写线程（称重记录、烟农信息的写操作都经此组提交）
+     */
+    @Provides
+    @Singleton
+    public GroupCommitWriter provideGroupCommitWriter(TobaccoDatabase database, AppScheduler scheduler) {
+        return new GroupCommitWriter(database, scheduler);
+    }
+
     /**
      * 提供WeightRecordDao
      */
@@ -49,13 +66,57 @@ public class DatabaseModule {
         return database.farmerInfoDao();
     }
 
+    /**
+     * 提供FarmerAggregateDao
+     */
+    @Provides
+    public FarmerAggregateDao provideFarmerAggregateDao(TobaccoDatabase database) {
+        return database.farmerAggregateDao();
+    }
+
+    /**
+     * 提供SearchDao
+     */
+    @Provides
+    public SearchDao provideSearchDao(TobaccoDatabase database) {
+        return database.searchDao();
+    }
+
+    /**
+     * 提供PrintJobDao
+     */
+    @Provides
+    public PrintJobDao providePrintJobDao(TobaccoDatabase database) {
+        return database.printJobDao();
+    }
+
+    /**
+     * 提供身份证照片存储
+     */
+    @Provides
+    @Singleton
+    public PhotoStore providePhotoStore(@ApplicationContext Context context) {
+        return new PhotoStore(context);
+    }
+
+    /**
+     * 提供照片文件维护
+     */
+    @Provides
+    @Singleton
+    public PhotoMaintenance providePhotoMaintenance(TobaccoDatabase database, PhotoStore photoStore,
+                                                    GroupCommitWriter writer) {
+        return new PhotoMaintenance(database, photoStore, writer);
+    }
+
     /**
      * 提供WeightRecordRepository
      */
     @Provides
     @Singleton
-    public WeightRecordRepository provideWeightRecordRepository(Application application) {
-        return new WeightRecordRepository(application);
+    public WeightRecordRepository provideWeightRecordRepository(Application application, AppScheduler scheduler,
+                                                                GroupCommitWriter writer) {
+        return new WeightRecordRepository(application, scheduler, writer);
     }
 
     /**
@@ -63,7 +124,17 @@ public class DatabaseModule {
      */
     @Provides
     @Singleton
-    public FarmerInfoRepository provideFarmerInfoRepository(Application application) {
-        return new FarmerInfoRepository(application);
+    public FarmerInfoRepository provideFarmerInfoRepository(Application application, AppScheduler scheduler,
+                                                            GroupCommitWriter writer) {
+        return new FarmerInfoRepository(application, scheduler, writer);
+    }
+
+    /**
+     * 提供SearchRepository
+     */
+    @Provides
+    @Singleton
+    public SearchRepository provideSearchRepository(Application application, AppScheduler scheduler) {
+        return new SearchRepository(application, scheduler);
     }
 }
\ No newline at end of file
@@ -2,11 +2,18 @@ package com.tobacco.weight.di;
 
 import android.content.Context;
 
+import com.tobacco.weight.R;
 import com.tobacco.weight.hardware.simulator.HardwareSimulator;
 import com.tobacco.weight.hardware.scale.ScaleManager;
+import com.tobacco.weight.hardware.scale.ScaleRegistry;
 import com.tobacco.weight.hardware.printer.PrinterManager;
+import com.tobacco.weight.data.dao.PrintJobDao;
+import com.tobacco.weight.data.photo.PhotoStore;
 import com.tobacco.weight.hardware.idcard.IdCardManager;
 import com.tobacco.weight.hardware.serial.SerialPortManager;
+import com.tobacco.weight.hardware.transport.TcpSelectorLoop;
+import com.tobacco.weight.scheduler.AppScheduler;
+import com.tobacco.weight.scheduler.Lane;
 
 import javax.inject.Singleton;
 
@@ -28,17 +35,36 @@ public class HardwareModule {
      */
     @Provides
     @Singleton
-    public HardwareSimulator provideHardwareSimulator() {
-        return new HardwareSimulator();
+    public HardwareSimulator provideHardwareSimulator(AppScheduler scheduler) {
+        return new HardwareSimulator(scheduler);
     }
     
     /**
-     * 提供电子秤管理器
+     * 提供 TCP 串口服务器共享的 I/O 循环（全部 TCP 秤和打印机共用一个线程）
      */
     @Provides
     @Singleton
-    public ScaleManager provideScaleManager(HardwareSimulator simulator) {
-        return new ScaleManager(simulator);
+    public TcpSelectorLoop provideTcpSelectorLoop(AppScheduler scheduler) {
+        return new TcpSelectorLoop(scheduler);
+    }
+
+    /**
+     * 提供电子秤注册表（多秤站点）
+     */
+    @Provides
+    @Singleton
+    public ScaleRegistry provideScaleRegistry(@ApplicationContext Context context, HardwareSimulator simulator,
+                                              AppScheduler scheduler, TcpSelectorLoop tcpLoop) {
+        return new ScaleRegistry(simulator, scheduler, tcpLoop, context.getString(R.string.scale_station_config));
+    }
+
+    /**
+     * 提供电子秤管理器（默认秤）
+     */
+    @Provides
+    @Singleton
+    public ScaleManager provideScaleManager(ScaleRegistry scaleRegistry) {
+        return scaleRegistry.getDefaultScale();
     }
     
     /**
@@ -46,14 +72,15 @@ public class HardwareModule {
      */
     @Provides
     @Singleton
-    public PrinterManager providePrinterManager(@ApplicationContext Context context) {
-        return new PrinterManager(context);
+    public PrinterManager providePrinterManager(@ApplicationContext Context context, PrintJobDao printJobDao,
+                                                AppScheduler scheduler, TcpSelectorLoop tcpLoop) {
+        return new PrinterManager(context, printJobDao, scheduler, tcpLoop);
     }
     
     @Provides
     @Singleton
-    public SerialPortManager provideSerialPortManager() {
-        return new SerialPortManager();
+    public SerialPortManager provideSerialPortManager(AppScheduler scheduler) {
+        return new SerialPortManager(scheduler);
     }
 
     /**
@@ -61,7 +88,7 @@ public class HardwareModule {
      */
     @Provides
     @Singleton
-    public IdCardManager provideIdCardManager() {
-        return new IdCardManager();
+    public IdCardManager provideIdCardManager(PhotoStore photoStore, AppScheduler scheduler) {
+        return new IdCardManager(photoStore, scheduler.pipelineRx(Lane.DEVICE_IO));
     }
 } 
\ No newline at end of file
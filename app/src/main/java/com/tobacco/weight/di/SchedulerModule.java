@@ -0,0 +1,27 @@
+package com.tobacco.weight.di;
+
+import com.tobacco.weight.scheduler.AppScheduler;
+
+import javax.inject.Singleton;
+
+import dagger.Module;
+import dagger.Provides;
+import dagger.hilt.InstallIn;
+import dagger.hilt.components.SingletonComponent;
+
+/**
+ * 后台调度相关的依赖注入模块
+ */
+@Module
+@InstallIn(SingletonComponent.class)
+public class SchedulerModule {
+
+    /**
+     * 提供应用统一调度器（全应用唯一实例）
+     */
+    @Provides
+    @Singleton
+    public AppScheduler provideAppScheduler() {
+        return new AppScheduler();
+    }
+}
@@ -0,0 +1,111 @@
+package com.tobacco.weight.hardware.idcard;
+
+/**
+ * 读卡轮询节奏与重复读卡抑制
+ * - 卡片移开后、或称重完成等待下一位烟农时（expectCard），FAST_WINDOW_MS 内每 FAST_POLL_MS 读一次；
+ * - 其余空闲时间从 FAST_POLL_MS 起指数退避，最长 MAX_IDLE_POLL_MS；
+ * - 卡片一直放在读卡器上时，同一张卡（按身份证号哈希比较）只上报一次；
+ *   连续 REMOVAL_MISSES 次读不到才视为已移开，避免偶发读卡失败后重复上报。
+ * 除 expectCard() 外只在读卡线程上调用。
+ */
+final class CardPollPolicy {
+
+    // 快速轮询间隔：放卡到读出的等待不超过该值
+    static final long FAST_POLL_MS = 80;
+
+    // 卡片在读卡器上时的轮询间隔（只为发现移卡）
+    static final long PRESENT_POLL_MS = 300;
+
+    // 空闲退避上限
+    static final long MAX_IDLE_POLL_MS = 1000;
+
+    // 移卡或 expectCard() 后保持快速轮询的时间
+    static final long FAST_WINDOW_MS = 30_000;
+
+    // 连续读不到多少次视为卡片已移开
+    static final int REMOVAL_MISSES = 2;
+
+    // 当前卡片的身份证号哈希，0 表示读卡器上没有卡
+    private long currentCard;
+    private int misses;
+    private long idleDelay = FAST_POLL_MS;
+    private volatile long fastUntil;
+
+    /**
+     * 等待下一张卡：之后 FAST_WINDOW_MS 内快速轮询
+     */
+    void expectCard(long now) {
+        fastUntil = now + FAST_WINDOW_MS;
+    }
+
+    /**
+     * 读到的卡是否为读卡器上未移开的同一张卡（是则不再上报）
+     */
+    boolean isPresent(String idNumber) {
+        if (currentCard == 0 || hash(idNumber) != currentCard) {
+            return false;
+        }
+        misses = 0;
+        return true;
+    }
+
+    /**
+     * 读到一张新卡并已上报
+     */
+    void onCard(String idNumber) {
+        currentCard = hash(idNumber);
+        misses = 0;
+    }
+
+    /**
+     * 本次没有读到卡
+     */
+    void onNoCard(long now) {
+        if (currentCard != 0 && ++misses >= REMOVAL_MISSES) {
+            currentCard = 0;
+            misses = 0;
+            // 卡片刚移开：下一位烟农可能马上放卡
+            expectCard(now);
+        }
+    }
+
+    /**
+     * 距下次读卡的等待时间
+     */
+    long nextDelay(long now) {
+        if (currentCard != 0) {
+            // 有卡时慢速确认；刚读不到时快速确认是否已移开
+            return misses > 0 ? FAST_POLL_MS : PRESENT_POLL_MS;
+        }
+        if (now < fastUntil) {
+            // 快速窗口结束后从头退避
+            idleDelay = FAST_POLL_MS;
+            return FAST_POLL_MS;
+        }
+        long delay = idleDelay;
+        idleDelay = Math.min(idleDelay * 2, MAX_IDLE_POLL_MS);
+        return delay;
+    }
+
+    /**
+     * 读卡器重新连接时清除状态
+     */
+    void reset() {
+        currentCard = 0;
+        misses = 0;
+        idleDelay = FAST_POLL_MS;
+        fastUntil = 0;
+    }
+
+    /**
+     * 身份证号的 64 位 FNV-1a 哈希（不保留明文号码），非 0
+     */
+    static long hash(String idNumber) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < idNumber.length(); i++) {
+            h ^= idNumber.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h != 0 ? h : 1;
+    }
+}
@@ -1,14 +1,21 @@
 package com.tobacco.weight.hardware.idcard;
 
-import android.graphics.Bitmap;
+import android.util.Log;
+
+import com.tobacco.weight.data.photo.PhotoStore;
+
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.IOException;
+
 /**
  * 身份证数据模型
  * 基于演示项目的JSON结构实现
  */
 public class IdCardData {
+
+    private static final String TAG = "IdCardData";
     
     private String name;           // 姓名
     private String idNumber;       // 身份证号 (number)
@@ -19,7 +26,10 @@ public class IdCardData {
     private String department;     // 签发机关 (department)
     private String startDate;      // 有效期开始 (startdate)
     private String endDate;        // 有效期结束 (enddate)
-    private Bitmap photo;          // 照片 (photo base64)
+    private String photoHash;      // 照片在 PhotoStore 中的内容哈希
+
+    // 读卡器返回的照片 Base64，storePhoto() 存盘后释放
+    private String photoBase64;
     
     /**
      * 默认构造函数
@@ -49,39 +59,43 @@ public class IdCardData {
         }
         
         try {
-            JSONObject json = new JSONObject(jsonResult);
-            
-            IdCardData data = new IdCardData();
-            data.name = json.optString("name", "");
-            data.idNumber = json.optString("number", "");
-            
-            // 性别转换 (1=男, 2=女)
-            int genderCode = json.optInt("gender", 0);
-            data.gender = genderCode == 1 ? "男" : genderCode == 2 ? "女" : "";
-            
-            // 民族代码转换
-            String raceCode = json.optString("race", "");
-            data.nationality = convertRaceCode(raceCode);
-            
-            data.birthDate = json.optString("birthday", "");
-            data.address = json.optString("address", "");
-            data.department = json.optString("department", "");
-            data.startDate = json.optString("startdate", "");
-            data.endDate = json.optString("enddate", "");
-            
-            // 处理照片
-            String photoBase64 = json.optString("photo", "");
-            if (!photoBase64.isEmpty()) {
-                data.photo = decodeBase64ToBitmap(photoBase64);
-            }
-            
-            return data;
-            
+            return fromSdkJson(new JSONObject(jsonResult));
         } catch (JSONException e) {
             return null;
         }
     }
     
+    /**
+     * 从已解析的 SDK JSON 构造（读卡循环先按身份证号判断是否重复读卡，再解码照片）
+     */
+    static IdCardData fromSdkJson(JSONObject json) {
+        IdCardData data = new IdCardData();
+        data.name = json.optString("name", "");
+        data.idNumber = json.optString("number", "");
+        
+        // 性别转换 (1=男, 2=女)
+        int genderCode = json.optInt("gender", 0);
+        data.gender = genderCode == 1 ? "男" : genderCode == 2 ? "女" : "";
+        
+        // 民族代码转换
+        String raceCode = json.optString("race", "");
+        data.nationality = convertRaceCode(raceCode);
+        
+        data.birthDate = json.optString("birthday", "");
+        data.address = json.optString("address", "");
+        data.department = json.optString("department", "");
+        data.startDate = json.optString("startdate", "");
+        data.endDate = json.optString("enddate", "");
+        
+        // 照片暂不解码，storePhoto() 时存盘
+        String photoBase64 = json.optString("photo", "");
+        if (!photoBase64.isEmpty()) {
+            data.photoBase64 = photoBase64;
+        }
+        
+        return data;
+    }
+    
     /**
      * 民族代码转换
      */
@@ -104,14 +118,23 @@ public class IdCardData {
     }
     
     /**
-     * Base64解码为Bitmap
+     * 把照片存入 PhotoStore，只保留内容哈希（有磁盘 I/O，在读卡线程调用）
      */
-    private static Bitmap decodeBase64ToBitmap(String base64) {
+    void storePhoto(PhotoStore photoStore) {
+        String base64 = photoBase64;
+        photoBase64 = null;
+        if (base64 == null) {
+            return;
+        }
         try {
             byte[] decodedBytes = android.util.Base64.decode(base64, android.util.Base64.DEFAULT);
-            return android.graphics.BitmapFactory.decodeByteArray(decodedBytes, 0, decodedBytes.length);
-        } catch (Exception e) {
-            return null;
+            photoHash = photoStore.put(decodedBytes);
+        } catch (IllegalArgumentException e) {
+            photoHash = null;
+        } catch (IOException e) {
+            // 照片存不下不影响读卡，烟农信息照常显示和保存
+            Log.e(TAG, "身份证照片保存失败", e);
+            photoHash = null;
         }
     }
     
@@ -134,7 +157,7 @@ public class IdCardData {
     public String getDepartment() { return department; }
     public String getStartDate() { return startDate; }
     public String getEndDate() { return endDate; }
-    public Bitmap getPhoto() { return photo; }
+    public String getPhotoHash() { return photoHash; }
     
     // Setters
     public void setName(String name) { this.name = name; }
@@ -146,7 +169,7 @@ public class IdCardData {
     public void setDepartment(String department) { this.department = department; }
     public void setStartDate(String startDate) { this.startDate = startDate; }
     public void setEndDate(String endDate) { this.endDate = endDate; }
-    public void setPhoto(Bitmap photo) { this.photo = photo; }
+    public void setPhotoHash(String photoHash) { this.photoHash = photoHash; }
     
     @Override
     public String toString() {
@@ -8,20 +8,32 @@ import android.hardware.usb.UsbDevice;
 import android.hardware.usb.UsbManager;
 import android.util.Log;
 
+import com.tobacco.weight.data.photo.PhotoStore;
+
 import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Scheduler;
 import io.reactivex.rxjava3.processors.BehaviorProcessor;
-import io.reactivex.rxjava3.schedulers.Schedulers;
 import io.reactivex.rxjava3.disposables.CompositeDisposable;
 
+import org.json.JSONException;
+import org.json.JSONObject;
+
 import java.util.concurrent.TimeUnit;
 
 /**
  * 身份证读卡器管理器
  * 基于演示项目实现，使用正确的VID/PID和连接方法
+ * 读卡循环的节奏由 CardPollPolicy 决定：等待放卡时快速轮询，空闲时退避；同一张卡放着不动只上报一次。
  */
 public class IdCardManager {
     private static final String TAG = "IdCardManager";
     
+    // 开发模拟模式下尝试生成模拟卡的间隔
+    private static final long SIMULATION_INTERVAL_MS = 2000;
+    
+    // 轮询时检查读卡器连接的间隔（拔出另有 USB 广播通知）
+    private static final long CONNECTION_CHECK_INTERVAL_MS = 2000;
+    
     // 是否支持原生身份证读卡器功能
     private static boolean nativeLibraryAvailable = false;
     
@@ -29,6 +41,11 @@ public class IdCardManager {
     private boolean developmentSimulationEnabled = false;
     
     private Context context;
+    private final PhotoStore photoStore;
+    // 读卡轮询运行在设备 I/O 通道上（管道调度器，通道队列满时不丢任务）
+    private final Scheduler deviceScheduler;
+    // 当前读卡循环的 Worker，循环停止后为 null
+    private volatile Scheduler.Worker pollWorker;
     private UsbManager usbManager;
     private UsbBroadcastReceiver usbReceiver;
     
@@ -39,8 +56,18 @@ public class IdCardManager {
     
     // 状态管理
     private boolean isInitialized = false;
-    private boolean isConnected = false;
-    private boolean isReading = false;
+    private volatile boolean isConnected = false;
+    private volatile boolean isReading = false;
+    
+    // 读卡节奏与重复读卡抑制（读卡线程上使用）
+    private final CardPollPolicy pollPolicy = new CardPollPolicy();
+    private long lastSimulationTime;
+    private long lastConnectionCheck;
+    
+    public IdCardManager(PhotoStore photoStore, Scheduler deviceScheduler) {
+        this.photoStore = photoStore;
+        this.deviceScheduler = deviceScheduler;
+    }
     
     /**
      * 初始化读卡器
@@ -116,6 +143,13 @@ public class IdCardManager {
         return developmentSimulationEnabled;
     }
     
+    /**
+     * 等待下一位烟农放卡（称重完成、界面重置后调用）：之后一段时间内快速轮询
+     */
+    public void expectCard() {
+        pollPolicy.expectCard(System.currentTimeMillis());
+    }
+    
     /**
      * 获取连接状态流
      */
@@ -310,38 +344,58 @@ public class IdCardManager {
         disposables.clear();
         isReading = true;
         
-        disposables.add(
-            Flowable.interval(2, TimeUnit.SECONDS)  // 2秒间隔检查
-                .subscribeOn(Schedulers.io())
-                .takeWhile(tick -> {
-                    boolean shouldContinue = isConnected && isReading;
-                    if (!shouldContinue) {
-                        Log.d(TAG, "🛑 读卡循环条件不满足，准备停止 - isConnected: " + isConnected + ", isReading: " + isReading);
-                    }
-                    return shouldContinue;
-                })
-                .subscribe(
-                    tick -> performRead(),
-                    throwable -> {
-                        Log.e(TAG, "读卡循环异常", throwable);
-                        isReading = false;
-                    },
-                    () -> {
-                        Log.d(TAG, "✅ 读卡循环已正常停止");
-                        isReading = false;
-                    }
-                )
-        );
+        // 连接刚由 checkConnection() 确认；站点正在等待放卡
+        long now = System.currentTimeMillis();
+        lastConnectionCheck = now;
+        pollPolicy.reset();
+        pollPolicy.expectCard(now);
+        
+        // 每次读卡后按 CardPollPolicy 安排下一次；Worker 保证原生读卡调用不会并发
+        Scheduler.Worker worker = deviceScheduler.createWorker();
+        disposables.add(worker);
+        pollWorker = worker;
+        schedulePoll(worker, 0);
         
         Log.d(TAG, "✅ 读卡循环已启动");
     }
     
+    /**
+     * 读一次卡并安排下一次
+     */
+    private void pollCard(Scheduler.Worker worker) {
+        if (!isConnected || !isReading) {
+            Log.d(TAG, "🛑 读卡循环条件不满足，停止 - isConnected: " + isConnected + ", isReading: " + isReading);
+            isReading = false;
+            return;
+        }
+        
+        performRead();
+        
+        if (isConnected && isReading && !worker.isDisposed()) {
+            long delay = pollPolicy.nextDelay(System.currentTimeMillis());
+            schedulePoll(worker, delay);
+        }
+    }
+    
+    /**
+     * 安排一次读卡；任务被拒绝时（调度器已关闭）结束读卡循环并清除状态，下次连接检查时可以重新启动
+     */
+    private void schedulePoll(Scheduler.Worker worker, long delayMs) {
+        worker.schedule(() -> pollCard(worker), delayMs, TimeUnit.MILLISECONDS);
+        if (worker.isDisposed() && pollWorker == worker) {
+            Log.w(TAG, "读卡任务被拒绝，读卡循环停止");
+            pollWorker = null;
+            isReading = false;
+        }
+    }
+    
     /**
      * 停止读卡循环
      */
     private void stopReadingLoop() {
         Log.d(TAG, "停止读卡循环");
         isReading = false;
+        pollWorker = null;
         
         // 清理所有订阅，确保没有未完成的任务
         disposables.clear();
@@ -364,7 +418,12 @@ public class IdCardManager {
             // 处理无原生库的情况
             if (!nativeLibraryAvailable) {
                 if (developmentSimulationEnabled) {
-                    // 仅在开发模拟模式下生成模拟数据
+                    // 仅在开发模拟模式下生成模拟数据，与轮询间隔无关，每 2 秒尝试一次
+                    long now = System.currentTimeMillis();
+                    if (now - lastSimulationTime < SIMULATION_INTERVAL_MS) {
+                        return;
+                    }
+                    lastSimulationTime = now;
                     if (Math.random() < 0.05) { // 5%概率生成数据
                         Log.d(TAG, "🧪 开发模拟模式 - 生成测试身份证数据");
                         IdCardData simulatedData = createSimulatedCardData();
@@ -380,29 +439,58 @@ public class IdCardManager {
                 return;
             }
             
-            // 先检查连接状态
-            if (!Connected(usbManager)) {
-                Log.w(TAG, "读卡器连接已断开");
-                handleDeviceDisconnected();
-                return;
+            // 先检查连接状态（快速轮询时不必每次检查）
+            long checkTime = System.currentTimeMillis();
+            if (checkTime - lastConnectionCheck >= CONNECTION_CHECK_INTERVAL_MS) {
+                lastConnectionCheck = checkTime;
+                if (!Connected(usbManager)) {
+                    Log.w(TAG, "读卡器连接已断开");
+                    handleDeviceDisconnected();
+                    return;
+                }
             }
             
             // 使用演示代码的WebSocketAPI读取身份证
             String jsonResult = WebSocketAPI("{\"function\":\"readcard\"}");
+            long now = System.currentTimeMillis();
             
-            if (jsonResult != null && !jsonResult.trim().isEmpty() && !jsonResult.equals("{}")) {
-                Log.d(TAG, "📥 收到读卡JSON: " + jsonResult);
-                
-                // 解析JSON数据
-                IdCardData cardData = IdCardData.fromSdkJson(jsonResult);
-                
-                if (cardData != null && cardData.isValid()) {
-                    Log.d(TAG, "✅ 身份证数据解析成功: " + cardData.getName());
-                    cardDataProcessor.onNext(cardData);
-                    Log.d(TAG, "📤 发出身份证数据流");
-                } else {
-                    Log.w(TAG, "身份证数据解析失败或无效");
-                }
+            if (jsonResult == null || jsonResult.trim().isEmpty() || jsonResult.equals("{}")) {
+                pollPolicy.onNoCard(now);
+                return;
+            }
+            
+            // 先按身份证号判断是否为读卡器上未移开的同一张卡，是则不再存照片、不再上报
+            JSONObject json;
+            try {
+                json = new JSONObject(jsonResult);
+            } catch (JSONException e) {
+                Log.w(TAG, "身份证数据解析失败: " + e.getMessage());
+                pollPolicy.onNoCard(now);
+                return;
+            }
+            String idNumber = json.optString("number", "");
+            if (idNumber.isEmpty()) {
+                pollPolicy.onNoCard(now);
+                return;
+            }
+            if (pollPolicy.isPresent(idNumber)) {
+                return;
+            }
+            
+            Log.d(TAG, "📥 收到读卡JSON");
+            IdCardData cardData = IdCardData.fromSdkJson(json);
+            
+            if (cardData.isValid()) {
+                Log.d(TAG, "✅ 身份证数据解析成功: " + cardData.getName());
+                pollPolicy.onCard(idNumber);
+                // 照片在读卡线程存盘，下游只拿到哈希
+                cardData.storePhoto(photoStore);
+                cardDataProcessor.onNext(cardData);
+                Log.d(TAG, "📤 发出身份证数据流");
+            } else {
+                // 读卡不完整，下次重读
+                Log.w(TAG, "身份证数据解析失败或无效");
+                pollPolicy.onNoCard(now);
             }
             
         } catch (Exception e) {
@@ -0,0 +1,75 @@
+package com.tobacco.weight.hardware.printer;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+
+/**
+ * 用系统字体栅格化字形
+ * 生僻字由系统的字体回退链（Noto CJK 等）绘制，不依赖打印机内置字库。
+ */
+final class CanvasGlyphRasterizer implements GlyphAtlas.Rasterizer {
+
+    // 灰度阈值：覆盖一半以上的像素打印为黑点
+    private static final int ALPHA_THRESHOLD = 0x80;
+
+    private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint.FontMetrics metrics = new Paint.FontMetrics();
+    private final char[] chars = new char[2];
+
+    private Bitmap bitmap;
+    private Canvas canvas;
+    private int[] pixels;
+
+    CanvasGlyphRasterizer() {
+        paint.setColor(Color.BLACK);
+        paint.setTypeface(Typeface.DEFAULT);
+    }
+
+    @Override
+    public int rasterize(int codePoint, int size, boolean bold, byte[] bits, int rowBytes) {
+        int width = rowBytes * 8;
+        prepare(width, size);
+
+        paint.setTextSize(size);
+        paint.setFakeBoldText(bold);
+        paint.getFontMetrics(metrics);
+        int length = Character.toChars(codePoint, chars, 0);
+        int advance = (int) Math.ceil(paint.measureText(chars, 0, length));
+
+        // 字形在 size 高的格子内垂直居中
+        float baseline = (size - (metrics.descent - metrics.ascent)) / 2f - metrics.ascent;
+        bitmap.eraseColor(Color.TRANSPARENT);
+        canvas.drawText(chars, 0, length, 0, baseline, paint);
+        bitmap.getPixels(pixels, 0, width, 0, 0, width, size);
+
+        int drawWidth = Math.min(width, advance);
+        for (int y = 0; y < size; y++) {
+            int rowStart = y * width;
+            int bitRow = y * rowBytes;
+            for (int x = 0; x < drawWidth; x++) {
+                if ((pixels[rowStart + x] >>> 24) >= ALPHA_THRESHOLD) {
+                    bits[bitRow + (x >> 3)] |= (byte) (0x80 >>> (x & 7));
+                }
+            }
+        }
+        return advance;
+    }
+
+    /**
+     * 画布大小随字号变化；字形有缓存，只在预热时重建
+     */
+    private void prepare(int width, int height) {
+        if (bitmap != null && bitmap.getWidth() == width && bitmap.getHeight() >= height) {
+            return;
+        }
+        if (bitmap != null) {
+            bitmap.recycle();
+        }
+        bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        canvas = new Canvas(bitmap);
+        pixels = new int[width * height];
+    }
+}
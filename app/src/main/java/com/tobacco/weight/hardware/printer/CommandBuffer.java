@@ -0,0 +1,204 @@
+package com.tobacco.weight.hardware.printer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 打印指令缓冲区
+ * Esc / Label 生成的指令依次写入同一块可扩容的 direct ByteBuffer，每条指令只记录结束位置，不另存副本；
+ * 发送时把缓冲区视图直接交给传输层（串口从 direct 缓冲区写出，TCP 直接写入套接字），中间不再复制。
+ * release() 后缓冲区放回池中，下一张小票复用。非线程安全。
+ */
+final class CommandBuffer {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // 池中最多保留的缓冲区个数和单个缓冲区大小（光栅标签可达几十 KB）
+    private static final int POOL_SIZE = 4;
+    private static final int MAX_POOLED_CAPACITY = 256 * 1024;
+
+    private static final ArrayDeque<ByteBuffer> POOL = new ArrayDeque<>();
+
+    private ByteBuffer buffer;
+
+    // 每条指令的结束位置
+    private int[] ends = new int[64];
+    private int count;
+
+    // 当前指令的起始位置
+    private int commandStart;
+
+    /**
+     * 写入一个字节（属于当前指令，endCommand() 结束）
+     */
+    void write(int b) {
+        ensureCapacity(1);
+        buffer.put((byte) b);
+    }
+
+    void write(byte[] src) {
+        write(src, 0, src.length);
+    }
+
+    void write(byte[] src, int offset, int length) {
+        ensureCapacity(length);
+        buffer.put(src, offset, length);
+    }
+
+    /**
+     * 结束当前指令（空指令不记录）
+     */
+    void endCommand() {
+        int end = size();
+        if (end == commandStart) {
+            return;
+        }
+        if (count == ends.length) {
+            ends = Arrays.copyOf(ends, count * 2);
+        }
+        ends[count++] = end;
+        commandStart = end;
+    }
+
+    /**
+     * 写入一条完整指令
+     */
+    void add(byte[] command) {
+        write(command, 0, command.length);
+        endCommand();
+    }
+
+    /**
+     * 已写入的字节数
+     */
+    int size() {
+        return buffer != null ? buffer.position() : 0;
+    }
+
+    /**
+     * 指令条数
+     */
+    int commandCount() {
+        return count;
+    }
+
+    /**
+     * 全部指令的视图 [0, size())，与缓冲区共享数据，下次写入、clear()、release() 前有效
+     */
+    ByteBuffer view() {
+        if (buffer == null) {
+            return ByteBuffer.allocate(0);
+        }
+        ByteBuffer view = buffer.duplicate();
+        view.flip();
+        return view;
+    }
+
+    /**
+     * 第 index 条指令的视图
+     */
+    ByteBuffer command(int index) {
+        ByteBuffer view = view();
+        view.position(index == 0 ? 0 : ends[index - 1]);
+        view.limit(ends[index]);
+        return view.slice();
+    }
+
+    /**
+     * 复制全部指令
+     */
+    byte[] toByteArray() {
+        byte[] data = new byte[size()];
+        view().get(data);
+        return data;
+    }
+
+    /**
+     * 逐条复制指令（分批发送、调试用）
+     */
+    List<byte[]> toCommandList() {
+        List<byte[]> commands = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ByteBuffer command = command(i);
+            byte[] bytes = new byte[command.remaining()];
+            command.get(bytes);
+            commands.add(bytes);
+        }
+        return commands;
+    }
+
+    /**
+     * 清空，保留缓冲区
+     */
+    void clear() {
+        if (buffer != null) {
+            buffer.clear();
+        }
+        count = 0;
+        commandStart = 0;
+    }
+
+    /**
+     * 清空并把缓冲区放回池中
+     */
+    void release() {
+        clear();
+        if (buffer != null) {
+            recycle(buffer);
+            buffer = null;
+        }
+    }
+
+    private void ensureCapacity(int length) {
+        if (buffer == null) {
+            buffer = obtain(Math.max(INITIAL_CAPACITY, length));
+            return;
+        }
+        if (buffer.remaining() >= length) {
+            return;
+        }
+        ByteBuffer old = buffer;
+        buffer = obtain(Math.max(old.capacity() * 2, old.position() + length));
+        old.flip();
+        buffer.put(old);
+        recycle(old);
+    }
+
+    private static ByteBuffer obtain(int capacity) {
+        synchronized (POOL) {
+            for (ByteBuffer pooled : POOL) {
+                if (pooled.capacity() >= capacity) {
+                    POOL.remove(pooled);
+                    pooled.clear();
+                    return pooled;
+                }
+            }
+        }
+        return ByteBuffer.allocateDirect(capacity);
+    }
+
+    private static void recycle(ByteBuffer buffer) {
+        if (buffer.capacity() > MAX_POOLED_CAPACITY) {
+            return;
+        }
+        synchronized (POOL) {
+            if (POOL.size() >= POOL_SIZE) {
+                // 池满时换掉最小的
+                ByteBuffer smallest = buffer;
+                for (ByteBuffer pooled : POOL) {
+                    if (pooled.capacity() < smallest.capacity()) {
+                        smallest = pooled;
+                    }
+                }
+                if (smallest == buffer) {
+                    return;
+                }
+                POOL.remove(smallest);
+            }
+            POOL.add(buffer);
+        }
+    }
+}
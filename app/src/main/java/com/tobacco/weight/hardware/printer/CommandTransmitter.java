@@ -0,0 +1,440 @@
+package com.tobacco.weight.hardware.printer;
+
+import android.util.Log;
+
+import com.tobacco.weight.hardware.transport.DeviceTransport;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.disposables.Disposable;
+
+/**
+ * 打印指令发送器
+ * 把整张小票/标签的指令缓冲按 CHUNK_SIZE 分块连续写出，不再逐条指令固定延时，发送节奏由打印机的反馈决定：
+ * - XOFF(0x13)/XON(0x11)：打印机缓冲区将满时暂停发送，收到 XON 后继续；
+ * - CTS 硬件流控由串口驱动完成（CTS 无效时 write 阻塞）；
+ * - 发送完成后用 DLE EOT 查询实时状态，缺纸、卡纸等错误以 PrinterException 抛出。
+ * 打印机从未应答过状态查询时，之后不再等待应答。
+ * 读线程同时解码打印机主动上报的 3 字节状态帧（FE 23 1A 缺纸、FE 27 11 开盖、FC 4F 4B 打印完成…），
+ * 交给 StatusListener；打印中途上报故障时立即中止发送。
+ * 只在打印机写线程上调用 send() / checkStatus() 等方法。
+ */
+final class CommandTransmitter {
+
+    private static final String TAG = "CommandTransmitter";
+
+    static final byte XON = 0x11;
+    static final byte XOFF = 0x13;
+
+    // 每次写出的最大字节数（两块之间检查 XOFF）
+    static final int CHUNK_SIZE = 512;
+
+    // XOFF 后等待 XON 的最长时间（缺纸、开盖时打印机会一直暂停）
+    private static final long XOFF_TIMEOUT_MS = 10_000;
+
+    // 状态查询应答等待时间；收到字节后再等待 STATUS_SETTLE_MS 无新字节，视为多字节应答已收齐
+    private static final long STATUS_TIMEOUT_MS = 300;
+    private static final long STATUS_SETTLE_MS = 20;
+
+    // GS I 67：查询型号名称，应答为 "_" + 名称 + NUL（Epson 扩展，兼容机型多数支持）
+    private static final byte[] MODEL_NAME_QUERY = {0x1D, 0x49, 0x43};
+
+    // ESC/POS 单字节实时状态：离线位
+    private static final int STATUS_OFFLINE_BIT = 0x08;
+
+    // 发送完成后等待打印机上报“打印完成”的最长时间
+    private static final long JOB_ACK_TIMEOUT_MS = 30_000;
+
+    /**
+     * 打印机状态回调（在传输层读线程或打印机写线程上调用）
+     */
+    interface StatusListener {
+        void onStatus(StatusCodeHandler.PrinterStatus status);
+    }
+
+    private final DeviceTransport transport;
+    private final StatusListener statusListener;
+    private final Disposable subscription;
+
+    private final Object lock = new Object();
+    // 状态查询、型号查询的应答
+    private final byte[] statusBytes = new byte[64];
+    private int statusLength;
+    private boolean awaitingStatus;
+    private boolean paused;
+    private boolean closed;
+
+    // 主动上报的状态帧
+    private final byte[] frame = new byte[3];
+    private int frameLength;
+
+    // 当前任务期间上报的故障、打印完成/未完成
+    private StatusCodeHandler.PrinterStatus jobFault;
+    private StatusCodeHandler.PrinterStatus jobResult;
+
+    // 打印机是否会上报打印完成（收到过一次即为 true）
+    private boolean completionSupported;
+
+    // 打印机是否应答状态查询：null 未知，收到应答后为 true，首次无应答为 false
+    private Boolean statusSupported;
+
+    CommandTransmitter(DeviceTransport transport) {
+        this(transport, null);
+    }
+
+    /**
+     * @param statusListener 状态回调（可为 null）
+     */
+    CommandTransmitter(DeviceTransport transport, StatusListener statusListener) {
+        this.transport = transport;
+        this.statusListener = statusListener;
+        this.subscription = transport.data().subscribe(
+                this::onData,
+                error -> markClosed(),
+                this::markClosed);
+    }
+
+    /**
+     * 开始一个打印任务：清除上一任务的故障和完成标记
+     */
+    void beginJob() {
+        synchronized (lock) {
+            jobFault = null;
+            jobResult = null;
+        }
+    }
+
+    /**
+     * 发送全部数据
+     */
+    void send(byte[] data) throws IOException, PrinterException, InterruptedException {
+        send(data, 0, data.length);
+    }
+
+    /**
+     * 分块发送数据，打印机发出 XOFF 时暂停
+     */
+    void send(byte[] data, int offset, int length) throws IOException, PrinterException, InterruptedException {
+        int position = offset;
+        int end = offset + length;
+        while (position < end) {
+            awaitResume();
+            throwIfFault();
+            int count = Math.min(CHUNK_SIZE, end - position);
+            transport.write(data, position, count);
+            position += count;
+        }
+    }
+
+    /**
+     * 分块发送 data 的 [position, limit)（Esc / Label 的指令缓冲区视图，不复制），打印机发出 XOFF 时暂停
+     */
+    void send(ByteBuffer data) throws IOException, PrinterException, InterruptedException {
+        ByteBuffer chunk = data.duplicate();
+        int end = data.limit();
+        while (chunk.position() < end) {
+            awaitResume();
+            throwIfFault();
+            chunk.limit(Math.min(end, chunk.position() + CHUNK_SIZE));
+            transport.write(chunk);
+        }
+        data.position(end);
+    }
+
+    /**
+     * 等待打印机确认任务已打印完成
+     * 打印机从未上报过“打印完成”时直接返回（无法确认，以状态查询为准）
+     *
+     * @throws PrinterException 打印机报告打印未完成、故障，或超时未确认
+     */
+    void awaitJobResult() throws IOException, PrinterException, InterruptedException {
+        StatusCodeHandler.PrinterStatus result;
+        synchronized (lock) {
+            if (!completionSupported) {
+                return;
+            }
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(JOB_ACK_TIMEOUT_MS);
+            while (jobResult == null && jobFault == null) {
+                if (closed) {
+                    throw new IOException("打印机连接已断开: " + transport.getName());
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new PrinterException(PrinterException.ErrorType.TIMEOUT,
+                            "打印机未确认打印完成", transport.getName());
+                }
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+            }
+            result = jobResult;
+        }
+        throwIfFault();
+        if (result == StatusCodeHandler.PrinterStatus.PRINT_INCOMPLETE) {
+            throw new PrinterException(PrinterException.ErrorType.PRINT_FAILED,
+                    StatusCodeHandler.getDetailedStatusMessage(result), transport.getName());
+        }
+    }
+
+    /**
+     * 查询打印机实时状态并抛出故障
+     *
+     * @return 打印机状态；打印机不应答时返回 UNKNOWN
+     * @throws PrinterException 打印机报告缺纸、卡纸、开盖、温度异常等错误
+     */
+    StatusCodeHandler.PrinterStatus checkStatus() throws IOException, PrinterException, InterruptedException {
+        StatusCodeHandler.PrinterStatus status = queryStatus();
+        PrinterException.ErrorType errorType = toErrorType(status);
+        if (errorType != null) {
+            throw new PrinterException(errorType, StatusCodeHandler.getDetailedStatusMessage(status),
+                    transport.getName());
+        }
+        return status;
+    }
+
+    /**
+     * 查询打印机实时状态（不抛出故障，结果同样交给 StatusListener）
+     *
+     * @return 打印机状态；打印机不应答时返回 UNKNOWN
+     */
+    StatusCodeHandler.PrinterStatus queryStatus() throws IOException, InterruptedException {
+        if (Boolean.FALSE.equals(statusSupported)) {
+            return StatusCodeHandler.PrinterStatus.UNKNOWN;
+        }
+
+        byte[] response = query(StatusCodeHandler.createStatusQueryCommand(), 3);
+        if (response.length == 0) {
+            if (statusSupported == null) {
+                statusSupported = false;
+                Log.i(TAG, "打印机不应答状态查询，之后不再查询: " + transport.getName());
+            }
+            return StatusCodeHandler.PrinterStatus.UNKNOWN;
+        }
+        statusSupported = true;
+
+        StatusCodeHandler.PrinterStatus status;
+        if (response.length == 1) {
+            status = (response[0] & STATUS_OFFLINE_BIT) != 0
+                    ? StatusCodeHandler.PrinterStatus.ERROR
+                    : StatusCodeHandler.PrinterStatus.READY;
+        } else {
+            status = StatusCodeHandler.parseStatus(response);
+        }
+        if (status != StatusCodeHandler.PrinterStatus.UNKNOWN) {
+            report(status);
+        }
+        return status;
+    }
+
+    /**
+     * 查询打印机型号名称（GS I 67）
+     *
+     * @return 型号名称；打印机不支持该查询时返回 null
+     */
+    String queryModelName() throws IOException, InterruptedException {
+        byte[] response = query(MODEL_NAME_QUERY, statusBytes.length);
+        int start = response.length > 0 && response[0] == '_' ? 1 : 0;
+        int end = start;
+        while (end < response.length && response[end] >= 0x20 && response[end] < 0x7F) {
+            end++;
+        }
+        // 应答必须以 NUL 结束且全部为可打印字符，否则视为不支持
+        if (end == start || end >= response.length || response[end] != 0) {
+            return null;
+        }
+        return new String(response, start, end - start, StandardCharsets.US_ASCII).trim();
+    }
+
+    /**
+     * 停止接收打印机反馈（不关闭传输层）
+     */
+    void close() {
+        subscription.dispose();
+        markClosed();
+    }
+
+    private void awaitResume() throws IOException, PrinterException, InterruptedException {
+        synchronized (lock) {
+            if (!paused) {
+                return;
+            }
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(XOFF_TIMEOUT_MS);
+            while (paused && jobFault == null) {
+                if (closed) {
+                    throw new IOException("打印机连接已断开: " + transport.getName());
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new PrinterException(PrinterException.ErrorType.TIMEOUT,
+                            "打印机暂停接收超过 " + (XOFF_TIMEOUT_MS / 1000) + " 秒", transport.getName());
+                }
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+            }
+        }
+    }
+
+    /**
+     * 发送查询指令并等待应答
+     *
+     * @param expectedLength 收到该长度后立即返回，否则等到应答停顿
+     * @return 应答（无应答时为空数组）
+     */
+    private byte[] query(byte[] command, int expectedLength) throws IOException, InterruptedException {
+        synchronized (lock) {
+            awaitingStatus = true;
+            statusLength = 0;
+        }
+        try {
+            transport.write(command);
+            return awaitResponse(expectedLength);
+        } finally {
+            synchronized (lock) {
+                awaitingStatus = false;
+            }
+        }
+    }
+
+    private byte[] awaitResponse(int expectedLength) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STATUS_TIMEOUT_MS);
+        long settleDeadline = 0;
+        int settledLength = 0;
+        synchronized (lock) {
+            while (statusLength < expectedLength) {
+                if (closed) {
+                    throw new IOException("打印机连接已断开: " + transport.getName());
+                }
+                long now = System.nanoTime();
+                if (statusLength > settledLength) {
+                    settledLength = statusLength;
+                    settleDeadline = now + TimeUnit.MILLISECONDS.toNanos(STATUS_SETTLE_MS);
+                }
+                long until = settleDeadline != 0 ? settleDeadline : deadline;
+                if (now >= until) {
+                    break;
+                }
+                TimeUnit.NANOSECONDS.timedWait(lock, until - now);
+            }
+            return Arrays.copyOf(statusBytes, statusLength);
+        }
+    }
+
+    /**
+     * 传输层读线程：区分流控字节、状态应答和主动上报的状态帧
+     */
+    private void onData(byte[] chunk) {
+        List<StatusCodeHandler.PrinterStatus> reported = null;
+        synchronized (lock) {
+            for (byte b : chunk) {
+                if (frameLength > 0) {
+                    // 状态帧内的字节（可能与 XON 相同，如 FE 24 11）
+                    frame[frameLength++] = b;
+                    if (frameLength == frame.length) {
+                        frameLength = 0;
+                        StatusCodeHandler.PrinterStatus status = StatusCodeHandler.parseStatus(frame);
+                        if (status != StatusCodeHandler.PrinterStatus.UNKNOWN) {
+                            if (reported == null) {
+                                reported = new ArrayList<>(2);
+                            }
+                            reported.add(status);
+                        }
+                    }
+                } else if (awaitingStatus && (statusLength > 0 || (b != XON && b != XOFF))) {
+                    // 状态应答的首字节不会是 XON/XOFF；应答开始后的字节都属于应答
+                    if (statusLength < statusBytes.length) {
+                        statusBytes[statusLength++] = b;
+                    }
+                } else if (b == XOFF) {
+                    paused = true;
+                } else if (b == XON) {
+                    paused = false;
+                } else if (isFrameStart(b)) {
+                    frame[0] = b;
+                    frameLength = 1;
+                }
+            }
+            lock.notifyAll();
+        }
+        if (reported != null) {
+            for (StatusCodeHandler.PrinterStatus status : reported) {
+                report(status);
+            }
+        }
+    }
+
+    /**
+     * 先更新状态监视（打印队列据此判断是否暂停），再唤醒等待中的写线程
+     */
+    private void report(StatusCodeHandler.PrinterStatus status) {
+        if (statusListener != null) {
+            statusListener.onStatus(status);
+        }
+        onFrame(status);
+    }
+
+    /**
+     * 记录与当前任务相关的状态
+     */
+    private void onFrame(StatusCodeHandler.PrinterStatus status) {
+        synchronized (lock) {
+            if (status == StatusCodeHandler.PrinterStatus.PRINT_COMPLETE
+                    || status == StatusCodeHandler.PrinterStatus.PRINT_INCOMPLETE) {
+                completionSupported = true;
+                jobResult = status;
+            } else if (toErrorType(status) != null) {
+                jobFault = status;
+            }
+            lock.notifyAll();
+        }
+    }
+
+    private void throwIfFault() throws PrinterException {
+        StatusCodeHandler.PrinterStatus fault;
+        synchronized (lock) {
+            fault = jobFault;
+        }
+        if (fault != null) {
+            throw new PrinterException(toErrorType(fault), StatusCodeHandler.getDetailedStatusMessage(fault),
+                    transport.getName());
+        }
+    }
+
+    /**
+     * 主动上报状态帧的首字节（见 StatusCodeHandler.PrinterStatus 的状态码）
+     */
+    private static boolean isFrameStart(byte b) {
+        return b == (byte) 0xFC || b == (byte) 0xFE || b == (byte) 0xEF;
+    }
+
+    private void markClosed() {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * 需要中止打印的状态；缺纸预警等只作提示
+     */
+    private static PrinterException.ErrorType toErrorType(StatusCodeHandler.PrinterStatus status) {
+        switch (status) {
+            case PAPER_OUT:
+                return PrinterException.ErrorType.PAPER_OUT;
+            case PAPER_JAM:
+                return PrinterException.ErrorType.PAPER_JAM;
+            case ROLLER_OPEN:
+                return PrinterException.ErrorType.COVER_OPEN;
+            case ABNORMAL_TEMPERATURE:
+                return PrinterException.ErrorType.TEMPERATURE_ERROR;
+            case ABNORMAL_VOLTAGE:
+            case CUTTER_NOT_RESET:
+            case ERROR:
+                return PrinterException.ErrorType.PRINT_FAILED;
+            default:
+                return null;
+        }
+    }
+}
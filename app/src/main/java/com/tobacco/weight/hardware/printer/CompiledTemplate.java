@@ -0,0 +1,373 @@
+package com.tobacco.weight.hardware.printer;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 编译后的打印模板
+ * 模板布局（ReceiptData / LabelData，文本中用 ${变量} 占位）只在编译时经 PrintRenderer 生成一次指令，
+ * 指令按占位符切分为不变的字节段和变量槽。打印每一张时只需编码变量值并拼接，
+ * 输出与用实际值直接生成的指令逐字节相同。编译结果不可变，可在多个线程间共用。
+ */
+public final class CompiledTemplate {
+
+    /**
+     * 模板类型
+     */
+    public enum Kind {
+        RECEIPT,    // ESC/POS 小票
+        LABEL       // 标签
+    }
+
+    /**
+     * 变量槽在指令中的编码方式
+     */
+    private enum Encoding {
+        TEXT,       // 文本：GBK
+        BARCODE,    // ESC/POS 条码数据：长度字节 + ASCII
+        QR          // ESC/POS 二维码存储：pL pH 31 50 30 + UTF-8
+    }
+
+    private static final Charset GBK = Charset.forName("GBK");
+
+    private static final byte GS = 0x1D;
+
+    private final String name;
+    private final int version;
+    private final Kind kind;
+
+    // 不变字节段依次存放在 literals 中，第 i 段结束于 literalEnds[i]；第 i 段之后是第 i 个变量槽
+    private final byte[] literals;
+    private final int[] literalEnds;
+    private final TemplateSlot[] slots;
+    private final Encoding[] encodings;
+
+    private CompiledTemplate(String name, int version, Kind kind, byte[] literals, int[] literalEnds,
+                             TemplateSlot[] slots, Encoding[] encodings) {
+        this.name = name;
+        this.version = version;
+        this.kind = kind;
+        this.literals = literals;
+        this.literalEnds = literalEnds;
+        this.slots = slots;
+        this.encodings = encodings;
+    }
+
+    /**
+     * 编译小票模板
+     * 条码、二维码内容只能是单个变量（不能与固定文字混排），因为其长度字段随内容变化。
+     */
+    public static CompiledTemplate compileReceipt(String name, int version, ReceiptData layout) {
+        checkSingleSlot("条码", layout.getBarcode());
+        checkSingleSlot("二维码", layout.getQrCode());
+        byte[] program = PrintRenderer.renderReceipt(layout).getCommandData();
+        return compile(name, version, Kind.RECEIPT, program);
+    }
+
+    /**
+     * 编译标签模板
+     */
+    public static CompiledTemplate compileLabel(String name, int version, LabelData layout) {
+        byte[] program = PrintRenderer.renderLabel(layout).getCommandData();
+        return compile(name, version, Kind.LABEL, program);
+    }
+
+    /**
+     * 生成一张小票/标签的完整指令
+     */
+    public byte[] render(TemplateValues values) {
+        byte[][] encoded = new byte[slots.length][];
+        int size = literals.length;
+        for (int i = 0; i < slots.length; i++) {
+            encoded[i] = encode(slots[i], encodings[i], values);
+            size += encoded[i].length;
+        }
+
+        byte[] out = new byte[size];
+        int position = 0;
+        int literalStart = 0;
+        for (int i = 0; i <= slots.length; i++) {
+            int length = literalEnds[i] - literalStart;
+            System.arraycopy(literals, literalStart, out, position, length);
+            position += length;
+            literalStart = literalEnds[i];
+            if (i < slots.length) {
+                System.arraycopy(encoded[i], 0, out, position, encoded[i].length);
+                position += encoded[i].length;
+            }
+        }
+        return out;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * 不变部分的字节数
+     */
+    public int getLiteralSize() {
+        return literals.length;
+    }
+
+    public int getSlotCount() {
+        return slots.length;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledTemplate{" + name + "@" + version + ", " + kind
+                + ", literals=" + literals.length + ", slots=" + slots.length + '}';
+    }
+
+    /**
+     * 在生成的指令中查找 ${变量}，切分为字节段和变量槽
+     */
+    private static CompiledTemplate compile(String name, int version, Kind kind, byte[] program) {
+        ByteArrayOutputStream literalBuffer = new ByteArrayOutputStream(program.length);
+        List<Integer> literalEnds = new ArrayList<>();
+        List<TemplateSlot> slots = new ArrayList<>();
+        List<Encoding> encodings = new ArrayList<>();
+
+        int segmentStart = 0;
+        int i = 0;
+        while (i < program.length - 1) {
+            if (program[i] != '$' || program[i + 1] != '{') {
+                i++;
+                continue;
+            }
+            int close = indexOf(program, (byte) '}', i + 2);
+            if (close < 0) {
+                break;
+            }
+            String slotName = new String(program, i + 2, close - i - 2, StandardCharsets.US_ASCII);
+            TemplateSlot slot = TemplateSlot.forName(slotName);
+            if (slot == null) {
+                throw new IllegalArgumentException("模板 " + name + " 使用了未定义的变量: " + slotName);
+            }
+
+            int placeholderLength = close + 1 - i;
+            int literalEnd = i;
+            Encoding encoding = Encoding.TEXT;
+            if (kind == Kind.RECEIPT) {
+                if (isQrStore(program, i, placeholderLength)) {
+                    // 长度字段和 31 50 30 随数据一起生成
+                    encoding = Encoding.QR;
+                    literalEnd = i - 5;
+                } else if (isBarcode(program, i, placeholderLength)) {
+                    encoding = Encoding.BARCODE;
+                    literalEnd = i - 1;
+                }
+            }
+
+            literalBuffer.write(program, segmentStart, literalEnd - segmentStart);
+            literalEnds.add(literalBuffer.size());
+            slots.add(slot);
+            encodings.add(encoding);
+
+            i = close + 1;
+            segmentStart = i;
+        }
+        literalBuffer.write(program, segmentStart, program.length - segmentStart);
+        literalEnds.add(literalBuffer.size());
+
+        int[] ends = new int[literalEnds.size()];
+        for (int k = 0; k < ends.length; k++) {
+            ends[k] = literalEnds.get(k);
+        }
+        return new CompiledTemplate(name, version, kind, literalBuffer.toByteArray(), ends,
+                slots.toArray(new TemplateSlot[0]), encodings.toArray(new Encoding[0]));
+    }
+
+    /**
+     * 占位符前是 GS ( k pL pH 31 50 30（Esc.createQR 的存储指令）
+     */
+    private static boolean isQrStore(byte[] program, int start, int placeholderLength) {
+        if (start < 8) {
+            return false;
+        }
+        int p = start - 8;
+        int length = (program[p + 3] & 0xFF) | ((program[p + 4] & 0xFF) << 8);
+        return program[p] == GS && program[p + 1] == 0x28 && program[p + 2] == 0x6B
+                && program[p + 5] == 0x31 && program[p + 6] == 0x50 && program[p + 7] == 0x30
+                && length == placeholderLength + 3;
+    }
+
+    /**
+     * 占位符前是 GS k m n（Esc.printBarCode 的打印指令）
+     */
+    private static boolean isBarcode(byte[] program, int start, int placeholderLength) {
+        if (start < 4) {
+            return false;
+        }
+        int p = start - 4;
+        return program[p] == GS && program[p + 1] == 0x6B && (program[p + 3] & 0xFF) == placeholderLength;
+    }
+
+    private static void checkSingleSlot(String what, String content) {
+        if (content == null || !content.contains("${")) {
+            return;
+        }
+        if (!content.startsWith("${") || content.indexOf('}') != content.length() - 1) {
+            throw new IllegalArgumentException(what + "内容只能是单个变量: " + content);
+        }
+    }
+
+    private static int indexOf(byte[] data, byte value, int from) {
+        for (int i = from; i < data.length; i++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static byte[] encode(TemplateSlot slot, Encoding encoding, TemplateValues values) {
+        switch (encoding) {
+            case BARCODE: {
+                byte[] data = format(slot, values, StandardCharsets.US_ASCII);
+                int length = Math.min(data.length, 255);
+                byte[] out = new byte[length + 1];
+                out[0] = (byte) length;
+                System.arraycopy(data, 0, out, 1, length);
+                return out;
+            }
+            case QR: {
+                byte[] data = format(slot, values, StandardCharsets.UTF_8);
+                int length = data.length + 3;
+                byte[] out = new byte[data.length + 5];
+                out[0] = (byte) (length & 0xFF);
+                out[1] = (byte) ((length >> 8) & 0xFF);
+                out[2] = 0x31;
+                out[3] = 0x50;
+                out[4] = 0x30;
+                System.arraycopy(data, 0, out, 5, data.length);
+                return out;
+            }
+            default:
+                return format(slot, values, GBK);
+        }
+    }
+
+    private static byte[] format(TemplateSlot slot, TemplateValues values, Charset charset) {
+        switch (slot.getType()) {
+            case DECIMAL:
+                return formatDecimal(values.getDecimal(slot), slot.getScale());
+            case INTEGER:
+                return formatDecimal(values.getInteger(slot), 0);
+            default:
+                return encodeText(values.getText(slot), charset);
+        }
+    }
+
+    /**
+     * 文本编码；纯 ASCII 文本（编号、日期等）在三种编码下相同，直接转换
+     */
+    private static byte[] encodeText(String text, Charset charset) {
+        int length = text.length();
+        byte[] out = new byte[length];
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                return text.getBytes(charset);
+            }
+            out[i] = (byte) c;
+        }
+        return out;
+    }
+
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1000, 10_000, 100_000, 1_000_000};
+
+    // 超过该值或恰在舍入边界时按 BigDecimal 格式化（避免 long 溢出和 double 精度问题）
+    private static final double FAST_FORMAT_LIMIT = 1e12;
+
+    // formatDecimal(double, int, byte[]) 所需的缓冲区长度（可容纳 double 最大值的全部整数位）
+    static final int DECIMAL_BUFFER_SIZE = 320;
+
+    /**
+     * 按固定小数位四舍五入输出 ASCII 数字（不受系统语言影响，小数点始终为 "."）
+     */
+    static byte[] formatDecimal(double value, int scale) {
+        if (needsExactFormat(value, scale)) {
+            return formatExact(value, scale);
+        }
+        byte[] digits = new byte[24];
+        int start = formatDecimal(value, scale, digits);
+        return Arrays.copyOfRange(digits, start, digits.length);
+    }
+
+    /**
+     * 同上，数字靠右写入 digits 末尾，返回起始位置；常见数值不分配内存
+     *
+     * @param digits 长度至少 DECIMAL_BUFFER_SIZE
+     */
+    static int formatDecimal(double value, int scale, byte[] digits) {
+        int position = digits.length;
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            digits[--position] = '0';
+            return position;
+        }
+        if (needsExactFormat(value, scale)) {
+            byte[] text = formatExact(value, scale);
+            position -= text.length;
+            System.arraycopy(text, 0, digits, position, text.length);
+            return position;
+        }
+
+        long scaled = Math.round(Math.abs(value) * POWERS_OF_TEN[scale]);
+        boolean negative = value < 0 && scaled != 0;
+
+        // 从低位向高位填写
+        for (int i = 0; i < scale; i++) {
+            digits[--position] = (byte) ('0' + scaled % 10);
+            scaled /= 10;
+        }
+        if (scale > 0) {
+            digits[--position] = '.';
+        }
+        do {
+            digits[--position] = (byte) ('0' + scaled % 10);
+            scaled /= 10;
+        } while (scaled > 0);
+        if (negative) {
+            digits[--position] = '-';
+        }
+        return position;
+    }
+
+    /**
+     * 超过 long 快速格式化范围，或恰在舍入边界（1.005 * 100 = 100.49999…）
+     */
+    private static boolean needsExactFormat(double value, int scale) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return false;
+        }
+        double shifted = Math.abs(value) * POWERS_OF_TEN[scale];
+        double fraction = shifted - Math.floor(shifted);
+        return shifted >= FAST_FORMAT_LIMIT || Math.abs(fraction - 0.5) < 1e-6;
+    }
+
+    /**
+     * 按十进制值舍入
+     */
+    private static byte[] formatExact(double value, int scale) {
+        return new BigDecimal(Double.toString(value))
+                .setScale(scale, RoundingMode.HALF_UP)
+                .toPlainString()
+                .getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -1,9 +1,8 @@
 package com.tobacco.weight.hardware.printer;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -21,13 +20,10 @@ public class Esc {
     private static final byte CR = 0x0D;
     private static final byte SPACE = 0x20;
     
-    // 命令缓冲区
-    private ByteArrayOutputStream commandBuffer;
-    private List<byte[]> commandList;
+    // 命令缓冲区（各条命令连续存放，只记录边界）
+    private final CommandBuffer commandBuffer = new CommandBuffer();
     
     public Esc() {
-        this.commandBuffer = new ByteArrayOutputStream();
-        this.commandList = new ArrayList<>();
     }
     
     /**
@@ -128,14 +124,13 @@ public class Esc {
             // 打印条形码
             try {
                 byte[] dataBytes = data.getBytes("ASCII");
-                ByteArrayOutputStream barcodeCmd = new ByteArrayOutputStream();
-                barcodeCmd.write(GS);
-                barcodeCmd.write(0x6B);
-                barcodeCmd.write(type);
-                barcodeCmd.write(dataBytes.length);
-                barcodeCmd.write(dataBytes);
-                addCommand(barcodeCmd.toByteArray());
-            } catch (IOException e) {
+                commandBuffer.write(GS);
+                commandBuffer.write(0x6B);
+                commandBuffer.write(type);
+                commandBuffer.write(dataBytes.length);
+                commandBuffer.write(dataBytes);
+                commandBuffer.endCommand();
+            } catch (UnsupportedEncodingException e) {
                 // 如果编码失败，打印原始数据
                 addCommand(data.getBytes());
             }
@@ -162,19 +157,18 @@ public class Esc {
                 addCommand(new byte[]{GS, 0x28, 0x6B, 0x03, 0x00, 0x31, 0x45, 0x31});
                 
                 // 存储二维码数据
-                ByteArrayOutputStream qrCmd = new ByteArrayOutputStream();
-                qrCmd.write(GS);
-                qrCmd.write(0x28);
-                qrCmd.write(0x6B);
-                qrCmd.write((dataBytes.length + 3) & 0xFF);
-                qrCmd.write(((dataBytes.length + 3) >> 8) & 0xFF);
-                qrCmd.write(0x31);
-                qrCmd.write(0x50);
-                qrCmd.write(0x30);
-                qrCmd.write(dataBytes);
-                addCommand(qrCmd.toByteArray());
+                commandBuffer.write(GS);
+                commandBuffer.write(0x28);
+                commandBuffer.write(0x6B);
+                commandBuffer.write((dataBytes.length + 3) & 0xFF);
+                commandBuffer.write(((dataBytes.length + 3) >> 8) & 0xFF);
+                commandBuffer.write(0x31);
+                commandBuffer.write(0x50);
+                commandBuffer.write(0x30);
+                commandBuffer.write(dataBytes);
+                commandBuffer.endCommand();
                 
-            } catch (IOException e) {
+            } catch (UnsupportedEncodingException e) {
                 // 如果失败，打印文本替代
                 printText("[QR: " + data + "]");
             }
@@ -220,17 +214,19 @@ public class Esc {
     }
     
     /**
-     * 打印图片 (简化版本)
-     * @param width 宽度
-     * @param height 高度
-     * @param data 图片数据
+     * 打印点阵图片（GS v 0 光栅位图，空白行改为走纸，见 RasterEncoder）
+     * @param width 宽度（点）
+     * @param height 高度（点）
+     * @param data 点阵数据：height 行，每行 (width + 7) / 8 字节，高位在左，1=打印
      */
     public Esc printImage(int width, int height, byte[] data) {
-        if (data != null && data.length > 0) {
-            // 使用位图模式打印
-            addCommand(new byte[]{ESC, 0x2A, 0x21, (byte) (width & 0xFF), (byte) ((width >> 8) & 0xFF)});
-            addCommand(data);
-            formfeedY(1);
+        int widthBytes = (width + 7) / 8;
+        if (data != null && widthBytes > 0 && height > 0 && data.length >= widthBytes * height) {
+            byte[] encoded = new byte[RasterEncoder.maxEncodedSize(widthBytes, height, 0)];
+            int length = new RasterEncoder(RasterEncoder.Mode.SKIP_BLANK)
+                    .encode(data, widthBytes, height, 0, encoded, 0);
+            commandBuffer.write(encoded, 0, length);
+            commandBuffer.endCommand();
         }
         return this;
     }
@@ -280,40 +276,43 @@ public class Esc {
      * 添加命令到缓冲区
      */
     private void addCommand(byte[] command) {
-        try {
-            commandBuffer.write(command);
-            
-            // 同时添加到命令列表以便分批发送
-            byte[] commandCopy = new byte[command.length];
-            System.arraycopy(command, 0, commandCopy, 0, command.length);
-            commandList.add(commandCopy);
-            
-        } catch (IOException e) {
-            // 记录错误但继续执行
-            android.util.Log.e(TAG, "Failed to add command", e);
-        }
+        commandBuffer.add(command);
     }
     
     /**
-     * 获取所有命令数据
+     * 获取所有命令数据（复制一份）
      */
     public byte[] getCommandData() {
         return commandBuffer.toByteArray();
     }
     
+    /**
+     * 获取所有命令数据的视图（不复制，直接交给传输层发送）
+     * 下次添加命令、clear()、release() 前有效
+     */
+    public ByteBuffer getCommandBuffer() {
+        return commandBuffer.view();
+    }
+    
     /**
      * 获取命令列表 (用于分批发送)
      */
     public List<byte[]> getCommands() {
-        return new ArrayList<>(commandList);
+        return commandBuffer.toCommandList();
     }
     
     /**
      * 清空命令缓冲区
      */
     public void clear() {
-        commandBuffer.reset();
-        commandList.clear();
+        commandBuffer.clear();
+    }
+    
+    /**
+     * 清空并归还命令缓冲区（发送完成后调用，缓冲区供下一张小票复用）
+     */
+    public void release() {
+        commandBuffer.release();
     }
     
     /**
@@ -0,0 +1,171 @@
+package com.tobacco.weight.hardware.printer;
+
+import android.util.Log;
+
+import java.util.Arrays;
+
+/**
+ * 点阵字形缓存
+ * 光栅打印时每个字符按 (字符, 字号, 粗细) 只栅格化一次，结果以 1 位点阵（每行高位在左）缓存。
+ * 用基本类型的开放寻址表查找，缓存命中时不分配内存。
+ */
+final class GlyphAtlas {
+
+    private static final String TAG = "GlyphAtlas";
+
+    // 字号上限（点）；键中占 7 位
+    static final int MAX_SIZE = 127;
+
+    // 缓存字形数上限，超过后清空重建（一张小票通常不到 200 个不同字符）
+    private static final int MAX_GLYPHS = 4096;
+
+    /**
+     * 字形栅格化
+     */
+    interface Rasterizer {
+        /**
+         * 把一个字符画成 1 位点阵
+         *
+         * @param codePoint 字符（可为 BMP 以外的生僻字）
+         * @param size      字号，即点阵高度（点）
+         * @param bold      是否粗体
+         * @param bits      输出：size 行，每行 rowBytes 字节，已清零
+         * @param rowBytes  每行字节数，可容纳 2 * size 点宽
+         * @return 字符宽度（点），不超过 rowBytes * 8
+         */
+        int rasterize(int codePoint, int size, boolean bold, byte[] bits, int rowBytes);
+    }
+
+    /**
+     * 一个字符的点阵
+     */
+    static final class Glyph {
+        final int advance;      // 宽度（点）
+        final int height;       // 高度（点），等于字号
+        final int rowBytes;     // 每行字节数
+        final byte[] bits;      // height 行 × rowBytes 字节，高位在左
+
+        Glyph(int advance, int height, int rowBytes, byte[] bits) {
+            this.advance = advance;
+            this.height = height;
+            this.rowBytes = rowBytes;
+            this.bits = bits;
+        }
+    }
+
+    private final Rasterizer rasterizer;
+
+    private long[] keys = new long[512];
+    private Glyph[] glyphs = new Glyph[512];
+    private int count;
+    private byte[] scratch = new byte[0];
+
+    GlyphAtlas(Rasterizer rasterizer) {
+        this.rasterizer = rasterizer;
+    }
+
+    /**
+     * 取字符点阵，未缓存时栅格化
+     */
+    synchronized Glyph get(int codePoint, int size, boolean bold) {
+        if (size <= 0 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("字号超出范围: " + size);
+        }
+        long key = ((long) codePoint << 8) | ((long) size << 1) | (bold ? 1 : 0);
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return glyphs[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        Glyph glyph = rasterize(codePoint, size, bold);
+        if (count >= MAX_GLYPHS) {
+            Log.i(TAG, "字形缓存已满（" + count + "），清空");
+            clear();
+        } else if ((count + 1) * 2 > keys.length) {
+            grow();
+        }
+        insert(key, glyph);
+        return glyph;
+    }
+
+    /**
+     * 预先栅格化常用字符
+     */
+    void preload(String text, int size, boolean bold) {
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            get(codePoint, size, bold);
+            i += Character.charCount(codePoint);
+        }
+    }
+
+    synchronized int size() {
+        return count;
+    }
+
+    synchronized void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(glyphs, null);
+        count = 0;
+    }
+
+    private Glyph rasterize(int codePoint, int size, boolean bold) {
+        int scratchRowBytes = (2 * size + 7) / 8;
+        int scratchSize = scratchRowBytes * size;
+        if (scratch.length < scratchSize) {
+            scratch = new byte[scratchSize];
+        } else {
+            Arrays.fill(scratch, 0, scratchSize, (byte) 0);
+        }
+        int advance = rasterizer.rasterize(codePoint, size, bold, scratch, scratchRowBytes);
+        advance = Math.max(0, Math.min(advance, scratchRowBytes * 8));
+
+        // 按实际宽度裁剪
+        int rowBytes = (advance + 7) / 8;
+        byte[] bits = new byte[rowBytes * size];
+        for (int row = 0; row < size; row++) {
+            System.arraycopy(scratch, row * scratchRowBytes, bits, row * rowBytes, rowBytes);
+        }
+        if (advance % 8 != 0) {
+            // 清除宽度以外的点（斜体、粗体可能画出边界）
+            byte edge = (byte) (0xFF << (8 - advance % 8));
+            for (int row = 0; row < size; row++) {
+                bits[row * rowBytes + rowBytes - 1] &= edge;
+            }
+        }
+        return new Glyph(advance, size, rowBytes, bits);
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        Glyph[] oldGlyphs = glyphs;
+        keys = new long[oldKeys.length * 2];
+        glyphs = new Glyph[oldKeys.length * 2];
+        count = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                insert(oldKeys[i], oldGlyphs[i]);
+            }
+        }
+    }
+
+    private void insert(long key, Glyph glyph) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        glyphs[slot] = glyph;
+        count++;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
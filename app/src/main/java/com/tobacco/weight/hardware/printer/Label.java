@@ -1,8 +1,6 @@
 package com.tobacco.weight.hardware.printer;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -13,9 +11,8 @@ public class Label {
     
     private static final String TAG = "Label";
     
-    // 命令缓冲区
-    private ByteArrayOutputStream commandBuffer;
-    private List<byte[]> commandList;
+    // 命令缓冲区（各条命令连续存放，只记录边界）
+    private final CommandBuffer commandBuffer = new CommandBuffer();
     
     // 页面属性
     private int pageWidth = 400;
@@ -25,8 +22,6 @@ public class Label {
     private int rotation = 0;
     
     public Label() {
-        this.commandBuffer = new ByteArrayOutputStream();
-        this.commandList = new ArrayList<>();
     }
     
     /**
@@ -176,6 +171,25 @@ public class Label {
         return this;
     }
     
+    /**
+     * 打印点阵位图（TSPL BITMAP，覆盖模式）
+     * @param x X坐标
+     * @param y Y坐标
+     * @param widthBytes 每行字节数
+     * @param height 高度（点）
+     * @param data 点阵数据：height 行 × widthBytes 字节，高位在左，0=打印
+     */
+    public Label printBitmap(int x, int y, int widthBytes, int height, byte[] data) {
+        if (data != null && widthBytes > 0 && height > 0 && data.length >= widthBytes * height) {
+            // 指令头、点阵和换行作为一条命令
+            writeText(String.format("BITMAP %d,%d,%d,%d,0,", x, y, widthBytes, height));
+            commandBuffer.write(data, 0, widthBytes * height);
+            writeText("\n");
+            commandBuffer.endCommand();
+        }
+        return this;
+    }
+    
     /**
      * 画线
      * @param x1 起始X坐标
@@ -309,42 +323,22 @@ public class Label {
      * 添加文本命令
      */
     private void addTextCommand(String command) {
-        try {
-            byte[] commandBytes = command.getBytes("GBK"); // 支持中文
-            commandBuffer.write(commandBytes);
-            
-            // 同时添加到命令列表
-            byte[] commandCopy = new byte[commandBytes.length];
-            System.arraycopy(commandBytes, 0, commandCopy, 0, commandBytes.length);
-            commandList.add(commandCopy);
-            
-        } catch (Exception e) {
-            // 如果编码失败，使用默认编码
-            byte[] commandBytes = command.getBytes();
-            try {
-                commandBuffer.write(commandBytes);
-                commandList.add(commandBytes);
-            } catch (IOException ex) {
-                android.util.Log.e(TAG, "Failed to add text command", ex);
-            }
-        }
+        writeText(command);
+        commandBuffer.endCommand();
     }
     
     /**
-     * 添加二进制命令
+     * 写入文本（不结束当前命令）
      */
-    private void addBinaryCommand(byte[] command) {
+    private void writeText(String text) {
+        byte[] textBytes;
         try {
-            commandBuffer.write(command);
-            
-            // 同时添加到命令列表
-            byte[] commandCopy = new byte[command.length];
-            System.arraycopy(command, 0, commandCopy, 0, command.length);
-            commandList.add(commandCopy);
-            
-        } catch (IOException e) {
-            android.util.Log.e(TAG, "Failed to add binary command", e);
+            textBytes = text.getBytes("GBK"); // 支持中文
+        } catch (Exception e) {
+            // 如果编码失败，使用默认编码
+            textBytes = text.getBytes();
         }
+        commandBuffer.write(textBytes);
     }
     
     /**
@@ -364,25 +358,39 @@ public class Label {
     }
     
     /**
-     * 获取所有命令数据
+     * 获取所有命令数据（复制一份）
      */
     public byte[] getCommandData() {
         return commandBuffer.toByteArray();
     }
     
+    /**
+     * 获取所有命令数据的视图（不复制，直接交给传输层发送）
+     * 下次添加命令、clear()、release() 前有效
+     */
+    public ByteBuffer getCommandBuffer() {
+        return commandBuffer.view();
+    }
+    
     /**
      * 获取命令列表 (用于分批发送)
      */
     public List<byte[]> getCommands() {
-        return new ArrayList<>(commandList);
+        return commandBuffer.toCommandList();
     }
     
     /**
      * 清空命令缓冲区
      */
     public void clear() {
-        commandBuffer.reset();
-        commandList.clear();
+        commandBuffer.clear();
+    }
+    
+    /**
+     * 清空并归还命令缓冲区（发送完成后调用，缓冲区供下一张标签复用）
+     */
+    public void release() {
+        commandBuffer.release();
     }
     
     /**
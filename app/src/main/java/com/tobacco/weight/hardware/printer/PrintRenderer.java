@@ -0,0 +1,169 @@
+package com.tobacco.weight.hardware.printer;
+
+/**
+ * 打印指令生成
+ * 把收据/标签数据转换为 ESC/POS 和标签指令，只生成指令不做任何 I/O
+ */
+final class PrintRenderer {
+
+    private PrintRenderer() {
+    }
+
+    /**
+     * 生成收据的ESC/POS指令
+     */
+    static Esc renderReceipt(ReceiptData receiptData) {
+        // 创建ESC命令
+        Esc esc = new Esc();
+        esc.reset();
+        
+        // 打印标题
+        if (receiptData.getHeader() != null && !receiptData.getHeader().trim().isEmpty()) {
+            esc.align(1); // 居中对齐
+            esc.textType(0, 0, 0, 1, 1, 1, 0); // 粗体，双倍大小
+            esc.printText(receiptData.getHeader());
+            esc.formfeedY(2);
+        }
+        
+        // 打印内容项目
+        if (receiptData.getItems() != null) {
+            for (ReceiptData.ReceiptItem item : receiptData.getItems()) {
+                // 设置对齐方式
+                esc.align(item.getAlignment());
+                
+                // 设置字体属性
+                esc.textType(0, 0, 0, 
+                    item.isBold() ? 1 : 0,
+                    item.isDoubleSize() ? 1 : 0,
+                    item.isDoubleSize() ? 1 : 0,
+                    item.isUnderline() ? 1 : 0);
+                
+                // 打印文本
+                esc.printText(item.getText());
+                esc.formfeedY(1);
+            }
+        }
+        
+        // 打印条形码
+        if (receiptData.getBarcode() != null && !receiptData.getBarcode().trim().isEmpty()) {
+            esc.align(1); // 居中对齐
+            esc.formfeedY(1);
+            esc.printBarCode(73, receiptData.getBarcode()); // Code128
+            esc.formfeedY(2);
+        }
+        
+        // 打印二维码
+        if (receiptData.getQrCode() != null && !receiptData.getQrCode().trim().isEmpty()) {
+            esc.align(1); // 居中对齐
+            esc.createQR(receiptData.getQrCode());
+            esc.QRSize(5);
+            esc.printQR();
+            esc.formfeedY(2);
+        }
+        
+        // 打印页脚
+        if (receiptData.getFooter() != null && !receiptData.getFooter().trim().isEmpty()) {
+            esc.align(1); // 居中对齐
+            esc.printText(receiptData.getFooter());
+            esc.formfeedY(2);
+        }
+        
+        // 最终走纸
+        esc.formfeedY(receiptData.getFeedLines());
+        
+        // 切纸 (如果启用)
+        if (receiptData.isEnableCut()) {
+            esc.cutPaper();
+        }
+        
+        return esc;
+    }
+
+    /**
+     * 生成标签的打印指令
+     */
+    static Label renderLabel(LabelData labelData) {
+        // 创建标签命令
+        Label label = new Label();
+        
+        // 设置页面属性
+        label.pageStart(labelData.getX(), labelData.getY(), 
+                      labelData.getWidth(), labelData.getHeight(), 
+                      labelData.getRotation());
+        
+        // 设置打印参数
+        if (labelData.getDensity() > 0) {
+            label.setDensity(labelData.getDensity());
+        }
+        if (labelData.getSpeed() > 0) {
+            label.setSpeed(labelData.getSpeed());
+        }
+        
+        // 处理所有元素
+        for (LabelData.LabelElement element : labelData.getElements()) {
+            renderElement(label, element, element.getValue());
+        }
+        
+        label.pageEnd();
+        label.customPrintPage(labelData.getCopies());
+        
+        return label;
+    }
+
+    /**
+     * 生成一个标签元素的指令
+     *
+     * @param value 元素内容（文本、条码或二维码数据），光栅打印时为填入模板变量后的内容
+     */
+    static void renderElement(Label label, LabelData.LabelElement element, String value) {
+        switch (element.getType()) {
+            case TEXT:
+                label.printText(element.getX(), element.getY(), 
+                              element.getFontSize(), 
+                              element.isBold() ? 1 : 0, 
+                              element.isUnderline() ? 1 : 0, 
+                              value, 
+                              element.getRotation());
+                break;
+            
+            case BARCODE:
+                label.printBarCode(element.getX(), element.getY(), 
+                                 element.getBarcodeType(),
+                                 element.getHeight(), 
+                                 element.getWidth(), 
+                                 value, 
+                                 element.getRotation());
+                break;
+            
+            case QR_CODE:
+                label.printQR(element.getX(), element.getY(), 
+                            element.getQrSize(),
+                            element.getQrVersion(), 
+                            element.getQrEcc(), 
+                            value, 
+                            element.getRotation());
+                break;
+            
+            case LINE:
+                label.drawLine(element.getX(), element.getY(),
+                             element.getX() + element.getWidth(),
+                             element.getY() + element.getHeight(),
+                             element.getThickness());
+                break;
+            
+            case RECTANGLE:
+                label.drawRect(element.getX(), element.getY(),
+                             element.getWidth(), element.getHeight(),
+                             element.getThickness());
+                break;
+            
+            case IMAGE:
+                if (element.getImagePath() != null) {
+                    label.printImage(element.getX(), element.getY(),
+                                   element.getWidth(), element.getHeight(),
+                                   element.getImagePath());
+                }
+                break;
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package com.tobacco.weight.hardware.printer;
+
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+
+import com.google.gson.Gson;
+import com.tobacco.weight.data.dao.PrintJobDao;
+import com.tobacco.weight.data.entity.PrintJobEntity;
+import com.tobacco.weight.scheduler.AppScheduler;
+import com.tobacco.weight.scheduler.Lane;
+import com.tobacco.weight.scheduler.SerialExecutor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 打印队列
+ * 打印任务先写入 print_jobs 表再返回，由该打印机唯一的写线程按 优先级 → 提交顺序 逐个打印，
+ * 多个打印请求不会在同一串口上交错发送，操作员也不必等上一张打完再提交下一张。
+ * 失败的任务按指数退避重试，超过 MAX_ATTEMPTS 次后标记为失败；打印机缺纸、开盖等故障导致的失败不计次数，
+ * 任务放回队列，打印机恢复后（kick）继续；
+ * 打印中途程序退出的任务在下次启动时重新打印（宁可重复一张，不能丢一张）。
+ * 写线程只取打印机当前能打印的任务类型（测试模式下未连接打印机时只模拟标签），小票留在队列中等打印机连接。
+ */
+public class PrintSpooler {
+
+    private static final String TAG = "PrintSpooler";
+
+    // 最多尝试次数（含第一次）
+    private static final int MAX_ATTEMPTS = 5;
+
+    // 重试退避：1s、2s、4s…，最长30秒
+    private static final long RETRY_BASE_DELAY_MS = 1000;
+    private static final long RETRY_MAX_DELAY_MS = 30_000;
+
+    // 已完成任务保留时间
+    private static final long KEEP_FINISHED_MS = TimeUnit.DAYS.toMillis(7);
+
+    /**
+     * 打印任务回调（在打印机写线程上调用）
+     */
+    public interface JobCallback {
+        /**
+         * 任务已写入队列
+         */
+        default void onJobQueued(long jobId) {
+        }
+
+        void onJobComplete(long jobId);
+
+        void onJobFailed(long jobId, String error);
+
+        /**
+         * 本次打印失败，将在 delayMs 后重试
+         */
+        default void onJobRetry(long jobId, int attempt, long delayMs, String error) {
+        }
+    }
+
+    /**
+     * 实际执行打印的一方（PrinterManager）
+     */
+    interface JobExecutor {
+        /**
+         * 打印机当前能打印的任务类型（PrintJobEntity.TYPE_*）
+         * 其他类型的任务留在队列中，等 kick() 后再取；为空表示打印机不可用
+         */
+        List<String> readyJobTypes();
+
+        /**
+         * 在写线程上同步打印一个任务，失败抛出异常
+         */
+        void execute(PrintJobEntity job) throws Exception;
+    }
+
+    private final String printerId;
+    private final PrintJobDao printJobDao;
+    private final JobExecutor jobExecutor;
+    private final JobCallback listener;
+    private final Gson gson = new Gson();
+
+    // 提交/取消等队列操作（打印通道上串行执行，不被正在打印的任务阻塞）
+    private final SerialExecutor queueExecutor;
+    // 打印机写线程（唯一向打印机发送数据的线程，打印通道常驻线程）
+    private final ScheduledExecutorService writer;
+
+    private final Map<Long, JobCallback> jobCallbacks = new HashMap<>();
+    private final AtomicBoolean pumpScheduled = new AtomicBoolean();
+    private ScheduledFuture<?> wakeup;
+
+    /**
+     * @param printerId   打印机编号
+     * @param printJobDao 打印队列DAO
+     * @param jobExecutor 打印执行方
+     * @param listener    所有任务共用的回调（可为 null）
+     * @param scheduler   队列操作和写线程所在的调度器（打印通道）
+     */
+    PrintSpooler(String printerId, PrintJobDao printJobDao, JobExecutor jobExecutor, JobCallback listener,
+                 AppScheduler scheduler) {
+        this.printerId = printerId;
+        this.printJobDao = printJobDao;
+        this.jobExecutor = jobExecutor;
+        this.listener = listener;
+        this.queueExecutor = scheduler.serial(Lane.PRINT);
+        this.writer = scheduler.newPinnedScheduler(Lane.PRINT, "writer-" + printerId);
+
+        // 恢复上次中断的任务，清理过期记录
+        AppScheduler.submit(queueExecutor, () -> {
+            try {
+                int requeued = printJobDao.requeueInterrupted(printerId);
+                int purged = printJobDao.deleteFinishedBefore(System.currentTimeMillis() - KEEP_FINISHED_MS);
+                if (requeued > 0 || purged > 0) {
+                    Log.i(TAG, "打印队列恢复: 重新排队 " + requeued + " 个中断任务，清理 " + purged + " 个过期任务");
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "打印队列恢复失败", e);
+            }
+            kick();
+        }, e -> Log.w(TAG, "打印队列恢复未执行，下次启动时恢复"));
+    }
+
+    /**
+     * 提交小票打印任务
+     *
+     * @param priority 优先级（PrintJobEntity.PRIORITY_*）
+     * @param callback 任务回调（可为 null）
+     */
+    public void submitReceipt(ReceiptData receiptData, int priority, JobCallback callback) {
+        submit(PrintJobEntity.TYPE_RECEIPT, priority, gson.toJson(receiptData),
+                receiptData.getHeader(), callback);
+    }
+
+    /**
+     * 提交标签打印任务
+     *
+     * @param priority 优先级（PrintJobEntity.PRIORITY_*）
+     * @param callback 任务回调（可为 null）
+     */
+    public void submitLabel(LabelData labelData, int priority, JobCallback callback) {
+        submit(PrintJobEntity.TYPE_LABEL, priority, gson.toJson(labelData),
+                labelData.toString(), callback);
+    }
+
+    /**
+     * 提交模板打印任务（只保存模板名称、版本和变量值）
+     *
+     * @param priority 优先级（PrintJobEntity.PRIORITY_*）
+     * @param callback 任务回调（可为 null）
+     */
+    public void submitTemplate(PrintTemplate template, TemplateValues values, int priority, JobCallback callback) {
+        TemplateJob templateJob = new TemplateJob();
+        templateJob.template = template.getName();
+        templateJob.version = template.getVersion();
+        templateJob.values = values.toMap();
+        String jobType = template.isLabel() ? PrintJobEntity.TYPE_LABEL_TEMPLATE : PrintJobEntity.TYPE_TEMPLATE;
+        submit(jobType, priority, gson.toJson(templateJob),
+                template.getName(), callback);
+    }
+
+    /**
+     * 取消尚未开始打印的任务
+     */
+    public void cancel(long jobId) {
+        AppScheduler.submit(queueExecutor, () -> {
+            if (printJobDao.cancel(jobId, System.currentTimeMillis()) > 0) {
+                takeCallback(jobId);
+                Log.i(TAG, "打印任务已取消: " + jobId);
+            }
+        }, e -> Log.w(TAG, "打印队列繁忙，取消未执行: " + jobId));
+    }
+
+    /**
+     * 重新提交失败的任务
+     */
+    public void resubmit(long jobId) {
+        AppScheduler.submit(queueExecutor, () -> {
+            if (printJobDao.resubmit(jobId, System.currentTimeMillis()) > 0) {
+                Log.i(TAG, "打印任务重新提交: " + jobId);
+                kick();
+            }
+        }, e -> Log.w(TAG, "打印队列繁忙，重新提交未执行: " + jobId));
+    }
+
+    /**
+     * 观察未完成的任务（按打印顺序）
+     */
+    public LiveData<List<PrintJobEntity>> getActiveJobs() {
+        return printJobDao.observeActiveJobs(printerId);
+    }
+
+    /**
+     * 观察打印失败的任务
+     */
+    public LiveData<List<PrintJobEntity>> getFailedJobs() {
+        return printJobDao.observeFailedJobs(printerId);
+    }
+
+    /**
+     * 通知写线程检查队列（打印机连接成功、测试模式切换后调用）
+     */
+    public void kick() {
+        if (pumpScheduled.compareAndSet(false, true)) {
+            try {
+                writer.execute(this::pump);
+            } catch (RejectedExecutionException e) {
+                pumpScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * 在打印机写线程上执行（与打印任务串行，不会与打印数据交错）
+     */
+    void runOnWriter(Runnable task) {
+        try {
+            writer.execute(task);
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "打印队列已关闭，忽略任务");
+        }
+    }
+
+    /**
+     * 在打印机写线程上周期执行（与打印任务串行）
+     *
+     * @return 用于取消；队列已关闭时返回 null
+     */
+    ScheduledFuture<?> scheduleOnWriter(Runnable task, long intervalMs) {
+        try {
+            return writer.scheduleWithFixedDelay(task, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "打印队列已关闭，忽略周期任务");
+            return null;
+        }
+    }
+
+    /**
+     * 关闭队列（未完成的任务保留在数据库中，下次启动继续）
+     */
+    public void shutdown() {
+        queueExecutor.shutdown();
+        writer.shutdownNow();
+    }
+
+    ReceiptData readReceipt(PrintJobEntity job) {
+        return gson.fromJson(job.getPayload(), ReceiptData.class);
+    }
+
+    LabelData readLabel(PrintJobEntity job) {
+        return gson.fromJson(job.getPayload(), LabelData.class);
+    }
+
+    TemplateJob readTemplateJob(PrintJobEntity job) {
+        return gson.fromJson(job.getPayload(), TemplateJob.class);
+    }
+
+    /**
+     * 模板任务的队列内容
+     */
+    static final class TemplateJob {
+        String template;
+        int version;
+        Map<String, String> values;
+    }
+
+    private void submit(String jobType, int priority, String payload, String description, JobCallback callback) {
+        long now = System.currentTimeMillis();
+        PrintJobEntity job = new PrintJobEntity();
+        job.setPrinterId(printerId);
+        job.setJobType(jobType);
+        job.setPriority(priority);
+        job.setPayload(payload);
+        job.setDescription(description);
+        job.setStatus(PrintJobEntity.STATUS_PENDING);
+        job.setCreateTime(now);
+        job.setUpdateTime(now);
+
+        AppScheduler.submit(queueExecutor, () -> {
+            long jobId;
+            try {
+                // 写入与登记回调放在同一把锁内，写线程不会在登记前完成该任务
+                synchronized (jobCallbacks) {
+                    jobId = printJobDao.insert(job);
+                    if (callback != null) {
+                        jobCallbacks.put(jobId, callback);
+                    }
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "打印任务写入失败", e);
+                if (callback != null) {
+                    callback.onJobFailed(0, "打印任务写入失败: " + e.getMessage());
+                }
+                return;
+            }
+            if (callback != null) {
+                callback.onJobQueued(jobId);
+            }
+            Log.d(TAG, "打印任务已排队: " + jobId + " " + jobType + " 优先级 " + priority);
+            kick();
+        }, e -> {
+            if (callback != null) {
+                callback.onJobFailed(0, "打印队列繁忙，请稍后再试");
+            }
+        });
+    }
+
+    /**
+     * 写线程：依次打印所有到期的任务
+     */
+    private void pump() {
+        pumpScheduled.set(false);
+        while (!writer.isShutdown()) {
+            List<String> jobTypes = jobExecutor.readyJobTypes();
+            if (jobTypes.isEmpty()) {
+                // 打印机未就绪，连接成功后会再次 kick()
+                return;
+            }
+            long now = System.currentTimeMillis();
+            PrintJobEntity job = printJobDao.getNextDueJob(printerId, jobTypes, now);
+            if (job == null) {
+                scheduleWakeup(jobTypes, now);
+                return;
+            }
+            if (printJobDao.markPrinting(job.getId(), now) == 0) {
+                // 刚被取消
+                continue;
+            }
+            runJob(job, job.getAttempts() + 1);
+        }
+    }
+
+    private void runJob(PrintJobEntity job, int attempt) {
+        long jobId = job.getId();
+        try {
+            jobExecutor.execute(job);
+        } catch (InterruptedException e) {
+            // 队列关闭：任务保持 PRINTING，下次启动重新打印
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            if (e instanceof PrinterException && ((PrinterException) e).isHardwareError()
+                    && !jobExecutor.readyJobTypes().contains(job.getJobType())) {
+                // 打印机已暂停（缺纸、开盖…）：等待恢复，不消耗重试次数
+                printJobDao.holdForPrinter(jobId, error, System.currentTimeMillis());
+                Log.w(TAG, "打印任务 " + jobId + " 等待打印机恢复: " + error);
+                return;
+            }
+            boolean retryable = !(e instanceof PrinterException)
+                    || ((PrinterException) e).getErrorType() != PrinterException.ErrorType.INVALID_DATA;
+            long now = System.currentTimeMillis();
+            if (retryable && attempt < MAX_ATTEMPTS) {
+                long delay = Math.min(RETRY_MAX_DELAY_MS, RETRY_BASE_DELAY_MS << (attempt - 1));
+                printJobDao.scheduleRetry(jobId, now + delay, error, now);
+                Log.w(TAG, "打印任务 " + jobId + " 第 " + attempt + " 次失败，" + delay + "ms 后重试: " + error);
+                notifyRetry(jobId, attempt, delay, error);
+            } else {
+                printJobDao.markFailed(jobId, error, now);
+                Log.e(TAG, "打印任务 " + jobId + " 失败: " + error);
+                notifyFailed(jobId, error);
+            }
+            return;
+        }
+        printJobDao.markDone(jobId, System.currentTimeMillis());
+        Log.i(TAG, "打印任务完成: " + jobId);
+        notifyComplete(jobId);
+    }
+
+    /**
+     * 没有到期任务时，在最早的重试时间唤醒写线程（只看当前能打印的类型，等待连接的任务不会反复唤醒）
+     */
+    private void scheduleWakeup(List<String> jobTypes, long now) {
+        if (wakeup != null) {
+            wakeup.cancel(false);
+            wakeup = null;
+        }
+        Long next = printJobDao.getNextAttemptTime(printerId, jobTypes);
+        if (next != null) {
+            wakeup = writer.schedule(this::kick, Math.max(0, next - now), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void notifyComplete(long jobId) {
+        JobCallback callback = takeCallback(jobId);
+        if (callback != null) {
+            callback.onJobComplete(jobId);
+        }
+        if (listener != null) {
+            listener.onJobComplete(jobId);
+        }
+    }
+
+    private void notifyFailed(long jobId, String error) {
+        JobCallback callback = takeCallback(jobId);
+        if (callback != null) {
+            callback.onJobFailed(jobId, error);
+        }
+        if (listener != null) {
+            listener.onJobFailed(jobId, error);
+        }
+    }
+
+    private JobCallback takeCallback(long jobId) {
+        synchronized (jobCallbacks) {
+            return jobCallbacks.remove(jobId);
+        }
+    }
+
+    private void notifyRetry(long jobId, int attempt, long delay, String error) {
+        JobCallback callback;
+        synchronized (jobCallbacks) {
+            callback = jobCallbacks.get(jobId);
+        }
+        if (callback != null) {
+            callback.onJobRetry(jobId, attempt, delay, error);
+        }
+        if (listener != null) {
+            listener.onJobRetry(jobId, attempt, delay, error);
+        }
+    }
+}
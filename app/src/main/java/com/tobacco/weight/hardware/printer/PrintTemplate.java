@@ -2,7 +2,9 @@ package com.tobacco.weight.hardware.printer;
 
 /**
  * 打印模板配置类
- * 用于定义打印标签的布局和样式参数
+ * 用于定义打印标签的布局和样式参数。
+ * 小票/标签布局的文本中用 ${变量} 占位（见 TemplateSlot），由 PrintTemplates 编译为 CompiledTemplate 并缓存；
+ * 修改布局后须提高版本号，缓存按版本重新编译。
  */
 public class PrintTemplate {
 
@@ -18,6 +20,9 @@ public class PrintTemplate {
     private int marginBottom; // 下边距
     private int marginLeft; // 左边距
     private int marginRight; // 右边距
+    private int version; // 模板版本
+    private ReceiptData receiptLayout; // 小票布局
+    private LabelData labelLayout; // 标签布局
 
     // 构造函数
     public PrintTemplate() {
@@ -33,6 +38,7 @@ public class PrintTemplate {
         this.marginBottom = 5;
         this.marginLeft = 5;
         this.marginRight = 5;
+        this.version = 1;
     }
 
     public PrintTemplate(String name, int width, int height) {
@@ -139,7 +145,45 @@ public class PrintTemplate {
         this.marginRight = marginRight;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    public ReceiptData getReceiptLayout() {
+        return receiptLayout;
+    }
+
+    public void setReceiptLayout(ReceiptData receiptLayout) {
+        this.receiptLayout = receiptLayout;
+    }
+
+    public LabelData getLabelLayout() {
+        return labelLayout;
+    }
+
+    public void setLabelLayout(LabelData labelLayout) {
+        this.labelLayout = labelLayout;
+    }
+
     // 工具方法
+    /**
+     * 是否为标签模板（否则为小票模板）
+     */
+    public boolean isLabel() {
+        return labelLayout != null;
+    }
+
+    /**
+     * 编译缓存的键：名称@版本
+     */
+    public String getCacheKey() {
+        return name + "@" + version;
+    }
+
     /**
      * 获取标签宽度（像素）
      * 
@@ -168,7 +212,9 @@ public class PrintTemplate {
     public boolean isValid() {
         return name != null && !name.trim().isEmpty()
                 && width > 0 && height > 0
-                && fontSize > 0;
+                && fontSize > 0
+                && version > 0
+                && (receiptLayout == null || labelLayout == null);
     }
 
     /**
@@ -190,6 +236,9 @@ public class PrintTemplate {
         template.setMarginBottom(this.marginBottom);
         template.setMarginLeft(this.marginLeft);
         template.setMarginRight(this.marginRight);
+        template.setVersion(this.version);
+        template.setReceiptLayout(this.receiptLayout);
+        template.setLabelLayout(this.labelLayout);
         return template;
     }
 
@@ -197,6 +246,7 @@ public class PrintTemplate {
     public String toString() {
         return "PrintTemplate{" +
                 "name='" + name + '\'' +
+                ", version=" + version +
                 ", width=" + width +
                 ", height=" + height +
                 ", showQRCode=" + showQRCode +
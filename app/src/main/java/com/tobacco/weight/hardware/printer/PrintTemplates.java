@@ -0,0 +1,205 @@
+package com.tobacco.weight.hardware.printer;
+
+import com.tobacco.weight.data.model.WeightRecord;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 打印模板注册表
+ * 内置烟叶称重标签和收购小票两个模板；模板按 名称 → 版本 缓存编译结果，
+ * 同一版本只编译一次，注册新版本后下一次打印时重新编译。
+ */
+public final class PrintTemplates {
+
+    public static final String TOBACCO_LABEL = "烟叶称重标签";
+    public static final String PURCHASE_RECEIPT = "烟叶收购小票";
+
+    // 203dpi 打印头：8点/毫米
+    private static final int DOTS_PER_MM = 8;
+
+    private static final Map<String, PrintTemplate> TEMPLATES = new ConcurrentHashMap<>();
+    private static final Map<String, CompiledTemplate> COMPILED = new ConcurrentHashMap<>();
+
+    static {
+        register(createTobaccoLabelTemplate());
+        register(createPurchaseReceiptTemplate());
+    }
+
+    private PrintTemplates() {
+    }
+
+    /**
+     * 注册模板（同名模板被替换）
+     */
+    public static void register(PrintTemplate template) {
+        if (template == null || !template.isValid()
+                || (template.getReceiptLayout() == null && template.getLabelLayout() == null)) {
+            throw new IllegalArgumentException("模板无效: " + template);
+        }
+        TEMPLATES.put(template.getName(), template);
+    }
+
+    /**
+     * 按名称取模板
+     *
+     * @return 未注册时返回 null
+     */
+    public static PrintTemplate get(String name) {
+        return name != null ? TEMPLATES.get(name) : null;
+    }
+
+    /**
+     * 取模板的编译结果；缓存中的版本与模板版本不同时重新编译
+     */
+    public static CompiledTemplate compile(PrintTemplate template) {
+        return COMPILED.compute(template.getName(), (name, cached) ->
+                cached != null && cached.getVersion() == template.getVersion()
+                        ? cached
+                        : template.isLabel()
+                                ? CompiledTemplate.compileLabel(name, template.getVersion(), template.getLabelLayout())
+                                : CompiledTemplate.compileReceipt(name, template.getVersion(), template.getReceiptLayout()));
+    }
+
+    /**
+     * 烟叶称重标签（70x50mm），内容与 LabelData.createTobaccoWeighingLabel 相同
+     */
+    private static PrintTemplate createTobaccoLabelTemplate() {
+        PrintTemplate template = new PrintTemplate(TOBACCO_LABEL, 70, 50);
+        LabelData label = new LabelData(template.getWidth() * DOTS_PER_MM, template.getHeight() * DOTS_PER_MM);
+
+        label.addBoldText(20, 20, "烟叶称重标签");
+        label.addHorizontalLine(45);
+        label.addText(20, 60, "农户姓名: " + TemplateSlot.FARMER_NAME.placeholder());
+        label.addText(20, 80, "预检编号: " + TemplateSlot.PRECHECK_ID.placeholder());
+        label.addText(20, 100, "烟叶等级: " + TemplateSlot.TOBACCO_LEVEL.placeholder());
+        label.addText(20, 120, "称重日期: " + TemplateSlot.WEIGH_DATE.placeholder());
+        label.addText(20, 140, "合同编号: " + TemplateSlot.CONTRACT_NUMBER.placeholder());
+        label.addBarcode(20, 170, TemplateSlot.BARCODE.placeholder());
+        if (template.isShowQRCode()) {
+            LabelData.LabelElement qr = LabelData.LabelElement.createQRCode(350, 170,
+                    TemplateSlot.QR_PAYLOAD.placeholder());
+            qr.setQrSize(5);
+            label.getElements().add(qr);
+        }
+        label.addText(20, 320, "打印时间: " + TemplateSlot.PRINT_TIME.placeholder());
+
+        template.setLabelLayout(label);
+        return template;
+    }
+
+    /**
+     * 烟叶收购小票
+     */
+    private static PrintTemplate createPurchaseReceiptTemplate() {
+        PrintTemplate template = new PrintTemplate(PURCHASE_RECEIPT, 80, 200);
+        ReceiptData receipt = new ReceiptData("烟叶收购小票");
+        receipt.addItem("预检编号: " + TemplateSlot.PRECHECK_ID.placeholder());
+        receipt.addItem("烟农姓名: " + TemplateSlot.FARMER_NAME.placeholder());
+        receipt.addItem("合同号: " + TemplateSlot.CONTRACT_NUMBER.placeholder());
+        receipt.addItem("身份证号: " + TemplateSlot.ID_CARD_NUMBER.placeholder());
+        receipt.addItem("--------------------------------");
+        receipt.addBoldItem("上部叶  " + TemplateSlot.UPPER_BUNDLES.placeholder() + " 捆  "
+                + TemplateSlot.UPPER_WEIGHT.placeholder() + " kg");
+        receipt.addBoldItem("中部叶  " + TemplateSlot.MIDDLE_BUNDLES.placeholder() + " 捆  "
+                + TemplateSlot.MIDDLE_WEIGHT.placeholder() + " kg");
+        receipt.addBoldItem("下部叶  " + TemplateSlot.LOWER_BUNDLES.placeholder() + " 捆  "
+                + TemplateSlot.LOWER_WEIGHT.placeholder() + " kg");
+        receipt.addItem("--------------------------------");
+        receipt.addBoldItem("合计    " + TemplateSlot.TOTAL_BUNDLES.placeholder() + " 捆  "
+                + TemplateSlot.TOTAL_WEIGHT.placeholder() + " kg", 2);
+        receipt.addItem("等级: " + TemplateSlot.TOBACCO_LEVEL.placeholder()
+                + "   单价: " + TemplateSlot.UNIT_PRICE.placeholder() + " 元/kg");
+        receipt.addItem("金额: " + TemplateSlot.TOTAL_AMOUNT.placeholder() + " 元", 2);
+        receipt.addItem("称重员: " + TemplateSlot.OPERATOR_NAME.placeholder()
+                + "  仓库: " + TemplateSlot.WAREHOUSE_NUMBER.placeholder());
+        receipt.addItem("时间: " + TemplateSlot.PRINT_TIME.placeholder());
+        receipt.setBarcode(TemplateSlot.BARCODE.placeholder());
+        receipt.setQrCode(TemplateSlot.QR_PAYLOAD.placeholder());
+        receipt.setFooter("请妥善保管本小票");
+        receipt.setFeedLines(3);
+        receipt.setEnableCut(true);
+
+        template.setReceiptLayout(receipt);
+        return template;
+    }
+
+    /**
+     * 烟叶称重标签的变量值（空值的显示与 LabelData.createTobaccoWeighingLabel 相同）
+     */
+    public static TemplateValues tobaccoLabelValues(String farmerName, String precheckId,
+                                                    String tobaccoLevel, String date, String contractNumber) {
+        String qrData = "农户:" + (farmerName != null ? farmerName : "未填写") +
+                "|预检号:" + (precheckId != null ? precheckId : "未生成") +
+                "|等级:" + (tobaccoLevel != null ? tobaccoLevel : "未选择") +
+                "|合同:" + (contractNumber != null ? contractNumber : "未设置") +
+                "|日期:" + (date != null ? date : "未记录");
+
+        return new TemplateValues()
+                .set(TemplateSlot.FARMER_NAME, orDefault(farmerName, "未填写"))
+                .set(TemplateSlot.PRECHECK_ID, orDefault(precheckId, "未生成"))
+                .set(TemplateSlot.TOBACCO_LEVEL, orDefault(tobaccoLevel, "未选择"))
+                .set(TemplateSlot.WEIGH_DATE, orDefault(date, "未记录"))
+                .set(TemplateSlot.CONTRACT_NUMBER, orDefault(contractNumber, "未设置"))
+                .set(TemplateSlot.BARCODE, barcodeData(precheckId))
+                .set(TemplateSlot.QR_PAYLOAD, qrData)
+                .set(TemplateSlot.PRINT_TIME,
+                        new SimpleDateFormat("yyyy年MM月dd日 HH:mm:ss", Locale.CHINA).format(new Date()));
+    }
+
+    /**
+     * 收购小票的变量值
+     */
+    public static TemplateValues purchaseReceiptValues(WeightRecord record) {
+        String precheckId = record.getPreCheckNumber();
+        String qrData = record.getQrCode() != null && !record.getQrCode().isEmpty()
+                ? record.getQrCode()
+                : orDefault(record.getRecordNumber(), barcodeData(precheckId));
+        Date time = record.getCreateTime() != null ? record.getCreateTime() : new Date();
+
+        return new TemplateValues()
+                .set(TemplateSlot.PRECHECK_ID, orDefault(precheckId, "未生成"))
+                .set(TemplateSlot.FARMER_NAME, orDefault(record.getFarmerName(), "未填写"))
+                .set(TemplateSlot.CONTRACT_NUMBER, "")
+                .set(TemplateSlot.ID_CARD_NUMBER, hideIdCard(record.getIdCardNumber()))
+                .set(TemplateSlot.UPPER_BUNDLES, record.getUpperLeafBundles())
+                .set(TemplateSlot.UPPER_WEIGHT, record.getUpperLeafWeight())
+                .set(TemplateSlot.MIDDLE_BUNDLES, record.getMiddleLeafBundles())
+                .set(TemplateSlot.MIDDLE_WEIGHT, record.getMiddleLeafWeight())
+                .set(TemplateSlot.LOWER_BUNDLES, record.getLowerLeafBundles())
+                .set(TemplateSlot.LOWER_WEIGHT, record.getLowerLeafWeight())
+                .set(TemplateSlot.TOTAL_BUNDLES, record.getTotalBundles())
+                .set(TemplateSlot.TOTAL_WEIGHT, record.getTotalWeight())
+                .set(TemplateSlot.TOBACCO_LEVEL, orDefault(record.getTobaccoGrade(), "未选择"))
+                .set(TemplateSlot.UNIT_PRICE, record.getPurchasePrice())
+                .set(TemplateSlot.TOTAL_AMOUNT, record.getTotalAmount())
+                .set(TemplateSlot.OPERATOR_NAME, orDefault(record.getOperatorName(), ""))
+                .set(TemplateSlot.WAREHOUSE_NUMBER, orDefault(record.getWarehouseNumber(), ""))
+                .set(TemplateSlot.PRINT_TIME,
+                        new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.CHINA).format(time))
+                .set(TemplateSlot.BARCODE, barcodeData(precheckId))
+                .set(TemplateSlot.QR_PAYLOAD, qrData);
+    }
+
+    private static String barcodeData(String precheckId) {
+        return precheckId != null && !precheckId.isEmpty() && !precheckId.equals("未生成")
+                ? precheckId : "NO-PRECHECK";
+    }
+
+    private static String orDefault(String value, String defaultValue) {
+        return value != null && !value.isEmpty() ? value : defaultValue;
+    }
+
+    /**
+     * 隐藏身份证中间部分
+     */
+    private static String hideIdCard(String idCard) {
+        if (idCard == null || idCard.length() < 18) {
+            return idCard;
+        }
+        return idCard.substring(0, 6) + "********" + idCard.substring(14);
+    }
+}
@@ -13,6 +13,7 @@ public class PrinterException extends Exception {
         PRINT_FAILED("打印失败"),
         PAPER_OUT("缺纸"),
         PAPER_JAM("卡纸"),
+        COVER_OPEN("打印头/纸仓盖打开"),
         TEMPERATURE_ERROR("温度异常"),
         COMMUNICATION_ERROR("通信错误"),
         INVALID_DATA("数据无效"),
@@ -151,6 +152,14 @@ public class PrinterException extends Exception {
             "打印机卡纸，请清理后重试");
     }
     
+    /**
+     * 创建开盖异常
+     */
+    public static PrinterException coverOpen() {
+        return new PrinterException(ErrorType.COVER_OPEN, 
+            "打印头或纸仓盖未关闭，请合上后重试");
+    }
+    
     /**
      * 创建温度异常
      */
@@ -230,6 +239,7 @@ public class PrinterException extends Exception {
         switch (errorType) {
             case PAPER_OUT:
             case PAPER_JAM:
+            case COVER_OPEN:
             case TEMPERATURE_ERROR:
                 return true;
             default:
@@ -266,6 +276,8 @@ public class PrinterException extends Exception {
                 return "1. 添加打印纸\n2. 确认纸张正确安装\n3. 重新开始打印";
             case PAPER_JAM:
                 return "1. 打开打印机盖子\n2. 小心取出卡住的纸张\n3. 关闭盖子重试";
+            case COVER_OPEN:
+                return "1. 合上打印头/纸仓盖\n2. 确认盖子卡扣到位\n3. 打印将自动继续";
             case TEMPERATURE_ERROR:
                 return "1. 等待设备冷却\n2. 检查通风是否良好\n3. 联系技术支持";
             case COMMUNICATION_ERROR:
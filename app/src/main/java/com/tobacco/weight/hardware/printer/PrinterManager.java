@@ -5,11 +5,20 @@ import android.content.IntentFilter;
 import android.hardware.usb.UsbDevice;
 import android.util.Log;
 
-import com.tobacco.weight.hardware.serial.SerialPortManager;
+import com.tobacco.weight.data.dao.PrintJobDao;
+import com.tobacco.weight.data.entity.PrintJobEntity;
+import com.tobacco.weight.hardware.transport.DeviceTransport;
+import com.tobacco.weight.hardware.transport.DeviceTransports;
+import com.tobacco.weight.hardware.transport.TcpSelectorLoop;
+import com.tobacco.weight.scheduler.AppScheduler;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ScheduledFuture;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -17,11 +26,16 @@ import javax.inject.Singleton;
 /**
  * 打印机管理器
  * 独立的USB/串口打印机通信模块，支持ESC/POS和Label命令
+ * 设备地址可以是本地串口，也可以是 tcp://主机:端口 的网络打印机/串口服务器（见 DeviceTransports）
+ * 打印请求都经过 PrintSpooler 排队，由打印机写线程逐个发送，调用方不阻塞
  */
 @Singleton
 public class PrinterManager {
     
     private static final String TAG = "PrinterManager";
+
+    // 打印队列中的打印机编号
+    public static final String DEFAULT_PRINTER_ID = "printer-1";
     
     // 常用串口路径
     private static final String[] COMMON_SERIAL_PATHS = {
@@ -35,13 +49,35 @@ public class PrinterManager {
     };
     
     private Context context;
-    private SerialPortManager serialPortManager;
-    private PrinterCallback callback;
-    private Device connectedDevice;
-    private boolean isConnected = false;
+    private final AppScheduler scheduler;
+    private final TcpSelectorLoop tcpLoop;
+    private final PrintSpooler spooler;
+    private final PrinterStatusMonitor statusMonitor;
+    private ScheduledFuture<?> statusPoll;
+    // 以下字段由主线程修改，打印机写线程读取
+    private volatile DeviceTransport transport;
+    private volatile CommandTransmitter transmitter;
+    private volatile PrinterCallback callback;
+    private volatile Device connectedDevice;
+    private volatile boolean isConnected = false;
     
-    // Test mode - always simulate successful printing
-    private boolean testMode = true;
+    // Test mode - simulate label printing without a printer
+    private volatile boolean testMode = true;
+
+    // 打印机已连接且未暂停时可打印全部任务类型
+    private static final List<String> ALL_JOB_TYPES = Collections.unmodifiableList(Arrays.asList(
+            PrintJobEntity.TYPE_RECEIPT, PrintJobEntity.TYPE_LABEL,
+            PrintJobEntity.TYPE_TEMPLATE, PrintJobEntity.TYPE_LABEL_TEMPLATE));
+    // 测试模式下没有打印机也能模拟打印的类型（只有标签）；小票必须等打印机连接
+    private static final List<String> SIMULATED_JOB_TYPES = Collections.unmodifiableList(Arrays.asList(
+            PrintJobEntity.TYPE_LABEL, PrintJobEntity.TYPE_LABEL_TEMPLATE));
+
+    // 光栅打印：文字在本机排版成点阵，不使用打印机内置字库
+    private volatile boolean rasterMode = false;
+    // 以下两个字段只在打印机写线程上使用
+    private RasterRenderer rasterRenderer;
+    // 已检测过光栅编码方式的连接
+    private CommandTransmitter rasterEncodingDetectedFor;
 
     // Removed old constructor that was conflicting with dependency injection
     
@@ -60,10 +96,15 @@ public class PrinterManager {
             this.path = path;
             this.baudRate = baudRate;
             
-            // 检查设备权限
-            java.io.File file = new java.io.File(path);
-            this.canRead = file.canRead();
-            this.canWrite = file.canWrite();
+            // 检查设备权限（网络和回环地址无需检查）
+            if (DeviceTransports.isLocalDevice(path)) {
+                java.io.File file = new java.io.File(path);
+                this.canRead = file.canRead();
+                this.canWrite = file.canWrite();
+            } else {
+                this.canRead = true;
+                this.canWrite = true;
+            }
         }
         
         public String getName() { return name; }
@@ -91,9 +132,61 @@ public class PrinterManager {
     }
     
     @Inject
-    public PrinterManager(Context context) {
+    public PrinterManager(Context context, PrintJobDao printJobDao, AppScheduler scheduler,
+                          TcpSelectorLoop tcpLoop) {
+        this(context, DEFAULT_PRINTER_ID, printJobDao, scheduler, tcpLoop);
+    }
+
+    /**
+     * @param printerId   打印队列中的打印机编号，每个编号只能对应一个 PrinterManager
+     * @param printJobDao 打印队列DAO
+     * @param scheduler   打印队列、打印机写线程和设备连接所在的调度器
+     * @param tcpLoop     TCP 串口服务器连接共享的 I/O 循环
+     */
+    public PrinterManager(Context context, String printerId, PrintJobDao printJobDao, AppScheduler scheduler,
+                          TcpSelectorLoop tcpLoop) {
         this.context = context.getApplicationContext();
-        this.serialPortManager = new SerialPortManager();
+        this.scheduler = scheduler;
+        this.tcpLoop = tcpLoop;
+        this.statusMonitor = new PrinterStatusMonitor(this::onPrinterStatusChanged);
+        this.spooler = new PrintSpooler(printerId, printJobDao,
+                new PrintSpooler.JobExecutor() {
+                    @Override
+                    public List<String> readyJobTypes() {
+                        if (isConnected() && !statusMonitor.isBlocked()) {
+                            return ALL_JOB_TYPES;
+                        }
+                        return testMode ? SIMULATED_JOB_TYPES : Collections.emptyList();
+                    }
+
+                    @Override
+                    public void execute(PrintJobEntity job) throws Exception {
+                        executeJob(job);
+                    }
+                },
+                new PrintSpooler.JobCallback() {
+                    @Override
+                    public void onJobComplete(long jobId) {
+                        notifyPrintComplete();
+                    }
+
+                    @Override
+                    public void onJobFailed(long jobId, String error) {
+                        notifyPrintError(error);
+                    }
+
+                    @Override
+                    public void onJobRetry(long jobId, int attempt, long delayMs, String error) {
+                        notifyStatusUpdate("打印失败，" + (delayMs / 1000) + "秒后第" + (attempt + 1) + "次重试: " + error);
+                    }
+                }, scheduler);
+    }
+
+    /**
+     * 获取打印队列
+     */
+    public PrintSpooler getPrintSpooler() {
+        return spooler;
     }
     
     /**
@@ -165,28 +258,36 @@ public class PrinterManager {
                 this.connectedDevice = device;
                 this.isConnected = true;
                 notifyConnectionSuccess(device.getPath());
+                spooler.kick();
                 return true;
             }
             
-            // 尝试打开串口连接
-            boolean success = serialPortManager.openSerialPort(device.getPath(), device.getBaudRate());
-            
-            if (success) {
-                this.connectedDevice = device;
-                this.isConnected = true;
-                
-                // 发送初始化命令
-                initializePrinter();
-                
-                Log.i(TAG, "Successfully connected to printer: " + device.getPath());
-                notifyConnectionSuccess(device.getPath());
-                return true;
-            } else {
-                Log.e(TAG, "Failed to open serial port: " + device.getPath());
-                notifyConnectionFailed("Failed to open serial port");
+            // 按设备地址打开串口或网络连接
+            DeviceTransport newTransport = DeviceTransports.create(device.getPath(), device.getBaudRate(),
+                    scheduler, tcpLoop);
+            try {
+                newTransport.open();
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to open " + newTransport.getName() + ": " + e.getMessage());
+                notifyConnectionFailed("Failed to open " + newTransport.getName());
                 return false;
             }
             
+            this.transport = newTransport;
+            statusMonitor.reset();
+            this.transmitter = new CommandTransmitter(newTransport, statusMonitor::onStatus);
+            this.connectedDevice = device;
+            
+            // 发送初始化命令（连接标记之前，避免与打印队列同时写）
+            initializePrinter();
+            this.isConnected = true;
+            
+            Log.i(TAG, "Successfully connected to printer: " + newTransport.getName());
+            notifyConnectionSuccess(device.getPath());
+            startStatusPolling();
+            spooler.kick();
+            return true;
+            
         } catch (Exception e) {
             Log.e(TAG, "Exception connecting to device", e);
             notifyConnectionFailed("Connection exception: " + e.getMessage());
@@ -199,19 +300,64 @@ public class PrinterManager {
      */
     private void initializePrinter() {
         try {
-            if (isConnected && !connectedDevice.getPath().equals("/dev/null")) {
-                // 发送ESC/POS初始化命令
-                byte[] initCmd = {0x1B, 0x40}; // ESC @
-                serialPortManager.sendData(initCmd);
-                Thread.sleep(100);
-                
-                Log.d(TAG, "Printer initialized");
-            }
+            // 发送ESC/POS初始化命令
+            transmitter.send(new byte[]{0x1B, 0x40}); // ESC @
+            Log.d(TAG, "Printer initialized");
         } catch (Exception e) {
             Log.w(TAG, "Failed to initialize printer", e);
         }
     }
     
+    /**
+     * 打印机实时状态（缺纸、开盖等故障期间打印队列暂停）
+     */
+    public StatusCodeHandler.PrinterStatus getPrinterStatus() {
+        return statusMonitor.getStatus();
+    }
+
+    /**
+     * 打印机状态变化：故障时暂停队列，恢复后继续
+     */
+    private void onPrinterStatusChanged(StatusCodeHandler.PrinterStatus status, boolean blocked) {
+        if (blocked) {
+            notifyStatusUpdate(StatusCodeHandler.getDetailedStatusMessage(status) + "，打印已暂停");
+        } else {
+            if (status != StatusCodeHandler.PrinterStatus.UNKNOWN) {
+                notifyStatusUpdate(StatusCodeHandler.getStatusMessage(status));
+            }
+            spooler.kick();
+        }
+    }
+
+    /**
+     * 在打印机写线程上定期查询状态（打印机不主动上报或恢复后不上报时）
+     */
+    private synchronized void startStatusPolling() {
+        stopStatusPolling();
+        statusPoll = spooler.scheduleOnWriter(this::pollStatus, PrinterStatusMonitor.BLOCKED_POLL_MS);
+    }
+
+    private synchronized void stopStatusPolling() {
+        if (statusPoll != null) {
+            statusPoll.cancel(false);
+            statusPoll = null;
+        }
+    }
+
+    private void pollStatus() {
+        CommandTransmitter out = transmitter;
+        if (out == null || !isConnected() || !statusMonitor.shouldPoll(System.currentTimeMillis())) {
+            return;
+        }
+        try {
+            out.queryStatus();
+        } catch (IOException e) {
+            Log.w(TAG, "Printer status query failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     /**
      * 检查打印机连接状态
      */
@@ -231,103 +377,86 @@ public class PrinterManager {
      * 打印收据 (完整版本)
      */
     public void printReceipt(ReceiptData receiptData) {
-        if (!isConnected()) {
-            notifyPrintError("Printer not connected");
+        printReceipt(receiptData, PrintJobEntity.PRIORITY_RECEIPT, null);
+    }
+
+    /**
+     * 提交收据打印任务
+     *
+     * @param priority 优先级（PrintJobEntity.PRIORITY_*，补打使用 PRIORITY_REPRINT）
+     * @param jobCallback 任务回调（可为 null），在打印机写线程上调用
+     */
+    public void printReceipt(ReceiptData receiptData, int priority, PrintSpooler.JobCallback jobCallback) {
+        if (receiptData == null || !receiptData.isValid()) {
+            notifyPrintError("Invalid receipt data");
             return;
         }
+        if (!isConnected()) {
+            notifyStatusUpdate("打印机未连接，打印任务已排队");
+        }
+        spooler.submitReceipt(receiptData, priority, jobCallback);
+    }
+
+    /**
+     * 在打印机写线程上执行一个打印任务
+     */
+    private void executeJob(PrintJobEntity job) throws Exception {
+        switch (job.getJobType()) {
+            case PrintJobEntity.TYPE_RECEIPT:
+                printReceiptNow(spooler.readReceipt(job));
+                break;
+            case PrintJobEntity.TYPE_LABEL:
+                printLabelNow(spooler.readLabel(job));
+                break;
+            case PrintJobEntity.TYPE_TEMPLATE:
+            case PrintJobEntity.TYPE_LABEL_TEMPLATE:
+                printTemplateNow(spooler.readTemplateJob(job));
+                break;
+            default:
+                throw new PrinterException(PrinterException.ErrorType.INVALID_DATA,
+                        "Unknown print job type: " + job.getJobType());
+        }
+    }
+
+    /**
+     * 同步打印收据（仅在打印机写线程调用）
+     */
+    private void printReceiptNow(ReceiptData receiptData) throws Exception {
+        if (!isConnected()) {
+            throw new PrinterException(PrinterException.ErrorType.CONNECTION_FAILED, "Printer not connected");
+        }
         
         if (receiptData == null || !receiptData.isValid()) {
-            notifyPrintError("Invalid receipt data");
+            throw new PrinterException(PrinterException.ErrorType.INVALID_DATA, "Invalid receipt data");
+        }
+        
+        Log.i(TAG, "Printing receipt...");
+        
+        if (connectedDevice.getPath().equals("/dev/null")) {
+            // 模拟打印
+            Log.i(TAG, "Simulated receipt print: " + receiptData.toString());
+            Thread.sleep(500); // 模拟打印时间
+            return;
+        }
+        
+        if (rasterMode) {
+            printRasterReceipt(receiptData, null);
+            Log.i(TAG, "Receipt printed successfully (raster)");
             return;
         }
         
+        Esc esc = PrintRenderer.renderReceipt(receiptData);
+        
+        // 发送命令到打印机（直接发送指令缓冲区，不复制）
         try {
-            Log.i(TAG, "Printing receipt...");
-            
-            if (connectedDevice.getPath().equals("/dev/null")) {
-                // 模拟打印
-                Log.i(TAG, "Simulated receipt print: " + receiptData.toString());
-                Thread.sleep(500); // 模拟打印时间
-                notifyPrintComplete();
-                return;
-            }
-            
-            // 创建ESC命令
-            Esc esc = new Esc();
-            esc.reset();
-            
-            // 打印标题
-            if (receiptData.getHeader() != null && !receiptData.getHeader().trim().isEmpty()) {
-                esc.align(1); // 居中对齐
-                esc.textType(0, 0, 0, 1, 1, 1, 0); // 粗体，双倍大小
-                esc.printText(receiptData.getHeader());
-                esc.formfeedY(2);
-            }
-            
-            // 打印内容项目
-            if (receiptData.getItems() != null) {
-                for (ReceiptData.ReceiptItem item : receiptData.getItems()) {
-                    // 设置对齐方式
-                    esc.align(item.getAlignment());
-                    
-                    // 设置字体属性
-                    esc.textType(0, 0, 0, 
-                        item.isBold() ? 1 : 0,
-                        item.isDoubleSize() ? 1 : 0,
-                        item.isDoubleSize() ? 1 : 0,
-                        item.isUnderline() ? 1 : 0);
-                    
-                    // 打印文本
-                    esc.printText(item.getText());
-                    esc.formfeedY(1);
-                }
-            }
-            
-            // 打印条形码
-            if (receiptData.getBarcode() != null && !receiptData.getBarcode().trim().isEmpty()) {
-                esc.align(1); // 居中对齐
-                esc.formfeedY(1);
-                esc.printBarCode(73, receiptData.getBarcode()); // Code128
-                esc.formfeedY(2);
-            }
-            
-            // 打印二维码
-            if (receiptData.getQrCode() != null && !receiptData.getQrCode().trim().isEmpty()) {
-                esc.align(1); // 居中对齐
-                esc.createQR(receiptData.getQrCode());
-                esc.QRSize(5);
-                esc.printQR();
-                esc.formfeedY(2);
-            }
-            
-            // 打印页脚
-            if (receiptData.getFooter() != null && !receiptData.getFooter().trim().isEmpty()) {
-                esc.align(1); // 居中对齐
-                esc.printText(receiptData.getFooter());
-                esc.formfeedY(2);
-            }
-            
-            // 最终走纸
-            esc.formfeedY(receiptData.getFeedLines());
-            
-            // 切纸 (如果启用)
-            if (receiptData.isEnableCut()) {
-                esc.cutPaper();
-            }
-            
-            // 发送命令到打印机
-            sendEscCommands(esc);
-            esc.clear();
-            
-            notifyPrintComplete();
-            Log.i(TAG, "Receipt printed successfully");
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to print receipt", e);
-            notifyPrintError("Print failed: " + e.getMessage());
+            sendCommands(esc.getCommandBuffer());
+        } finally {
+            esc.release();
         }
+        
+        Log.i(TAG, "Receipt printed successfully");
     }
-    
+
     /**
      * 打印标签 (简单版本 - 向后兼容)
      */
@@ -346,205 +475,235 @@ public class PrinterManager {
      * 打印标签 (完整版本)
      */
     public void printLabel(LabelData labelData) {
+        printLabel(labelData, PrintJobEntity.PRIORITY_LABEL, null);
+    }
+
+    /**
+     * 提交标签打印任务
+     *
+     * @param priority 优先级（PrintJobEntity.PRIORITY_*，补打使用 PRIORITY_REPRINT）
+     * @param jobCallback 任务回调（可为 null），在打印机写线程上调用
+     */
+    public void printLabel(LabelData labelData, int priority, PrintSpooler.JobCallback jobCallback) {
         // Basic data validation first (applies to both test and real mode)
         if (labelData == null || !labelData.isValid()) {
             Log.e(TAG, "Invalid label data provided");
             notifyPrintError("打印数据无效 - 请检查标签内容");
             return;
         }
+        if (!testMode && !isConnected()) {
+            notifyStatusUpdate("打印机未连接，打印任务已排队");
+        }
+        spooler.submitLabel(labelData, priority, jobCallback);
+    }
+
+    /**
+     * 同步打印标签（仅在打印机写线程调用）
+     */
+    private void printLabelNow(LabelData labelData) throws Exception {
+        if (labelData == null || !labelData.isValid()) {
+            throw new PrinterException(PrinterException.ErrorType.INVALID_DATA, "Invalid label data");
+        }
         
         // Test mode - simulate realistic printer hardware behavior
         if (testMode) {
-            Log.i(TAG, "TEST MODE: Simulating printer hardware behavior");
-            
-            // Simulate printing process with realistic delays
-            new Thread(() -> {
-                try {
-                    // Simulate connection attempt
-                    Thread.sleep(300);
-                    notifyStatusUpdate("正在连接打印机...");
-                    
-                    // Simulate various printer scenarios (80% success rate)
-                    double random = Math.random();
-                    
-                    if (random < 0.1) {
-                        // 10% chance: Connection failure
-                        Thread.sleep(800);
-                        Log.w(TAG, "TEST MODE: Simulated connection failure");
-                        notifyConnectionFailed("模拟打印机连接失败");
-                        notifyPrintError("打印机连接失败 - 请检查USB连接");
-                        return;
-                    }
-                    
-                    // Connection successful
-                    notifyConnectionSuccess("TEST-PRINTER-USB");
-                    Thread.sleep(200);
-                    notifyStatusUpdate("正在准备打印机...");
-                    
-                    Thread.sleep(300);
-                    notifyStatusUpdate("正在发送标签数据...");
-                    
-                    Thread.sleep(800);
-                    notifyStatusUpdate("正在打印标签...");
-                    
-                    Thread.sleep(1000);
-                    
-                    if (random < 0.15) {
-                        // 5% chance: Print failure (after connection success)
-                        Log.w(TAG, "TEST MODE: Simulated print error");
-                        notifyPrintError("模拟打印错误 - 纸张不足或通信中断");
-                    } else {
-                        // 85% chance: Success
-                        Log.i(TAG, "TEST MODE: Simulated successful print");
-                        notifyPrintComplete();
-                    }
-                    
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    notifyPrintError("测试模式被中断");
-                }
-            }).start();
-            
+            simulateLabelPrint();
             return;
         }
         
         if (!isConnected()) {
-            notifyPrintError("Printer not connected");
-            return;
+            throw new PrinterException(PrinterException.ErrorType.CONNECTION_FAILED, "Printer not connected");
         }
         
-        if (labelData == null || !labelData.isValid()) {
-            notifyPrintError("Invalid label data");
+        Log.i(TAG, "Printing label...");
+        
+        if (connectedDevice.getPath().equals("/dev/null")) {
+            // 模拟打印
+            Log.i(TAG, "Simulated label print: " + labelData.toString());
+            Thread.sleep(800); // 模拟打印时间
             return;
         }
         
+        Label label = rasterMode
+                ? rasterRenderer().renderLabel(labelData, null)
+                : PrintRenderer.renderLabel(labelData);
+        
+        // 发送命令到打印机（直接发送指令缓冲区，不复制）
         try {
-            Log.i(TAG, "Printing label...");
-            
-            if (connectedDevice.getPath().equals("/dev/null")) {
-                // 模拟打印
-                Log.i(TAG, "Simulated label print: " + labelData.toString());
-                Thread.sleep(800); // 模拟打印时间
-                notifyPrintComplete();
-                return;
-            }
-            
-            // 创建标签命令
-            Label label = new Label();
-            
-            // 设置页面属性
-            label.pageStart(labelData.getX(), labelData.getY(), 
-                          labelData.getWidth(), labelData.getHeight(), 
-                          labelData.getRotation());
-            
-            // 设置打印参数
-            if (labelData.getDensity() > 0) {
-                label.setDensity(labelData.getDensity());
-            }
-            if (labelData.getSpeed() > 0) {
-                label.setSpeed(labelData.getSpeed());
-            }
-            
-            // 处理所有元素
-            for (LabelData.LabelElement element : labelData.getElements()) {
-                switch (element.getType()) {
-                    case TEXT:
-                        label.printText(element.getX(), element.getY(), 
-                                      element.getFontSize(), 
-                                      element.isBold() ? 1 : 0, 
-                                      element.isUnderline() ? 1 : 0, 
-                                      element.getValue(), 
-                                      element.getRotation());
-                        break;
-                        
-                    case BARCODE:
-                        label.printBarCode(element.getX(), element.getY(), 
-                                         element.getBarcodeType(),
-                                         element.getHeight(), 
-                                         element.getWidth(), 
-                                         element.getValue(), 
-                                         element.getRotation());
-                        break;
-                        
-                    case QR_CODE:
-                        label.printQR(element.getX(), element.getY(), 
-                                    element.getQrSize(),
-                                    element.getQrVersion(), 
-                                    element.getQrEcc(), 
-                                    element.getValue(), 
-                                    element.getRotation());
-                        break;
-                        
-                    case LINE:
-                        label.drawLine(element.getX(), element.getY(),
-                                     element.getX() + element.getWidth(),
-                                     element.getY() + element.getHeight(),
-                                     element.getThickness());
-                        break;
-                        
-                    case RECTANGLE:
-                        label.drawRect(element.getX(), element.getY(),
-                                     element.getWidth(), element.getHeight(),
-                                     element.getThickness());
-                        break;
-                        
-                    case IMAGE:
-                        if (element.getImagePath() != null) {
-                            label.printImage(element.getX(), element.getY(),
-                                           element.getWidth(), element.getHeight(),
-                                           element.getImagePath());
-                        }
-                        break;
-                }
-            }
-            
-            label.pageEnd();
-            label.customPrintPage(labelData.getCopies());
-            
-            // 发送命令到打印机
-            sendLabelCommands(label);
-            label.clear();
-            
-            notifyPrintComplete();
-            Log.i(TAG, "Label printed successfully");
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to print label", e);
-            notifyPrintError("Print failed: " + e.getMessage());
+            sendCommands(label.getCommandBuffer());
+        } finally {
+            label.release();
         }
+        
+        Log.i(TAG, "Label printed successfully");
     }
-    
+
     /**
-     * 发送ESC命令到打印机
+     * 按模板打印（标签/小票，见 PrintTemplates）
+     *
+     * @param templateName 模板名称
+     * @param values 变量值
      */
-    private void sendEscCommands(Esc esc) throws IOException {
-        if (serialPortManager != null && serialPortManager.isOpen()) {
-            List<byte[]> commands = esc.getCommands();
-            for (byte[] command : commands) {
-                serialPortManager.sendData(command);
+    public void printTemplate(String templateName, TemplateValues values) {
+        PrintTemplate template = PrintTemplates.get(templateName);
+        int priority = template != null && template.isLabel()
+                ? PrintJobEntity.PRIORITY_LABEL : PrintJobEntity.PRIORITY_RECEIPT;
+        printTemplate(templateName, values, priority, null);
+    }
+
+    /**
+     * 提交模板打印任务
+     *
+     * @param priority 优先级（PrintJobEntity.PRIORITY_*，补打使用 PRIORITY_REPRINT）
+     * @param jobCallback 任务回调（可为 null），在打印机写线程上调用
+     */
+    public void printTemplate(String templateName, TemplateValues values, int priority,
+                              PrintSpooler.JobCallback jobCallback) {
+        PrintTemplate template = PrintTemplates.get(templateName);
+        if (template == null || values == null) {
+            Log.e(TAG, "Unknown print template: " + templateName);
+            notifyPrintError("打印模板不存在: " + templateName);
+            return;
+        }
+        if (!(testMode && template.isLabel()) && !isConnected()) {
+            notifyStatusUpdate("打印机未连接，打印任务已排队");
+        }
+        spooler.submitTemplate(template, values, priority, jobCallback);
+    }
+
+    /**
+     * 同步按模板打印（仅在打印机写线程调用）
+     * 编译结果按模板版本缓存，这里只填入变量值
+     */
+    private void printTemplateNow(PrintSpooler.TemplateJob templateJob) throws Exception {
+        PrintTemplate template = templateJob != null ? PrintTemplates.get(templateJob.template) : null;
+        if (template == null) {
+            throw new PrinterException(PrinterException.ErrorType.INVALID_DATA,
+                    "Unknown print template: " + (templateJob != null ? templateJob.template : null));
+        }
+        if (template.getVersion() != templateJob.version) {
+            Log.i(TAG, "模板 " + template.getName() + " 已从版本 " + templateJob.version
+                    + " 更新为 " + template.getVersion() + "，按新版本打印");
+        }
+
+        // 标签在测试模式下与 printLabelNow 一样模拟打印
+        if (template.isLabel() && testMode) {
+            simulateLabelPrint();
+            return;
+        }
+
+        if (!isConnected()) {
+            throw new PrinterException(PrinterException.ErrorType.CONNECTION_FAILED, "Printer not connected");
+        }
+
+        if (connectedDevice.getPath().equals("/dev/null")) {
+            // 模拟打印
+            Log.i(TAG, "Simulated template print: " + template.getName());
+            Thread.sleep(template.isLabel() ? 800 : 500); // 模拟打印时间
+            return;
+        }
+
+        TemplateValues values = TemplateValues.fromMap(templateJob.values);
+        if (rasterMode) {
+            // 光栅打印在排版时填入变量，不使用编译模板
+            if (template.isLabel()) {
+                Label label = rasterRenderer().renderLabel(template.getLabelLayout(), values);
                 try {
-                    Thread.sleep(10); // 小延迟确保命令按序发送
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
+                    sendCommands(label.getCommandBuffer());
+                } finally {
+                    label.release();
                 }
+            } else {
+                printRasterReceipt(template.getReceiptLayout(), values);
             }
+            Log.i(TAG, "Template " + template.getName() + " printed successfully (raster)");
+            return;
+        }
+
+        CompiledTemplate compiled = PrintTemplates.compile(template);
+        byte[] data = compiled.render(values);
+        Log.i(TAG, "Printing template " + compiled.getName() + "@" + compiled.getVersion() + ", " + data.length + " bytes");
+
+        sendCommands(data);
+        Log.i(TAG, "Template printed successfully");
+    }
+
+    /**
+     * 测试模式：模拟打印机硬件的打印过程（在打印机写线程上执行）
+     */
+    private void simulateLabelPrint() throws Exception {
+        Log.i(TAG, "TEST MODE: Simulating printer hardware behavior");
+        
+        // Simulate connection attempt
+        Thread.sleep(300);
+        notifyStatusUpdate("正在连接打印机...");
+        
+        // Simulate various printer scenarios (80% success rate)
+        double random = Math.random();
+        
+        if (random < 0.1) {
+            // 10% chance: Connection failure
+            Thread.sleep(800);
+            Log.w(TAG, "TEST MODE: Simulated connection failure");
+            notifyConnectionFailed("模拟打印机连接失败");
+            throw new PrinterException(PrinterException.ErrorType.CONNECTION_FAILED,
+                    "打印机连接失败 - 请检查USB连接");
         }
+        
+        // Connection successful
+        notifyConnectionSuccess("TEST-PRINTER-USB");
+        Thread.sleep(200);
+        notifyStatusUpdate("正在准备打印机...");
+        
+        Thread.sleep(300);
+        notifyStatusUpdate("正在发送标签数据...");
+        
+        Thread.sleep(800);
+        notifyStatusUpdate("正在打印标签...");
+        
+        Thread.sleep(1000);
+        
+        if (random < 0.15) {
+            // 5% chance: Print failure (after connection success)
+            Log.w(TAG, "TEST MODE: Simulated print error");
+            throw new PrinterException(PrinterException.ErrorType.PRINT_FAILED,
+                    "模拟打印错误 - 纸张不足或通信中断");
+        }
+        
+        // 85% chance: Success
+        Log.i(TAG, "TEST MODE: Simulated successful print");
     }
     
     /**
-     * 发送Label命令到打印机
+     * 发送整张小票/标签的指令，等待打印机确认打印完成后查询状态；
+     * 只有打印机确认（或不支持确认时状态正常）的任务才算完成
      */
-    private void sendLabelCommands(Label label) throws IOException {
-        if (serialPortManager != null && serialPortManager.isOpen()) {
-            List<byte[]> commands = label.getCommands();
-            for (byte[] command : commands) {
-                serialPortManager.sendData(command);
-                try {
-                    Thread.sleep(10); // 小延迟确保命令按序发送
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-            }
+    private void sendCommands(byte[] data) throws Exception {
+        sendCommands(data, data.length);
+    }
+
+    /**
+     * 同上，发送 data 的前 length 字节
+     */
+    private void sendCommands(byte[] data, int length) throws Exception {
+        sendCommands(ByteBuffer.wrap(data, 0, length));
+    }
+
+    /**
+     * 同上，发送 data 的 [position, limit)
+     */
+    private void sendCommands(ByteBuffer data) throws Exception {
+        CommandTransmitter out = transmitter;
+        DeviceTransport connection = transport;
+        if (out == null || connection == null || !connection.isOpen()) {
+            throw new IOException("Printer connection is closed");
+        }
+        out.beginJob();
+        out.send(data);
+        out.awaitJobResult();
+        StatusCodeHandler.PrinterStatus status = out.checkStatus();
+        if (StatusCodeHandler.isWarningStatus(status)) {
+            notifyStatusUpdate(StatusCodeHandler.getStatusMessage(status));
         }
     }
     
@@ -552,13 +711,20 @@ public class PrinterManager {
      * 关闭打印机连接
      */
     public void closeConnection() {
+        stopStatusPolling();
         try {
-            if (serialPortManager != null && serialPortManager.isOpen()) {
-                serialPortManager.closeSerialPort();
+            if (transmitter != null) {
+                transmitter.close();
+                transmitter = null;
+            }
+            if (transport != null) {
+                transport.close();
+                transport = null;
             }
             
             isConnected = false;
             connectedDevice = null;
+            statusMonitor.reset();
             
             Log.i(TAG, "Printer connection closed");
             
@@ -572,9 +738,8 @@ public class PrinterManager {
      */
     public void release() {
         closeConnection();
-        if (serialPortManager != null) {
-            serialPortManager.release();
-        }
+        // 未完成的任务保留在打印队列中，下次启动继续打印
+        spooler.shutdown();
         callback = null;
         Log.i(TAG, "PrinterManager resources released");
     }
@@ -614,11 +779,69 @@ public class PrinterManager {
     public void setTestMode(boolean enabled) {
         this.testMode = enabled;
         Log.i(TAG, "Test mode " + (enabled ? "ENABLED" : "DISABLED"));
+        if (enabled) {
+            spooler.kick();
+        }
     }
     
     public boolean isTestMode() {
         return testMode;
     }
+
+    /**
+     * 光栅打印模式：小票、标签文字在本机按系统字体排成点阵发送，
+     * 用于没有中文字库或生僻字打印成方框的打印机；条码、二维码仍由打印机生成
+     */
+    public void setRasterMode(boolean enabled) {
+        this.rasterMode = enabled;
+        Log.i(TAG, "Raster mode " + (enabled ? "ENABLED" : "DISABLED"));
+    }
+
+    public boolean isRasterMode() {
+        return rasterMode;
+    }
+
+    /**
+     * 光栅打印小票（仅在打印机写线程调用），记录点阵编码节省的字节数和发送时间
+     */
+    private void printRasterReceipt(ReceiptData layout, TemplateValues values) throws Exception {
+        RasterRenderer renderer = rasterRenderer();
+        selectRasterEncoding(renderer);
+        int length = renderer.renderReceipt(layout, values);
+
+        long saved = renderer.getPlainRasterBytes() - renderer.getRasterBytes();
+        int baudRate = connectedDevice.getBaudRate();
+        Log.i(TAG, "光栅小票 " + length + " 字节，点阵编码(" + renderer.getEncoding() + ")节省 " + saved + " 字节"
+                + "，" + baudRate + " 波特约 " + RasterEncoder.transmitMillis(length, baudRate) + " ms"
+                + "（不编码约 " + RasterEncoder.transmitMillis(length + saved, baudRate) + " ms）");
+        sendCommands(renderer.getBuffer(), length);
+    }
+
+    /**
+     * 按打印机能力选择点阵编码，每次连接检测一次：
+     * 应答型号查询（GS I 67）的打印机支持 GS L 左边距，其他打印机只省略空白行和行尾空白
+     */
+    private void selectRasterEncoding(RasterRenderer renderer) throws IOException, InterruptedException {
+        CommandTransmitter out = transmitter;
+        if (out == null || out == rasterEncodingDetectedFor) {
+            return;
+        }
+        rasterEncodingDetectedFor = out;
+        String model = out.queryModelName();
+        renderer.setEncoding(model != null ? RasterEncoder.Mode.MARGIN : RasterEncoder.Mode.SKIP_BLANK);
+        Log.i(TAG, "打印机型号: " + (model != null ? model : "未知") + "，光栅编码: " + renderer.getEncoding());
+    }
+
+    /**
+     * 光栅排版器（打印机写线程上首次使用时创建，字形缓存随之保留）
+     */
+    private RasterRenderer rasterRenderer() {
+        if (rasterRenderer == null) {
+            rasterRenderer = new RasterRenderer(new GlyphAtlas(new CanvasGlyphRasterizer()),
+                    RasterRenderer.PAPER_WIDTH_80MM);
+        }
+        return rasterRenderer;
+    }
     
     /**
      * 测试打印失败场景
@@ -631,7 +854,7 @@ public class PrinterManager {
         
         Log.i(TAG, "TEST MODE: Simulating print failure");
         
-        new Thread(() -> {
+        spooler.runOnWriter(() -> {
             try {
                 Thread.sleep(500);
                 notifyStatusUpdate("正在连接打印机...");
@@ -642,7 +865,7 @@ public class PrinterManager {
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
             }
-        }).start();
+        });
     }
     
     /**
@@ -656,7 +879,7 @@ public class PrinterManager {
         
         Log.i(TAG, "TEST MODE: Forcing successful print");
         
-        new Thread(() -> {
+        spooler.runOnWriter(() -> {
             try {
                 Thread.sleep(500);
                 notifyStatusUpdate("正在连接打印机...");
@@ -671,6 +894,6 @@ public class PrinterManager {
                 Thread.currentThread().interrupt();
                 notifyPrintError("测试模式被中断");
             }
-        }).start();
+        });
     }
 }
\ No newline at end of file
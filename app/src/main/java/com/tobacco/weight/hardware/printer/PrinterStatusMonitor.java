@@ -0,0 +1,173 @@
+package com.tobacco.weight.hardware.printer;
+
+import android.util.Log;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * 打印机实时状态
+ * 汇总打印机主动上报的状态帧和状态查询应答（均由 CommandTransmitter 在读线程上解码），
+ * 维护当前有效的故障/预警集合。缺纸、开盖、卡纸等故障期间打印队列暂停，故障全部解除后恢复。
+ * 同一类状态成对出现（缺纸/有纸、开盖/合盖…），后到的覆盖先到的。
+ */
+final class PrinterStatusMonitor {
+
+    private static final String TAG = "PrinterStatusMonitor";
+
+    // 暂停打印队列的故障
+    private static final Set<StatusCodeHandler.PrinterStatus> BLOCKING = EnumSet.of(
+            StatusCodeHandler.PrinterStatus.PAPER_OUT,
+            StatusCodeHandler.PrinterStatus.PAPER_JAM,
+            StatusCodeHandler.PrinterStatus.ROLLER_OPEN,
+            StatusCodeHandler.PrinterStatus.ABNORMAL_TEMPERATURE,
+            StatusCodeHandler.PrinterStatus.ABNORMAL_VOLTAGE,
+            StatusCodeHandler.PrinterStatus.CUTTER_NOT_RESET,
+            StatusCodeHandler.PrinterStatus.ERROR);
+
+    // 故障期间的查询间隔；正常时超过 IDLE_POLL_MS 没有收到状态才查询
+    static final long BLOCKED_POLL_MS = 2000;
+    static final long IDLE_POLL_MS = 15_000;
+
+    /**
+     * 状态变化回调（在打印机读线程或写线程上调用）
+     */
+    interface Listener {
+        /**
+         * @param status  当前最主要的状态
+         * @param blocked 是否有暂停打印的故障
+         */
+        void onStatusChanged(StatusCodeHandler.PrinterStatus status, boolean blocked);
+    }
+
+    private final Listener listener;
+
+    private final Set<StatusCodeHandler.PrinterStatus> conditions =
+            EnumSet.noneOf(StatusCodeHandler.PrinterStatus.class);
+    private StatusCodeHandler.PrinterStatus current = StatusCodeHandler.PrinterStatus.UNKNOWN;
+    private boolean blocked;
+    private long lastUpdateTime;
+
+    PrinterStatusMonitor(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 收到一个状态（主动上报或查询应答）
+     */
+    void onStatus(StatusCodeHandler.PrinterStatus status) {
+        StatusCodeHandler.PrinterStatus newStatus;
+        boolean newBlocked;
+        synchronized (this) {
+            lastUpdateTime = System.currentTimeMillis();
+            apply(status);
+            newStatus = primaryStatus();
+            newBlocked = !Collections.disjoint(conditions, BLOCKING);
+            if (newStatus == current && newBlocked == blocked) {
+                return;
+            }
+            current = newStatus;
+            blocked = newBlocked;
+        }
+        Log.i(TAG, "打印机状态: " + StatusCodeHandler.getStatusMessage(newStatus)
+                + (newBlocked ? "（暂停打印）" : ""));
+        if (listener != null) {
+            listener.onStatusChanged(newStatus, newBlocked);
+        }
+    }
+
+    /**
+     * 连接断开或重新连接时清除状态
+     */
+    void reset() {
+        boolean wasBlocked;
+        synchronized (this) {
+            conditions.clear();
+            wasBlocked = blocked;
+            blocked = false;
+            current = StatusCodeHandler.PrinterStatus.UNKNOWN;
+            lastUpdateTime = 0;
+        }
+        if (wasBlocked && listener != null) {
+            listener.onStatusChanged(StatusCodeHandler.PrinterStatus.UNKNOWN, false);
+        }
+    }
+
+    synchronized StatusCodeHandler.PrinterStatus getStatus() {
+        return current;
+    }
+
+    /**
+     * 是否有暂停打印的故障
+     */
+    synchronized boolean isBlocked() {
+        return blocked;
+    }
+
+    /**
+     * 是否需要主动查询状态：故障期间定期查询（部分打印机恢复后不主动上报），正常时长时间无状态才查询
+     */
+    synchronized boolean shouldPoll(long now) {
+        return blocked || now - lastUpdateTime >= IDLE_POLL_MS;
+    }
+
+    private void apply(StatusCodeHandler.PrinterStatus status) {
+        switch (status) {
+            case PAPER_OUT:
+            case PAPER_LOW:
+            case PAPER_JAM:
+            case ROLLER_OPEN:
+            case ABNORMAL_TEMPERATURE:
+            case ABNORMAL_VOLTAGE:
+            case CUTTER_NOT_RESET:
+            case ERROR:
+                conditions.add(status);
+                break;
+            case PAPER_PRESENT:
+                conditions.remove(StatusCodeHandler.PrinterStatus.PAPER_OUT);
+                break;
+            case PAPER_SUFFICIENT:
+                conditions.remove(StatusCodeHandler.PrinterStatus.PAPER_OUT);
+                conditions.remove(StatusCodeHandler.PrinterStatus.PAPER_LOW);
+                break;
+            case PAPER_NORMAL:
+                conditions.remove(StatusCodeHandler.PrinterStatus.PAPER_JAM);
+                break;
+            case ROLLER_CLOSED:
+                conditions.remove(StatusCodeHandler.PrinterStatus.ROLLER_OPEN);
+                break;
+            case NORMAL_TEMPERATURE:
+                conditions.remove(StatusCodeHandler.PrinterStatus.ABNORMAL_TEMPERATURE);
+                break;
+            case NORMAL_VOLTAGE:
+                conditions.remove(StatusCodeHandler.PrinterStatus.ABNORMAL_VOLTAGE);
+                break;
+            case CUTTER_RESET:
+                conditions.remove(StatusCodeHandler.PrinterStatus.CUTTER_NOT_RESET);
+                break;
+            case READY:
+            case PRINT_COMPLETE:
+                // 打印机在线：导致离线的故障都已解除，预警保留
+                conditions.removeAll(BLOCKING);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 故障优先，其次预警，否则就绪
+     */
+    private StatusCodeHandler.PrinterStatus primaryStatus() {
+        for (StatusCodeHandler.PrinterStatus status : conditions) {
+            if (BLOCKING.contains(status)) {
+                return status;
+            }
+        }
+        if (!conditions.isEmpty()) {
+            return conditions.iterator().next();
+        }
+        return StatusCodeHandler.PrinterStatus.READY;
+    }
+}
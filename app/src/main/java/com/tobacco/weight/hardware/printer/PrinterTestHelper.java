@@ -3,6 +3,10 @@ package com.tobacco.weight.hardware.printer;
 import android.content.Context;
 import android.util.Log;
 
+import com.tobacco.weight.data.dao.PrintJobDao;
+import com.tobacco.weight.hardware.transport.TcpSelectorLoop;
+import com.tobacco.weight.scheduler.AppScheduler;
+
 import java.util.List;
 
 /**
@@ -16,11 +20,12 @@ public class PrinterTestHelper {
     /**
      * 测试打印机模块的基本功能
      */
-    public static void testPrinterModule(Context context) {
+    public static void testPrinterModule(Context context, PrintJobDao printJobDao, AppScheduler scheduler,
+                                         TcpSelectorLoop tcpLoop) {
         Log.i(TAG, "Starting printer module test...");
         
-        // 创建打印机管理器
-        PrinterManager printerManager = new PrinterManager(context);
+        // 创建打印机管理器（使用独立的队列编号，不与正式打印机的队列混用）
+        PrinterManager printerManager = new PrinterManager(context, "printer-test", printJobDao, scheduler, tcpLoop);
         
         // 设置回调
         printerManager.setCallback(new PrinterManager.PrinterCallback() {
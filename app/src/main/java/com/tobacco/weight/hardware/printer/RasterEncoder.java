@@ -0,0 +1,239 @@
+package com.tobacco.weight.hardware.printer;
+
+/**
+ * 光栅位图编码
+ * 点阵以 GS v 0 发送，省去不打印的部分以缩短串口发送时间（9600 波特每秒只能发送约 960 字节）：
+ * - 空白行不发送点阵，改为 ESC J 走纸（3 字节最多走 255 点），较长的空白段把位图分成两块；
+ * - 行尾空白：只发送到最右侧有点的字节；
+ * - 行首空白（仅 MARGIN 模式）：用 GS L 设置左边距，位图从第一个有点的字节开始。
+ * 同时统计整块整宽发送所需的字节数与实际字节数，用于估算每张小票节省的发送时间。
+ * 非线程安全。
+ */
+final class RasterEncoder {
+
+    /**
+     * 编码方式（按打印机能力选择）
+     */
+    enum Mode {
+        PLAIN,          // 整块发送，只裁掉行尾空白
+        SKIP_BLANK,     // 空白行改为走纸（只用 GS v 0 和 ESC J，所有打印机都支持）
+        MARGIN          // 另用 GS L 裁掉行首空白（打印机应答型号查询时使用）
+    }
+
+    private static final byte ESC = 0x1B;
+    private static final byte GS = 0x1D;
+
+    // GS v 0 指令头、GS L、ESC J 的长度
+    private static final int HEADER_SIZE = 8;
+    private static final int MARGIN_SIZE = 4;
+    private static final int FEED_SIZE = 3;
+
+    private final Mode mode;
+
+    // 每行第一个、最后一个有点的字节（空白行为 -1）
+    private int[] firstInk = new int[0];
+    private int[] lastInk = new int[0];
+
+    // 当前 GS L 左边距（点）
+    private int leftMargin;
+
+    // 整块整宽发送所需字节数、实际发送字节数（含指令头和走纸）
+    private long plainBytes;
+    private long encodedBytes;
+
+    RasterEncoder(Mode mode) {
+        this.mode = mode;
+    }
+
+    Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * encode() 最多写出的字节数
+     */
+    static int maxEncodedSize(int stride, int height, int feedAfter) {
+        return height * (stride + HEADER_SIZE + MARGIN_SIZE + FEED_SIZE) + feedSize(feedAfter);
+    }
+
+    /**
+     * 开始一张新的小票（打印机已由 ESC @ 复位）：清除左边距状态和统计
+     */
+    void begin() {
+        leftMargin = 0;
+        plainBytes = 0;
+        encodedBytes = 0;
+    }
+
+    /**
+     * 编码一块点阵，其后走纸 feedAfter 点
+     *
+     * @param bits   点阵，每行 stride 字节，高位在左，1=打印
+     * @param out    输出缓冲区，从 position 起至少 maxEncodedSize() 字节
+     * @return 写入后的位置
+     */
+    int encode(byte[] bits, int stride, int height, int feedAfter, byte[] out, int position) {
+        int start = position;
+        plainBytes += HEADER_SIZE + (long) stride * height + feedSize(feedAfter);
+        scan(bits, stride, height);
+
+        if (mode == Mode.PLAIN) {
+            int width = 0;
+            for (int row = 0; row < height; row++) {
+                width = Math.max(width, lastInk[row] + 1);
+            }
+            if (width == 0) {
+                position = feed(height + feedAfter, out, position);
+            } else {
+                position = image(bits, stride, 0, height, 0, width, out, position);
+                position = feed(feedAfter, out, position);
+            }
+            encodedBytes += position - start;
+            return position;
+        }
+
+        int pendingFeed = 0;
+        int row = 0;
+        while (row < height) {
+            if (lastInk[row] < 0) {
+                pendingFeed++;
+                row++;
+                continue;
+            }
+
+            // 一块：连续的有点行，中间较短的空白段（分块反而更长）并入块内
+            int blockStart = row;
+            int blockEnd = row + 1;
+            int left = firstInk[row];
+            int right = lastInk[row] + 1;
+            int next = blockEnd;
+            while (next < height) {
+                if (lastInk[next] >= 0) {
+                    left = Math.min(left, firstInk[next]);
+                    right = Math.max(right, lastInk[next] + 1);
+                    blockEnd = ++next;
+                    continue;
+                }
+                int blankRows = next - blockEnd + 1;
+                if (blankRows * (right - (mode == Mode.MARGIN ? left : 0)) > HEADER_SIZE + FEED_SIZE) {
+                    break;
+                }
+                next++;
+            }
+            if (mode != Mode.MARGIN) {
+                left = 0;
+            }
+
+            position = feed(pendingFeed, out, position);
+            pendingFeed = 0;
+            position = setMargin(left * 8, out, position);
+            position = image(bits, stride, blockStart, blockEnd, left, right, out, position);
+            row = blockEnd;
+        }
+        position = feed(pendingFeed + feedAfter, out, position);
+        encodedBytes += position - start;
+        return position;
+    }
+
+    /**
+     * 左边距恢复为 0（发送条码、文字等非光栅内容前调用）
+     *
+     * @return 写入后的位置（最多 4 字节）
+     */
+    int resetMargin(byte[] out, int position) {
+        int start = position;
+        position = setMargin(0, out, position);
+        encodedBytes += position - start;
+        plainBytes += position - start;
+        return position;
+    }
+
+    /**
+     * 本张小票整块整宽发送点阵所需的字节数
+     */
+    long getPlainBytes() {
+        return plainBytes;
+    }
+
+    /**
+     * 本张小票实际发送的点阵字节数
+     */
+    long getEncodedBytes() {
+        return encodedBytes;
+    }
+
+    /**
+     * 按波特率估算发送时间（每字节 10 位：起始位 + 8 数据位 + 停止位）
+     */
+    static long transmitMillis(long bytes, int baudRate) {
+        return baudRate > 0 ? bytes * 10 * 1000 / baudRate : 0;
+    }
+
+    private void scan(byte[] bits, int stride, int height) {
+        if (firstInk.length < height) {
+            firstInk = new int[height];
+            lastInk = new int[height];
+        }
+        for (int row = 0; row < height; row++) {
+            int rowStart = row * stride;
+            int first = -1;
+            int last = -1;
+            for (int k = 0; k < stride; k++) {
+                if (bits[rowStart + k] != 0) {
+                    if (first < 0) {
+                        first = k;
+                    }
+                    last = k;
+                }
+            }
+            firstInk[row] = first;
+            lastInk[row] = last;
+        }
+    }
+
+    private static int image(byte[] bits, int stride, int fromRow, int toRow, int left, int right,
+                             byte[] out, int position) {
+        int widthBytes = right - left;
+        int height = toRow - fromRow;
+        out[position++] = GS;
+        out[position++] = 0x76;
+        out[position++] = 0x30;
+        out[position++] = 0x00;
+        out[position++] = (byte) (widthBytes & 0xFF);
+        out[position++] = (byte) (widthBytes >> 8);
+        out[position++] = (byte) (height & 0xFF);
+        out[position++] = (byte) (height >> 8);
+        for (int row = fromRow; row < toRow; row++) {
+            System.arraycopy(bits, row * stride + left, out, position, widthBytes);
+            position += widthBytes;
+        }
+        return position;
+    }
+
+    private int setMargin(int dots, byte[] out, int position) {
+        if (dots == leftMargin) {
+            return position;
+        }
+        leftMargin = dots;
+        out[position++] = GS;
+        out[position++] = 0x4C;
+        out[position++] = (byte) (dots & 0xFF);
+        out[position++] = (byte) (dots >> 8);
+        return position;
+    }
+
+    private static int feed(int dots, byte[] out, int position) {
+        while (dots > 0) {
+            int step = Math.min(dots, 255);
+            out[position++] = ESC;
+            out[position++] = 0x4A;
+            out[position++] = (byte) step;
+            dots -= step;
+        }
+        return position;
+    }
+
+    private static int feedSize(int dots) {
+        return (dots + 254) / 255 * FEED_SIZE;
+    }
+}
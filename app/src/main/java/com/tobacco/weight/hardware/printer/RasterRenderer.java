@@ -0,0 +1,508 @@
+package com.tobacco.weight.hardware.printer;
+
+import java.util.Arrays;
+
+/**
+ * 光栅打印指令生成
+ * 小票文字按 GlyphAtlas 中的点阵排成 1 位位图，每行经 RasterEncoder 以 ESC/POS GS v 0 光栅位图发送，
+ * 不依赖打印机内置字库（部分打印机没有中文字库，或把生僻字打印成方框）；条码、二维码仍用打印机指令。
+ * 标签文字以 TSPL BITMAP 输出，其他元素与 PrintRenderer 相同。
+ * 小票指令写入复用的缓冲区，预热（字形缓存、缓冲区扩容）后生成一张小票不分配内存。
+ * 非线程安全，只在打印机写线程上使用。
+ */
+final class RasterRenderer {
+
+    // 打印宽度（点）：80mm 纸 72mm、58mm 纸 48mm，8点/毫米
+    static final int PAPER_WIDTH_80MM = 576;
+    static final int PAPER_WIDTH_58MM = 384;
+
+    // 与打印机内置 24 点阵字体同高；倍高倍宽时 48
+    static final int FONT_SIZE = 24;
+    private static final int LINE_SPACING = 6;
+    private static final int UNDERLINE_ROWS = 2;
+
+    private static final byte ESC = 0x1B;
+    private static final byte GS = 0x1D;
+    private static final byte LF = 0x0A;
+
+    // 与 Esc.printBarCode / Esc.createQR 相同的固定指令
+    private static final byte[] BARCODE_CODE128 = {GS, 0x68, 50, GS, 0x77, 2, GS, 0x48, 2, GS, 0x6B, 73};
+    private static final byte[] QR_SETUP = {
+            GS, 0x28, 0x6B, 0x04, 0x00, 0x31, 0x41, 0x32, 0x00,    // 模型
+            GS, 0x28, 0x6B, 0x03, 0x00, 0x31, 0x43, 0x05,          // 模块大小
+            GS, 0x28, 0x6B, 0x03, 0x00, 0x31, 0x45, 0x31};         // 纠错等级
+    private static final byte[] QR_PRINT = {
+            GS, 0x28, 0x6B, 0x03, 0x00, 0x31, 0x43, 0x05,
+            GS, 0x28, 0x6B, 0x03, 0x00, 0x31, 0x51, 0x30};
+
+    private final GlyphAtlas atlas;
+    private final int paperWidth;
+    private final int rowBytes;
+    private RasterEncoder encoder = new RasterEncoder(RasterEncoder.Mode.SKIP_BLANK);
+
+    // 当前行点阵，每行 rowBytes 字节
+    private byte[] band = new byte[0];
+    // 当前文本（已填入模板变量）的字符
+    private int[] text = new int[128];
+    private int textLength;
+    private final byte[] digits = new byte[CompiledTemplate.DECIMAL_BUFFER_SIZE];
+
+    private byte[] out = new byte[16 * 1024];
+    private int length;
+
+    RasterRenderer(GlyphAtlas atlas, int paperWidth) {
+        if (paperWidth <= 0 || paperWidth > 0xFFFF * 8) {
+            throw new IllegalArgumentException("打印宽度无效: " + paperWidth);
+        }
+        this.atlas = atlas;
+        this.paperWidth = paperWidth;
+        this.rowBytes = (paperWidth + 7) / 8;
+    }
+
+    /**
+     * 点阵编码方式（按打印机能力选择，默认 SKIP_BLANK）
+     */
+    void setEncoding(RasterEncoder.Mode mode) {
+        if (mode != encoder.getMode()) {
+            encoder = new RasterEncoder(mode);
+        }
+    }
+
+    RasterEncoder.Mode getEncoding() {
+        return encoder.getMode();
+    }
+
+    /**
+     * 最近一张小票整块整宽发送点阵所需的字节数（与 getRasterBytes() 比较节省量）
+     */
+    long getPlainRasterBytes() {
+        return encoder.getPlainBytes();
+    }
+
+    /**
+     * 最近一张小票实际发送的点阵字节数
+     */
+    long getRasterBytes() {
+        return encoder.getEncodedBytes();
+    }
+
+    /**
+     * 生成小票的光栅打印指令，结果在 getBuffer() 的前 getLength() 字节
+     * （缓冲区可能扩容，需在本方法返回后再取 getBuffer()）
+     *
+     * @param values 模板变量值；为 null 时文字中的 ${...} 原样打印
+     * @return 指令长度
+     */
+    int renderReceipt(ReceiptData receipt, TemplateValues values) {
+        length = 0;
+        encoder.begin();
+        put(ESC, (byte) 0x40);
+        put(ESC, (byte) 0x61, (byte) 0);   // 对齐由排版完成
+
+        if (!isBlank(receipt.getHeader())) {
+            textLine(receipt.getHeader(), values, FONT_SIZE * 2, true, false, 1);
+            feed(lineHeight(FONT_SIZE));
+        }
+
+        if (receipt.getItems() != null) {
+            for (int i = 0; i < receipt.getItems().size(); i++) {
+                ReceiptData.ReceiptItem item = receipt.getItems().get(i);
+                textLine(item.getText(), values, item.isDoubleSize() ? FONT_SIZE * 2 : FONT_SIZE,
+                        item.isBold(), item.isUnderline(), item.getAlignment());
+            }
+        }
+
+        resetMargin();
+        if (!isBlank(receipt.getBarcode())) {
+            put(ESC, (byte) 0x61, (byte) 1);
+            put(LF);
+            barcode(receipt.getBarcode(), values);
+            put(LF, LF);
+            put(ESC, (byte) 0x61, (byte) 0);
+        }
+
+        if (!isBlank(receipt.getQrCode())) {
+            put(ESC, (byte) 0x61, (byte) 1);
+            qrCode(receipt.getQrCode(), values);
+            put(LF, LF);
+            put(ESC, (byte) 0x61, (byte) 0);
+        }
+
+        if (!isBlank(receipt.getFooter())) {
+            textLine(receipt.getFooter(), values, FONT_SIZE, false, false, 1);
+            feed(lineHeight(FONT_SIZE));
+        }
+
+        resetMargin();
+        for (int i = 0; i < receipt.getFeedLines(); i++) {
+            put(LF);
+        }
+        if (receipt.isEnableCut()) {
+            // 切纸（同 Esc.cutPaper）
+            ensureCapacity(4);
+            out[length++] = GS;
+            out[length++] = 0x56;
+            out[length++] = 0x42;
+            out[length++] = 0x00;
+        }
+        return length;
+    }
+
+    /**
+     * 生成标签指令：未旋转的文字转为点阵，其他元素与 PrintRenderer 相同
+     *
+     * @param values 模板变量值；为 null 时内容原样打印
+     */
+    Label renderLabel(LabelData labelData, TemplateValues values) {
+        Label label = new Label();
+        label.pageStart(labelData.getX(), labelData.getY(),
+                labelData.getWidth(), labelData.getHeight(),
+                labelData.getRotation());
+        if (labelData.getDensity() > 0) {
+            label.setDensity(labelData.getDensity());
+        }
+        if (labelData.getSpeed() > 0) {
+            label.setSpeed(labelData.getSpeed());
+        }
+
+        for (LabelData.LabelElement element : labelData.getElements()) {
+            String value = element.getValue();
+            if (element.getType() == LabelData.LabelElement.Type.TEXT && element.getRotation() == 0) {
+                if (value != null && !value.isEmpty()) {
+                    labelText(label, labelData, element, values);
+                }
+                continue;
+            }
+            if (values != null && value != null) {
+                resolve(value, values);
+                value = new String(text, 0, textLength);
+            }
+            PrintRenderer.renderElement(label, element, value);
+        }
+
+        label.pageEnd();
+        label.customPrintPage(labelData.getCopies());
+        return label;
+    }
+
+    byte[] getBuffer() {
+        return out;
+    }
+
+    int getLength() {
+        return length;
+    }
+
+    /**
+     * 最近一次 renderReceipt 的指令副本
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(out, length);
+    }
+
+    /**
+     * 排版一段文字：超出纸宽或遇到换行符时折行，每行一个光栅位图
+     */
+    private void textLine(String value, TemplateValues values, int size, boolean bold,
+                          boolean underline, int alignment) {
+        resolve(value, values);
+        if (textLength == 0) {
+            feed(lineHeight(size));
+            return;
+        }
+        int start = 0;
+        while (start < textLength) {
+            int end = start;
+            int width = 0;
+            while (end < textLength && text[end] != '\n') {
+                int advance = atlas.get(text[end], size, bold).advance;
+                if (width + advance > paperWidth && end > start) {
+                    break;
+                }
+                width += advance;
+                end++;
+            }
+            rasterLine(start, end, width, size, bold, underline, alignment);
+            start = end < textLength && text[end] == '\n' ? end + 1 : end;
+        }
+    }
+
+    private void rasterLine(int start, int end, int width, int size, boolean bold,
+                            boolean underline, int alignment) {
+        if (width == 0) {
+            feed(lineHeight(size));
+            return;
+        }
+        width = Math.min(width, paperWidth);
+        int offset = alignment == 1 ? (paperWidth - width) / 2 : alignment == 2 ? paperWidth - width : 0;
+        drawText(start, end, offset, width, size, bold, underline, rowBytes);
+
+        int spacing = lineHeight(size) - size;
+        ensureCapacity(RasterEncoder.maxEncodedSize(rowBytes, size, spacing));
+        length = encoder.encode(band, rowBytes, size, spacing, out, length);
+    }
+
+    private void resetMargin() {
+        ensureCapacity(4);
+        length = encoder.resetMargin(out, length);
+    }
+
+    /**
+     * 把 text[start, end) 画入 band（每行 stride 字节），从 offset 点开始
+     */
+    private void drawText(int start, int end, int offset, int width, int size, boolean bold,
+                          boolean underline, int stride) {
+        int bandSize = stride * size;
+        if (band.length < bandSize) {
+            band = new byte[bandSize];
+        } else {
+            Arrays.fill(band, 0, bandSize, (byte) 0);
+        }
+
+        int x = offset;
+        int limit = offset + width;
+        for (int i = start; i < end && x < limit; i++) {
+            GlyphAtlas.Glyph glyph = atlas.get(text[i], size, bold);
+            blit(glyph, x, stride);
+            x += glyph.advance;
+        }
+        if (underline) {
+            for (int row = size - UNDERLINE_ROWS; row < size; row++) {
+                for (int dot = offset; dot < limit; dot++) {
+                    band[row * stride + (dot >> 3)] |= (byte) (0x80 >>> (dot & 7));
+                }
+            }
+        }
+    }
+
+    /**
+     * 把字形按点偏移 x 或入 band
+     */
+    private void blit(GlyphAtlas.Glyph glyph, int x, int stride) {
+        int byteX = x >> 3;
+        int shift = x & 7;
+        int columns = Math.min(glyph.rowBytes, stride - byteX);
+        for (int row = 0; row < glyph.height; row++) {
+            int src = row * glyph.rowBytes;
+            int dst = row * stride + byteX;
+            for (int k = 0; k < columns; k++) {
+                int bits = glyph.bits[src + k] & 0xFF;
+                if (bits == 0) {
+                    continue;
+                }
+                band[dst + k] |= (byte) (bits >>> shift);
+                if (shift != 0 && k + 1 < stride - byteX) {
+                    band[dst + k + 1] |= (byte) (bits << (8 - shift));
+                }
+            }
+        }
+    }
+
+    /**
+     * 标签上的一个文字元素：按字符宽度排成一行（超出标签宽度的部分截掉）
+     */
+    private void labelText(Label label, LabelData labelData, LabelData.LabelElement element,
+                           TemplateValues values) {
+        resolve(element.getValue(), values);
+        int available = labelData.getWidth() - element.getX();
+        int width = 0;
+        int end = 0;
+        while (end < textLength && text[end] != '\n') {
+            int advance = atlas.get(text[end], FONT_SIZE, element.isBold()).advance;
+            if (width + advance > available) {
+                break;
+            }
+            width += advance;
+            end++;
+        }
+        if (width == 0) {
+            return;
+        }
+        int stride = (width + 7) / 8;
+        drawText(0, end, 0, width, FONT_SIZE, element.isBold(), element.isUnderline(), stride);
+
+        // TSPL 位图 0 为打印点
+        byte[] data = new byte[stride * FONT_SIZE];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) ~band[i];
+        }
+        label.printBitmap(element.getX(), element.getY(), stride, FONT_SIZE, data);
+    }
+
+    /**
+     * Code128 条码（同 Esc.printBarCode）
+     */
+    private void barcode(String value, TemplateValues values) {
+        resolve(value, values);
+        int count = Math.min(textLength, 255);
+        put(BARCODE_CODE128);
+        ensureCapacity(1 + count);
+        out[length++] = (byte) count;
+        for (int i = 0; i < count; i++) {
+            out[length++] = (byte) (text[i] < 0x80 ? text[i] : '?');
+        }
+    }
+
+    /**
+     * 二维码（同 Esc.createQR + QRSize(5) + printQR），数据为 UTF-8
+     */
+    private void qrCode(String value, TemplateValues values) {
+        resolve(value, values);
+        put(QR_SETUP);
+
+        // 存储数据：GS ( k pL pH 31 50 30 数据，长度写完数据后回填
+        ensureCapacity(8 + textLength * 4);
+        out[length++] = GS;
+        out[length++] = 0x28;
+        out[length++] = 0x6B;
+        int lengthField = length;
+        length += 2;
+        out[length++] = 0x31;
+        out[length++] = 0x50;
+        out[length++] = 0x30;
+        int dataStart = length;
+        for (int i = 0; i < textLength; i++) {
+            int c = text[i];
+            if (c < 0x80) {
+                out[length++] = (byte) c;
+            } else if (c < 0x800) {
+                out[length++] = (byte) (0xC0 | (c >> 6));
+                out[length++] = (byte) (0x80 | (c & 0x3F));
+            } else if (c < 0x10000) {
+                out[length++] = (byte) (0xE0 | (c >> 12));
+                out[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[length++] = (byte) (0x80 | (c & 0x3F));
+            } else {
+                out[length++] = (byte) (0xF0 | (c >> 18));
+                out[length++] = (byte) (0x80 | ((c >> 12) & 0x3F));
+                out[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[length++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        int storeLength = length - dataStart + 3;
+        out[lengthField] = (byte) (storeLength & 0xFF);
+        out[lengthField + 1] = (byte) ((storeLength >> 8) & 0xFF);
+
+        put(QR_PRINT);
+    }
+
+    /**
+     * 把文字转成字符数组放入 text，${变量} 替换为变量值
+     */
+    private void resolve(String value, TemplateValues values) {
+        textLength = 0;
+        if (value == null) {
+            return;
+        }
+        int i = 0;
+        while (i < value.length()) {
+            if (values != null && value.startsWith("${", i)) {
+                int close = value.indexOf('}', i + 2);
+                TemplateSlot slot = close > 0 ? TemplateSlot.forName(value, i + 2, close) : null;
+                if (slot != null) {
+                    appendValue(slot, values);
+                    i = close + 1;
+                    continue;
+                }
+            }
+            int codePoint = value.codePointAt(i);
+            append(codePoint);
+            i += Character.charCount(codePoint);
+        }
+    }
+
+    private void appendValue(TemplateSlot slot, TemplateValues values) {
+        switch (slot.getType()) {
+            case DECIMAL:
+                appendDigits(CompiledTemplate.formatDecimal(values.getDecimal(slot), slot.getScale(), digits));
+                break;
+            case INTEGER:
+                appendDigits(CompiledTemplate.formatDecimal(values.getInteger(slot), 0, digits));
+                break;
+            default:
+                String value = values.getText(slot);
+                for (int i = 0; i < value.length(); ) {
+                    int codePoint = value.codePointAt(i);
+                    append(codePoint);
+                    i += Character.charCount(codePoint);
+                }
+                break;
+        }
+    }
+
+    private void appendDigits(int start) {
+        for (int i = start; i < digits.length; i++) {
+            append(digits[i]);
+        }
+    }
+
+    private void append(int codePoint) {
+        if (codePoint == '\r') {
+            return;
+        }
+        if (codePoint < 0x20 && codePoint != '\n') {
+            codePoint = ' ';
+        }
+        if (textLength == text.length) {
+            text = Arrays.copyOf(text, text.length * 2);
+        }
+        text[textLength++] = codePoint;
+    }
+
+    /**
+     * 走纸 n 点（ESC J）
+     */
+    private void feed(int dots) {
+        while (dots > 0) {
+            int step = Math.min(dots, 255);
+            put(ESC, (byte) 0x4A, (byte) step);
+            dots -= step;
+        }
+    }
+
+    private static int lineHeight(int size) {
+        return size + LINE_SPACING * size / FONT_SIZE;
+    }
+
+    private static boolean isBlank(String value) {
+        if (value == null) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void put(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, out, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void put(byte b) {
+        ensureCapacity(1);
+        out[length++] = b;
+    }
+
+    private void put(byte b1, byte b2) {
+        ensureCapacity(2);
+        out[length++] = b1;
+        out[length++] = b2;
+    }
+
+    private void put(byte b1, byte b2, byte b3) {
+        ensureCapacity(3);
+        out[length++] = b1;
+        out[length++] = b2;
+        out[length++] = b3;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > out.length) {
+            out = Arrays.copyOf(out, Math.max(out.length * 2, length + extra));
+        }
+    }
+}
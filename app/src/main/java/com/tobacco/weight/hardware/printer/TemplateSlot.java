@@ -0,0 +1,177 @@
+package com.tobacco.weight.hardware.printer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 打印模板变量
+ * 模板布局中以 ${名称} 占位，编译后成为 CompiledTemplate 中的变量槽，打印时由 TemplateValues 填入。
+ * 变量带类型：文本按打印机编码输出，数值按固定小数位输出。
+ */
+public final class TemplateSlot {
+
+    public enum Type {
+        TEXT,       // 文本
+        DECIMAL,    // 小数（按 scale 位小数输出）
+        INTEGER     // 整数
+    }
+
+    private static final List<TemplateSlot> REGISTRY = new ArrayList<>();
+
+    // 农户与单据
+    public static final TemplateSlot FARMER_NAME = text("farmerName");
+    public static final TemplateSlot ID_CARD_NUMBER = text("idCardNumber");
+    public static final TemplateSlot PRECHECK_ID = text("precheckId");
+    public static final TemplateSlot CONTRACT_NUMBER = text("contractNumber");
+    public static final TemplateSlot TOBACCO_LEVEL = text("tobaccoLevel");
+    public static final TemplateSlot WEIGH_DATE = text("weighDate");
+    public static final TemplateSlot PRINT_TIME = text("printTime");
+    public static final TemplateSlot OPERATOR_NAME = text("operatorName");
+    public static final TemplateSlot WAREHOUSE_NUMBER = text("warehouseNumber");
+    public static final TemplateSlot BARCODE = text("barcode");
+    public static final TemplateSlot QR_PAYLOAD = text("qrPayload");
+
+    // 各部位捆数与重量(kg)
+    public static final TemplateSlot UPPER_BUNDLES = integer("upperBundles");
+    public static final TemplateSlot MIDDLE_BUNDLES = integer("middleBundles");
+    public static final TemplateSlot LOWER_BUNDLES = integer("lowerBundles");
+    public static final TemplateSlot TOTAL_BUNDLES = integer("totalBundles");
+    public static final TemplateSlot UPPER_WEIGHT = decimal("upperWeight", 2);
+    public static final TemplateSlot MIDDLE_WEIGHT = decimal("middleWeight", 2);
+    public static final TemplateSlot LOWER_WEIGHT = decimal("lowerWeight", 2);
+    public static final TemplateSlot TOTAL_WEIGHT = decimal("totalWeight", 2);
+
+    // 金额
+    public static final TemplateSlot UNIT_PRICE = decimal("unitPrice", 2);
+    public static final TemplateSlot TOTAL_AMOUNT = decimal("totalAmount", 2);
+
+    private final String name;
+    private final Type type;
+    private final int scale;
+    private final int index;
+
+    private TemplateSlot(String name, Type type, int scale, int index) {
+        this.name = name;
+        this.type = type;
+        this.scale = scale;
+        this.index = index;
+    }
+
+    /**
+     * 定义文本变量
+     */
+    public static TemplateSlot text(String name) {
+        return define(name, Type.TEXT, 0);
+    }
+
+    /**
+     * 定义小数变量
+     *
+     * @param scale 小数位数（0-6）
+     */
+    public static TemplateSlot decimal(String name, int scale) {
+        if (scale < 0 || scale > 6) {
+            throw new IllegalArgumentException("小数位数超出范围: " + scale);
+        }
+        return define(name, Type.DECIMAL, scale);
+    }
+
+    /**
+     * 定义整数变量
+     */
+    public static TemplateSlot integer(String name) {
+        return define(name, Type.INTEGER, 0);
+    }
+
+    /**
+     * 按名称查找变量
+     *
+     * @return 未定义时返回 null
+     */
+    public static TemplateSlot forName(String name) {
+        synchronized (REGISTRY) {
+            for (TemplateSlot slot : REGISTRY) {
+                if (slot.name.equals(name)) {
+                    return slot;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按 text 中 [start, end) 的名称查找变量（不生成子串）
+     *
+     * @return 未定义时返回 null
+     */
+    static TemplateSlot forName(String text, int start, int end) {
+        int length = end - start;
+        synchronized (REGISTRY) {
+            for (int i = 0; i < REGISTRY.size(); i++) {
+                TemplateSlot slot = REGISTRY.get(i);
+                if (slot.name.length() == length && text.regionMatches(start, slot.name, 0, length)) {
+                    return slot;
+                }
+            }
+        }
+        return null;
+    }
+
+    static TemplateSlot byIndex(int index) {
+        synchronized (REGISTRY) {
+            return REGISTRY.get(index);
+        }
+    }
+
+    static int count() {
+        synchronized (REGISTRY) {
+            return REGISTRY.size();
+        }
+    }
+
+    private static TemplateSlot define(String name, Type type, int scale) {
+        if (name == null || name.isEmpty() || name.indexOf('}') >= 0) {
+            throw new IllegalArgumentException("变量名无效: " + name);
+        }
+        synchronized (REGISTRY) {
+            TemplateSlot existing = forName(name);
+            if (existing != null) {
+                if (existing.type != type || existing.scale != scale) {
+                    throw new IllegalArgumentException("变量已定义为其他类型: " + name);
+                }
+                return existing;
+            }
+            TemplateSlot slot = new TemplateSlot(name, type, scale, REGISTRY.size());
+            REGISTRY.add(slot);
+            return slot;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    /**
+     * 布局中使用的占位符
+     */
+    public String placeholder() {
+        return "${" + name + "}";
+    }
+
+    @Override
+    public String toString() {
+        return placeholder();
+    }
+}
@@ -0,0 +1,111 @@
+package com.tobacco.weight.hardware.printer;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 一张小票/标签的模板变量值
+ * 按 TemplateSlot 的类型检查赋值；未赋值的文本输出为空，数值输出为 0。
+ */
+public final class TemplateValues {
+
+    private Object[] values = new Object[TemplateSlot.count()];
+
+    public TemplateValues set(TemplateSlot slot, String text) {
+        checkType(slot, TemplateSlot.Type.TEXT);
+        put(slot, text != null ? text : "");
+        return this;
+    }
+
+    public TemplateValues set(TemplateSlot slot, double value) {
+        checkType(slot, TemplateSlot.Type.DECIMAL);
+        put(slot, value);
+        return this;
+    }
+
+    public TemplateValues set(TemplateSlot slot, long value) {
+        if (slot.getType() == TemplateSlot.Type.DECIMAL) {
+            put(slot, (double) value);
+        } else {
+            checkType(slot, TemplateSlot.Type.INTEGER);
+            put(slot, value);
+        }
+        return this;
+    }
+
+    String getText(TemplateSlot slot) {
+        Object value = get(slot);
+        return value != null ? (String) value : "";
+    }
+
+    double getDecimal(TemplateSlot slot) {
+        Object value = get(slot);
+        return value != null ? (Double) value : 0;
+    }
+
+    long getInteger(TemplateSlot slot) {
+        Object value = get(slot);
+        return value != null ? (Long) value : 0;
+    }
+
+    /**
+     * 转换为 名称 → 值 （写入打印队列）
+     */
+    public Map<String, String> toMap() {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                map.put(TemplateSlot.byIndex(i).getName(), String.valueOf(values[i]));
+            }
+        }
+        return map;
+    }
+
+    /**
+     * 从 toMap() 的结果恢复；未定义的变量忽略
+     */
+    public static TemplateValues fromMap(Map<String, String> map) {
+        TemplateValues values = new TemplateValues();
+        if (map == null) {
+            return values;
+        }
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            TemplateSlot slot = TemplateSlot.forName(entry.getKey());
+            if (slot == null || entry.getValue() == null) {
+                continue;
+            }
+            switch (slot.getType()) {
+                case TEXT:
+                    values.set(slot, entry.getValue());
+                    break;
+                case DECIMAL:
+                    values.set(slot, Double.parseDouble(entry.getValue()));
+                    break;
+                case INTEGER:
+                    values.set(slot, Long.parseLong(entry.getValue()));
+                    break;
+            }
+        }
+        return values;
+    }
+
+    private void put(TemplateSlot slot, Object value) {
+        int index = slot.getIndex();
+        if (index >= values.length) {
+            values = Arrays.copyOf(values, Math.max(index + 1, TemplateSlot.count()));
+        }
+        values[index] = value;
+    }
+
+    private Object get(TemplateSlot slot) {
+        int index = slot.getIndex();
+        return index < values.length ? values[index] : null;
+    }
+
+    private static void checkType(TemplateSlot slot, TemplateSlot.Type type) {
+        if (slot.getType() != type) {
+            throw new IllegalArgumentException("变量 " + slot.getName() + " 的类型是 " + slot.getType());
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.tobacco.weight.hardware.scale;
+
+/**
+ * 自动采集检测器
+ * 在全速率重量流上识别 上秤 → 稳定 → 采集 → 下秤 的循环，每次上秤只采集一次。
+ * 下秤后重量需持续低于空秤阈值一段时间才重新布防，秤体抖动或烟包晃动不会造成重复采集。
+ * 非线程安全，应在重量数据的发射线程上串行调用。
+ */
+public class AutoCaptureDetector {
+
+    // 默认参数
+    public static final double DEFAULT_LOAD_ON = 0.5;   // 上秤阈值（kg）
+    public static final double DEFAULT_LOAD_OFF = 0.2;  // 空秤阈值（kg）
+    public static final long DEFAULT_REARM_MS = 500;    // 下秤后重新布防所需时间（ms）
+
+    /**
+     * 采集状态
+     */
+    public enum State {
+        ARMED,      // 空秤，等待上秤
+        LOADED,     // 已上秤，等待稳定
+        CAPTURED,   // 已采集，等待下秤
+        UNLOADING   // 正在下秤，等待重新布防
+    }
+
+    private final double loadOnThreshold;
+    private final double loadOffThreshold;
+    private final long rearmMs;
+
+    private State state = State.ARMED;
+    private long unloadingSince = 0;
+    private double capturedWeight = 0.0;
+    private long capturedAt = 0;
+    private long captureCount = 0;
+
+    public AutoCaptureDetector() {
+        this(DEFAULT_LOAD_ON, DEFAULT_LOAD_OFF, DEFAULT_REARM_MS);
+    }
+
+    /**
+     * @param loadOnThreshold  重量超过该值视为上秤（kg）
+     * @param loadOffThreshold 重量低于该值视为空秤（kg），必须小于上秤阈值
+     * @param rearmMs          空秤持续多久后重新布防（ms）
+     */
+    public AutoCaptureDetector(double loadOnThreshold, double loadOffThreshold, long rearmMs) {
+        if (loadOffThreshold >= loadOnThreshold) {
+            throw new IllegalArgumentException("空秤阈值必须小于上秤阈值");
+        }
+        this.loadOnThreshold = loadOnThreshold;
+        this.loadOffThreshold = loadOffThreshold;
+        this.rearmMs = rearmMs;
+    }
+
+    /**
+     * 输入一帧重量
+     *
+     * @param weight    重量（kg）
+     * @param stable    是否稳定
+     * @param timestamp 采样时间（ms）
+     * @return 本帧是否触发采集，触发后可通过 getCapturedWeight() 取得采集重量
+     */
+    public boolean update(double weight, boolean stable, long timestamp) {
+        switch (state) {
+            case ARMED:
+                if (weight >= loadOnThreshold) {
+                    state = State.LOADED;
+                    return tryCapture(weight, stable, timestamp);
+                }
+                return false;
+
+            case LOADED:
+                if (weight < loadOffThreshold) {
+                    // 未稳定就被取下，不采集
+                    state = State.ARMED;
+                    return false;
+                }
+                return tryCapture(weight, stable, timestamp);
+
+            case CAPTURED:
+                if (weight < loadOffThreshold) {
+                    state = State.UNLOADING;
+                    unloadingSince = timestamp;
+                }
+                return false;
+
+            case UNLOADING:
+            default:
+                if (weight >= loadOffThreshold) {
+                    // 空秤未持续足够时间，视为同一次上秤的抖动
+                    state = State.CAPTURED;
+                } else if (timestamp - unloadingSince >= rearmMs) {
+                    state = State.ARMED;
+                }
+                return false;
+        }
+    }
+
+    /**
+     * 重置为布防状态（去皮、清零、开始新会话时调用）
+     * 如果秤上仍有上一包，需先下秤才会再次采集
+     *
+     * @param currentWeight 当前重量（kg）
+     */
+    public void reset(double currentWeight) {
+        state = currentWeight >= loadOffThreshold ? State.CAPTURED : State.ARMED;
+        unloadingSince = 0;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public double getCapturedWeight() {
+        return capturedWeight;
+    }
+
+    public long getCapturedAt() {
+        return capturedAt;
+    }
+
+    public long getCaptureCount() {
+        return captureCount;
+    }
+
+    private boolean tryCapture(double weight, boolean stable, long timestamp) {
+        if (!stable) {
+            return false;
+        }
+        state = State.CAPTURED;
+        capturedWeight = weight;
+        capturedAt = timestamp;
+        captureCount++;
+        return true;
+    }
+}
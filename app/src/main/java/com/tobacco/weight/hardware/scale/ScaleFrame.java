@@ -0,0 +1,79 @@
+package com.tobacco.weight.hardware.scale;
+
+/**
+ * 电子秤单帧解码结果
+ * 由 ScaleFrameDecoder 复用同一实例回调，监听器需在回调内取出所需字段，不应持有引用
+ */
+public final class ScaleFrame {
+
+    // 状态标志位
+    public static final int FLAG_STABLE = 1;         // 秤体上报稳定（ST）
+    public static final int FLAG_UNSTABLE = 1 << 1;  // 秤体上报不稳定（US）
+    public static final int FLAG_OVERLOAD = 1 << 2;  // 超载（OL/OVER）
+    public static final int FLAG_UNDERLOAD = 1 << 3; // 欠载（UL/UNDER）
+    public static final int FLAG_ERROR = 1 << 4;     // 错误（ERR/ERROR）
+    public static final int FLAG_NET = 1 << 5;       // 净重（NT），否则为毛重
+
+    double weight;
+    int flags;
+    ScaleProtocol protocol;
+    int length;
+
+    /**
+     * 重置为空帧
+     */
+    void reset() {
+        weight = 0.0;
+        flags = 0;
+        protocol = null;
+        length = 0;
+    }
+
+    /**
+     * 获取重量值（kg）
+     */
+    public double getWeight() {
+        return weight;
+    }
+
+    /**
+     * 获取状态标志位
+     */
+    public int getFlags() {
+        return flags;
+    }
+
+    /**
+     * 是否包含指定标志位
+     */
+    public boolean hasFlag(int flag) {
+        return (flags & flag) != 0;
+    }
+
+    /**
+     * 获取解析出本帧的协议
+     */
+    public ScaleProtocol getProtocol() {
+        return protocol;
+    }
+
+    /**
+     * 获取帧长度（不含分隔符）
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * 将本帧内容写入重量数据模型
+     *
+     * @param weightData 目标重量数据
+     */
+    public void copyTo(WeightData weightData) {
+        weightData.setWeight(weight);
+        weightData.setValid(true);
+        weightData.setOverload(hasFlag(FLAG_OVERLOAD));
+        weightData.setUnderload(hasFlag(FLAG_UNDERLOAD));
+        weightData.setError(hasFlag(FLAG_ERROR));
+    }
+}
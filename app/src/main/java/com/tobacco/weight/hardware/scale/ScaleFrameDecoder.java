@@ -0,0 +1,193 @@
+package com.tobacco.weight.hardware.scale;
+
+/**
+ * 电子秤字节流帧解码器
+ * 将串口分片读取到的字节写入可复用的环形缓冲区，按帧分隔符重组完整帧后交给协议解析。
+ * 一帧可以跨越多次 read()，一次 read() 也可以包含多帧；解码过程不产生任何临时对象。
+ * 非线程安全，应由同一个读取线程调用 feed()。
+ */
+public final class ScaleFrameDecoder {
+
+    /**
+     * 帧解码回调
+     * frame 为复用实例，仅在回调期间有效
+     */
+    public interface OnFrameDecodedListener {
+        void onFrameDecoded(ScaleFrame frame);
+    }
+
+    // 帧起始/结束字节
+    private static final byte STX = 0x02;
+    private static final byte ETX = 0x03;
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    // 环形缓冲区容量（2 的幂）
+    private static final int RING_CAPACITY = 256;
+    private static final int RING_MASK = RING_CAPACITY - 1;
+
+    // 单帧最大长度，超出则丢弃直到下一个分隔符
+    public static final int MAX_FRAME_LENGTH = 128;
+
+    // 解码状态
+    private static final int STATE_IDLE = 0;    // 等待帧数据
+    private static final int STATE_FRAME = 1;   // 正在接收帧
+    private static final int STATE_DISCARD = 2; // 帧过长，丢弃至分隔符
+
+    private final byte[] ring = new byte[RING_CAPACITY];
+    private final byte[] frameBuffer = new byte[MAX_FRAME_LENGTH];
+    private final ScaleFrame frame = new ScaleFrame();
+    private final ScaleProtocol[] protocols;
+    private final OnFrameDecodedListener listener;
+
+    private int state = STATE_IDLE;
+    private int writeIndex = 0;
+    private int frameStart = 0;
+    private int frameLength = 0;
+
+    // 统计信息
+    private long decodedFrames = 0;
+    private long rejectedFrames = 0;
+    private long overflowFrames = 0;
+
+    /**
+     * 使用默认协议创建解码器
+     */
+    public ScaleFrameDecoder(OnFrameDecodedListener listener) {
+        this(ScaleProtocols.defaults(), listener);
+    }
+
+    /**
+     * @param protocols 协议列表，按顺序尝试
+     * @param listener  帧解码回调
+     */
+    public ScaleFrameDecoder(ScaleProtocol[] protocols, OnFrameDecodedListener listener) {
+        if (protocols == null || protocols.length == 0) {
+            throw new IllegalArgumentException("至少需要一种电子秤协议");
+        }
+        this.protocols = protocols.clone();
+        this.listener = listener;
+    }
+
+    /**
+     * 写入一段串口数据
+     *
+     * @param data   数据
+     * @param offset 起始位置
+     * @param length 长度
+     */
+    public void feed(byte[] data, int offset, int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            byte b = data[i];
+            switch (state) {
+                case STATE_IDLE:
+                    if (!isDelimiter(b) && b != STX) {
+                        frameStart = writeIndex;
+                        frameLength = 0;
+                        append(b);
+                        state = STATE_FRAME;
+                    }
+                    break;
+
+                case STATE_FRAME:
+                    if (b == STX) {
+                        // 新帧开始，之前的半帧作废
+                        frameStart = writeIndex;
+                        frameLength = 0;
+                    } else if (isDelimiter(b)) {
+                        // 先复位状态：解析或回调异常时不会停在半帧状态
+                        state = STATE_IDLE;
+                        completeFrame();
+                    } else if (frameLength >= MAX_FRAME_LENGTH) {
+                        overflowFrames++;
+                        state = STATE_DISCARD;
+                    } else {
+                        append(b);
+                    }
+                    break;
+
+                case STATE_DISCARD:
+                default:
+                    if (isDelimiter(b)) {
+                        state = STATE_IDLE;
+                    } else if (b == STX) {
+                        frameStart = writeIndex;
+                        frameLength = 0;
+                        state = STATE_FRAME;
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 写入一段串口数据
+     */
+    public void feed(byte[] data) {
+        feed(data, 0, data.length);
+    }
+
+    /**
+     * 丢弃缓冲区中尚未完成的半帧
+     */
+    public void reset() {
+        state = STATE_IDLE;
+        frameStart = writeIndex;
+        frameLength = 0;
+    }
+
+    public long getDecodedFrames() {
+        return decodedFrames;
+    }
+
+    public long getRejectedFrames() {
+        return rejectedFrames;
+    }
+
+    public long getOverflowFrames() {
+        return overflowFrames;
+    }
+
+    private void append(byte b) {
+        ring[writeIndex] = b;
+        writeIndex = (writeIndex + 1) & RING_MASK;
+        frameLength++;
+    }
+
+    /**
+     * 从环形缓冲区取出完整帧并依次尝试各协议解析
+     */
+    private void completeFrame() {
+        int length = frameLength;
+        if (length == 0) {
+            return;
+        }
+
+        int first = Math.min(length, RING_CAPACITY - frameStart);
+        System.arraycopy(ring, frameStart, frameBuffer, 0, first);
+        if (first < length) {
+            System.arraycopy(ring, 0, frameBuffer, first, length - first);
+        }
+        frameStart = writeIndex;
+        frameLength = 0;
+
+        for (ScaleProtocol protocol : protocols) {
+            frame.reset();
+            if (protocol.parse(frameBuffer, length, frame)) {
+                frame.protocol = protocol;
+                frame.length = length;
+                decodedFrames++;
+                if (listener != null) {
+                    listener.onFrameDecoded(frame);
+                }
+                return;
+            }
+        }
+        rejectedFrames++;
+    }
+
+    private static boolean isDelimiter(byte b) {
+        return b == CR || b == LF || b == ETX;
+    }
+}
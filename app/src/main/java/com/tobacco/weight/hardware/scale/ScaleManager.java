@@ -2,71 +2,114 @@ package com.tobacco.weight.hardware.scale;
 
 import android.util.Log;
 
-import com.tobacco.weight.hardware.serial.SerialPortManager;
 import com.tobacco.weight.hardware.simulator.HardwareSimulator;
+import com.tobacco.weight.hardware.transport.DeviceTransport;
+import com.tobacco.weight.hardware.transport.DeviceTransports;
+import com.tobacco.weight.hardware.transport.TcpSelectorLoop;
+import com.tobacco.weight.scheduler.AppScheduler;
+import com.tobacco.weight.scheduler.Lane;
+import com.tobacco.weight.scheduler.SerialExecutor;
 
-import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.nio.charset.StandardCharsets;
 
-import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
+import java.util.concurrent.RejectedExecutionException;
+
+import io.reactivex.rxjava3.core.BackpressureOverflowStrategy;
+import io.reactivex.rxjava3.core.BackpressureStrategy;
+import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
 import io.reactivex.rxjava3.disposables.CompositeDisposable;
 import io.reactivex.rxjava3.schedulers.Schedulers;
 import io.reactivex.rxjava3.subjects.BehaviorSubject;
+import io.reactivex.rxjava3.subjects.PublishSubject;
 import javax.inject.Inject;
 
 /**
  * 电子秤管理器
  * 负责电子秤连接、数据解析、重量稳定性检测
+ * 通过 DeviceTransport 收发数据，本地串口、TCP 串口服务器和回环走同一条处理流程；
+ * 解码 → 稳定性检测 → 状态更新全部运行在该秤的串行通道上（AppScheduler 设备 I/O 通道），
+ * 界面通过 getWeightSnapshots() 获取限频快照
  */
 public class ScaleManager {
 
     private static final String TAG = "ScaleManager";
 
-    // 重量数据正则表达式（适配不同厂商的电子秤协议）
-    private static final Pattern WEIGHT_PATTERN_1 = Pattern.compile("([+-]?\\d+\\.?\\d*)\\s*kg",
-            Pattern.CASE_INSENSITIVE);
-    private static final Pattern WEIGHT_PATTERN_2 = Pattern.compile("ST,GS,([+-]?\\d+\\.?\\d*)");
-    private static final Pattern WEIGHT_PATTERN_3 = Pattern.compile("([+-]?\\d+\\.?\\d*)");
-
-    // 重量数据正则表达式（适配不同厂商的电子秤协议）
-    private static final int STABLE_CHECK_COUNT = 5; // 连续稳定次数
-    private static final double STABLE_THRESHOLD = 0.01; // 稳定阈值（kg）
-    private static final long STABLE_CHECK_INTERVAL = 200; // 检测间隔（ms）
+    // 原始数据块缓冲上限，超出时丢弃最旧的数据块并重新同步帧
+    private static final int RAW_BUFFER_CAPACITY = 64;
 
-    // 回调接口
+    // 回调接口（在硬件线程上回调）
     public interface OnWeightDataReceivedListener {
         void onWeightDataReceived(WeightData weightData);
     }
 
-    private SerialPortManager serialPortManager;
+    private volatile DeviceTransport transport;
     private CompositeDisposable disposables;
 
+    // 字节流帧解码器（适配不同厂商的电子秤协议）
+    private final ScaleFrameDecoder frameDecoder;
+
+    // 秤编号
+    private final String scaleId;
+
+    // 硬件处理通道（设备 I/O 通道上的串行执行器）
+    private final SerialExecutor pipelineLane;
+    private final Scheduler pipelineScheduler;
+    private volatile boolean resyncRequired = false;
+
     // 重量数据流
     private BehaviorSubject<WeightData> weightSubject;
     private BehaviorSubject<Boolean> connectionSubject;
 
-    // 重量稳定性检测
-    private double[] recentWeights;
-    private int weightIndex = 0;
-    private boolean isWeightStable = false;
+    // 重量稳定性检测（仅在硬件线程上访问）
+    private StabilityDetector stabilityDetector;
 
-    private WeightData currentWeight;
-    private boolean isMeasuring = false;
+    // 自动采集（仅在硬件线程上访问）
+    private final AutoCaptureDetector autoCaptureDetector;
+    private final PublishSubject<WeightData> captureSubject;
+
+    private volatile WeightData currentWeight;
+    private volatile boolean isMeasuring = false;
 
     private final HardwareSimulator simulator;
+    private final AppScheduler scheduler;
+    private final TcpSelectorLoop tcpLoop;
     private OnWeightDataReceivedListener weightDataListener;
 
     @Inject
-    public ScaleManager(HardwareSimulator simulator) {
+    public ScaleManager(HardwareSimulator simulator, AppScheduler scheduler, TcpSelectorLoop tcpLoop) {
+        this(simulator, ScaleRegistry.DEFAULT_SCALE_ID, scheduler, tcpLoop);
+    }
+
+    /**
+     * @param scaleId   秤编号
+     * @param scheduler 处理任务运行在其设备 I/O 通道上，多台秤共享线程、各自串行
+     * @param tcpLoop   TCP 串口服务器连接共享的 I/O 循环
+     */
+    public ScaleManager(HardwareSimulator simulator, String scaleId, AppScheduler scheduler,
+                        TcpSelectorLoop tcpLoop) {
         this.simulator = simulator;
-        this.serialPortManager = new SerialPortManager();
+        this.scaleId = scaleId;
+        this.scheduler = scheduler;
+        this.tcpLoop = tcpLoop;
         this.disposables = new CompositeDisposable();
         this.weightSubject = BehaviorSubject.create();
         this.connectionSubject = BehaviorSubject.createDefault(false);
-        this.recentWeights = new double[STABLE_CHECK_COUNT];
+        this.stabilityDetector = new WindowedStabilityDetector();
+        this.autoCaptureDetector = new AutoCaptureDetector();
+        this.captureSubject = PublishSubject.create();
         this.currentWeight = new WeightData();
+        this.frameDecoder = new ScaleFrameDecoder(this::onFrameDecoded);
+        this.pipelineLane = scheduler.pipeline(Lane.DEVICE_IO);
+        this.pipelineScheduler = Schedulers.from(pipelineLane);
+    }
+
+    /**
+     * 获取秤编号
+     */
+    public String getScaleId() {
+        return scaleId;
     }
 
     public HardwareSimulator getSimulator() {
@@ -76,29 +119,44 @@ public class ScaleManager {
     /**
      * 连接电子秤
      * 
-     * @param portPath 串口路径
-     * @param baudRate 波特率
+     * @param portPath 设备地址：串口路径、tcp://主机:端口 或 loopback://名称（见 DeviceTransports）
+     * @param baudRate 波特率（仅本地串口使用）
      * @return 是否连接成功
      */
     public boolean connect(String portPath, int baudRate) {
+        DeviceTransport newTransport;
         try {
-            if (serialPortManager.isOpen()) {
+            newTransport = DeviceTransports.create(portPath, baudRate, scheduler, tcpLoop);
+        } catch (IllegalArgumentException e) {
+            Log.e(TAG, "电子秤地址无效: " + e.getMessage());
+            connectionSubject.onNext(false);
+            return false;
+        }
+        return connect(newTransport);
+    }
+
+    /**
+     * 通过指定传输层连接电子秤
+     * 
+     * @param newTransport 传输层（未打开）
+     * @return 是否连接成功
+     */
+    public boolean connect(DeviceTransport newTransport) {
+        try {
+            if (transport != null) {
                 disconnect();
             }
 
-            boolean success = serialPortManager.openSerialPort(portPath, baudRate);
-            if (success) {
-                startDataReading();
-                connectionSubject.onNext(true);
-                Log.i(TAG, "电子秤连接成功");
-            } else {
-                connectionSubject.onNext(false);
-                Log.e(TAG, "电子秤连接失败");
-            }
-            return success;
+            newTransport.open();
+            transport = newTransport;
+            startDataReading(newTransport);
+            connectionSubject.onNext(true);
+            Log.i(TAG, "电子秤连接成功: " + newTransport.getName());
+            return true;
 
         } catch (Exception e) {
-            Log.e(TAG, "连接电子秤异常: " + e.getMessage(), e);
+            Log.e(TAG, "连接电子秤失败: " + newTransport.getName() + ", " + e.getMessage(), e);
+            newTransport.close();
             connectionSubject.onNext(false);
             return false;
         }
@@ -110,9 +168,16 @@ public class ScaleManager {
     public void disconnect() {
         try {
             disposables.clear();
-            serialPortManager.closeSerialPort();
+            DeviceTransport current = transport;
+            transport = null;
+            if (current != null) {
+                current.close();
+            }
             connectionSubject.onNext(false);
-            resetWeightStability();
+            runOnPipeline(() -> {
+                frameDecoder.reset();
+                resetWeightStability();
+            });
             Log.i(TAG, "电子秤连接已断开");
 
         } catch (Exception e) {
@@ -122,14 +187,18 @@ public class ScaleManager {
 
     /**
      * 开始读取数据
+     * 原始数据块经有界缓冲切换到硬件线程处理，处理不过来时丢弃最旧的数据块，不会无限积压
      */
-    private void startDataReading() {
-        Observable<byte[]> dataObservable = serialPortManager.startReading()
-                .subscribeOn(Schedulers.io())
-                .observeOn(AndroidSchedulers.mainThread());
+    private void startDataReading(DeviceTransport source) {
+        Flowable<byte[]> dataFlowable = source.data()
+                .toFlowable(BackpressureStrategy.MISSING)
+                .onBackpressureBuffer(RAW_BUFFER_CAPACITY,
+                        () -> resyncRequired = true,
+                        BackpressureOverflowStrategy.DROP_OLDEST)
+                .observeOn(pipelineScheduler, false, RAW_BUFFER_CAPACITY);
 
         disposables.add(
-                dataObservable.subscribe(
+                dataFlowable.subscribe(
                         this::processRawData,
                         throwable -> {
                             Log.e(TAG, "读取电子秤数据异常: " + throwable.getMessage(), throwable);
@@ -140,153 +209,86 @@ public class ScaleManager {
     /**
      * 处理原始数据
      * 
-     * @param rawData 原始字节数据
+     * @param rawData 原始字节数据（可能包含半帧或多帧）
      */
     private void processRawData(byte[] rawData) {
         try {
-            String dataString = new String(rawData).trim();
-            Log.d(TAG, "接收电子秤数据: " + dataString);
-
-            WeightData weightData = parseWeightData(dataString);
-            if (weightData != null) {
-                currentWeight = weightData;
-                checkWeightStability(weightData.getWeight());
-                weightData.setStable(isWeightStable);
-                weightSubject.onNext(weightData);
-
-                // 调用回调监听器
-                if (weightDataListener != null && isMeasuring) {
-                    weightDataListener.onWeightDataReceived(weightData);
-                }
+            if (resyncRequired) {
+                // 有数据块被丢弃，缓冲区中的半帧已不完整
+                resyncRequired = false;
+                frameDecoder.reset();
+                Log.w(TAG, "电子秤数据处理积压，已丢弃部分数据并重新同步");
             }
-
+            frameDecoder.feed(rawData, 0, rawData.length);
         } catch (Exception e) {
             Log.e(TAG, "处理电子秤数据异常: " + e.getMessage(), e);
         }
     }
 
     /**
-     * 解析重量数据
+     * 处理一帧解码完成的重量数据
      * 
-     * @param dataString 数据字符串
-     * @return 解析后的重量数据
+     * @param frame 解码结果（复用实例）
      */
-    private WeightData parseWeightData(String dataString) {
-        try {
-            WeightData weightData = new WeightData();
-            weightData.setRawData(dataString);
-            weightData.setTimestamp(System.currentTimeMillis());
-
-            // 尝试不同的解析模式
-            Double weight = tryParseWeight(dataString);
-            if (weight != null) {
-                weightData.setWeight(weight);
-                weightData.setValid(true);
-
-                // 检测状态信息
-                weightData.setOverload(dataString.contains("OL") || dataString.contains("OVER"));
-                weightData.setUnderload(dataString.contains("UL") || dataString.contains("UNDER"));
-                weightData.setError(dataString.contains("ERR") || dataString.contains("ERROR"));
-
-                return weightData;
-            }
-
-        } catch (Exception e) {
-            Log.e(TAG, "解析重量数据异常: " + e.getMessage(), e);
+    private void onFrameDecoded(ScaleFrame frame) {
+        WeightData weightData = new WeightData();
+        frame.copyTo(weightData);
+        weightData.setTimestamp(System.currentTimeMillis());
+
+        stabilityDetector.update(weightData.getWeight(), weightData.getTimestamp());
+        weightData.setStable(stabilityDetector.isStable());
+        weightData.setStableSince(stabilityDetector.getStableSince());
+        weightData.setSettleTime(stabilityDetector.getLastSettleTime());
+        weightData.setSettleEstimate(stabilityDetector.estimateRemainingSettleTime(weightData.getTimestamp()));
+        currentWeight = weightData;
+        weightSubject.onNext(weightData);
+
+        if (!weightData.isError() && !weightData.isOverload()
+                && autoCaptureDetector.update(weightData.getWeight(), weightData.isStable(), weightData.getTimestamp())) {
+            captureSubject.onNext(weightData);
         }
 
-        return null;
-    }
-
-    /**
-     * 尝试解析重量值
-     * 
-     * @param dataString 数据字符串
-     * @return 重量值（kg）
-     */
-    private Double tryParseWeight(String dataString) {
-        // 模式1: 包含kg单位
-        Matcher matcher1 = WEIGHT_PATTERN_1.matcher(dataString);
-        if (matcher1.find()) {
-            try {
-                return Double.parseDouble(matcher1.group(1));
-            } catch (NumberFormatException e) {
-                Log.w(TAG, "解析重量数据格式错误: " + matcher1.group(1));
-            }
-        }
-
-        // 模式2: 标准协议格式
-        Matcher matcher2 = WEIGHT_PATTERN_2.matcher(dataString);
-        if (matcher2.find()) {
-            try {
-                return Double.parseDouble(matcher2.group(1));
-            } catch (NumberFormatException e) {
-                Log.w(TAG, "解析重量数据格式错误: " + matcher2.group(1));
-            }
+        // 调用回调监听器
+        if (weightDataListener != null && isMeasuring) {
+            weightDataListener.onWeightDataReceived(weightData);
         }
-
-        // 模式3: 纯数字格式
-        Matcher matcher3 = WEIGHT_PATTERN_3.matcher(dataString.replaceAll("[^\\d.-]", ""));
-        if (matcher3.find()) {
-            try {
-                String weightStr = matcher3.group(1);
-                if (!weightStr.isEmpty()) {
-                    return Double.parseDouble(weightStr);
-                }
-            } catch (NumberFormatException e) {
-                Log.w(TAG, "解析重量数据格式错误: " + matcher3.group(1));
-            }
-        }
-
-        return null;
     }
 
     /**
-     * 检测重量稳定性
-     * 
-     * @param weight 当前重量
+     * 在硬件线程上执行（解码器和稳定性状态只允许硬件线程访问）
      */
-    private void checkWeightStability(double weight) {
-        recentWeights[weightIndex] = weight;
-        weightIndex = (weightIndex + 1) % STABLE_CHECK_COUNT;
-
-        // 检查是否有足够的数据点
-        boolean hasEnoughData = true;
-        for (double w : recentWeights) {
-            if (w == 0.0) {
-                hasEnoughData = false;
-                break;
-            }
-        }
-
-        if (!hasEnoughData) {
-            isWeightStable = false;
+    private void runOnPipeline(Runnable task) {
+        if (pipelineLane.isShutdown()) {
             return;
         }
-
-        // 计算重量变化范围
-        double min = recentWeights[0];
-        double max = recentWeights[0];
-        for (double w : recentWeights) {
-            if (w < min)
-                min = w;
-            if (w > max)
-                max = w;
+        try {
+            pipelineLane.execute(task);
+        } catch (RejectedExecutionException e) {
+            // release() 与读线程并发时丢弃（通道队列满时管道执行器在读线程上执行，不会拒绝）
         }
-
-        // 判断是否稳定
-        isWeightStable = (max - min) <= STABLE_THRESHOLD;
     }
 
     /**
      * 重置重量稳定性检测
      */
     private void resetWeightStability() {
-        for (int i = 0; i < recentWeights.length; i++) {
-            recentWeights[i] = 0.0;
+        stabilityDetector.reset();
+        autoCaptureDetector.reset(currentWeight.getWeight());
+    }
+
+    /**
+     * 设置稳定性检测器（可按秤型替换检测算法和阈值）
+     * 
+     * @param detector 稳定性检测器
+     */
+    public void setStabilityDetector(StabilityDetector detector) {
+        if (detector == null) {
+            throw new IllegalArgumentException("稳定性检测器不能为空");
         }
-        weightIndex = 0;
-        isWeightStable = false;
+        runOnPipeline(() -> {
+            detector.reset();
+            stabilityDetector = detector;
+        });
     }
 
     /**
@@ -296,12 +298,19 @@ public class ScaleManager {
      * @return 是否发送成功
      */
     public boolean sendCommand(String command) {
-        if (!serialPortManager.isOpen()) {
+        DeviceTransport current = transport;
+        if (current == null || !current.isOpen()) {
             Log.e(TAG, "电子秤未连接，无法发送命令");
             return false;
         }
 
-        return serialPortManager.sendData(command + "\r\n");
+        try {
+            current.write((command + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "发送电子秤命令失败: " + e.getMessage());
+            return false;
+        }
     }
 
     /**
@@ -319,12 +328,28 @@ public class ScaleManager {
     }
 
     /**
-     * 获取重量数据流
+     * 获取重量数据流（在硬件线程上发射每一帧）
      */
     public Observable<WeightData> getWeightObservable() {
         return weightSubject.distinctUntilChanged();
     }
 
+    /**
+     * 获取界面重量快照流
+     * 最多 WeightSnapshots.UI_MAX_RATE_HZ 次/秒、只保留最新值，在主线程发射
+     */
+    public Flowable<WeightData> getWeightSnapshots() {
+        return WeightSnapshots.conflate(getWeightObservable(), pipelineScheduler);
+    }
+
+    /**
+     * 获取自动采集流
+     * 每次上秤后首次稳定时发射一次（在硬件线程上发射），下秤后才会再次发射
+     */
+    public Observable<WeightData> getAutoCaptureObservable() {
+        return captureSubject.hide();
+    }
+
     /**
      * 获取连接状态流
      */
@@ -343,7 +368,8 @@ public class ScaleManager {
      * 是否已连接
      */
     public boolean isConnected() {
-        return serialPortManager.isOpen();
+        DeviceTransport current = transport;
+        return current != null && current.isOpen();
     }
 
     /**
@@ -352,7 +378,7 @@ public class ScaleManager {
     public void release() {
         disconnect();
         disposables.dispose();
-        serialPortManager.release();
+        pipelineLane.shutdown();
 
         if (weightSubject != null) {
             weightSubject.onComplete();
@@ -361,6 +387,8 @@ public class ScaleManager {
         if (connectionSubject != null) {
             connectionSubject.onComplete();
         }
+
+        captureSubject.onComplete();
     }
 
     /**
@@ -403,7 +431,7 @@ public class ScaleManager {
      */
     public void clearWeight() {
         zero();
-        resetWeightStability();
+        runOnPipeline(this::resetWeightStability);
         Log.i(TAG, "重量已清零");
     }
 }
\ No newline at end of file
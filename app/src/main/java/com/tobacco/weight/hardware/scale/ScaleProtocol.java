@@ -0,0 +1,23 @@
+package com.tobacco.weight.hardware.scale;
+
+/**
+ * 电子秤通信协议定义
+ * 每种协议负责从一帧完整的字节数据中解析出重量和状态，内置实现见 ScaleProtocols
+ */
+public interface ScaleProtocol {
+
+    /**
+     * 协议名称（用于日志）
+     */
+    String getName();
+
+    /**
+     * 解析一帧数据
+     *
+     * @param frame  帧数据缓冲区（由解码器复用，不可持有引用）
+     * @param length 有效长度
+     * @param out    解析结果
+     * @return 是否解析成功
+     */
+    boolean parse(byte[] frame, int length, ScaleFrame out);
+}
@@ -0,0 +1,274 @@
+package com.tobacco.weight.hardware.scale;
+
+/**
+ * 内置电子秤协议
+ * 直接在字节上解析，不创建 String / Matcher / Double 等中间对象
+ */
+public final class ScaleProtocols {
+
+    private static final byte[] TOKEN_GS = {',', 'G', 'S', ','};
+    private static final byte[] TOKEN_NT = {',', 'N', 'T', ','};
+    private static final byte[] TOKEN_OL = {'O', 'L'};
+    private static final byte[] TOKEN_OVER = {'O', 'V', 'E', 'R'};
+    private static final byte[] TOKEN_UL = {'U', 'L'};
+    private static final byte[] TOKEN_UNDER = {'U', 'N', 'D', 'E', 'R'};
+    private static final byte[] TOKEN_ERR = {'E', 'R', 'R'};
+
+    // 尾数最多保留的有效位数，超出部分直接截断，避免 long 溢出
+    private static final int MAX_DIGITS = 18;
+
+    private static final double[] POW10 = new double[MAX_DIGITS + 1];
+
+    static {
+        POW10[0] = 1.0;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10.0;
+        }
+    }
+
+    /**
+     * 标准协议：ST,GS,+0012.34kg / US,NT,-0.50kg
+     */
+    public static final ScaleProtocol ST_GS = new ScaleProtocol() {
+        @Override
+        public String getName() {
+            return "ST,GS";
+        }
+
+        @Override
+        public boolean parse(byte[] frame, int length, ScaleFrame out) {
+            int flags = 0;
+            int index = indexOf(frame, 0, length, TOKEN_GS);
+            if (index < 0) {
+                index = indexOf(frame, 0, length, TOKEN_NT);
+                if (index < 0) {
+                    return false;
+                }
+                flags |= ScaleFrame.FLAG_NET;
+            }
+
+            if (index >= 2) {
+                byte h0 = frame[index - 2];
+                byte h1 = frame[index - 1];
+                if (h0 == 'S' && h1 == 'T') {
+                    flags |= ScaleFrame.FLAG_STABLE;
+                } else if (h0 == 'U' && h1 == 'S') {
+                    flags |= ScaleFrame.FLAG_UNSTABLE;
+                } else if (h0 == 'O' && h1 == 'L') {
+                    flags |= ScaleFrame.FLAG_OVERLOAD;
+                }
+            }
+
+            int start = skipSpaces(frame, index + TOKEN_GS.length, length);
+            if (parseNumber(frame, start, length, out) < 0) {
+                return false;
+            }
+            out.flags = flags | scanStatusFlags(frame, length);
+            return true;
+        }
+    };
+
+    /**
+     * 带单位协议：12.34kg / =  12.34 KG
+     */
+    public static final ScaleProtocol KG_SUFFIX = new ScaleProtocol() {
+        @Override
+        public String getName() {
+            return "kg";
+        }
+
+        @Override
+        public boolean parse(byte[] frame, int length, ScaleFrame out) {
+            int i = 0;
+            while (i < length) {
+                if (!isNumberStart(frame, i, length)) {
+                    i++;
+                    continue;
+                }
+                int end = parseNumber(frame, i, length, out);
+                if (end < 0) {
+                    // 整个数值作废，不从数值中间重新解析
+                    i = skipNumber(frame, i, length);
+                    continue;
+                }
+                int unit = skipSpaces(frame, end, length);
+                if (unit + 1 < length
+                        && (frame[unit] | 0x20) == 'k'
+                        && (frame[unit + 1] | 0x20) == 'g') {
+                    out.flags = scanStatusFlags(frame, length);
+                    return true;
+                }
+                i = end;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * 纯数字协议：取帧内第一个数值
+     */
+    public static final ScaleProtocol RAW_NUMERIC = new ScaleProtocol() {
+        @Override
+        public String getName() {
+            return "raw";
+        }
+
+        @Override
+        public boolean parse(byte[] frame, int length, ScaleFrame out) {
+            for (int i = 0; i < length; i++) {
+                if (isNumberStart(frame, i, length)) {
+                    if (parseNumber(frame, i, length, out) < 0) {
+                        return false;
+                    }
+                    out.flags = scanStatusFlags(frame, length);
+                    return true;
+                }
+            }
+            return false;
+        }
+    };
+
+    /**
+     * 默认协议尝试顺序：先匹配特征最明确的协议，纯数字兜底
+     */
+    public static ScaleProtocol[] defaults() {
+        return new ScaleProtocol[]{ST_GS, KG_SUFFIX, RAW_NUMERIC};
+    }
+
+    private ScaleProtocols() {
+    }
+
+    /**
+     * 从字节中解析十进制数 [+-]?\s*\d+(\.\d*)?
+     *
+     * @param bytes 数据
+     * @param start 起始位置
+     * @param end   结束位置（不含）
+     * @param out   解析结果写入 out.weight
+     * @return 数值之后的位置，解析失败返回 -1（小数位超过 MAX_DIGITS 也视为失败）
+     */
+    static int parseNumber(byte[] bytes, int start, int end, ScaleFrame out) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (bytes[i] == '+' || bytes[i] == '-')) {
+            negative = bytes[i] == '-';
+            i = skipSpaces(bytes, i + 1, end);
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        int intDigits = 0;
+        while (i < end && isDigit(bytes[i])) {
+            if (digits < MAX_DIGITS) {
+                mantissa = mantissa * 10 + (bytes[i] - '0');
+                if (mantissa != 0) {
+                    digits++;
+                }
+            } else {
+                scale--;
+            }
+            intDigits++;
+            i++;
+        }
+        if (intDigits == 0 || scale < -MAX_DIGITS) {
+            return -1;
+        }
+
+        if (i < end && bytes[i] == '.') {
+            i++;
+            while (i < end && isDigit(bytes[i])) {
+                if (digits < MAX_DIGITS) {
+                    mantissa = mantissa * 10 + (bytes[i] - '0');
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    scale++;
+                }
+                i++;
+            }
+            // 前导零不计入有效位数，但仍计入小数位
+            if (scale > MAX_DIGITS) {
+                return -1;
+            }
+        }
+
+        double value;
+        if (scale >= 0) {
+            value = mantissa / POW10[scale];
+        } else {
+            value = mantissa * POW10[-scale];
+        }
+        out.weight = negative ? -value : value;
+        return i;
+    }
+
+    /**
+     * 扫描帧内的超载/欠载/错误标识
+     */
+    static int scanStatusFlags(byte[] frame, int length) {
+        int flags = 0;
+        if (indexOf(frame, 0, length, TOKEN_OL) >= 0 || indexOf(frame, 0, length, TOKEN_OVER) >= 0) {
+            flags |= ScaleFrame.FLAG_OVERLOAD;
+        }
+        if (indexOf(frame, 0, length, TOKEN_UL) >= 0 || indexOf(frame, 0, length, TOKEN_UNDER) >= 0) {
+            flags |= ScaleFrame.FLAG_UNDERLOAD;
+        }
+        if (indexOf(frame, 0, length, TOKEN_ERR) >= 0) {
+            flags |= ScaleFrame.FLAG_ERROR;
+        }
+        return flags;
+    }
+
+    static int indexOf(byte[] bytes, int from, int end, byte[] token) {
+        int last = end - token.length;
+        outer:
+        for (int i = from; i <= last; i++) {
+            for (int j = 0; j < token.length; j++) {
+                if (bytes[i + j] != token[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static boolean isNumberStart(byte[] bytes, int index, int end) {
+        byte b = bytes[index];
+        if (isDigit(b)) {
+            return true;
+        }
+        if (b == '+' || b == '-') {
+            int next = skipSpaces(bytes, index + 1, end);
+            return next < end && isDigit(bytes[next]);
+        }
+        return false;
+    }
+
+    /**
+     * 跳过一个数值（符号、数字和小数点）
+     */
+    private static int skipNumber(byte[] bytes, int from, int end) {
+        int i = from;
+        if (i < end && (bytes[i] == '+' || bytes[i] == '-')) {
+            i = skipSpaces(bytes, i + 1, end);
+        }
+        while (i < end && (isDigit(bytes[i]) || bytes[i] == '.')) {
+            i++;
+        }
+        return Math.max(i, from + 1);
+    }
+
+    private static int skipSpaces(byte[] bytes, int from, int end) {
+        int i = from;
+        while (i < end && bytes[i] == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
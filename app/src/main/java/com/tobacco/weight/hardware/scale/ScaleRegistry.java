@@ -0,0 +1,248 @@
+package com.tobacco.weight.hardware.scale;
+
+import android.util.Log;
+
+import com.tobacco.weight.hardware.simulator.HardwareSimulator;
+import com.tobacco.weight.hardware.transport.TcpSelectorLoop;
+import com.tobacco.weight.scheduler.AppScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Observable;
+
+/**
+ * 电子秤注册表（一台平板接多台秤）
+ * 每台秤有独立的传输层读线程和独立的解码/稳定性检测状态；处理任务运行在 AppScheduler 的设备 I/O 通道上，
+ * 每台秤一个串行通道，一台秤数据积压或端口卡顿不会阻塞其他秤。
+ * 重量流、快照流和自动采集流都按秤编号获取。
+ */
+@Singleton
+public class ScaleRegistry {
+
+    private static final String TAG = "ScaleRegistry";
+
+    // 默认秤（单秤站点沿用原有的 ScaleManager 注入）
+    public static final String DEFAULT_SCALE_ID = "scale-1";
+
+    // 未配置站点时只接模拟秤
+    public static final String DEFAULT_STATION_CONFIG = DEFAULT_SCALE_ID + "=" + HardwareSimulator.SCALE_ENDPOINT;
+
+    private static final int DEFAULT_BAUD_RATE = 9600;
+
+    private final HardwareSimulator simulator;
+    private final AppScheduler scheduler;
+    private final TcpSelectorLoop tcpLoop;
+    private final List<StationEntry> station;
+    private final Map<String, ScaleManager> scales = new ConcurrentHashMap<>();
+
+    @Inject
+    public ScaleRegistry(HardwareSimulator simulator, AppScheduler scheduler, TcpSelectorLoop tcpLoop) {
+        this(simulator, scheduler, tcpLoop, DEFAULT_STATION_CONFIG);
+    }
+
+    /**
+     * @param stationConfig 本站点的秤配置，格式见 {@link #connectAll(String)}
+     */
+    public ScaleRegistry(HardwareSimulator simulator, AppScheduler scheduler, TcpSelectorLoop tcpLoop,
+                         String stationConfig) {
+        this.simulator = simulator;
+        this.scheduler = scheduler;
+        this.tcpLoop = tcpLoop;
+        List<StationEntry> entries = parseStationConfig(stationConfig);
+        this.station = entries.isEmpty() ? parseStationConfig(DEFAULT_STATION_CONFIG) : entries;
+    }
+
+    /**
+     * 获取默认秤（不存在时创建，未连接）
+     */
+    public ScaleManager getDefaultScale() {
+        return getOrCreate(DEFAULT_SCALE_ID);
+    }
+
+    /**
+     * 获取指定秤（不存在时创建，未连接）
+     */
+    public ScaleManager getOrCreate(String scaleId) {
+        return scales.computeIfAbsent(scaleId, id -> new ScaleManager(simulator, id, scheduler, tcpLoop));
+    }
+
+    /**
+     * 注册并连接一台秤；同编号的秤已连接时先断开再按新地址连接
+     *
+     * @param scaleId  秤编号
+     * @param endpoint 设备地址（串口路径、tcp://主机:端口 或 loopback://名称）
+     * @param baudRate 波特率（仅本地串口使用）
+     * @return 是否连接成功
+     */
+    public boolean connect(String scaleId, String endpoint, int baudRate) {
+        ScaleManager scale = getOrCreate(scaleId);
+        boolean success = scale.connect(endpoint, baudRate);
+        Log.i(TAG, "电子秤 " + scaleId + " 连接" + (success ? "成功: " : "失败: ") + endpoint);
+        return success;
+    }
+
+    /**
+     * 按站点配置连接多台秤
+     *
+     * @param stationConfig 形如 "scale-1=/dev/ttyUSB0@9600;scale-2=tcp://192.168.1.50:4001"，
+     *                      串口未写波特率时使用 9600
+     * @return 连接成功的秤数量
+     */
+    public int connectAll(String stationConfig) {
+        int connected = 0;
+        for (StationEntry entry : parseStationConfig(stationConfig)) {
+            if (connect(entry.scaleId, entry.endpoint, entry.baudRate)) {
+                connected++;
+            }
+        }
+        return connected;
+    }
+
+    /**
+     * 连接本站点配置的秤，已连接的秤保持不动
+     * TCP 秤连接会阻塞到连接超时，不要在主线程调用。
+     *
+     * @return 已连接的秤数量
+     */
+    public int connectStation() {
+        int connected = 0;
+        for (StationEntry entry : station) {
+            ScaleManager scale = scales.get(entry.scaleId);
+            if ((scale != null && scale.isConnected()) || connect(entry.scaleId, entry.endpoint, entry.baudRate)) {
+                connected++;
+            }
+        }
+        return connected;
+    }
+
+    /**
+     * 本站点配置的秤编号（按配置顺序）
+     */
+    public List<String> getStationScaleIds() {
+        List<String> ids = new ArrayList<>(station.size());
+        for (StationEntry entry : station) {
+            ids.add(entry.scaleId);
+        }
+        return ids;
+    }
+
+    /**
+     * 获取已注册的秤，未注册返回 null
+     */
+    public ScaleManager get(String scaleId) {
+        return scales.get(scaleId);
+    }
+
+    /**
+     * 已注册的秤编号（按编号排序）
+     */
+    public List<String> getScaleIds() {
+        List<String> ids = new ArrayList<>(scales.keySet());
+        ids.sort(null);
+        return ids;
+    }
+
+    /**
+     * 指定秤的重量数据流（在该秤的处理通道上发射每一帧）
+     */
+    public Observable<WeightData> getWeightObservable(String scaleId) {
+        return getOrCreate(scaleId).getWeightObservable();
+    }
+
+    /**
+     * 指定秤的界面快照流（限频，主线程）
+     */
+    public Flowable<WeightData> getWeightSnapshots(String scaleId) {
+        return getOrCreate(scaleId).getWeightSnapshots();
+    }
+
+    /**
+     * 指定秤的自动采集流
+     */
+    public Observable<WeightData> getAutoCaptureObservable(String scaleId) {
+        return getOrCreate(scaleId).getAutoCaptureObservable();
+    }
+
+    /**
+     * 指定秤的连接状态流
+     */
+    public Observable<Boolean> getConnectionObservable(String scaleId) {
+        return getOrCreate(scaleId).getConnectionObservable();
+    }
+
+    /**
+     * 断开并移除一台秤
+     */
+    public void remove(String scaleId) {
+        ScaleManager scale = scales.remove(scaleId);
+        if (scale != null) {
+            scale.release();
+            Log.i(TAG, "电子秤已移除: " + scaleId);
+        }
+    }
+
+    /**
+     * 断开所有秤
+     */
+    public void disconnectAll() {
+        for (ScaleManager scale : scales.values()) {
+            scale.disconnect();
+        }
+    }
+
+    /**
+     * 释放所有秤
+     */
+    public void release() {
+        for (String scaleId : getScaleIds()) {
+            remove(scaleId);
+        }
+    }
+
+    private static List<StationEntry> parseStationConfig(String stationConfig) {
+        List<StationEntry> entries = new ArrayList<>();
+        if (stationConfig == null) {
+            return entries;
+        }
+        for (String entry : stationConfig.split(";")) {
+            String item = entry.trim();
+            int eq = item.indexOf('=');
+            if (eq <= 0) {
+                continue;
+            }
+            String scaleId = item.substring(0, eq).trim();
+            String endpoint = item.substring(eq + 1).trim();
+            int baudRate = DEFAULT_BAUD_RATE;
+            int at = endpoint.lastIndexOf('@');
+            if (at > 0) {
+                try {
+                    baudRate = Integer.parseInt(endpoint.substring(at + 1));
+                    endpoint = endpoint.substring(0, at);
+                } catch (NumberFormatException e) {
+                    Log.w(TAG, "波特率无效，使用9600: " + item);
+                }
+            }
+            entries.add(new StationEntry(scaleId, endpoint, baudRate));
+        }
+        return entries;
+    }
+
+    private static final class StationEntry {
+        final String scaleId;
+        final String endpoint;
+        final int baudRate;
+
+        StationEntry(String scaleId, String endpoint, int baudRate) {
+            this.scaleId = scaleId;
+            this.endpoint = endpoint;
+            this.baudRate = baudRate;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.tobacco.weight.hardware.scale;
+
+/**
+ * 重量稳定性检测器
+ * 每帧重量调用一次 update()，实现需保证单次更新为 O(1)。
+ * 只在电子秤硬件线程上调用，无需线程安全。
+ */
+public interface StabilityDetector {
+
+    /**
+     * 输入一帧重量
+     *
+     * @param weight    重量（kg）
+     * @param timestamp 采样时间（ms）
+     * @return 当前是否稳定
+     */
+    boolean update(double weight, long timestamp);
+
+    /**
+     * 当前是否稳定
+     */
+    boolean isStable();
+
+    /**
+     * 本次稳定开始的时间（ms），不稳定时为 0
+     */
+    long getStableSince();
+
+    /**
+     * 最近一次从载荷变化到稳定所用的时间（ms），尚无数据时为 0
+     */
+    long getLastSettleTime();
+
+    /**
+     * 预计还需多久稳定（ms），已稳定时为 0
+     *
+     * @param now 当前时间（ms）
+     */
+    long estimateRemainingSettleTime(long now);
+
+    /**
+     * 滤波后的重量（kg）
+     */
+    double getFilteredWeight();
+
+    /**
+     * 清空状态（断开、清零、去皮后调用）
+     */
+    void reset();
+}
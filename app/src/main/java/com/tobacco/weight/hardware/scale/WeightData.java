@@ -15,6 +15,9 @@ public class WeightData {
     private boolean isError = false;      // 是否有错误
     private String rawData;          // 原始数据
     private long timestamp;          // 时间戳
+    private long stableSince;        // 本次稳定开始时间（ms），不稳定时为 0
+    private long settleTime;         // 最近一次从载荷变化到稳定的用时（ms）
+    private long settleEstimate;     // 预计还需多久稳定（ms），已稳定时为 0
     
     /**
      * 构造函数
@@ -116,6 +119,30 @@ public class WeightData {
         this.timestamp = timestamp;
     }
     
+    public long getStableSince() {
+        return stableSince;
+    }
+    
+    public void setStableSince(long stableSince) {
+        this.stableSince = stableSince;
+    }
+    
+    public long getSettleTime() {
+        return settleTime;
+    }
+    
+    public void setSettleTime(long settleTime) {
+        this.settleTime = settleTime;
+    }
+    
+    public long getSettleEstimate() {
+        return settleEstimate;
+    }
+    
+    public void setSettleEstimate(long settleEstimate) {
+        this.settleEstimate = settleEstimate;
+    }
+    
     /**
      * 获取格式化的重量字符串
      * @return 格式化后的重量显示
@@ -191,6 +218,9 @@ public class WeightData {
         copy.isError = this.isError;
         copy.rawData = this.rawData;
         copy.timestamp = this.timestamp;
+        copy.stableSince = this.stableSince;
+        copy.settleTime = this.settleTime;
+        copy.settleEstimate = this.settleEstimate;
         return copy;
     }
     
@@ -231,6 +261,8 @@ public class WeightData {
                 ", isError=" + isError +
                 ", rawData='" + rawData + '\'' +
                 ", timestamp=" + timestamp +
+                ", stableSince=" + stableSince +
+                ", settleTime=" + settleTime +
                 '}';
     }
 } 
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.tobacco.weight.hardware.scale;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
+import io.reactivex.rxjava3.core.BackpressureStrategy;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
+
+/**
+ * 重量数据界面快照
+ * 将硬件线程上的高频重量流合并为限频、只保留最新值的界面快照，再切换到主线程。
+ * 电子秤发送再快，主线程每个周期也只处理一次，且中间不会积压队列。
+ */
+public final class WeightSnapshots {
+
+    // 界面最高刷新频率
+    public static final int UI_MAX_RATE_HZ = 15;
+    public static final long UI_MIN_INTERVAL_MS = 1000L / UI_MAX_RATE_HZ;
+
+    private WeightSnapshots() {
+    }
+
+    /**
+     * 将数据流合并为主线程界面快照
+     *
+     * @param source   硬件线程上的数据流
+     * @param timer    限频所用的调度器（不应为主线程）
+     * @return 最多 UI_MAX_RATE_HZ 次/秒、最新值优先的主线程数据流
+     */
+    public static <T> Flowable<T> conflate(Observable<T> source, Scheduler timer) {
+        return source
+                .toFlowable(BackpressureStrategy.LATEST)
+                .throttleLatest(UI_MIN_INTERVAL_MS, TimeUnit.MILLISECONDS, timer, true)
+                .onBackpressureLatest()
+                .observeOn(AndroidSchedulers.mainThread(), false, 1);
+    }
+}
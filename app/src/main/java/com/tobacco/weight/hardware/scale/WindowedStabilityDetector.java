@@ -0,0 +1,287 @@
+package com.tobacco.weight.hardware.scale;
+
+/**
+ * 基于时间滑动窗口的统计稳定性检测器
+ * 窗口内用 Welford 增量算法维护均值/方差，用最小二乘维护重量随时间的斜率，
+ * 同时维护 EWMA 滤波重量用于识别载荷变化。每帧更新为 O(1)（定期全量重算以消除累积误差，摊还 O(1)）。
+ *
+ * 判定稳定需同时满足：
+ * 1. 窗口内样本覆盖时长达到窗口长度的 3/4；
+ * 2. 窗口内标准差不超过阈值；
+ * 3. 窗口内斜率绝对值不超过阈值。
+ * 零重量与其他重量一视同仁，去皮后的空秤同样可以判定为稳定。
+ */
+public class WindowedStabilityDetector implements StabilityDetector {
+
+    // 默认参数
+    public static final long DEFAULT_WINDOW_MS = 600;            // 窗口长度（ms）
+    public static final double DEFAULT_MAX_STD_DEV = 0.005;      // 标准差阈值（kg）
+    public static final double DEFAULT_MAX_SLOPE = 0.02;         // 斜率阈值（kg/s）
+    public static final double DEFAULT_LOAD_CHANGE = 0.05;       // 载荷变化阈值（kg）
+
+    private static final int MIN_SAMPLES = 3;
+    private static final int CAPACITY = 128;                     // 窗口最多样本数（2 的幂）
+    private static final int MASK = CAPACITY - 1;
+    private static final double EWMA_ALPHA = 0.3;
+    private static final double SETTLE_EWMA_ALPHA = 0.2;
+
+    private final long windowMs;
+    private final double maxVariance;
+    private final double maxSlope;
+    private final double loadChangeThreshold;
+
+    // 窗口样本
+    private final double[] weights = new double[CAPACITY];
+    private final long[] times = new long[CAPACITY];
+    private int head = 0;   // 最旧样本
+    private int count = 0;
+    private int updatesSinceRecompute = 0;
+
+    // Welford 均值/方差
+    private double mean;
+    private double m2;
+
+    // 斜率（时间相对 baseTime，单位 s）
+    private long baseTime;
+    private double sumT;
+    private double sumTT;
+    private double sumW;
+    private double sumTW;
+
+    // EWMA 与稳定状态
+    private double ewma;
+    private boolean hasEwma = false;
+    private boolean stable = false;
+    private long stableSince = 0;
+    private long unsettledSince = 0;
+    private long lastSettleTime = 0;
+    private double averageSettleTime = 0;
+
+    public WindowedStabilityDetector() {
+        this(DEFAULT_WINDOW_MS, DEFAULT_MAX_STD_DEV, DEFAULT_MAX_SLOPE, DEFAULT_LOAD_CHANGE);
+    }
+
+    /**
+     * @param windowMs            窗口长度（ms）
+     * @param maxStdDev           稳定时允许的最大标准差（kg）
+     * @param maxSlope            稳定时允许的最大斜率（kg/s）
+     * @param loadChangeThreshold 偏离滤波重量多少视为载荷变化（kg）
+     */
+    public WindowedStabilityDetector(long windowMs, double maxStdDev, double maxSlope, double loadChangeThreshold) {
+        if (windowMs <= 0 || maxStdDev <= 0 || maxSlope <= 0 || loadChangeThreshold <= 0) {
+            throw new IllegalArgumentException("稳定性检测参数必须为正数");
+        }
+        this.windowMs = windowMs;
+        this.maxVariance = maxStdDev * maxStdDev;
+        this.maxSlope = maxSlope;
+        this.loadChangeThreshold = loadChangeThreshold;
+    }
+
+    @Override
+    public boolean update(double weight, long timestamp) {
+        // 载荷变化：放上/取下烟包
+        if (!hasEwma) {
+            ewma = weight;
+            hasEwma = true;
+            unsettledSince = timestamp;
+        } else {
+            if (Math.abs(weight - ewma) > loadChangeThreshold) {
+                // 滤波重量追上新载荷前每帧都会超出阈值，稳定耗时从第一次变化算起
+                if (unsettledSince == 0) {
+                    unsettledSince = timestamp;
+                }
+                stable = false;
+                stableSince = 0;
+            }
+            ewma += EWMA_ALPHA * (weight - ewma);
+        }
+
+        // 移出窗口外和超出容量的样本
+        long windowStart = timestamp - windowMs;
+        while (count > 0 && (times[head] < windowStart || count == CAPACITY)) {
+            removeOldest();
+        }
+        addSample(weight, timestamp);
+
+        if (++updatesSinceRecompute >= CAPACITY) {
+            recompute();
+        }
+
+        boolean nowStable = evaluate(timestamp);
+        if (nowStable && !stable) {
+            stableSince = timestamp;
+            if (unsettledSince > 0) {
+                lastSettleTime = timestamp - unsettledSince;
+                averageSettleTime = averageSettleTime == 0
+                        ? lastSettleTime
+                        : averageSettleTime + SETTLE_EWMA_ALPHA * (lastSettleTime - averageSettleTime);
+                unsettledSince = 0;
+            }
+        } else if (!nowStable && stable) {
+            stableSince = 0;
+            if (unsettledSince == 0) {
+                unsettledSince = timestamp;
+            }
+        }
+        stable = nowStable;
+        return stable;
+    }
+
+    @Override
+    public boolean isStable() {
+        return stable;
+    }
+
+    @Override
+    public long getStableSince() {
+        return stableSince;
+    }
+
+    @Override
+    public long getLastSettleTime() {
+        return lastSettleTime;
+    }
+
+    @Override
+    public long estimateRemainingSettleTime(long now) {
+        if (stable) {
+            return 0;
+        }
+        long expected = averageSettleTime > 0 ? (long) averageSettleTime : windowMs;
+        long elapsed = unsettledSince > 0 ? now - unsettledSince : 0;
+        return Math.max(0, expected - elapsed);
+    }
+
+    @Override
+    public double getFilteredWeight() {
+        return ewma;
+    }
+
+    /**
+     * 窗口内标准差（kg）
+     */
+    public double getStdDev() {
+        return count > 1 ? Math.sqrt(Math.max(0, m2 / (count - 1))) : 0;
+    }
+
+    /**
+     * 窗口内斜率（kg/s）
+     */
+    public double getSlope() {
+        if (count < 2) {
+            return 0;
+        }
+        double denominator = count * sumTT - sumT * sumT;
+        if (denominator <= 0) {
+            return 0;
+        }
+        return (count * sumTW - sumT * sumW) / denominator;
+    }
+
+    @Override
+    public void reset() {
+        head = 0;
+        count = 0;
+        updatesSinceRecompute = 0;
+        mean = 0;
+        m2 = 0;
+        sumT = 0;
+        sumTT = 0;
+        sumW = 0;
+        sumTW = 0;
+        hasEwma = false;
+        stable = false;
+        stableSince = 0;
+        unsettledSince = 0;
+    }
+
+    private boolean evaluate(long timestamp) {
+        if (count < MIN_SAMPLES) {
+            return false;
+        }
+        long span = timestamp - times[head];
+        if (span * 4 < windowMs * 3) {
+            return false;
+        }
+        if (m2 / (count - 1) > maxVariance) {
+            return false;
+        }
+        return Math.abs(getSlope()) <= maxSlope;
+    }
+
+    private void addSample(double weight, long timestamp) {
+        if (count == 0) {
+            baseTime = timestamp;
+        }
+        int tail = (head + count) & MASK;
+        weights[tail] = weight;
+        times[tail] = timestamp;
+        count++;
+
+        double delta = weight - mean;
+        mean += delta / count;
+        m2 += delta * (weight - mean);
+
+        double t = (timestamp - baseTime) / 1000.0;
+        sumT += t;
+        sumTT += t * t;
+        sumW += weight;
+        sumTW += t * weight;
+    }
+
+    private void removeOldest() {
+        double weight = weights[head];
+        double t = (times[head] - baseTime) / 1000.0;
+        head = (head + 1) & MASK;
+        count--;
+
+        if (count == 0) {
+            mean = 0;
+            m2 = 0;
+            sumT = 0;
+            sumTT = 0;
+            sumW = 0;
+            sumTW = 0;
+            return;
+        }
+
+        double oldMean = mean;
+        mean -= (weight - mean) / count;
+        m2 -= (weight - oldMean) * (weight - mean);
+
+        sumT -= t;
+        sumTT -= t * t;
+        sumW -= weight;
+        sumTW -= t * weight;
+    }
+
+    /**
+     * 以最旧样本为时间基准全量重算，消除增量更新的浮点累积误差
+     */
+    private void recompute() {
+        updatesSinceRecompute = 0;
+        if (count == 0) {
+            return;
+        }
+        baseTime = times[head];
+        mean = 0;
+        m2 = 0;
+        sumT = 0;
+        sumTT = 0;
+        sumW = 0;
+        sumTW = 0;
+        for (int i = 0; i < count; i++) {
+            int index = (head + i) & MASK;
+            double weight = weights[index];
+            double delta = weight - mean;
+            mean += delta / (i + 1);
+            m2 += delta * (weight - mean);
+
+            double t = (times[index] - baseTime) / 1000.0;
+            sumT += t;
+            sumTT += t * t;
+            sumW += weight;
+            sumTW += t * weight;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.tobacco.weight.hardware.serial;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 原生非阻塞串口
+ * 设备以非阻塞方式打开，读写通过 poll() 等待并支持超时；
+ * 数据直接读写调用方提供的 direct ByteBuffer；close() 通过唤醒描述符立即解除正在等待的读写。
+ * 实现见 src/main/cpp/NativeSerialPort.c，只依赖 POSIX 接口，可在 Linux 上针对伪终端测试。
+ */
+public final class NativeSerialPort implements Closeable {
+
+    // 校验方式
+    public static final int PARITY_NONE = 0;
+    public static final int PARITY_ODD = 1;
+    public static final int PARITY_EVEN = 2;
+
+    // 流控方式
+    public static final int FLOW_NONE = 0;
+    public static final int FLOW_RTS_CTS = 1;
+    public static final int FLOW_XON_XOFF = 2;
+
+    // read() 返回值：已关闭或设备断开
+    public static final int CLOSED = -1;
+
+    private static final boolean LIBRARY_LOADED;
+
+    static {
+        boolean loaded;
+        try {
+            System.loadLibrary("SerialPort");
+            loaded = true;
+        } catch (UnsatisfiedLinkError e) {
+            loaded = false;
+        }
+        LIBRARY_LOADED = loaded;
+    }
+
+    private final String path;
+    private final int fd;
+    private final int wakeFd;
+    private final Object readLock = new Object();
+    private final Object writeLock = new Object();
+    private volatile boolean closed;
+
+    private NativeSerialPort(String path, int fd, int wakeFd) {
+        this.path = path;
+        this.fd = fd;
+        this.wakeFd = wakeFd;
+    }
+
+    /**
+     * 原生库是否可用
+     */
+    public static boolean isAvailable() {
+        return LIBRARY_LOADED;
+    }
+
+    /**
+     * 打开并配置串口
+     */
+    public static NativeSerialPort open(String path, Config config) throws IOException {
+        if (!LIBRARY_LOADED) {
+            throw new IOException("原生串口库不可用");
+        }
+        int fd = nativeOpen(path, config.baudRate, config.dataBits, config.stopBits,
+                config.parity, config.flowControl, config.vmin, config.vtime);
+        int wakeFd;
+        try {
+            wakeFd = nativeCreateWakeFd();
+        } catch (IOException e) {
+            nativeClose(fd);
+            throw e;
+        }
+        return new NativeSerialPort(path, fd, wakeFd);
+    }
+
+    /**
+     * 读取数据到 dst 的 [position, limit)，读到后前移 position
+     *
+     * @param dst       direct ByteBuffer
+     * @param timeoutMs 等待超时（毫秒），负数表示一直等待
+     * @return 读到的字节数；超时返回 0；已关闭或设备断开返回 {@link #CLOSED}
+     */
+    public int read(ByteBuffer dst, int timeoutMs) throws IOException {
+        checkDirect(dst);
+        synchronized (readLock) {
+            if (closed) {
+                return CLOSED;
+            }
+            int n = nativeRead(fd, wakeFd, dst, dst.position(), dst.remaining(), timeoutMs);
+            if (n > 0) {
+                dst.position(dst.position() + n);
+            }
+            return n;
+        }
+    }
+
+    /**
+     * 写出 src 的 [position, limit)，写出后前移 position
+     *
+     * @param timeoutMs 输出队列满时的等待超时（毫秒），负数表示一直等待
+     * @return 写出的字节数，超时时可能少于 remaining
+     * @throws IOException 串口已关闭、设备断开或写入出错
+     */
+    public int write(ByteBuffer src, int timeoutMs) throws IOException {
+        checkDirect(src);
+        synchronized (writeLock) {
+            if (closed) {
+                throw new IOException("串口已关闭: " + path);
+            }
+            int n = nativeWrite(fd, wakeFd, src, src.position(), src.remaining(), timeoutMs);
+            if (n < 0) {
+                throw new IOException("串口已断开: " + path);
+            }
+            src.position(src.position() + n);
+            return n;
+        }
+    }
+
+    /**
+     * 唤醒并关闭：正在进行的读写立即返回，之后关闭描述符
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        nativeWakeup(wakeFd);
+        synchronized (readLock) {
+            synchronized (writeLock) {
+                nativeClose(fd);
+                nativeClose(wakeFd);
+            }
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    private static void checkDirect(ByteBuffer buffer) {
+        if (!buffer.isDirect()) {
+            throw new IllegalArgumentException("需要 direct ByteBuffer");
+        }
+    }
+
+    /**
+     * 串口参数
+     */
+    public static final class Config {
+        public final int baudRate;
+        public final int dataBits;
+        public final int stopBits;
+        public final int parity;
+        public final int flowControl;
+        public final int vmin;      // 非规范模式最少字节数（poll 在输入达到该数量时才报告可读）
+        public final int vtime;     // 字节间超时，单位 0.1 秒
+
+        public Config(int baudRate, int dataBits, int stopBits, int parity, int flowControl,
+                      int vmin, int vtime) {
+            this.baudRate = baudRate;
+            this.dataBits = dataBits;
+            this.stopBits = stopBits;
+            this.parity = parity;
+            this.flowControl = flowControl;
+            this.vmin = vmin;
+            this.vtime = vtime;
+        }
+
+        /**
+         * 8N1、无流控，有数据即可读
+         */
+        public static Config of(int baudRate) {
+            return new Config(baudRate, 8, 1, PARITY_NONE, FLOW_NONE, 1, 0);
+        }
+
+        @Override
+        public String toString() {
+            return baudRate + "," + dataBits + "," + stopBits + ",parity=" + parity
+                    + ",flow=" + flowControl + ",vmin=" + vmin + ",vtime=" + vtime;
+        }
+    }
+
+    private static native int nativeOpen(String path, int baudRate, int dataBits, int stopBits,
+                                         int parity, int flowControl, int vmin, int vtime) throws IOException;
+
+    private static native int nativeCreateWakeFd() throws IOException;
+
+    private static native void nativeWakeup(int wakeFd);
+
+    private static native int nativeRead(int fd, int wakeFd, ByteBuffer buffer, int offset, int length,
+                                         int timeoutMs) throws IOException;
+
+    private static native int nativeWrite(int fd, int wakeFd, ByteBuffer buffer, int offset, int length,
+                                          int timeoutMs) throws IOException;
+
+    private static native void nativeClose(int fd);
+}
@@ -2,15 +2,15 @@ package com.tobacco.weight.hardware.serial;
 
 import android.util.Log;
 
+import com.tobacco.weight.scheduler.AppScheduler;
+import com.tobacco.weight.scheduler.Lane;
+
 import java.io.File;
-import java.io.FileDescriptor;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.subjects.PublishSubject;
@@ -18,6 +18,9 @@ import io.reactivex.rxjava3.subjects.PublishSubject;
 /**
  * 串口管理器
  * 负责串口设备的打开、关闭、读写操作
+ * 底层使用 NativeSerialPort：poll() 等待数据，读入 direct ByteBuffer，关闭时立即唤醒读线程
+ * 读线程是设备 I/O 通道的常驻线程，每次开始读取时创建，读取结束后退出；
+ * 串口描述符不是 SelectableChannel，不能并入 TCP 的共享 Selector，每个串口一个读线程（站点通常只有秤和打印机两个串口）
  */
 public class SerialPortManager {
     
@@ -31,22 +34,33 @@ public class SerialPortManager {
     public static final int BAUD_RATE_9600 = 9600;
     public static final int BAUD_RATE_115200 = 115200;
     
-    private FileDescriptor fileDescriptor;
-    private FileInputStream inputStream;
-    private FileOutputStream outputStream;
-    private boolean isOpen = false;
+    // 读缓冲区大小
+    private static final int READ_BUFFER_SIZE = 1024;
+    // 单次等待数据的超时（毫秒），超时后检查是否仍需读取
+    private static final int READ_POLL_TIMEOUT_MS = 500;
+    // 输出队列满时写入的等待超时（毫秒）
+    private static final int WRITE_TIMEOUT_MS = 2000;
+    // 关闭时等待读线程退出的最长时间（毫秒）
+    private static final long READ_STOP_TIMEOUT_MS = 1000;
+    
+    private volatile NativeSerialPort serialPort;
+    private volatile boolean isOpen = false;
     private String portPath;
     private int baudRate;
     
-    private ExecutorService readExecutor;
+    private final AppScheduler scheduler;
     private PublishSubject<byte[]> dataSubject;
     private volatile boolean isReading = false;
+    private Future<?> readTask;
+    
+    // 发送缓冲区（direct），按需扩容
+    private ByteBuffer writeBuffer = ByteBuffer.allocateDirect(256);
     
     /**
-     * 构造函数
+     * @param scheduler 读线程为其设备 I/O 通道的常驻线程
      */
-    public SerialPortManager() {
-        this.readExecutor = Executors.newSingleThreadExecutor();
+    public SerialPortManager(AppScheduler scheduler) {
+        this.scheduler = scheduler;
         this.dataSubject = PublishSubject.create();
     }
     
@@ -57,8 +71,19 @@ public class SerialPortManager {
      * @return 是否成功打开
      */
     public boolean openSerialPort(String path, int baudRate) {
+        return openSerialPort(path, NativeSerialPort.Config.of(baudRate));
+    }
+    
+    /**
+     * 按指定参数打开串口（数据位/停止位/校验/流控/VMIN/VTIME）
+     * @param path 串口设备路径
+     * @param config 串口参数
+     * @return 是否成功打开
+     */
+    public boolean openSerialPort(String path, NativeSerialPort.Config config) {
+        int baudRate = config.baudRate;
         // 检查原生库是否可用
-        if (!nativeLibraryAvailable) {
+        if (!NativeSerialPort.isAvailable()) {
             Log.w(TAG, "原生串口库不可用，使用模拟模式");
             // 在模拟模式下，假装打开成功
             this.portPath = path;
@@ -80,22 +105,17 @@ public class SerialPortManager {
                 return false;
             }
             
-            // 调用native方法打开串口
-            this.fileDescriptor = nativeOpen(path, baudRate, 0, 8, 1, 0);
-            if (this.fileDescriptor == null) {
-                Log.e(TAG, "串口打开失败: " + path);
-                return false;
-            }
-            
-            this.inputStream = new FileInputStream(fileDescriptor);
-            this.outputStream = new FileOutputStream(fileDescriptor);
+            this.serialPort = NativeSerialPort.open(path, config);
             this.portPath = path;
             this.baudRate = baudRate;
             this.isOpen = true;
             
-            Log.i(TAG, "串口打开成功: " + path + ", 波特率: " + baudRate);
+            Log.i(TAG, "串口打开成功: " + path + ", 参数: " + config);
             return true;
             
+        } catch (IOException e) {
+            Log.e(TAG, "串口打开失败: " + path + ", " + e.getMessage());
+            return false;
         } catch (Exception e) {
             Log.e(TAG, "串口打开异常: " + e.getMessage(), e);
             return false;
@@ -111,36 +131,22 @@ public class SerialPortManager {
         }
         
         // 在模拟模式下简单处理
-        if (!nativeLibraryAvailable) {
+        if (!NativeSerialPort.isAvailable()) {
             isOpen = false;
             Log.i(TAG, "串口模拟模式关闭成功: " + portPath);
             return;
         }
         
-        try {
-            stopReading();
-            
-            if (inputStream != null) {
-                inputStream.close();
-                inputStream = null;
-            }
-            
-            if (outputStream != null) {
-                outputStream.close();
-                outputStream = null;
-            }
-            
-            if (fileDescriptor != null) {
-                nativeClose();
-                fileDescriptor = null;
-            }
-            
-            isOpen = false;
-            Log.i(TAG, "串口关闭成功: " + portPath);
-            
-        } catch (IOException e) {
-            Log.e(TAG, "串口关闭异常: " + e.getMessage(), e);
+        isOpen = false;
+        isReading = false;
+        NativeSerialPort port = serialPort;
+        serialPort = null;
+        if (port != null) {
+            // 唤醒阻塞在 poll() 上的读线程并关闭描述符，不必等待读超时
+            port.close();
         }
+        awaitReadLoopExit();
+        Log.i(TAG, "串口关闭成功: " + portPath);
     }
     
     /**
@@ -149,26 +155,58 @@ public class SerialPortManager {
      * @return 是否发送成功
      */
     public boolean sendData(byte[] data) {
+        boolean sent = sendData(ByteBuffer.wrap(data));
+        if (sent && Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "发送数据成功: " + bytesToHex(data));
+        }
+        return sent;
+    }
+    
+    /**
+     * 发送 data 的 [position, limit)，发送后前移 position
+     * direct 缓冲区直接写出，不复制；堆缓冲区先复制到发送缓冲区
+     * @return 是否全部发送成功
+     */
+    public boolean sendData(ByteBuffer data) {
         if (!isOpen) {
             Log.e(TAG, "串口未打开，无法发送数据");
             return false;
         }
         
         // 在模拟模式下模拟发送
-        if (!nativeLibraryAvailable) {
-            Log.d(TAG, "模拟发送数据成功: " + bytesToHex(data));
+        if (!NativeSerialPort.isAvailable()) {
+            Log.d(TAG, "模拟发送数据成功: " + data.remaining() + " 字节");
+            data.position(data.limit());
             return true;
         }
         
-        if (outputStream == null) {
-            Log.e(TAG, "输出流为空，无法发送数据");
+        NativeSerialPort port = serialPort;
+        if (port == null) {
+            Log.e(TAG, "串口为空，无法发送数据");
             return false;
         }
         
         try {
-            outputStream.write(data);
-            outputStream.flush();
-            Log.d(TAG, "发送数据成功: " + bytesToHex(data));
+            if (data.isDirect()) {
+                port.write(data, WRITE_TIMEOUT_MS);
+                if (data.hasRemaining()) {
+                    Log.e(TAG, "发送数据超时，未发送 " + data.remaining() + " 字节");
+                    return false;
+                }
+                return true;
+            }
+            synchronized (this) {
+                if (writeBuffer.capacity() < data.remaining()) {
+                    writeBuffer = ByteBuffer.allocateDirect(Integer.highestOneBit(data.remaining()) << 1);
+                }
+                writeBuffer.clear();
+                writeBuffer.put(data).flip();
+                port.write(writeBuffer, WRITE_TIMEOUT_MS);
+                if (writeBuffer.hasRemaining()) {
+                    Log.e(TAG, "发送数据超时，未发送 " + writeBuffer.remaining() + " 字节");
+                    return false;
+                }
+            }
             return true;
         } catch (IOException e) {
             Log.e(TAG, "发送数据异常: " + e.getMessage(), e);
@@ -196,13 +234,14 @@ public class SerialPortManager {
         }
         
         // 在模拟模式下返回空的Observable
-        if (!nativeLibraryAvailable) {
+        if (!NativeSerialPort.isAvailable()) {
             Log.i(TAG, "模拟模式下开始读取串口数据");
             return dataSubject;
         }
         
-        if (inputStream == null) {
-            Log.e(TAG, "输入流为空，无法读取数据");
+        NativeSerialPort port = serialPort;
+        if (port == null) {
+            Log.e(TAG, "串口为空，无法读取数据");
             return Observable.empty();
         }
         
@@ -212,7 +251,9 @@ public class SerialPortManager {
         }
         
         isReading = true;
-        readExecutor.execute(this::readDataLoop);
+        FutureTask<Void> task = new FutureTask<>(() -> readDataLoop(port), null);
+        readTask = task;
+        scheduler.newPinnedThread(Lane.DEVICE_IO, "serial-" + portPath, task).start();
         Log.i(TAG, "开始读取串口数据");
         
         return dataSubject;
@@ -220,6 +261,7 @@ public class SerialPortManager {
     
     /**
      * 停止读取数据
+     * 读线程最多在一个等待超时内退出；需要立即退出时调用 closeSerialPort()
      */
     public void stopReading() {
         isReading = false;
@@ -228,18 +270,33 @@ public class SerialPortManager {
     
     /**
      * 数据读取循环
+     * 数据直接读入 direct 缓冲区，每次读取只复制一次到发送给订阅者的数组
      */
-    private void readDataLoop() {
-        byte[] buffer = new byte[1024];
+    private void readDataLoop(NativeSerialPort port) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
         
-        while (isReading && isOpen && inputStream != null) {
+        while (isReading) {
             try {
-                int length = inputStream.read(buffer);
+                buffer.clear();
+                int length = port.read(buffer, READ_POLL_TIMEOUT_MS);
+                if (length == NativeSerialPort.CLOSED) {
+                    if (isReading) {
+                        // 不是主动关闭：设备断开
+                        Log.e(TAG, "串口已断开: " + portPath);
+                        isReading = false;
+                        isOpen = false;
+                        dataSubject.onError(new IOException("串口已断开: " + portPath));
+                    }
+                    break;
+                }
                 if (length > 0) {
+                    buffer.flip();
                     byte[] data = new byte[length];
-                    System.arraycopy(buffer, 0, data, 0, length);
+                    buffer.get(data);
                     dataSubject.onNext(data);
-                    Log.d(TAG, "接收数据: " + bytesToHex(data));
+                    if (Log.isLoggable(TAG, Log.DEBUG)) {
+                        Log.d(TAG, "接收数据: " + bytesToHex(data));
+                    }
                 }
             } catch (IOException e) {
                 if (isReading) {
@@ -251,6 +308,24 @@ public class SerialPortManager {
         }
     }
     
+    /**
+     * 等待读线程退出，保证关闭后不再有数据回调
+     */
+    private void awaitReadLoopExit() {
+        Future<?> task = readTask;
+        readTask = null;
+        if (task == null) {
+            return;
+        }
+        try {
+            task.get(READ_STOP_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            Log.w(TAG, "等待读线程退出失败: " + e.getMessage());
+        }
+    }
+    
     /**
      * 检查串口是否打开
      */
@@ -289,38 +364,15 @@ public class SerialPortManager {
     public void release() {
         closeSerialPort();
         
-        if (readExecutor != null && !readExecutor.isShutdown()) {
-            readExecutor.shutdown();
-        }
-        
         if (dataSubject != null) {
             dataSubject.onComplete();
         }
     }
     
-    // 是否支持原生串口功能
-    private static boolean nativeLibraryAvailable = false;
-    
-    // Native方法声明
-    private native FileDescriptor nativeOpen(String path, int baudrate, int flags, int databits, int stopbits, int parity);
-    private native void nativeClose();
-    
-    // 加载串口库
-    static {
-        try {
-            System.loadLibrary("serialport");
-            nativeLibraryAvailable = true;
-            Log.i("SerialPortManager", "串口原生库加载成功");
-        } catch (UnsatisfiedLinkError e) {
-            nativeLibraryAvailable = false;
-            Log.w("SerialPortManager", "串口原生库未找到，将使用模拟模式: " + e.getMessage());
-        }
-    }
-    
     /**
      * 检查是否支持原生串口功能
      */
     public static boolean isNativeLibraryAvailable() {
-        return nativeLibraryAvailable;
+        return NativeSerialPort.isAvailable();
     }
 } 
\ No newline at end of file
@@ -4,23 +4,44 @@ import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
 
+import com.tobacco.weight.hardware.transport.DeviceTransports;
+import com.tobacco.weight.hardware.transport.LoopbackTransport;
+import com.tobacco.weight.scheduler.AppScheduler;
+import com.tobacco.weight.scheduler.Lane;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
 import java.util.Random;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.disposables.Disposable;
 import io.reactivex.rxjava3.subjects.BehaviorSubject;
+import io.reactivex.rxjava3.subjects.Subject;
 
 /**
  * 硬件设备模拟器
  * 用于在没有实际硬件时进行开发和测试
+ * 模拟秤按 ST,GS 协议把重量帧写入回环设备 SCALE_ENDPOINT，电子秤连接该地址即可走完整的解码和稳定性检测流程
  */
 public class HardwareSimulator {
     private static final String TAG = "HardwareSimulator";
+
+    // 模拟秤的设备地址
+    public static final String SCALE_ENDPOINT = DeviceTransports.LOOPBACK_SCHEME + "simulator";
+
+    // 重量帧发送间隔（ms），每 WEIGHT_CHANGE_TICKS 帧模拟一次重量变化
+    private static final long FRAME_INTERVAL_MS = 100;
+    private static final int WEIGHT_CHANGE_TICKS = 5;
     
     private final Random random = new Random();
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
-    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    private final Scheduler deviceScheduler;
+    private final LoopbackTransport scaleLink = LoopbackTransport.named(
+            SCALE_ENDPOINT.substring(DeviceTransports.LOOPBACK_SCHEME.length()));
+    private Disposable weightSimulation;
+    private int tick = 0;
     
     // 设备状态
     private boolean isScaleConnected = false;
@@ -28,13 +49,18 @@ public class HardwareSimulator {
     private boolean isPrinterConnected = false;
     
     // 数据流
-    private final BehaviorSubject<WeightData> weightDataSubject = BehaviorSubject.create();
+    // 重量数据在模拟线程上发射，也可能由去皮等操作在其他线程发射，需串行化
+    private final Subject<WeightData> weightDataSubject = BehaviorSubject.<WeightData>create().toSerialized();
     private final BehaviorSubject<IdCardData> idCardDataSubject = BehaviorSubject.create();
     private final BehaviorSubject<DeviceStatus> deviceStatusSubject = BehaviorSubject.create();
     
     // 模拟数据
     private double currentWeight = 0.0;
     private boolean isWeightStable = true;
+
+    public HardwareSimulator(AppScheduler scheduler) {
+        this.deviceScheduler = scheduler.pipelineRx(Lane.DEVICE_IO);
+    }
     
     /**
      * 重量数据模型
@@ -158,34 +184,40 @@ public class HardwareSimulator {
     /**
      * 开始模拟重量数据
      */
-    private void startWeightSimulation() {
-        executorService.execute(() -> {
-            while (true) {
-                try {
-                    // 模拟重量变化
-                    if (random.nextBoolean()) {
-                        // 50%概率产生重量变化
-                        double weightChange = (random.nextDouble() - 0.5) * 0.5; // ±0.25kg变化
-                        currentWeight = Math.max(0, currentWeight + weightChange);
-                        
-                        // 模拟重量稳定性
-                        isWeightStable = Math.abs(weightChange) < 0.1;
-                    } else {
-                        // 50%概率保持稳定
-                        isWeightStable = true;
-                    }
-                    
-                    WeightData weightData = new WeightData(currentWeight, isWeightStable);
-                    
-                    mainHandler.post(() -> weightDataSubject.onNext(weightData));
-                    
-                    Thread.sleep(500); // 每500ms更新一次
-                } catch (InterruptedException e) {
-                    Log.e(TAG, "重量模拟线程被中断", e);
-                    break;
+    private synchronized void startWeightSimulation() {
+        if (weightSimulation != null) {
+            weightSimulation.dispose();
+        }
+        // 每100ms发送一帧，每500ms模拟一次重量变化（设备 I/O 通道上的定时任务，不占用常驻线程）
+        weightSimulation = deviceScheduler.schedulePeriodicallyDirect(() -> {
+            if (tick++ % WEIGHT_CHANGE_TICKS == 0) {
+                // 模拟重量变化
+                if (random.nextBoolean()) {
+                    // 50%概率产生重量变化
+                    double weightChange = (random.nextDouble() - 0.5) * 0.5; // ±0.25kg变化
+                    currentWeight = Math.max(0, currentWeight + weightChange);
+
+                    // 模拟重量稳定性
+                    isWeightStable = Math.abs(weightChange) < 0.1;
+                } else {
+                    // 50%概率保持稳定
+                    isWeightStable = true;
                 }
             }
-        });
+
+            emitWeight();
+        }, 0, FRAME_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 发射当前重量：重量数据流和模拟秤各一份
+     */
+    private void emitWeight() {
+        double weight = currentWeight;
+        boolean stable = isWeightStable;
+        weightDataSubject.onNext(new WeightData(weight, stable));
+        String frame = String.format(Locale.US, "%s,GS,%+08.2fkg\r\n", stable ? "ST" : "US", weight);
+        scaleLink.inject(frame.getBytes(StandardCharsets.US_ASCII));
     }
     
     /**
@@ -244,8 +276,7 @@ public class HardwareSimulator {
         currentWeight = 0.0;
         isWeightStable = true;
         
-        WeightData weightData = new WeightData(currentWeight, isWeightStable);
-        weightDataSubject.onNext(weightData);
+        emitWeight();
     }
     
     /**
@@ -256,12 +287,11 @@ public class HardwareSimulator {
         currentWeight = weight;
         isWeightStable = true;
         
-        WeightData weightData = new WeightData(currentWeight, isWeightStable);
-        weightDataSubject.onNext(weightData);
+        emitWeight();
     }
     
     /**
-     * 获取重量数据流
+     * 获取重量数据流（在模拟线程上发射，界面需经 WeightSnapshots 限频后切换到主线程）
      */
     public Observable<WeightData> getWeightDataObservable() {
         return weightDataSubject.hide();
@@ -284,8 +314,10 @@ public class HardwareSimulator {
     /**
      * 清理资源
      */
-    public void cleanup() {
-        executorService.shutdown();
+    public synchronized void cleanup() {
+        if (weightSimulation != null) {
+            weightSimulation.dispose();
+        }
         weightDataSubject.onComplete();
         idCardDataSubject.onComplete();
         deviceStatusSubject.onComplete();
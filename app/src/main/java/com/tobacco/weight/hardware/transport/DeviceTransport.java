@@ -0,0 +1,72 @@
+package com.tobacco.weight.hardware.transport;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import io.reactivex.rxjava3.core.Observable;
+
+/**
+ * 设备传输层
+ * 电子秤、打印机等设备只通过字节流与上层交互，具体走本地串口、TCP 串口服务器还是内存回环由实现决定，
+ * 帧解码、稳定性检测和打印流程对传输方式无感知。
+ */
+public interface DeviceTransport {
+
+    /**
+     * 打开连接
+     *
+     * @throws IOException 打开失败
+     */
+    void open() throws IOException;
+
+    /**
+     * 是否已打开
+     */
+    boolean isOpen();
+
+    /**
+     * 发送数据（写满或出错才返回）
+     */
+    void write(byte[] data, int offset, int length) throws IOException;
+
+    /**
+     * 发送全部数据
+     */
+    default void write(byte[] data) throws IOException {
+        write(data, 0, data.length);
+    }
+
+    /**
+     * 发送 src 的 [position, limit)，返回时 position 等于 limit
+     * 默认实现：堆缓冲区直接写出其数组，direct 缓冲区分块复制；能直接写 ByteBuffer 的实现应覆盖此方法以免复制
+     */
+    default void write(ByteBuffer src) throws IOException {
+        if (src.hasArray()) {
+            write(src.array(), src.arrayOffset() + src.position(), src.remaining());
+            src.position(src.limit());
+            return;
+        }
+        byte[] chunk = new byte[Math.min(src.remaining(), 4096)];
+        while (src.hasRemaining()) {
+            int count = Math.min(chunk.length, src.remaining());
+            src.get(chunk, 0, count);
+            write(chunk, 0, count);
+        }
+    }
+
+    /**
+     * 接收数据流
+     * 在传输层的读线程上发射收到的数据块（可能包含半帧或多帧）；连接断开时以错误结束
+     */
+    Observable<byte[]> data();
+
+    /**
+     * 关闭连接，可再次 open()
+     */
+    void close();
+
+    /**
+     * 连接描述（日志和界面显示用）
+     */
+    String getName();
+}
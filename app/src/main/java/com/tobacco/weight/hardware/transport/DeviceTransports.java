@@ -0,0 +1,61 @@
+package com.tobacco.weight.hardware.transport;
+
+import com.tobacco.weight.scheduler.AppScheduler;
+
+/**
+ * 按设备地址创建传输层
+ *
+ * 地址格式：
+ * - /dev/ttyUSB0          本地串口（使用给定波特率）
+ * - tcp://192.168.1.50:4001  TCP 串口服务器
+ * - loopback://scale      进程内回环
+ */
+public final class DeviceTransports {
+
+    public static final String TCP_SCHEME = "tcp://";
+    public static final String LOOPBACK_SCHEME = "loopback://";
+
+    private DeviceTransports() {
+    }
+
+    /**
+     * 根据地址创建传输层（未打开）
+     *
+     * @param endpoint 设备地址
+     * @param baudRate  波特率（仅本地串口使用）
+     * @param scheduler 本地串口读线程所在的调度器
+     * @param tcpLoop   TCP 连接共享的 I/O 循环
+     */
+    public static DeviceTransport create(String endpoint, int baudRate, AppScheduler scheduler,
+                                         TcpSelectorLoop tcpLoop) {
+        if (endpoint == null || endpoint.trim().isEmpty()) {
+            throw new IllegalArgumentException("设备地址不能为空");
+        }
+        String address = endpoint.trim();
+        if (address.startsWith(TCP_SCHEME)) {
+            String hostPort = address.substring(TCP_SCHEME.length());
+            int colon = hostPort.lastIndexOf(':');
+            if (colon <= 0 || colon == hostPort.length() - 1) {
+                throw new IllegalArgumentException("TCP 地址缺少端口: " + endpoint);
+            }
+            int port;
+            try {
+                port = Integer.parseInt(hostPort.substring(colon + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("TCP 端口无效: " + endpoint);
+            }
+            return new TcpTransport(hostPort.substring(0, colon), port, tcpLoop);
+        }
+        if (address.startsWith(LOOPBACK_SCHEME)) {
+            return LoopbackTransport.named(address.substring(LOOPBACK_SCHEME.length()));
+        }
+        return new TtyTransport(address, baudRate, scheduler);
+    }
+
+    /**
+     * 是否为本地设备文件（需要检查读写权限）
+     */
+    public static boolean isLocalDevice(String endpoint) {
+        return endpoint != null && !endpoint.startsWith(TCP_SCHEME) && !endpoint.startsWith(LOOPBACK_SCHEME);
+    }
+}
@@ -0,0 +1,106 @@
+package com.tobacco.weight.hardware.transport;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+import io.reactivex.rxjava3.subjects.Subject;
+
+/**
+ * 进程内回环传输（压力测试和无硬件联调）
+ * inject() 模拟设备发来的数据，在调用线程上发射给上层；上层 write() 的数据可通过 written() 观察。
+ * 同名实例全局唯一，测试代码用 named() 取得与设备相同的实例。
+ */
+public class LoopbackTransport implements DeviceTransport {
+
+    private static final Map<String, LoopbackTransport> INSTANCES = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final Subject<byte[]> written = PublishSubject.<byte[]>create().toSerialized();
+    private volatile Subject<byte[]> inbound = PublishSubject.<byte[]>create().toSerialized();
+    private volatile boolean open;
+
+    private LoopbackTransport(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 获取（或创建）指定名称的回环实例
+     */
+    public static LoopbackTransport named(String name) {
+        return INSTANCES.computeIfAbsent(name, LoopbackTransport::new);
+    }
+
+    @Override
+    public synchronized void open() {
+        if (!open) {
+            inbound = PublishSubject.<byte[]>create().toSerialized();
+            open = true;
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        if (!open) {
+            throw new IOException("连接未打开: " + getName());
+        }
+        byte[] copy = new byte[length];
+        System.arraycopy(data, offset, copy, 0, length);
+        written.onNext(copy);
+    }
+
+    @Override
+    public Observable<byte[]> data() {
+        return inbound;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (open) {
+            open = false;
+            inbound.onComplete();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "loopback://" + name;
+    }
+
+    /**
+     * 模拟设备发送数据（未打开时丢弃）
+     *
+     * @return 是否已投递
+     */
+    public boolean inject(byte[] data) {
+        if (!open) {
+            return false;
+        }
+        inbound.onNext(data);
+        return true;
+    }
+
+    /**
+     * 上层写出的数据
+     */
+    public Observable<byte[]> written() {
+        return written;
+    }
+
+    /**
+     * 模拟设备断开（数据流以错误结束）
+     */
+    public synchronized void disconnect() {
+        if (open) {
+            open = false;
+            inbound.onError(new IOException("回环设备已断开: " + getName()));
+        }
+    }
+}
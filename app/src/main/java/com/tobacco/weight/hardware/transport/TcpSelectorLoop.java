@@ -0,0 +1,170 @@
+package com.tobacco.weight.hardware.transport;
+
+import android.util.Log;
+
+import com.tobacco.weight.scheduler.AppScheduler;
+import com.tobacco.weight.scheduler.Lane;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * TCP 传输共享的 I/O 循环
+ * 全部 TcpTransport 的套接字注册到同一个 Selector，由一个设备 I/O 通道常驻线程负责连接、读和排队写，
+ * 连接数增加不会增加线程。线程在第一次使用时启动；注册通道、修改关注事件、关闭通道都经 execute() 在该线程上执行。
+ * 数据回调也在该线程上，订阅方不应在回调中阻塞。
+ */
+public final class TcpSelectorLoop {
+
+    private static final String TAG = "TcpSelectorLoop";
+    private static final int READ_BUFFER_SIZE = 4096;
+
+    /**
+     * 通道事件处理，在 I/O 线程上调用
+     */
+    interface Handler {
+        /**
+         * 通道就绪（可连接、可读或可写）
+         *
+         * @param readBuffer 共享读缓冲区（direct），仅在回调期间有效
+         * @throws IOException 连接出错，循环随后关闭通道并调用 onFailed()
+         */
+        void onReady(SelectionKey key, ByteBuffer readBuffer) throws IOException;
+
+        /**
+         * 通道出错，已被关闭
+         */
+        void onFailed(IOException e);
+    }
+
+    private final AppScheduler scheduler;
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+    private Selector selector;
+    private volatile Thread thread;
+
+    public TcpSelectorLoop(AppScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * 在 I/O 线程上执行任务
+     *
+     * @throws IOException 无法启动 I/O 循环
+     */
+    void execute(Runnable task) throws IOException {
+        Selector sel = ensureStarted();
+        tasks.add(task);
+        sel.wakeup();
+    }
+
+    /**
+     * 注册通道（仅在 I/O 线程上调用）
+     */
+    SelectionKey register(SelectableChannel channel, int ops, Handler handler) throws ClosedChannelException {
+        return channel.register(selector, ops, handler);
+    }
+
+    /**
+     * 当前线程是否为 I/O 线程
+     */
+    boolean inLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * 取消注册并关闭通道
+     */
+    static void close(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+            // 关闭时出错无需处理
+        }
+    }
+
+    private synchronized Selector ensureStarted() throws IOException {
+        if (selector == null) {
+            Selector sel = Selector.open();
+            selector = sel;
+            Thread loopThread = scheduler.newPinnedThread(Lane.DEVICE_IO, "tcp-io", () -> run(sel));
+            thread = loopThread;
+            loopThread.start();
+        }
+        return selector;
+    }
+
+    private void run(Selector sel) {
+        try {
+            while (true) {
+                runTasks();
+                sel.select();
+                Set<SelectionKey> selected = sel.selectedKeys();
+                for (SelectionKey key : selected) {
+                    dispatch(key);
+                }
+                selected.clear();
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "TCP I/O 循环异常退出: " + e.getMessage(), e);
+        } finally {
+            // 下次 execute() 重新启动循环；已注册的连接全部按断开处理
+            synchronized (this) {
+                selector = null;
+                thread = null;
+            }
+            IOException stopped = new IOException("TCP I/O 循环已停止");
+            for (SelectionKey key : new ArrayList<>(sel.keys())) {
+                close(key);
+                ((Handler) key.attachment()).onFailed(stopped);
+            }
+            try {
+                sel.close();
+            } catch (IOException ignored) {
+                // 关闭时出错无需处理
+            }
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                // 连接已关闭后才执行到的任务（如修改已取消通道的关注事件），不影响其他连接
+                Log.w(TAG, "I/O 任务执行失败: " + e);
+            }
+        }
+    }
+
+    /**
+     * 一个连接出错只关闭该连接，不影响共享线程上的其他连接
+     */
+    private void dispatch(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+        Handler handler = (Handler) key.attachment();
+        IOException failure;
+        try {
+            handler.onReady(key, readBuffer);
+            return;
+        } catch (IOException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            failure = new IOException(e);
+        }
+        close(key);
+        handler.onFailed(failure);
+    }
+}
@@ -0,0 +1,318 @@
+package com.tobacco.weight.hardware.transport;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+import io.reactivex.rxjava3.subjects.Subject;
+
+/**
+ * TCP 串口服务器传输（串口转以太网设备，透传模式）
+ * 非阻塞 SocketChannel，注册到共享的 TcpSelectorLoop，由其 I/O 线程负责连接、读和排队写，不单独占用线程；
+ * write() 在写入排队数据全部发出后返回，调用方不直接操作套接字；ByteBuffer 原样排队，不复制。
+ */
+public class TcpTransport implements DeviceTransport {
+
+    private static final int CONNECT_TIMEOUT_MS = 3000;
+    private static final int WRITE_TIMEOUT_MS = 5000;
+    private static final long CLOSE_TIMEOUT_MS = 1000;
+
+    private final String host;
+    private final int port;
+    private final TcpSelectorLoop loop;
+
+    private final Object lock = new Object();
+    private final ArrayDeque<ByteBuffer> writeQueue = new ArrayDeque<>();
+
+    private volatile Connection connection;
+    private volatile Subject<byte[]> dataSubject = PublishSubject.<byte[]>create().toSerialized();
+    private volatile boolean open;
+
+    /**
+     * @param loop 共享的 TCP I/O 循环
+     */
+    public TcpTransport(String host, int port, TcpSelectorLoop loop) {
+        this.host = host;
+        this.port = port;
+        this.loop = loop;
+    }
+
+    @Override
+    public void open() throws IOException {
+        close();
+
+        SocketChannel socket = SocketChannel.open();
+        Connection conn;
+        try {
+            socket.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            socket.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+            socket.configureBlocking(false);
+            conn = new Connection(socket, PublishSubject.<byte[]>create().toSerialized());
+            boolean connected = socket.connect(new InetSocketAddress(host, port));
+            loop.execute(() -> conn.register(connected));
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+
+        boolean connected;
+        try {
+            connected = conn.connected.await(CONNECT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            conn.shutdown();
+            throw new IOException("连接被中断: " + getName());
+        }
+        if (!connected || conn.failure != null) {
+            conn.shutdown();
+            IOException failure = conn.failure;
+            throw failure != null ? failure : new IOException("连接超时: " + getName());
+        }
+
+        synchronized (lock) {
+            connection = conn;
+            dataSubject = conn.subject;
+            open = true;
+        }
+        // 注册后、赋值前对端已断开时，连接不会再有回调
+        if (conn.done.getCount() == 0) {
+            close();
+            throw new IOException("连接已断开: " + getName());
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        write(ByteBuffer.wrap(data, offset, length));
+    }
+
+    @Override
+    public void write(ByteBuffer buffer) throws IOException {
+        // 数据发出后才返回，缓冲区直接排队写入套接字，无需复制
+        synchronized (lock) {
+            Connection conn = connection;
+            if (conn == null) {
+                throw new IOException("连接未打开: " + getName());
+            }
+            writeQueue.add(buffer);
+            loop.execute(conn::updateInterest);
+
+            long deadline = System.currentTimeMillis() + WRITE_TIMEOUT_MS;
+            while (buffer.hasRemaining() && connection == conn) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    // 移出队列（ByteBuffer.equals 比较内容，按引用移除）：调用方可能复用该缓冲区
+                    writeQueue.removeIf(queued -> queued == buffer);
+                    throw new IOException("发送超时: " + getName());
+                }
+                try {
+                    lock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    writeQueue.removeIf(queued -> queued == buffer);
+                    throw new IOException("发送被中断: " + getName());
+                }
+            }
+            if (buffer.hasRemaining()) {
+                throw new IOException("连接已断开: " + getName());
+            }
+        }
+    }
+
+    @Override
+    public Observable<byte[]> data() {
+        return dataSubject;
+    }
+
+    @Override
+    public void close() {
+        Connection conn;
+        synchronized (lock) {
+            conn = connection;
+            detachLocked(conn);
+        }
+        if (conn != null) {
+            conn.shutdown();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "tcp://" + host + ":" + port;
+    }
+
+    private void detachLocked(Connection conn) {
+        if (conn != null && connection == conn) {
+            connection = null;
+            open = false;
+            writeQueue.clear();
+        }
+        lock.notifyAll();
+    }
+
+    /**
+     * 一次连接（open() 到断开）
+     * 除 shutdown() 外的方法都在共享 I/O 线程上执行
+     */
+    private final class Connection implements TcpSelectorLoop.Handler {
+
+        final SocketChannel socket;
+        final Subject<byte[]> subject;
+        final CountDownLatch connected = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile IOException failure;
+        private SelectionKey key;
+
+        Connection(SocketChannel socket, Subject<byte[]> subject) {
+            this.socket = socket;
+            this.subject = subject;
+        }
+
+        void register(boolean alreadyConnected) {
+            if (done.getCount() == 0) {
+                return;
+            }
+            try {
+                key = loop.register(socket, alreadyConnected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, this);
+            } catch (IOException e) {
+                finish(e);
+                return;
+            }
+            if (alreadyConnected) {
+                connected.countDown();
+            }
+        }
+
+        @Override
+        public void onReady(SelectionKey key, ByteBuffer readBuffer) throws IOException {
+            if (key.isConnectable()) {
+                if (socket.finishConnect()) {
+                    connected.countDown();
+                    updateInterest();
+                }
+                return;
+            }
+
+            if (key.isReadable()) {
+                readBuffer.clear();
+                int n = socket.read(readBuffer);
+                if (n < 0) {
+                    throw new IOException("连接已被对端关闭: " + getName());
+                }
+                if (n > 0) {
+                    readBuffer.flip();
+                    byte[] chunk = new byte[n];
+                    readBuffer.get(chunk);
+                    subject.onNext(chunk);
+                }
+            }
+
+            if (key.isValid() && key.isWritable()) {
+                flushQueue();
+            }
+            updateInterest();
+        }
+
+        @Override
+        public void onFailed(IOException e) {
+            finish(e);
+        }
+
+        /**
+         * 有排队数据时关注可写
+         */
+        void updateInterest() {
+            SelectionKey k = key;
+            if (k == null || !k.isValid() || connected.getCount() > 0) {
+                return;
+            }
+            synchronized (lock) {
+                boolean pending = connection == this && !writeQueue.isEmpty();
+                k.interestOps(pending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+            }
+        }
+
+        /**
+         * 主动关闭，返回时不会再有数据回调（在 I/O 线程上调用时除外）
+         */
+        void shutdown() {
+            try {
+                loop.execute(() -> {
+                    if (key != null) {
+                        TcpSelectorLoop.close(key);
+                    } else {
+                        closeSocket();
+                    }
+                    finish(null);
+                });
+            } catch (IOException e) {
+                // I/O 循环无法启动，连接不可能已注册
+                closeSocket();
+                return;
+            }
+            if (!loop.inLoop()) {
+                try {
+                    done.await(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private void closeSocket() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // 关闭时出错无需处理
+            }
+        }
+
+        private void finish(IOException error) {
+            if (done.getCount() == 0) {
+                return;
+            }
+            failure = error;
+            synchronized (lock) {
+                detachLocked(this);
+            }
+            done.countDown();
+            connected.countDown();
+            if (error != null) {
+                subject.onError(error);
+            } else {
+                subject.onComplete();
+            }
+        }
+
+        private void flushQueue() throws IOException {
+            synchronized (lock) {
+                if (connection != this) {
+                    return;
+                }
+                while (!writeQueue.isEmpty()) {
+                    ByteBuffer head = writeQueue.peek();
+                    socket.write(head);
+                    if (head.hasRemaining()) {
+                        // 发送缓冲区已满，等待下一次可写
+                        return;
+                    }
+                    writeQueue.poll();
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+}
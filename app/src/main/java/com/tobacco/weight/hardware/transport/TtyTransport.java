@@ -0,0 +1,89 @@
+package com.tobacco.weight.hardware.transport;
+
+import com.tobacco.weight.hardware.serial.NativeSerialPort;
+import com.tobacco.weight.hardware.serial.SerialPortManager;
+import com.tobacco.weight.scheduler.AppScheduler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import io.reactivex.rxjava3.core.Observable;
+
+/**
+ * 本地串口传输（/dev/tty*）
+ * 每次打开创建新的 SerialPortManager，断开后的数据流不会影响下一次连接
+ */
+public class TtyTransport implements DeviceTransport {
+
+    private final String path;
+    private final NativeSerialPort.Config config;
+    private final AppScheduler scheduler;
+    private volatile SerialPortManager serialPortManager;
+
+    public TtyTransport(String path, int baudRate, AppScheduler scheduler) {
+        this(path, NativeSerialPort.Config.of(baudRate), scheduler);
+    }
+
+    public TtyTransport(String path, NativeSerialPort.Config config, AppScheduler scheduler) {
+        this.path = path;
+        this.config = config;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public synchronized void open() throws IOException {
+        close();
+        SerialPortManager manager = new SerialPortManager(scheduler);
+        if (!manager.openSerialPort(path, config)) {
+            manager.release();
+            throw new IOException("串口打开失败: " + path);
+        }
+        serialPortManager = manager;
+    }
+
+    @Override
+    public boolean isOpen() {
+        SerialPortManager manager = serialPortManager;
+        return manager != null && manager.isOpen();
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        write(ByteBuffer.wrap(data, offset, length));
+    }
+
+    @Override
+    public void write(ByteBuffer src) throws IOException {
+        SerialPortManager manager = serialPortManager;
+        if (manager == null || !manager.isOpen()) {
+            throw new IOException("串口未打开: " + path);
+        }
+        // direct 缓冲区由原生层直接写出
+        if (!manager.sendData(src)) {
+            throw new IOException("串口发送失败: " + path);
+        }
+    }
+
+    @Override
+    public Observable<byte[]> data() {
+        SerialPortManager manager = serialPortManager;
+        if (manager == null) {
+            return Observable.error(new IOException("串口未打开: " + path));
+        }
+        return manager.startReading();
+    }
+
+    @Override
+    public synchronized void close() {
+        SerialPortManager manager = serialPortManager;
+        serialPortManager = null;
+        if (manager != null) {
+            manager.release();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return path + " @ " + config.baudRate;
+    }
+}
@@ -0,0 +1,246 @@
+package com.tobacco.weight.scheduler;
+
+import android.os.Process;
+import android.util.Log;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * 应用统一调度器
+ * 全部后台工作按 Lane 分通道执行：设备 I/O、数据库写入（单写线程）、数据库查询、打印、批量导出。
+ * 每个通道固定线程数和有界队列，队列满时拒绝提交；各通道记录队列深度和等待/执行耗时（LaneMetrics）。
+ * 常驻循环（串口读、TCP 收发、数据库写线程、打印机写线程）使用 newPinnedThread()/newPinnedScheduler()，
+ * 线程按通道命名和设定优先级，计入线程预算。
+ * 由 Hilt 提供（SchedulerModule），使用方通过构造参数取得，不提供静态访问。
+ * 界面线程发起的任务经 submit() 提交：队列满时回调调用方的失败处理，不向主线程抛出异常。
+ */
+public final class AppScheduler {
+
+    private static final String TAG = "AppScheduler";
+
+    // 线程预算（通道线程池 + 常驻线程），超出时告警
+    static final int THREAD_BUDGET = 24;
+
+    // 导出等可让行任务：前台通道有积压时每次暂停的时间和单次最长让行时间
+    private static final long YIELD_SLICE_MS = 20;
+    private static final long MAX_YIELD_MS = 500;
+
+    private final Map<Lane, LaneMetrics> metrics = new EnumMap<>(Lane.class);
+    private final Map<Lane, LaneExecutor> executors = new EnumMap<>(Lane.class);
+    private final Map<Lane, Scheduler> rxSchedulers = new EnumMap<>(Lane.class);
+    private final AtomicInteger pinnedThreads = new AtomicInteger();
+    private final int pooledThreads;
+
+    public AppScheduler() {
+        int pooled = 0;
+        for (Lane lane : Lane.values()) {
+            LaneMetrics laneMetrics = new LaneMetrics(lane);
+            metrics.put(lane, laneMetrics);
+            if (lane == Lane.DB_WRITE) {
+                // 写入只经 GroupCommitWriter 的常驻写线程
+                continue;
+            }
+            LaneExecutor executor = new LaneExecutor(lane, laneMetrics,
+                    threadFactory(lane, lane.threadName, lane.priority));
+            executors.put(lane, executor);
+            rxSchedulers.put(lane, Schedulers.from(executor));
+            pooled += lane.threads;
+        }
+        pooledThreads = pooled;
+    }
+
+    /**
+     * 通道线程池
+     *
+     * @throws IllegalArgumentException DB_WRITE 没有线程池，写入经 GroupCommitWriter 提交
+     */
+    public Executor executor(Lane lane) {
+        LaneExecutor executor = executors.get(lane);
+        if (executor == null) {
+            throw new IllegalArgumentException(lane + " 没有共享线程池，数据库写入经 GroupCommitWriter 提交");
+        }
+        return executor;
+    }
+
+    /**
+     * 向执行器提交任务，队列已满或已关闭时不抛出异常，改为在调用线程上回调 onRejected
+     * 拒绝只在这里处理：调用方把拒绝转交给自己的失败回调（onError/onFailure）
+     *
+     * @param executor   通道线程池或 serial() 返回的串行执行器
+     * @param onRejected 任务未被接受时调用
+     */
+    public static void submit(Executor executor, Runnable task, Consumer<RejectedExecutionException> onRejected) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "任务被拒绝: " + e.getMessage());
+            onRejected.accept(e);
+        }
+    }
+
+    /**
+     * 通道对应的 RxJava Scheduler
+     * 队列满时任务被丢弃，异常交给 RxJavaPlugins 的错误处理器（见 TobaccoApplication），订阅者收不到通知；
+     * 需要把拒绝交给订阅者的场景使用 submit()，持续运行的管道使用 pipelineRx()
+     */
+    public Scheduler rx(Lane lane) {
+        executor(lane);
+        return rxSchedulers.get(lane);
+    }
+
+    /**
+     * 在通道线程池上按提交顺序串行执行的执行器
+     */
+    public SerialExecutor serial(Lane lane) {
+        return new SerialExecutor(executor(lane));
+    }
+
+    /**
+     * 常驻数据管道（秤数据处理、读卡轮询等）使用的串行执行器
+     * 与 serial() 相同，但通道队列满时在提交线程上执行而不拒绝：管道丢掉一个任务就会停止且没有任何通知。
+     * 只在 shutdown() 后拒绝。
+     */
+    public SerialExecutor pipeline(Lane lane) {
+        return new SerialExecutor(executor(lane), true);
+    }
+
+    /**
+     * pipeline() 对应的 RxJava Scheduler，用于 observeOn 和自我重排的定时任务
+     */
+    public Scheduler pipelineRx(Lane lane) {
+        return Schedulers.from(pipeline(lane));
+    }
+
+    /**
+     * 创建常驻线程（未启动），用于长期运行的阻塞循环
+     * 线程按通道命名、设定优先级，退出时释放预算
+     */
+    public Thread newPinnedThread(Lane lane, String name, Runnable loop) {
+        LaneMetrics laneMetrics = metrics.get(lane);
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(lane.pinnedPriority);
+            onPinnedThreadStarted(lane, name);
+            try {
+                loop.run();
+            } finally {
+                laneMetrics.onPinnedThreadExited();
+                pinnedThreads.decrementAndGet();
+            }
+        }, lane.threadName + "-" + name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * 创建常驻的单线程定时执行器（打印机写线程等），任务执行耗时计入通道指标
+     * 调用方负责 shutdown()
+     */
+    public ScheduledExecutorService newPinnedScheduler(Lane lane, String name) {
+        LaneMetrics laneMetrics = metrics.get(lane);
+        ThreadFactory factory = threadFactory(lane, name, lane.pinnedPriority);
+        return new ScheduledThreadPoolExecutor(1, runnable -> factory.newThread(() -> {
+            onPinnedThreadStarted(lane, name);
+            try {
+                runnable.run();
+            } finally {
+                laneMetrics.onPinnedThreadExited();
+                pinnedThreads.decrementAndGet();
+            }
+        })) {
+            // 单线程：开始时间不会被并发覆盖
+            private long startNanos;
+
+            @Override
+            protected void beforeExecute(Thread t, Runnable r) {
+                startNanos = System.nanoTime();
+                laneMetrics.onQueued();
+                laneMetrics.onStarted(0);
+            }
+
+            @Override
+            protected void afterExecute(Runnable r, Throwable t) {
+                laneMetrics.onFinished(System.nanoTime() - startNanos, t == null);
+            }
+        };
+    }
+
+    /**
+     * 可让行通道（EXPORT）上的长任务定期调用：设备 I/O、数据库写入或打印有积压时暂停，
+     * 单次最多让行 MAX_YIELD_MS，前台工作不会被导出拖慢
+     */
+    public void yieldToForeground() {
+        long deadline = System.currentTimeMillis() + MAX_YIELD_MS;
+        while (hasForegroundBacklog() && System.currentTimeMillis() < deadline) {
+            metrics.get(Lane.EXPORT).onYield();
+            try {
+                Thread.sleep(YIELD_SLICE_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private boolean hasForegroundBacklog() {
+        for (Lane lane : Lane.values()) {
+            if (!lane.preemptible && lane != Lane.DB_READ && metrics.get(lane).getQueueDepth() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 通道指标
+     */
+    public LaneMetrics metrics(Lane lane) {
+        return metrics.get(lane);
+    }
+
+    /**
+     * 全部通道指标（诊断用）
+     */
+    public String dumpMetrics() {
+        StringBuilder dump = new StringBuilder();
+        dump.append("线程: 通道 ").append(pooledThreads).append(" + 常驻 ").append(pinnedThreads.get())
+                .append(" / 预算 ").append(THREAD_BUDGET);
+        for (Lane lane : Lane.values()) {
+            dump.append('\n').append(metrics.get(lane));
+        }
+        return dump.toString();
+    }
+
+    private void onPinnedThreadStarted(Lane lane, String name) {
+        metrics.get(lane).onPinnedThreadStarted();
+        int total = pooledThreads + pinnedThreads.incrementAndGet();
+        if (total > THREAD_BUDGET) {
+            Log.w(TAG, "线程数超出预算: " + total + " > " + THREAD_BUDGET + "（" + lane.threadName + "-" + name + "）");
+        }
+    }
+
+    /**
+     * @param priority Android 线程优先级（Process.THREAD_PRIORITY_*），线程启动后在自身线程上设置
+     */
+    private static ThreadFactory threadFactory(Lane lane, String name, int priority) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(() -> {
+                Process.setThreadPriority(priority);
+                runnable.run();
+            }, lane.threadName + "-" + name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
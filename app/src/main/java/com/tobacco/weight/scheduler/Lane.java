@@ -0,0 +1,59 @@
+package com.tobacco.weight.scheduler;
+
+import android.os.Process;
+
+/**
+ * 调度通道
+ * 每个通道有固定的线程数、有界队列和线程优先级；常驻循环（串口读线程、数据库写线程等）
+ * 通过 AppScheduler.newPinnedThread() 使用该通道的线程配置，计入线程预算。
+ * 优先级为 Android 线程优先级（Process.THREAD_PRIORITY_*，即 nice 值），不高于界面线程；
+ * 只有设备 I/O 的常驻读线程（大部分时间阻塞在 poll/select 上）提升到音频级，保证数据到达后立即读取。
+ */
+public enum Lane {
+
+    // 设备 I/O：秤数据处理、读卡轮询、模拟器；串口/TCP 读线程常驻
+    DEVICE_IO("device-io", 4, 256, Process.THREAD_PRIORITY_DEFAULT, Process.THREAD_PRIORITY_URGENT_AUDIO,
+            false, true),
+
+    // 数据库写入：唯一的写线程（GroupCommitWriter），队列容量即待提交写入上限
+    DB_WRITE("db-write", 1, 1024, Process.THREAD_PRIORITY_DEFAULT, Process.THREAD_PRIORITY_DEFAULT,
+            false, true),
+
+    // 数据库查询、分页加载
+    DB_READ("db-read", 4, 256, Process.THREAD_PRIORITY_DEFAULT, Process.THREAD_PRIORITY_DEFAULT,
+            false, false),
+
+    // 打印队列操作；打印机写线程常驻
+    PRINT("print", 2, 128, Process.THREAD_PRIORITY_DEFAULT, Process.THREAD_PRIORITY_DEFAULT,
+            false, false),
+
+    // 批量导出：后台优先级，前台通道有积压时让行
+    EXPORT("export", 1, 8, Process.THREAD_PRIORITY_BACKGROUND, Process.THREAD_PRIORITY_BACKGROUND,
+            true, false);
+
+    final String threadName;
+    final int threads;
+    final int queueCapacity;
+    // 通道线程池的线程优先级
+    final int priority;
+    // 常驻线程的线程优先级
+    final int pinnedPriority;
+    final boolean preemptible;
+    // 空闲时是否保留线程（设备数据不等线程创建）
+    final boolean keepAlive;
+
+    Lane(String threadName, int threads, int queueCapacity, int priority, int pinnedPriority,
+         boolean preemptible, boolean keepAlive) {
+        this.threadName = threadName;
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+        this.priority = priority;
+        this.pinnedPriority = pinnedPriority;
+        this.preemptible = preemptible;
+        this.keepAlive = keepAlive;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+}
@@ -0,0 +1,67 @@
+package com.tobacco.weight.scheduler;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通道线程池：固定线程数、有界队列，队列满时拒绝（RejectedExecutionException）
+ * 每个任务记录排队等待和执行耗时。
+ */
+final class LaneExecutor extends ThreadPoolExecutor {
+
+    // 非常驻通道的空闲线程回收时间
+    private static final long IDLE_TIMEOUT_SECONDS = 30;
+
+    private final Lane lane;
+    private final LaneMetrics metrics;
+
+    LaneExecutor(Lane lane, LaneMetrics metrics, ThreadFactory threadFactory) {
+        super(lane.threads, lane.threads, IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(lane.queueCapacity), threadFactory);
+        this.lane = lane;
+        this.metrics = metrics;
+        allowCoreThreadTimeOut(!lane.keepAlive);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        metrics.onQueued();
+        try {
+            super.execute(new Timed(command, metrics));
+            metrics.onAccepted(getQueue().size());
+        } catch (RejectedExecutionException e) {
+            metrics.onRejected();
+            throw new RejectedExecutionException(lane.threadName + " 队列已满或已关闭（" + lane.queueCapacity + "）", e);
+        }
+    }
+
+    private static final class Timed implements Runnable {
+        private final Runnable task;
+        private final LaneMetrics metrics;
+        private final long queuedAt = System.nanoTime();
+
+        Timed(Runnable task, LaneMetrics metrics) {
+            this.task = task;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            metrics.onStarted(start - queuedAt);
+            boolean success = false;
+            try {
+                task.run();
+                success = true;
+            } finally {
+                metrics.onFinished(System.nanoTime() - start, success);
+            }
+        }
+    }
+}
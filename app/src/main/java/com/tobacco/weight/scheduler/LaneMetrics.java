@@ -0,0 +1,162 @@
+package com.tobacco.weight.scheduler;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 通道运行指标：队列深度（当前/峰值）、提交/完成/拒绝/失败次数、排队等待和执行耗时（平均/最大）
+ * 由 LaneExecutor、常驻线程和 GroupCommitWriter 记录，可在任意线程读取。
+ */
+public final class LaneMetrics {
+
+    private final Lane lane;
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final AtomicInteger pinnedThreads = new AtomicInteger();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong yields = new AtomicLong();
+
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong totalRunNanos = new AtomicLong();
+    private final AtomicLong maxRunNanos = new AtomicLong();
+
+    LaneMetrics(Lane lane) {
+        this.lane = lane;
+    }
+
+    /**
+     * 提交任务（交给队列之前调用）
+     */
+    public void onQueued() {
+        submitted.incrementAndGet();
+        queueDepth.incrementAndGet();
+    }
+
+    /**
+     * 任务已进入队列
+     *
+     * @param queued 入队后的队列长度（用于记录峰值）
+     */
+    public void onAccepted(int queued) {
+        maxQueueDepth.accumulateAndGet(queued, Math::max);
+    }
+
+    /**
+     * 队列已满，任务被拒绝（之前已调用 onQueued）
+     */
+    public void onRejected() {
+        queueDepth.decrementAndGet();
+        rejected.incrementAndGet();
+    }
+
+    /**
+     * 任务出队开始执行
+     *
+     * @param waitNanos 排队时间
+     */
+    public void onStarted(long waitNanos) {
+        queueDepth.decrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    /**
+     * 任务执行结束
+     *
+     * @param runNanos 执行时间
+     */
+    public void onFinished(long runNanos, boolean success) {
+        completed.incrementAndGet();
+        if (!success) {
+            failed.incrementAndGet();
+        }
+        totalRunNanos.addAndGet(runNanos);
+        maxRunNanos.accumulateAndGet(runNanos, Math::max);
+    }
+
+    void onYield() {
+        yields.incrementAndGet();
+    }
+
+    int onPinnedThreadStarted() {
+        return pinnedThreads.incrementAndGet();
+    }
+
+    void onPinnedThreadExited() {
+        pinnedThreads.decrementAndGet();
+    }
+
+    public Lane getLane() {
+        return lane;
+    }
+
+    public int getQueueDepth() {
+        return Math.max(0, queueDepth.get());
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    public int getPinnedThreads() {
+        return pinnedThreads.get();
+    }
+
+    public long getSubmitted() {
+        return submitted.get();
+    }
+
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * 导出等可让行任务的让行次数
+     */
+    public long getYields() {
+        return yields.get();
+    }
+
+    public double getAverageWaitMs() {
+        long count = completed.get();
+        return count == 0 ? 0 : totalWaitNanos.get() / 1e6 / count;
+    }
+
+    public double getMaxWaitMs() {
+        return maxWaitNanos.get() / 1e6;
+    }
+
+    public double getAverageRunMs() {
+        long count = completed.get();
+        return count == 0 ? 0 : totalRunNanos.get() / 1e6 / count;
+    }
+
+    public double getMaxRunMs() {
+        return maxRunNanos.get() / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "%s: 队列 %d (峰值 %d/%d) 常驻线程 %d 提交 %d 完成 %d 拒绝 %d 失败 %d 让行 %d "
+                        + "等待 %.1f/%.1fms 执行 %.1f/%.1fms",
+                lane.threadName, getQueueDepth(), getMaxQueueDepth(), lane.queueCapacity, getPinnedThreads(),
+                getSubmitted(), getCompleted(), getRejected(), getFailed(), getYields(),
+                getAverageWaitMs(), getMaxWaitMs(), getAverageRunMs(), getMaxRunMs());
+    }
+}
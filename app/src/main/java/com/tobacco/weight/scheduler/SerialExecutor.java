@@ -0,0 +1,103 @@
+package com.tobacco.weight.scheduler;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 串行执行器
+ * 在共享通道线程池上按提交顺序串行执行任务，保证一台秤的解码器、一台打印机的队列等状态只被一个线程访问。
+ * 每次最多连续执行 BATCH_SIZE 个任务后让出线程，任务多的一方不会长期占用共享线程，拖慢其他使用者。
+ * 由 AppScheduler.serial() 创建；AppScheduler.pipeline() 创建的执行器在通道队列满时改在提交线程上执行，不拒绝任务。
+ */
+public final class SerialExecutor implements Executor {
+
+    private static final int BATCH_SIZE = 32;
+
+    private final Executor pool;
+    private final boolean callerRunsWhenFull;
+    private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+    private final Runnable drain = this::drain;
+    private boolean scheduled;
+    private volatile boolean shutdown;
+
+    SerialExecutor(Executor pool) {
+        this(pool, false);
+    }
+
+    /**
+     * @param callerRunsWhenFull 通道队列已满时在提交线程上执行（只在 shutdown() 后拒绝）
+     */
+    SerialExecutor(Executor pool, boolean callerRunsWhenFull) {
+        this.pool = pool;
+        this.callerRunsWhenFull = callerRunsWhenFull;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        synchronized (tasks) {
+            if (shutdown) {
+                throw new RejectedExecutionException("通道已关闭");
+            }
+            tasks.add(task);
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        try {
+            pool.execute(drain);
+        } catch (RejectedExecutionException e) {
+            if (callerRunsWhenFull) {
+                // 常驻管道丢一个任务就会停止（observeOn、自我重排的轮询）：在提交线程上执行，仍然串行
+                drain();
+                return;
+            }
+            // 通道队列已满：撤回本任务交由调用方处理；其间别人提交的任务留在队列中，下次提交成功时一并执行
+            synchronized (tasks) {
+                tasks.removeLastOccurrence(task);
+                scheduled = false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 关闭通道：已提交的任务继续执行，之后提交的任务被拒绝
+     */
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    private void drain() {
+        while (true) {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                Runnable task;
+                synchronized (tasks) {
+                    task = tasks.poll();
+                    if (task == null) {
+                        scheduled = false;
+                        return;
+                    }
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    Thread thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                }
+            }
+            // 还有任务：重新排到共享线程池队尾，让其他使用者先执行；通道队列已满时在当前线程继续
+            try {
+                pool.execute(drain);
+                return;
+            } catch (RejectedExecutionException e) {
+                // 继续下一批
+            }
+        }
+    }
+}
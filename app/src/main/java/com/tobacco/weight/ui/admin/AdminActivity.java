@@ -3,20 +3,26 @@ package com.tobacco.weight.ui.admin;
 import android.app.Dialog;
 import android.os.Bundle;
 import android.view.View;
-import android.view.ViewGroup;
 import android.view.Window;
 import android.widget.Button;
-import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.databinding.DataBindingUtil;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.paging.LoadState;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.tobacco.weight.R;
 import com.tobacco.weight.data.FarmerStatistics;
 import com.tobacco.weight.data.WeighingRecord;
+import com.tobacco.weight.data.paging.RecordFilter;
 import com.tobacco.weight.data.repository.WeightRecordRepository;
 import com.tobacco.weight.databinding.ActivityAdminBinding;
 import com.tobacco.weight.utils.DataExportUtils;
@@ -27,10 +33,12 @@ import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.function.Function;
 
 import javax.inject.Inject;
 
 import dagger.hilt.android.AndroidEntryPoint;
+import kotlin.Unit;
 
 /**
  * 管理员界面（一级）
@@ -47,13 +55,17 @@ public class AdminActivity extends AppCompatActivity {
     WeightRecordRepository weightRecordRepository;
 
     // UI组件
-    private LinearLayout layoutFarmerDataContainer;
+    private RecyclerView rvFarmerData;
+    private FarmerStatisticsAdapter farmerAdapter;
     private TextView tvDataStatus;
     private TextView tvTotalFarmerCount;
     private TextView tvTotalRecordCount;
     private TextView tvTotalWeight;
     private TextView tvScrollHint; // 新增滑动提示
 
+    // 正在进行的导出任务
+    private DataExportUtils.ExportTask currentExportTask;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -75,13 +87,18 @@ public class AdminActivity extends AppCompatActivity {
         }
 
         // 获取UI组件引用
-        layoutFarmerDataContainer = binding.layoutFarmerDataContainer;
+        rvFarmerData = binding.rvFarmerData;
         tvDataStatus = binding.tvDataStatus;
         tvTotalFarmerCount = binding.tvTotalFarmerCount;
         tvTotalRecordCount = binding.tvTotalRecordCount;
         tvTotalWeight = binding.tvTotalWeight;
         tvScrollHint = binding.tvScrollHint; // 初始化滑动提示
 
+        // 农户表格使用 RecyclerView，刷新时只更新变化的行
+        farmerAdapter = new FarmerStatisticsAdapter(this::showFarmerDetailDialog);
+        rvFarmerData.setLayoutManager(new LinearLayoutManager(this));
+        rvFarmerData.setAdapter(farmerAdapter);
+
         // 设置按钮点击事件
         binding.btnRefreshData.setOnClickListener(v -> {
             refreshData();
@@ -91,9 +108,21 @@ public class AdminActivity extends AppCompatActivity {
         binding.btnExportAllData.setOnClickListener(v -> {
             exportAllRecords();
         });
+
+        binding.btnCheckAggregates.setOnClickListener(v -> {
+            viewModel.checkAggregates();
+            Toast.makeText(this, "正在校验汇总数据...", Toast.LENGTH_SHORT).show();
+        });
     }
 
     private void setupObservers() {
+        // 观察汇总校验结果
+        viewModel.getAggregateCheckStatus().observe(this, status -> {
+            if (status != null && !status.isEmpty()) {
+                Toast.makeText(this, status, Toast.LENGTH_LONG).show();
+            }
+        });
+
         // 观察农户统计数据
         viewModel.getFarmerStatisticsList().observe(this, farmerStatsList -> {
             if (farmerStatsList != null) {
@@ -144,10 +173,8 @@ public class AdminActivity extends AppCompatActivity {
      * 更新农户表格
      */
     private void updateFarmerTable(List<AdminViewModel.FarmerStatistics> farmerStatsList) {
-        // 清除现有的农户行
-        layoutFarmerDataContainer.removeAllViews();
-
         if (farmerStatsList == null || farmerStatsList.isEmpty()) {
+            farmerAdapter.submitList(null);
             tvDataStatus.setText("暂无农户数据");
             tvDataStatus.setVisibility(View.VISIBLE);
             tvScrollHint.setVisibility(View.GONE); // 隐藏滑动提示
@@ -157,12 +184,8 @@ public class AdminActivity extends AppCompatActivity {
         // 隐藏状态提示
         tvDataStatus.setVisibility(View.GONE);
 
-        // 为每个农户创建数据行
-        for (int i = 0; i < farmerStatsList.size(); i++) {
-            AdminViewModel.FarmerStatistics stats = farmerStatsList.get(i);
-            LinearLayout farmerRow = createFarmerRow(stats, i);
-            layoutFarmerDataContainer.addView(farmerRow);
-        }
+        // 提交新列表，由 DiffUtil 计算差异
+        farmerAdapter.submitList(farmerStatsList);
 
         // 当农户数据较多时显示滑动提示（超过5个农户）
         if (farmerStatsList.size() > 5) {
@@ -173,88 +196,6 @@ public class AdminActivity extends AppCompatActivity {
         }
     }
 
-    /**
-     * 创建单个农户数据行
-     */
-    private LinearLayout createFarmerRow(AdminViewModel.FarmerStatistics stats, int index) {
-        LinearLayout row = new LinearLayout(this);
-        row.setOrientation(LinearLayout.HORIZONTAL);
-        row.setPadding(12, 12, 12, 12);
-
-        // 设置交替行背景
-        if (index % 2 == 0) {
-            row.setBackgroundColor(0xFFFFFFFF); // 白色
-        } else {
-            row.setBackgroundColor(0xFFF5F5F5); // 浅灰色
-        }
-
-        // 农户姓名
-        TextView tvName = createTableCell(stats.getFarmerName(), 3);
-        tvName.setTextColor(0xFF212121);
-        tvName.setTextSize(16);
-        row.addView(tvName);
-
-        // 记录总数
-        TextView tvCount = createTableCell(String.valueOf(stats.getRecordCount()), 2);
-        tvCount.setTextColor(0xFF4CAF50);
-        tvCount.setTextSize(16);
-        row.addView(tvCount);
-
-        // 总重量
-        TextView tvWeight = createTableCell(String.format("%.2f kg", stats.getTotalWeight()), 3);
-        tvWeight.setTextColor(0xFF2196F3);
-        tvWeight.setTextSize(16);
-        row.addView(tvWeight);
-
-        // 操作按钮
-        LinearLayout buttonContainer = new LinearLayout(this);
-        buttonContainer.setLayoutParams(new LinearLayout.LayoutParams(0, ViewGroup.LayoutParams.WRAP_CONTENT, 2));
-        buttonContainer.setGravity(android.view.Gravity.CENTER);
-
-        Button viewButton = createViewButton(stats);
-        buttonContainer.addView(viewButton);
-        row.addView(buttonContainer);
-
-        return row;
-    }
-
-    /**
-     * 创建表格单元格
-     */
-    private TextView createTableCell(String text, int weight) {
-        TextView textView = new TextView(this);
-        textView.setLayoutParams(new LinearLayout.LayoutParams(0, ViewGroup.LayoutParams.WRAP_CONTENT, weight));
-        textView.setText(text);
-        textView.setGravity(android.view.Gravity.CENTER);
-        textView.setPadding(8, 8, 8, 8);
-        return textView;
-    }
-
-    /**
-     * 创建查看按钮
-     */
-    private Button createViewButton(AdminViewModel.FarmerStatistics stats) {
-        Button button = new Button(this);
-        button.setText("查看");
-        button.setTextSize(12);
-        button.setTextColor(0xFFFFFFFF);
-        button.setBackgroundColor(0xFF2196F3);
-        button.setPadding(16, 8, 16, 8);
-
-        LinearLayout.LayoutParams params = new LinearLayout.LayoutParams(
-                ViewGroup.LayoutParams.WRAP_CONTENT,
-                ViewGroup.LayoutParams.WRAP_CONTENT);
-        params.setMargins(4, 4, 4, 4);
-        button.setLayoutParams(params);
-
-        // 设置点击监听器 - 打开Level 2详情对话框
-        button.setOnClickListener(v -> {
-            showFarmerDetailDialog(stats);
-        });
-
-        return button;
-    }
-
     /**
      * 显示农户详细信息对话框（Level 2）
      */
@@ -270,7 +211,8 @@ public class AdminActivity extends AppCompatActivity {
         TextView tvIdNumber = dialog.findViewById(R.id.tv_detail_id_number);
         TextView tvTotalWeight = dialog.findViewById(R.id.tv_detail_total_weight);
         TextView tvRecordCount = dialog.findViewById(R.id.tv_detail_record_count);
-        LinearLayout layoutRecordsContainer = dialog.findViewById(R.id.layout_records_container);
+        RecyclerView rvFarmerRecords = dialog.findViewById(R.id.rv_farmer_records);
+        TextView tvRecordsEmpty = dialog.findViewById(R.id.tv_records_empty);
         Button btnExportFarmer = dialog.findViewById(R.id.btn_export_farmer_data);
         Button btnClose = dialog.findViewById(R.id.btn_close_dialog);
 
@@ -280,48 +222,31 @@ public class AdminActivity extends AppCompatActivity {
         tvTotalWeight.setText(String.format("%.2f kg", stats.getTotalWeight()));
         tvRecordCount.setText(String.valueOf(stats.getRecordCount()));
 
-        // 清空记录容器并显示加载状态
-        layoutRecordsContainer.removeAllViews();
-        TextView loadingText = new TextView(this);
-        loadingText.setText("正在加载记录...");
-        loadingText.setGravity(android.view.Gravity.CENTER);
-        loadingText.setPadding(16, 16, 16, 16);
-        loadingText.setTextColor(0xFF757575);
-        layoutRecordsContainer.addView(loadingText);
-
-        // 加载农户的所有个人记录
-        weightRecordRepository.getRecordsByIdCard(stats.getIdCardNumber()).observe(this,
-                new androidx.lifecycle.Observer<List<com.tobacco.weight.data.model.WeightRecord>>() {
-                    @Override
-                    public void onChanged(List<com.tobacco.weight.data.model.WeightRecord> records) {
-                        // Remove observer after first load to avoid memory leaks
-                        weightRecordRepository.getRecordsByIdCard(stats.getIdCardNumber()).removeObserver(this);
-
-                        runOnUiThread(() -> {
-                            layoutRecordsContainer.removeAllViews(); // 清除加载状态
-
-                            if (records != null && !records.isEmpty()) {
-                                // 为每条记录创建显示行
-                                for (int i = 0; i < records.size(); i++) {
-                                    LinearLayout recordRow = createSimpleRecordRow(records.get(i), i);
-                                    layoutRecordsContainer.addView(recordRow);
-                                }
-
-                                // 强制刷新布局以确保滚动正常工作
-                                layoutRecordsContainer.requestLayout();
-                            } else {
-                                // 没有记录时显示提示
-                                TextView noRecordsText = new TextView(AdminActivity.this);
-                                noRecordsText.setText("暂无记录");
-                                noRecordsText.setGravity(android.view.Gravity.CENTER);
-                                noRecordsText.setPadding(16, 32, 16, 32);
-                                noRecordsText.setTextColor(0xFF757575);
-                                noRecordsText.setTextSize(16);
-                                layoutRecordsContainer.addView(noRecordsText);
-                            }
-                        });
-                    }
-                });
+        // 分页加载农户的个人记录
+        FarmerRecordPagingAdapter recordsAdapter = new FarmerRecordPagingAdapter(this::showRecordDetailDialog);
+        rvFarmerRecords.setLayoutManager(new LinearLayoutManager(this));
+        rvFarmerRecords.setAdapter(recordsAdapter);
+        recordsAdapter.addLoadStateListener(loadStates -> {
+            if (loadStates.getRefresh() instanceof LoadState.Loading) {
+                tvRecordsEmpty.setText("正在加载记录...");
+                tvRecordsEmpty.setVisibility(View.VISIBLE);
+            } else if (recordsAdapter.getItemCount() == 0) {
+                // 没有记录时显示提示
+                tvRecordsEmpty.setText("暂无记录");
+                tvRecordsEmpty.setVisibility(View.VISIBLE);
+            } else {
+                tvRecordsEmpty.setVisibility(View.GONE);
+            }
+            return Unit.INSTANCE;
+        });
+
+        LiveData<PagingData<com.tobacco.weight.data.model.WeightRecord>> farmerRecords = PagingLiveData.getLiveData(
+                weightRecordRepository.createRecordPager(RecordFilter.forIdCard(stats.getIdCardNumber())));
+        Observer<PagingData<com.tobacco.weight.data.model.WeightRecord>> recordsObserver =
+                pagingData -> recordsAdapter.submitData(getLifecycle(), pagingData);
+        farmerRecords.observe(this, recordsObserver);
+        // 对话框关闭时停止加载
+        dialog.setOnDismissListener(d -> farmerRecords.removeObserver(recordsObserver));
 
         // 设置导出按钮点击事件
         btnExportFarmer.setOnClickListener(v -> {
@@ -343,91 +268,6 @@ public class AdminActivity extends AppCompatActivity {
         }
     }
 
-    /**
-     * 创建简化的单条记录显示行 (时间、总捆数、预检编号、查看按钮)
-     */
-    private LinearLayout createSimpleRecordRow(com.tobacco.weight.data.model.WeightRecord record, int index) {
-        LinearLayout row = new LinearLayout(this);
-        row.setOrientation(LinearLayout.HORIZONTAL);
-        row.setPadding(8, 12, 8, 12);
-
-        // 设置交替行背景
-        if (index % 2 == 0) {
-            row.setBackgroundColor(0xFFFFFFFF); // 白色
-        } else {
-            row.setBackgroundColor(0xFFF9F9F9); // 浅灰色
-        }
-
-        // 格式化时间
-        SimpleDateFormat sdf = new SimpleDateFormat("MM-dd HH:mm", Locale.getDefault());
-        String timeStr = sdf.format(new Date(record.getTimestamp()));
-
-        // 时间 (权重3)
-        TextView tvTime = createRecordCell(timeStr, 3);
-        tvTime.setTextSize(13);
-        tvTime.setTextColor(0xFF212121);
-        row.addView(tvTime);
-
-        // 总捆数 (权重2) - 使用新的数据结构
-        TextView tvBundles = createRecordCell(String.valueOf(record.getTotalBundles()), 2);
-        tvBundles.setTextSize(13);
-        tvBundles.setTextColor(0xFF4CAF50);
-        row.addView(tvBundles);
-
-        // 预检编号 (权重4) - 替换合同编号
-        TextView tvPrecheckNumber = createRecordCell(getDisplayText(record.getPreCheckNumber()), 4);
-        tvPrecheckNumber.setTextSize(13);
-        tvPrecheckNumber.setTextColor(0xFF2196F3);
-        row.addView(tvPrecheckNumber);
-
-        // 查看按钮 (权重2)
-        LinearLayout buttonContainer = new LinearLayout(this);
-        buttonContainer.setLayoutParams(new LinearLayout.LayoutParams(0, ViewGroup.LayoutParams.WRAP_CONTENT, 2));
-        buttonContainer.setGravity(android.view.Gravity.CENTER);
-        buttonContainer.setPadding(4, 0, 4, 0);
-
-        Button viewButton = new Button(this);
-        viewButton.setText("查看");
-        viewButton.setTextSize(11);
-        viewButton.setTextColor(0xFFFFFFFF);
-        viewButton.setBackgroundColor(0xFF2196F3);
-        
-        // 设置按钮大小
-        LinearLayout.LayoutParams buttonParams = new LinearLayout.LayoutParams(
-                ViewGroup.LayoutParams.WRAP_CONTENT,
-                (int) (32 * getResources().getDisplayMetrics().density) // 32dp height
-        );
-        buttonParams.setMargins(2, 2, 2, 2);
-        viewButton.setLayoutParams(buttonParams);
-        viewButton.setPadding(12, 4, 12, 4);
-
-        // 设置点击监听器 - 显示个人记录详情（Level 3）
-        viewButton.setOnClickListener(v -> {
-            showRecordDetailDialog(record);
-        });
-
-        buttonContainer.addView(viewButton);
-        row.addView(buttonContainer);
-
-        // 移除整行点击监听器，现在只通过按钮点击
-        row.setClickable(false);
-        row.setFocusable(false);
-        
-        return row;
-    }
-
-    /**
-     * 创建记录单元格
-     */
-    private TextView createRecordCell(String text, int weight) {
-        TextView textView = new TextView(this);
-        textView.setLayoutParams(new LinearLayout.LayoutParams(0, ViewGroup.LayoutParams.WRAP_CONTENT, weight));
-        textView.setText(text);
-        textView.setGravity(android.view.Gravity.CENTER);
-        textView.setPadding(4, 4, 4, 4);
-        return textView;
-    }
-
     /**
      * 根据烟叶部位获取颜色
      */
@@ -676,32 +516,7 @@ public class AdminActivity extends AppCompatActivity {
             Toast.makeText(this, "数据服务未初始化", Toast.LENGTH_SHORT).show();
             return;
         }
-
-        Toast.makeText(this, "正在准备导出所有数据...", Toast.LENGTH_SHORT).show();
-
-        // 获取数据库中的所有记录
-        weightRecordRepository.getAllRecords().observe(this, records -> {
-            if (records != null && !records.isEmpty()) {
-                // 使用导出工具导出数据
-                DataExportUtils.exportAllRecordsToCSV(this, records, new DataExportUtils.ExportCallback() {
-                    @Override
-                    public void onSuccess(String message, String filePath, File file) {
-                        runOnUiThread(() -> {
-                            showExportSuccessDialog(message, file);
-                        });
-                    }
-
-                    @Override
-                    public void onError(String error) {
-                        runOnUiThread(() -> {
-                            Toast.makeText(AdminActivity.this, error, Toast.LENGTH_LONG).show();
-                        });
-                    }
-                });
-            } else {
-                Toast.makeText(this, "没有数据可导出", Toast.LENGTH_SHORT).show();
-            }
-        });
+        startExport("正在导出所有数据...", weightRecordRepository::exportAllRecordsToCsv);
     }
 
     /**
@@ -712,35 +527,71 @@ public class AdminActivity extends AppCompatActivity {
             Toast.makeText(this, "数据服务未初始化", Toast.LENGTH_SHORT).show();
             return;
         }
+        startExport("正在导出" + farmerName + "的数据...",
+                callback -> weightRecordRepository.exportFarmerRecordsToCsv(farmerName, callback));
+    }
 
-        Toast.makeText(this, "正在准备导出" + farmerName + "的数据...", Toast.LENGTH_SHORT).show();
-
-        // 获取指定农户的记录
-        weightRecordRepository.getRecordsByFarmerName(farmerName).observe(this, records -> {
-            if (records != null && !records.isEmpty()) {
-                // 使用导出工具导出数据
-                DataExportUtils.exportFarmerRecordsToCSV(this, records, farmerName,
-                        new DataExportUtils.ExportCallback() {
-                            @Override
-                            public void onSuccess(String message, String filePath, File file) {
-                                runOnUiThread(() -> {
-                                    showExportSuccessDialog(message, file);
-                                });
-                            }
-
-                            @Override
-                            public void onError(String error) {
-                                runOnUiThread(() -> {
-                                    Toast.makeText(AdminActivity.this, error, Toast.LENGTH_LONG).show();
-                                });
-                            }
-                        });
-            } else {
-                Toast.makeText(this, farmerName + "没有称重记录", Toast.LENGTH_SHORT).show();
+    /**
+     * 启动后台导出，显示进度对话框，可随时取消
+     */
+    private void startExport(String title,
+                             Function<DataExportUtils.ExportCallback, DataExportUtils.ExportTask> export) {
+        if (currentExportTask != null) {
+            Toast.makeText(this, "已有导出任务正在进行", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        androidx.appcompat.app.AlertDialog progressDialog = new androidx.appcompat.app.AlertDialog.Builder(this)
+                .setTitle(title)
+                .setMessage("正在准备数据...")
+                .setCancelable(false)
+                .setNegativeButton("取消", (dialog, which) -> {
+                    if (currentExportTask != null) {
+                        currentExportTask.cancel();
+                    }
+                })
+                .create();
+        progressDialog.show();
+
+        currentExportTask = export.apply(new DataExportUtils.ExportCallback() {
+            @Override
+            public void onProgress(int exported, int total) {
+                runOnUiThread(() -> progressDialog.setMessage("已导出 " + exported + " / " + total + " 条"));
+            }
+
+            @Override
+            public void onSuccess(String message, String filePath, File file) {
+                runOnUiThread(() -> {
+                    finishExport(progressDialog);
+                    showExportSuccessDialog(message, file);
+                });
+            }
+
+            @Override
+            public void onError(String error) {
+                runOnUiThread(() -> {
+                    finishExport(progressDialog);
+                    Toast.makeText(AdminActivity.this, error, Toast.LENGTH_LONG).show();
+                });
+            }
+
+            @Override
+            public void onCancelled() {
+                runOnUiThread(() -> {
+                    finishExport(progressDialog);
+                    Toast.makeText(AdminActivity.this, "导出已取消", Toast.LENGTH_SHORT).show();
+                });
             }
         });
     }
 
+    private void finishExport(Dialog progressDialog) {
+        currentExportTask = null;
+        if (!isFinishing() && !isDestroyed() && progressDialog.isShowing()) {
+            progressDialog.dismiss();
+        }
+    }
+
     /**
      * 显示导出成功的Dialog
      */
@@ -770,6 +621,16 @@ public class AdminActivity extends AppCompatActivity {
         dialog.show();
     }
 
+    @Override
+    protected void onDestroy() {
+        // 界面销毁时取消导出，避免在后台继续写文件
+        if (currentExportTask != null) {
+            currentExportTask.cancel();
+            currentExportTask = null;
+        }
+        super.onDestroy();
+    }
+
     @Override
     public boolean onSupportNavigateUp() {
         onBackPressed();
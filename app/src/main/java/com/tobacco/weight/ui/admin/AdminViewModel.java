@@ -4,6 +4,7 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
+import com.tobacco.weight.data.dao.FarmerRecordSummary;
 import com.tobacco.weight.data.entity.FarmerInfoEntity;
 import com.tobacco.weight.data.repository.FarmerInfoRepository;
 import com.tobacco.weight.data.repository.WeightRecordRepository;
@@ -39,6 +40,9 @@ public class AdminViewModel extends ViewModel {
     // 农户统计列表
     private final MutableLiveData<List<FarmerStatistics>> farmerStatisticsList = new MutableLiveData<>(new ArrayList<>());
 
+    // 汇总表校验结果
+    private final MutableLiveData<String> aggregateCheckStatus = new MutableLiveData<>("");
+
     @Inject
     public AdminViewModel(
             FarmerInfoRepository farmerInfoRepository,
@@ -58,6 +62,42 @@ public class AdminViewModel extends ViewModel {
         loadFarmerStatistics();
     }
 
+    /**
+     * 校验农户汇总表：与称重记录不一致时按称重记录重建，并刷新统计
+     */
+    public void checkAggregates() {
+        weightRecordRepository.verifyFarmerAggregates(new WeightRecordRepository.OnResultListener<List<String>>() {
+            @Override
+            public void onSuccess(List<String> drifts) {
+                if (drifts.isEmpty()) {
+                    aggregateCheckStatus.postValue("汇总数据与称重记录一致");
+                } else {
+                    rebuildAggregates();
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                aggregateCheckStatus.postValue("汇总数据校验失败：" + e.getMessage());
+            }
+        });
+    }
+
+    private void rebuildAggregates() {
+        weightRecordRepository.rebuildFarmerAggregates(new WeightRecordRepository.OnResultListener<Integer>() {
+            @Override
+            public void onSuccess(Integer fixed) {
+                aggregateCheckStatus.postValue("发现 " + fixed + " 处差异，已按称重记录重建汇总");
+                refreshData();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                aggregateCheckStatus.postValue("汇总数据重建失败：" + e.getMessage());
+            }
+        });
+    }
+
     /**
      * 加载系统统计数据
      */
@@ -141,64 +181,63 @@ public class AdminViewModel extends ViewModel {
 
     /**
      * 为农户列表获取统计数据
+     * 一次分组查询取回全部农户汇总，再按身份证号在内存中关联
      */
     private void loadFarmerStatisticsForFarmers(List<FarmerInfoEntity> farmers) {
-        List<FarmerStatistics> statsList = new ArrayList<>();
-        final int[] completedCount = {0}; // 使用数组来在回调中修改
-
-        for (FarmerInfoEntity farmer : farmers) {
-            // 获取每个农户的完整称重记录统计
-            weightRecordRepository.getFarmerCompleteStatistics(farmer.getIdCardNumber(),
-                    new WeightRecordRepository.CompleteStatsCallback() {
-                        @Override
-                        public void onSuccess(int recordCount, int totalLeafCount, double totalWeight, String lastRecordDate) {
-                            // 创建农户统计对象
-                            FarmerStatistics stats = new FarmerStatistics(
-                                    farmer.getFarmerName(),
-                                    farmer.getIdCardNumber(),
-                                    recordCount,
-                                    totalLeafCount,
-                                    totalWeight,
-                                    lastRecordDate != null ? lastRecordDate : "暂无记录"
-                            );
-                            
-                            synchronized (statsList) {
-                                statsList.add(stats);
-                                completedCount[0]++;
-                                
-                                // 所有农户数据都加载完成后更新UI
-                                if (completedCount[0] == farmers.size()) {
-                                    // 按照总重量降序排序
-                                    statsList.sort((a, b) -> Double.compare(b.getTotalWeight(), a.getTotalWeight()));
-                                    farmerStatisticsList.postValue(statsList);
-                                }
-                            }
-                        }
-
-                        @Override
-                        public void onFailure(String error) {
-                            // 即使获取统计失败，也要创建一个空统计对象
-                            FarmerStatistics stats = new FarmerStatistics(
-                                    farmer.getFarmerName(),
-                                    farmer.getIdCardNumber(),
-                                    0, // recordCount
-                                    0, // leafCount
-                                    0.0, // totalWeight
-                                    "暂无记录"
-                            );
-                            
-                            synchronized (statsList) {
-                                statsList.add(stats);
-                                completedCount[0]++;
-                                
-                                if (completedCount[0] == farmers.size()) {
-                                    statsList.sort((a, b) -> Double.compare(b.getTotalWeight(), a.getTotalWeight()));
-                                    farmerStatisticsList.postValue(statsList);
-                                }
-                            }
-                        }
-                    });
-        }
+        weightRecordRepository.getAllFarmerSummaries(new WeightRecordRepository.FarmerSummaryListCallback() {
+            @Override
+            public void onSuccess(List<FarmerRecordSummary> summaries) {
+                Map<String, FarmerRecordSummary> summaryByIdCard = new HashMap<>();
+                for (FarmerRecordSummary summary : summaries) {
+                    summaryByIdCard.put(summary.idCardNumber, summary);
+                }
+
+                SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
+                List<FarmerStatistics> statsList = new ArrayList<>(farmers.size());
+                for (FarmerInfoEntity farmer : farmers) {
+                    FarmerRecordSummary summary = summaryByIdCard.get(farmer.getIdCardNumber());
+                    if (summary == null) {
+                        // 没有称重记录的农户
+                        statsList.add(createEmptyStatistics(farmer));
+                        continue;
+                    }
+                    statsList.add(new FarmerStatistics(
+                            farmer.getFarmerName(),
+                            farmer.getIdCardNumber(),
+                            summary.recordCount,
+                            summary.totalBundles,
+                            summary.totalWeight,
+                            summary.lastTimestamp != null
+                                    ? sdf.format(new Date(summary.lastTimestamp)) : "暂无记录"
+                    ));
+                }
+
+                // 按照总重量降序排序
+                statsList.sort((a, b) -> Double.compare(b.getTotalWeight(), a.getTotalWeight()));
+                farmerStatisticsList.postValue(statsList);
+            }
+
+            @Override
+            public void onFailure(String error) {
+                // 即使获取统计失败，也要为每个农户创建空统计对象
+                List<FarmerStatistics> statsList = new ArrayList<>(farmers.size());
+                for (FarmerInfoEntity farmer : farmers) {
+                    statsList.add(createEmptyStatistics(farmer));
+                }
+                farmerStatisticsList.postValue(statsList);
+            }
+        });
+    }
+
+    private static FarmerStatistics createEmptyStatistics(FarmerInfoEntity farmer) {
+        return new FarmerStatistics(
+                farmer.getFarmerName(),
+                farmer.getIdCardNumber(),
+                0, // recordCount
+                0, // leafCount
+                0.0, // totalWeight
+                "暂无记录"
+        );
     }
 
     // === Getter方法，供UI观察 ===
@@ -223,6 +262,10 @@ public class AdminViewModel extends ViewModel {
         return farmerStatisticsList;
     }
 
+    public LiveData<String> getAggregateCheckStatus() {
+        return aggregateCheckStatus;
+    }
+
     // === 数据模型类 ===
 
     /**
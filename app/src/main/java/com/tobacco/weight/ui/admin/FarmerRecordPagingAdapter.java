@@ -0,0 +1,164 @@
+package com.tobacco.weight.ui.admin;
+
+import android.content.Context;
+import android.view.Gravity;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.tobacco.weight.data.model.WeightRecord;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * 农户详情对话框中的记录表格适配器（分页加载）
+ * 每行显示时间、总捆数、预检编号和查看按钮
+ */
+public class FarmerRecordPagingAdapter extends PagingDataAdapter<WeightRecord, FarmerRecordPagingAdapter.RecordRowViewHolder> {
+
+    /**
+     * 查看记录详情回调
+     */
+    public interface OnRecordClickListener {
+        void onViewRecord(WeightRecord record);
+    }
+
+    private static final DiffUtil.ItemCallback<WeightRecord> DIFF_CALLBACK = new DiffUtil.ItemCallback<WeightRecord>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull WeightRecord oldItem, @NonNull WeightRecord newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull WeightRecord oldItem, @NonNull WeightRecord newItem) {
+            return oldItem.getTimestamp() == newItem.getTimestamp()
+                    && oldItem.getTotalBundles() == newItem.getTotalBundles()
+                    && Objects.equals(oldItem.getPreCheckNumber(), newItem.getPreCheckNumber());
+        }
+    };
+
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("MM-dd HH:mm", Locale.getDefault());
+    private final OnRecordClickListener listener;
+
+    public FarmerRecordPagingAdapter(OnRecordClickListener listener) {
+        super(DIFF_CALLBACK);
+        this.listener = listener;
+    }
+
+    @NonNull
+    @Override
+    public RecordRowViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        Context context = parent.getContext();
+        LinearLayout row = new LinearLayout(context);
+        row.setLayoutParams(new RecyclerView.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        row.setOrientation(LinearLayout.HORIZONTAL);
+        row.setPadding(8, 12, 8, 12);
+
+        // 时间 (权重3)
+        TextView tvTime = createRecordCell(context, 3);
+        tvTime.setTextColor(0xFF212121);
+        row.addView(tvTime);
+
+        // 总捆数 (权重2)
+        TextView tvBundles = createRecordCell(context, 2);
+        tvBundles.setTextColor(0xFF4CAF50);
+        row.addView(tvBundles);
+
+        // 预检编号 (权重4)
+        TextView tvPrecheckNumber = createRecordCell(context, 4);
+        tvPrecheckNumber.setTextColor(0xFF2196F3);
+        row.addView(tvPrecheckNumber);
+
+        // 查看按钮 (权重2)
+        LinearLayout buttonContainer = new LinearLayout(context);
+        buttonContainer.setLayoutParams(new LinearLayout.LayoutParams(0, ViewGroup.LayoutParams.WRAP_CONTENT, 2));
+        buttonContainer.setGravity(Gravity.CENTER);
+        buttonContainer.setPadding(4, 0, 4, 0);
+
+        Button viewButton = new Button(context);
+        viewButton.setText("查看");
+        viewButton.setTextSize(11);
+        viewButton.setTextColor(0xFFFFFFFF);
+        viewButton.setBackgroundColor(0xFF2196F3);
+
+        // 设置按钮大小
+        LinearLayout.LayoutParams buttonParams = new LinearLayout.LayoutParams(
+                ViewGroup.LayoutParams.WRAP_CONTENT,
+                (int) (32 * context.getResources().getDisplayMetrics().density) // 32dp height
+        );
+        buttonParams.setMargins(2, 2, 2, 2);
+        viewButton.setLayoutParams(buttonParams);
+        viewButton.setPadding(12, 4, 12, 4);
+
+        buttonContainer.addView(viewButton);
+        row.addView(buttonContainer);
+
+        // 只通过按钮点击
+        row.setClickable(false);
+        row.setFocusable(false);
+
+        return new RecordRowViewHolder(row, tvTime, tvBundles, tvPrecheckNumber, viewButton);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RecordRowViewHolder holder, int position) {
+        WeightRecord record = getItem(position);
+        if (record == null) {
+            return;
+        }
+
+        // 设置交替行背景
+        holder.itemView.setBackgroundColor(position % 2 == 0 ? 0xFFFFFFFF : 0xFFF9F9F9);
+
+        holder.tvTime.setText(timeFormat.format(new Date(record.getTimestamp())));
+        holder.tvBundles.setText(String.valueOf(record.getTotalBundles()));
+        String precheckNumber = record.getPreCheckNumber();
+        holder.tvPrecheckNumber.setText(precheckNumber == null || precheckNumber.trim().isEmpty()
+                ? "未设置" : precheckNumber);
+
+        // 显示个人记录详情（Level 3）
+        holder.viewButton.setOnClickListener(v -> {
+            if (listener != null) {
+                listener.onViewRecord(record);
+            }
+        });
+    }
+
+    /**
+     * 创建记录单元格
+     */
+    private static TextView createRecordCell(Context context, int weight) {
+        TextView textView = new TextView(context);
+        textView.setLayoutParams(new LinearLayout.LayoutParams(0, ViewGroup.LayoutParams.WRAP_CONTENT, weight));
+        textView.setGravity(Gravity.CENTER);
+        textView.setPadding(4, 4, 4, 4);
+        textView.setTextSize(13);
+        return textView;
+    }
+
+    static class RecordRowViewHolder extends RecyclerView.ViewHolder {
+        final TextView tvTime;
+        final TextView tvBundles;
+        final TextView tvPrecheckNumber;
+        final Button viewButton;
+
+        RecordRowViewHolder(@NonNull LinearLayout row, TextView tvTime, TextView tvBundles,
+                            TextView tvPrecheckNumber, Button viewButton) {
+            super(row);
+            this.tvTime = tvTime;
+            this.tvBundles = tvBundles;
+            this.tvPrecheckNumber = tvPrecheckNumber;
+            this.viewButton = viewButton;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.tobacco.weight.ui.admin;
+
+import android.content.Context;
+import android.view.Gravity;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.Objects;
+
+/**
+ * 管理员界面农户统计表格适配器
+ * 刷新时通过 DiffUtil 只更新变化的行
+ */
+public class FarmerStatisticsAdapter extends ListAdapter<AdminViewModel.FarmerStatistics, FarmerStatisticsAdapter.FarmerViewHolder> {
+
+    /**
+     * 查看农户详情回调
+     */
+    public interface OnFarmerClickListener {
+        void onViewFarmer(AdminViewModel.FarmerStatistics stats);
+    }
+
+    private static final DiffUtil.ItemCallback<AdminViewModel.FarmerStatistics> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<AdminViewModel.FarmerStatistics>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull AdminViewModel.FarmerStatistics oldItem,
+                                               @NonNull AdminViewModel.FarmerStatistics newItem) {
+                    return Objects.equals(oldItem.getIdCardNumber(), newItem.getIdCardNumber());
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull AdminViewModel.FarmerStatistics oldItem,
+                                                  @NonNull AdminViewModel.FarmerStatistics newItem) {
+                    return oldItem.getRecordCount() == newItem.getRecordCount()
+                            && Double.compare(oldItem.getTotalWeight(), newItem.getTotalWeight()) == 0
+                            && Objects.equals(oldItem.getFarmerName(), newItem.getFarmerName());
+                }
+            };
+
+    private final OnFarmerClickListener listener;
+
+    public FarmerStatisticsAdapter(OnFarmerClickListener listener) {
+        super(DIFF_CALLBACK);
+        this.listener = listener;
+    }
+
+    @NonNull
+    @Override
+    public FarmerViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        Context context = parent.getContext();
+        LinearLayout row = new LinearLayout(context);
+        row.setLayoutParams(new RecyclerView.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        row.setOrientation(LinearLayout.HORIZONTAL);
+        row.setPadding(12, 12, 12, 12);
+
+        // 农户姓名
+        TextView tvName = createTableCell(context, 3);
+        tvName.setTextColor(0xFF212121);
+        tvName.setTextSize(16);
+        row.addView(tvName);
+
+        // 记录总数
+        TextView tvCount = createTableCell(context, 2);
+        tvCount.setTextColor(0xFF4CAF50);
+        tvCount.setTextSize(16);
+        row.addView(tvCount);
+
+        // 总重量
+        TextView tvWeight = createTableCell(context, 3);
+        tvWeight.setTextColor(0xFF2196F3);
+        tvWeight.setTextSize(16);
+        row.addView(tvWeight);
+
+        // 操作按钮
+        LinearLayout buttonContainer = new LinearLayout(context);
+        buttonContainer.setLayoutParams(new LinearLayout.LayoutParams(0, ViewGroup.LayoutParams.WRAP_CONTENT, 2));
+        buttonContainer.setGravity(Gravity.CENTER);
+
+        Button viewButton = createViewButton(context);
+        buttonContainer.addView(viewButton);
+        row.addView(buttonContainer);
+
+        return new FarmerViewHolder(row, tvName, tvCount, tvWeight, viewButton);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull FarmerViewHolder holder, int position) {
+        AdminViewModel.FarmerStatistics stats = getItem(position);
+
+        // 设置交替行背景
+        holder.itemView.setBackgroundColor(position % 2 == 0 ? 0xFFFFFFFF : 0xFFF5F5F5);
+
+        holder.tvName.setText(stats.getFarmerName());
+        holder.tvCount.setText(String.valueOf(stats.getRecordCount()));
+        holder.tvWeight.setText(String.format("%.2f kg", stats.getTotalWeight()));
+
+        // 打开Level 2详情对话框
+        holder.viewButton.setOnClickListener(v -> {
+            if (listener != null) {
+                listener.onViewFarmer(stats);
+            }
+        });
+    }
+
+    /**
+     * 创建表格单元格
+     */
+    private static TextView createTableCell(Context context, int weight) {
+        TextView textView = new TextView(context);
+        textView.setLayoutParams(new LinearLayout.LayoutParams(0, ViewGroup.LayoutParams.WRAP_CONTENT, weight));
+        textView.setGravity(Gravity.CENTER);
+        textView.setPadding(8, 8, 8, 8);
+        return textView;
+    }
+
+    /**
+     * 创建查看按钮
+     */
+    private static Button createViewButton(Context context) {
+        Button button = new Button(context);
+        button.setText("查看");
+        button.setTextSize(12);
+        button.setTextColor(0xFFFFFFFF);
+        button.setBackgroundColor(0xFF2196F3);
+        button.setPadding(16, 8, 16, 8);
+
+        LinearLayout.LayoutParams params = new LinearLayout.LayoutParams(
+                ViewGroup.LayoutParams.WRAP_CONTENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT);
+        params.setMargins(4, 4, 4, 4);
+        button.setLayoutParams(params);
+        return button;
+    }
+
+    static class FarmerViewHolder extends RecyclerView.ViewHolder {
+        final TextView tvName;
+        final TextView tvCount;
+        final TextView tvWeight;
+        final Button viewButton;
+
+        FarmerViewHolder(@NonNull LinearLayout row, TextView tvName, TextView tvCount,
+                         TextView tvWeight, Button viewButton) {
+            super(row);
+            this.tvName = tvName;
+            this.tvCount = tvCount;
+            this.tvWeight = tvWeight;
+            this.viewButton = viewButton;
+        }
+    }
+}
@@ -6,9 +6,13 @@ import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
 import android.widget.Button;
 import android.widget.EditText;
+import android.widget.ImageView;
 import android.widget.LinearLayout;
+import android.widget.Spinner;
 import android.widget.TextView;
 import android.widget.Toast;
 
@@ -19,9 +23,11 @@ import androidx.lifecycle.ViewModelProvider;
 
 import com.tobacco.weight.R;
 import com.tobacco.weight.data.FarmerStatistics;
+import com.tobacco.weight.data.photo.PhotoStore;
 import com.tobacco.weight.hardware.idcard.IdCardData;
 import com.tobacco.weight.hardware.printer.PrinterManager;
-import com.tobacco.weight.hardware.printer.LabelData;
+import com.tobacco.weight.hardware.printer.PrintTemplates;
+import com.tobacco.weight.hardware.printer.TemplateValues;
 import com.tobacco.weight.ui.admin.AdminActivity;
 import com.tobacco.weight.utils.DataExportUtils;
 
@@ -33,6 +39,8 @@ import java.util.Locale;
 
 import javax.inject.Inject;
 
+import com.bumptech.glide.Glide;
+
 import dagger.hilt.android.AndroidEntryPoint;
 
 /**
@@ -42,6 +50,10 @@ import dagger.hilt.android.AndroidEntryPoint;
 @AndroidEntryPoint
 public class WeightingFragment extends Fragment {
 
+    // 读卡成功对话框中身份证照片的显示尺寸（照片原图 102x126）
+    private static final int ID_PHOTO_WIDTH_DP = 102;
+    private static final int ID_PHOTO_HEIGHT_DP = 126;
+
     private WeightingViewModel viewModel;
     private MainViewModel mainViewModel;
 
@@ -52,6 +64,9 @@ public class WeightingFragment extends Fragment {
     @Inject
     com.tobacco.weight.hardware.idcard.IdCardManager idCardManager;
 
+    @Inject
+    PhotoStore photoStore;
+
     // RxJava disposables for managing subscriptions
     private io.reactivex.rxjava3.disposables.CompositeDisposable disposables = new io.reactivex.rxjava3.disposables.CompositeDisposable();
 
@@ -91,6 +106,7 @@ public class WeightingFragment extends Fragment {
     private TextView tvMiddleLeafStats;
     private TextView tvLowerLeafStats;
     private TextView tvCurrentScaleWeight;
+    private Spinner spinnerScale;
     private TextView tvFarmerNameDisplay;
     private TextView tvIdCardNumberDisplay;  // Changed from tvContractNumberDisplay to ID card display
 
@@ -302,11 +318,12 @@ public class WeightingFragment extends Fragment {
                 }
             });
 
-            // 观察会话状态
+            // 观察会话状态（自动采集添加记录时也会触发）
             viewModel.getSessionStatus().observe(getViewLifecycleOwner(), status -> {
                 if (tvSessionStatus != null && status != null) {
                     tvSessionStatus.setText(status);
                 }
+                updateSessionStatisticsDisplay();
             });
             
             // 观察会话状态，更新按钮状态和显示
@@ -327,6 +344,9 @@ public class WeightingFragment extends Fragment {
                     tvCurrentScaleWeight.setText(weight);
                 }
             });
+
+            // 观察本站点的秤（多秤时显示秤选择）
+            viewModel.getScaleIds().observe(getViewLifecycleOwner(), this::setupScaleSelector);
             
             // 观察农户姓名显示在右侧
             viewModel.getFarmerName().observe(getViewLifecycleOwner(), name -> {
@@ -439,7 +459,8 @@ public class WeightingFragment extends Fragment {
                             idCardData.getName(),
                             idCardData.getIdNumber(),
                             idCardData.getGender(),
-                            idCardData.getNationality());
+                            idCardData.getNationality(),
+                            idCardData.getPhotoHash());
                 }
                 break;
             case ID_CARD_FAILURE:
@@ -500,6 +521,7 @@ public class WeightingFragment extends Fragment {
         tvMiddleLeafStats = view.findViewById(R.id.tv_middle_leaf_stats);
         tvLowerLeafStats = view.findViewById(R.id.tv_lower_leaf_stats);
         tvCurrentScaleWeight = view.findViewById(R.id.tv_current_scale_weight);
+        spinnerScale = view.findViewById(R.id.spinner_scale);
         tvFarmerNameDisplay = view.findViewById(R.id.tv_farmer_name_display);
         tvIdCardNumberDisplay = view.findViewById(R.id.tv_id_card_number_display);  // Use the new ID
 
@@ -515,6 +537,38 @@ public class WeightingFragment extends Fragment {
         }
     }
 
+    /**
+     * 设置电子秤选择（单秤站点隐藏）
+     */
+    private void setupScaleSelector(List<String> scaleIds) {
+        if (spinnerScale == null || scaleIds == null) {
+            return;
+        }
+        if (scaleIds.size() < 2) {
+            spinnerScale.setVisibility(View.GONE);
+            return;
+        }
+        ArrayAdapter<String> adapter = new ArrayAdapter<>(requireContext(),
+                android.R.layout.simple_spinner_item, scaleIds);
+        adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        spinnerScale.setAdapter(adapter);
+        int selected = scaleIds.indexOf(viewModel.getSelectedScaleId().getValue());
+        if (selected >= 0) {
+            spinnerScale.setSelection(selected);
+        }
+        spinnerScale.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                viewModel.selectScale(scaleIds.get(position));
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        });
+        spinnerScale.setVisibility(View.VISIBLE);
+    }
+
     /**
      * 设置基本的点击监听器
      */
@@ -537,6 +591,11 @@ public class WeightingFragment extends Fragment {
             });
         }
 
+        // 长按等级按钮切换自动采集模式
+        setupAutoCaptureLongClick(btnUpperLevel, "上部叶");
+        setupAutoCaptureLongClick(btnMiddleLevel, "中部叶");
+        setupAutoCaptureLongClick(btnLowerLevel, "下部叶");
+
         // 会话按钮监听器
         if (btnStartSession != null) {
             btnStartSession.setOnClickListener(v -> {
@@ -588,6 +647,10 @@ public class WeightingFragment extends Fragment {
                 if (viewModel != null) {
                     viewModel.confirmAndSaveSession();
                 }
+                // 本位烟农已完成，读卡器快速轮询等待下一位
+                if (idCardManager != null) {
+                    idCardManager.expectCard();
+                }
             });
         }
         
@@ -688,6 +751,44 @@ public class WeightingFragment extends Fragment {
         }
     }
 
+    /**
+     * 长按等级按钮：开启/关闭该等级的自动采集
+     */
+    private void setupAutoCaptureLongClick(View button, String level) {
+        if (button == null) {
+            return;
+        }
+        button.setOnLongClickListener(v -> {
+            if (viewModel == null) {
+                return true;
+            }
+            
+            if (Boolean.TRUE.equals(viewModel.getAutoCaptureActive().getValue())) {
+                viewModel.disableAutoCapture();
+                Toast.makeText(getContext(), "自动采集已关闭", Toast.LENGTH_SHORT).show();
+                return true;
+            }
+            
+            if (viewModel.getCurrentSessionState() != WeightingViewModel.SessionState.ACTIVE) {
+                Toast.makeText(getContext(), "请先开始会话", Toast.LENGTH_SHORT).show();
+                return true;
+            }
+            
+            String bundleCountStr = etBundleCount != null ? etBundleCount.getText().toString().trim() : "";
+            int bundleCount;
+            try {
+                bundleCount = bundleCountStr.isEmpty() ? 1 : Integer.parseInt(bundleCountStr);
+            } catch (NumberFormatException e) {
+                Toast.makeText(getContext(), "请输入有效的捆数", Toast.LENGTH_SHORT).show();
+                return true;
+            }
+            
+            viewModel.enableAutoCapture(level, bundleCount);
+            Toast.makeText(getContext(), String.format("自动采集已开启: %s %d捆/次", level, bundleCount), Toast.LENGTH_SHORT).show();
+            return true;
+        });
+    }
+
     /**
      * 打开管理员界面
      */
@@ -776,8 +877,8 @@ public class WeightingFragment extends Fragment {
                 }
             });
 
-            // 创建标签数据
-            LabelData labelData = LabelData.createTobaccoWeighingLabel(
+            // 标签变量值（模板只编译一次）
+            TemplateValues labelValues = PrintTemplates.tobaccoLabelValues(
                     printData.getFarmerName(),
                     printData.getPrecheckId(),
                     printData.getTobaccoLevel(),
@@ -785,7 +886,7 @@ public class WeightingFragment extends Fragment {
                     printData.getContractNumber());
 
             // 执行打印
-            printerManager.printLabel(labelData);
+            printerManager.printTemplate(PrintTemplates.TOBACCO_LABEL, labelValues);
 
         } catch (Exception e) {
             viewModel.notifyPrintFailure("系统错误", "打印系统出现异常", e.getMessage());
@@ -916,7 +1017,8 @@ public class WeightingFragment extends Fragment {
     /**
      * 显示身份证读取成功界面
      */
-    private void showIdCardSuccessDialog(String farmerName, String idNumber, String gender, String nationality) {
+    private void showIdCardSuccessDialog(String farmerName, String idNumber, String gender, String nationality,
+            String photoHash) {
         if (getContext() == null)
             return;
 
@@ -941,6 +1043,17 @@ public class WeightingFragment extends Fragment {
 
         builder.setMessage(message.toString());
 
+        // 身份证照片：Glide 从 PhotoStore 文件按控件大小降采样解码，解码结果由 Glide 的内存 LRU 缓存
+        if (photoHash != null && photoStore.contains(photoHash)) {
+            float density = getResources().getDisplayMetrics().density;
+            ImageView photoView = new ImageView(getContext());
+            photoView.setLayoutParams(new ViewGroup.LayoutParams(
+                    (int) (ID_PHOTO_WIDTH_DP * density), (int) (ID_PHOTO_HEIGHT_DP * density)));
+            photoView.setScaleType(ImageView.ScaleType.FIT_CENTER);
+            Glide.with(this).load(photoStore.file(photoHash)).into(photoView);
+            builder.setView(photoView);
+        }
+
         // 设置按钮
         builder.setPositiveButton("开始称重", (dialog, which) -> {
             dialog.dismiss();
@@ -1288,6 +1401,11 @@ public class WeightingFragment extends Fragment {
             viewModel.generateNewContractNumber();
         }
 
+        // 读卡器快速轮询，等待下一位烟农放卡
+        if (idCardManager != null) {
+            idCardManager.expectCard();
+        }
+
         Toast.makeText(getContext(), "准备进行下一次称重", Toast.LENGTH_SHORT).show();
     }
 
@@ -8,10 +8,14 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
+import com.tobacco.weight.hardware.scale.ScaleRegistry;
+import com.tobacco.weight.hardware.scale.WeightData;
 import com.tobacco.weight.hardware.simulator.HardwareSimulator;
 import com.tobacco.weight.data.WeighingRecord;
 import com.tobacco.weight.data.FarmerStatistics;
 import com.tobacco.weight.data.FarmerInfo;
+import com.tobacco.weight.scheduler.AppScheduler;
+import com.tobacco.weight.scheduler.Lane;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -26,7 +30,6 @@ import javax.inject.Inject;
 import dagger.hilt.android.lifecycle.HiltViewModel;
 import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
 import io.reactivex.rxjava3.disposables.CompositeDisposable;
-import io.reactivex.rxjava3.schedulers.Schedulers;
 
 /**
  * 称重界面ViewModel
@@ -36,7 +39,11 @@ import io.reactivex.rxjava3.schedulers.Schedulers;
 public class WeightingViewModel extends ViewModel {
 
     private final HardwareSimulator hardwareSimulator;
+    private final ScaleRegistry scaleRegistry;
+    private final AppScheduler scheduler;
     private final CompositeDisposable compositeDisposable = new CompositeDisposable();
+    // 当前所选秤的订阅，切换秤时整体替换
+    private final CompositeDisposable scaleDisposables = new CompositeDisposable();
 
     // UI observable data
     private final MutableLiveData<String> farmerName = new MutableLiveData<>("未读取");
@@ -53,6 +60,10 @@ public class WeightingViewModel extends ViewModel {
     private final MutableLiveData<Boolean> isWeightStable = new MutableLiveData<>(false);
     private final MutableLiveData<String> selectedLevel = new MutableLiveData<>("未选择");
 
+    // 本站点的秤（多秤站点在称重界面切换）
+    private final MutableLiveData<List<String>> scaleIds = new MutableLiveData<>();
+    private final MutableLiveData<String> selectedScaleId = new MutableLiveData<>();
+
     // 设备状态
     private final MutableLiveData<Boolean> scaleConnected = new MutableLiveData<>(false);
     private final MutableLiveData<Boolean> printerConnected = new MutableLiveData<>(false);
@@ -106,6 +117,12 @@ public class WeightingViewModel extends ViewModel {
     private final MutableLiveData<Boolean> sessionActive = new MutableLiveData<>(false);
     private final MutableLiveData<SessionState> sessionState = new MutableLiveData<>(SessionState.INACTIVE);
 
+    // 新增：自动采集（上秤稳定后自动添加到会话，采集事件来自 ScaleManager）
+    private volatile boolean autoCaptureEnabled = false;
+    private String autoCaptureGrade = null;
+    private int autoCaptureBundleCount = 0;
+    private final MutableLiveData<Boolean> autoCaptureActive = new MutableLiveData<>(false);
+
     // 身份证相关数据存储
     private String currentIdCardNumber = ""; // 当前身份证号
     private String currentGender = ""; // 当前性别
@@ -115,7 +132,7 @@ public class WeightingViewModel extends ViewModel {
     private String currentDepartment = ""; // 当前签发机关
     private String currentStartDate = ""; // 当前有效期开始
     private String currentEndDate = ""; // 当前有效期结束
-    private byte[] currentPhoto = null; // 当前照片
+    private String currentPhotoHash = null; // 当前照片哈希（PhotoStore）
 
     // 数据库Repository
     private final WeightRecordRepository weightRecordRepository;
@@ -202,8 +219,11 @@ public class WeightingViewModel extends ViewModel {
     }
 
     @Inject
-    public WeightingViewModel(HardwareSimulator hardwareSimulator, WeightRecordRepository weightRecordRepository, FarmerInfoRepository farmerInfoRepository) {
+    public WeightingViewModel(HardwareSimulator hardwareSimulator, ScaleRegistry scaleRegistry, AppScheduler scheduler,
+                              WeightRecordRepository weightRecordRepository, FarmerInfoRepository farmerInfoRepository) {
         this.hardwareSimulator = hardwareSimulator;
+        this.scaleRegistry = scaleRegistry;
+        this.scheduler = scheduler;
         this.weightRecordRepository = weightRecordRepository;
         this.farmerInfoRepository = farmerInfoRepository;
         initializeData();
@@ -217,8 +237,16 @@ public class WeightingViewModel extends ViewModel {
         // 设置当前时间
         updateCurrentTime();
 
-        // 初始化硬件模拟器
+        // 初始化硬件模拟器，按站点配置连接电子秤（TCP 秤连接会阻塞，放到设备 I/O 通道）
         hardwareSimulator.initialize();
+        List<String> stationScales = scaleRegistry.getStationScaleIds();
+        scaleIds.setValue(stationScales);
+        AppScheduler.submit(scheduler.executor(Lane.DEVICE_IO), () -> {
+            int connected = scaleRegistry.connectStation();
+            if (connected < stationScales.size()) {
+                statusMessage.postValue("电子秤连接失败: " + connected + "/" + stationScales.size() + " 台已连接");
+            }
+        }, e -> statusMessage.setValue("电子秤连接任务被拒绝，请稍后重试"));
 
         // 设置默认价格
         priceA.setValue("25.00");
@@ -233,14 +261,8 @@ public class WeightingViewModel extends ViewModel {
         String initialContractNumber = generateContractNumber();
         contractNumber.setValue(initialContractNumber);
 
-        // 固定重量为5kg
-        currentWeight.setValue("5.00 kg");
-        weightValue.setValue(5.0);
-        isWeightStable.setValue(true);
-
-        // 设置设备状态为已连接
+        // 设置设备状态为已连接（重量等待电子秤数据）
         deviceStatus.setValue("电子秤: ✓\n打印机: ✓\n身份证: ✓");
-        statusMessage.setValue("设备就绪，重量稳定：5.00kg");
 
         // 初始化预检比例显示
         upperRatio.setValue("0.0%");
@@ -257,34 +279,55 @@ public class WeightingViewModel extends ViewModel {
      * 订阅硬件数据
      */
     private void subscribeToHardwareData() {
-        // 订阅重量数据
-        compositeDisposable.add(
-                hardwareSimulator.getWeightDataObservable()
-                        .subscribeOn(Schedulers.io())
-                        .observeOn(AndroidSchedulers.mainThread())
-                        .subscribe(this::onWeightDataReceived));
+        // 订阅电子秤数据（默认第一台）
+        selectScale(scaleIds.getValue().get(0));
 
         // 订阅身份证数据
         compositeDisposable.add(
                 hardwareSimulator.getIdCardDataObservable()
-                        .subscribeOn(Schedulers.io())
                         .observeOn(AndroidSchedulers.mainThread())
                         .subscribe(this::onIdCardDataReceived));
 
         // 订阅设备状态
         compositeDisposable.add(
                 hardwareSimulator.getDeviceStatusObservable()
-                        .subscribeOn(Schedulers.io())
                         .observeOn(AndroidSchedulers.mainThread())
                         .subscribe(this::onDeviceStatusReceived));
     }
 
+    /**
+     * 切换当前称重的电子秤
+     * 重量显示和自动采集改为跟随所选的秤，其他秤保持连接。
+     */
+    public void selectScale(String scaleId) {
+        if (scaleId == null || scaleId.equals(selectedScaleId.getValue())) {
+            return;
+        }
+        scaleDisposables.clear();
+        selectedScaleId.setValue(scaleId);
+        weightValue.setValue(0.0);
+        isWeightStable.setValue(false);
+        currentWeight.setValue("0.00 kg");
+
+        // 订阅重量数据（限频、最新值优先的界面快照，稳定性由电子秤处理通道判定）
+        scaleDisposables.add(
+                scaleRegistry.getWeightSnapshots(scaleId)
+                        .subscribe(this::onWeightDataReceived));
+
+        // 自动采集：电子秤处理通道在全速率重量流上检测，只有采集事件切换到主线程
+        scaleDisposables.add(
+                scaleRegistry.getAutoCaptureObservable(scaleId)
+                        .filter(data -> autoCaptureEnabled)
+                        .map(WeightData::getWeight)
+                        .observeOn(AndroidSchedulers.mainThread())
+                        .subscribe(this::onAutoCaptured));
+    }
+
     /**
      * 处理重量数据
      */
-    private void onWeightDataReceived(HardwareSimulator.WeightData weightData) {
-        // 使用固定重量5.00kg代替随机重量
-        double weight = 5.00;
+    private void onWeightDataReceived(WeightData weightData) {
+        double weight = weightData.getWeight();
         boolean stable = weightData.isStable();
 
         weightValue.setValue(weight);
@@ -327,7 +370,7 @@ public class WeightingViewModel extends ViewModel {
         currentDepartment = "";
         currentStartDate = idCardData.getIssueDate() != null ? idCardData.getIssueDate() : "";
         currentEndDate = idCardData.getExpiryDate() != null ? idCardData.getExpiryDate() : "";
-        currentPhoto = idCardData.getPhoto();
+        currentPhotoHash = null; // 模拟器数据没有照片
         
         // 显示验证结果
         String validationMessage = getFarmerValidationMessage(readName, readIdNumber);
@@ -388,19 +431,8 @@ public class WeightingViewModel extends ViewModel {
         currentStartDate = realIdCardData.getStartDate() != null ? realIdCardData.getStartDate() : "";
         currentEndDate = realIdCardData.getEndDate() != null ? realIdCardData.getEndDate() : "";
         
-        // 处理照片（Bitmap转byte[]）
-        if (realIdCardData.getPhoto() != null) {
-            try {
-                java.io.ByteArrayOutputStream stream = new java.io.ByteArrayOutputStream();
-                realIdCardData.getPhoto().compress(android.graphics.Bitmap.CompressFormat.JPEG, 80, stream);
-                currentPhoto = stream.toByteArray();
-                stream.close();
-            } catch (Exception e) {
-                currentPhoto = null;
-            }
-        } else {
-            currentPhoto = null;
-        }
+        // 照片已由读卡器存入 PhotoStore，这里只保留哈希
+        currentPhotoHash = realIdCardData.getPhotoHash();
 
         // 显示验证结果
         String validationMessage = getFarmerValidationMessage(readName, readIdNumber);
@@ -586,7 +618,7 @@ public class WeightingViewModel extends ViewModel {
             currentDepartment,
             currentStartDate,
             currentEndDate,
-            currentPhoto
+            currentPhotoHash
         );
 
         // 使用insertIfIdCardNotExists确保每个身份证号只存储一次
@@ -599,21 +631,7 @@ public class WeightingViewModel extends ViewModel {
                     statusMessage.postValue("农户信息已存在: " + result.getMessage());
                 }
                 
-                // 更新首次称重时间（如果是第一次）
-                if (result.isNewRecord()) {
-                    farmerInfoRepository.updateFirstRecordTime(currentIdCardNumber, new FarmerInfoRepository.OnResultListener<Integer>() {
-                        @Override
-                        public void onSuccess(Integer count) {
-                            // 首次称重时间更新成功
-                        }
-
-                        @Override
-                        public void onError(Exception e) {
-                            // 更新失败，但不影响主流程
-                        }
-                    });
-                }
-                
+                // 首次称重时间在新建农户时已写入（FarmerInfoEntity.fromFarmerInfo），无需再更新
                 if (onComplete != null) onComplete.run();
             }
 
@@ -675,27 +693,22 @@ public class WeightingViewModel extends ViewModel {
             // 兼容旧流程：如果没有会话数据，使用默认值
             String level = selectedLevel.getValue();
             if (level != null && !level.equals("未选择")) {
-                // 解析重量（移除"kg"后缀）
-                double weightValue = 5.0; // 默认5kg
-                try {
-                    weightValue = Double.parseDouble(weight.replace(" kg", ""));
-                } catch (NumberFormatException e) {
-                    // 使用默认值
-                }
+                // 当前秤重（数值）
+                double scaleWeight = getScaleWeight();
                 
                 // 根据选中的等级设置对应字段
                 switch (level) {
                     case "上部叶":
-                        record.setTobaccoLeafData(1, weightValue, 0, 0.0, 0, 0.0);
+                        record.setTobaccoLeafData(1, scaleWeight, 0, 0.0, 0, 0.0);
                         break;
                     case "中部叶":
-                        record.setTobaccoLeafData(0, 0.0, 1, weightValue, 0, 0.0);
+                        record.setTobaccoLeafData(0, 0.0, 1, scaleWeight, 0, 0.0);
                         break;
                     case "下部叶":
-                        record.setTobaccoLeafData(0, 0.0, 0, 0.0, 1, weightValue);
+                        record.setTobaccoLeafData(0, 0.0, 0, 0.0, 1, scaleWeight);
                         break;
                     default:
-                        record.setTobaccoLeafData(1, weightValue, 0, 0.0, 0, 0.0); // 默认上部叶
+                        record.setTobaccoLeafData(1, scaleWeight, 0, 0.0, 0, 0.0); // 默认上部叶
                         break;
                 }
             } else {
@@ -876,6 +889,14 @@ public class WeightingViewModel extends ViewModel {
         return selectedLevel;
     }
 
+    public LiveData<List<String>> getScaleIds() {
+        return scaleIds;
+    }
+
+    public LiveData<String> getSelectedScaleId() {
+        return selectedScaleId;
+    }
+
     public LiveData<Boolean> getScaleConnected() {
         return scaleConnected;
     }
@@ -1059,7 +1080,7 @@ public class WeightingViewModel extends ViewModel {
             currentDepartment = "";
             currentStartDate = "";
             currentEndDate = "";
-            currentPhoto = null;
+            currentPhotoHash = null;
         }
         
         // 烟农姓名变更时，重新计算预检比例
@@ -1130,13 +1151,14 @@ public class WeightingViewModel extends ViewModel {
         SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
         currentPrecheckDate.setValue(dateFormat.format(new Date()));
 
-        // 创建称重记录
+        // 创建称重记录（当前秤重）
+        double scaleWeight = getScaleWeight();
         WeighingRecord record = new WeighingRecord(
                 precheckId,
                 currentFarmerName.trim(),
                 currentContractNumber,
                 currentSelectedLevel,
-                5.0 // 固定重量5kg
+                scaleWeight
         );
 
         // 保存到全局记录列表
@@ -1152,7 +1174,8 @@ public class WeightingViewModel extends ViewModel {
         selectedLevel.setValue("未选择");
 
         // 更新状态消息
-        statusMessage.setValue("称重完成 - 预检号: " + precheckId + " | " + currentSelectedLevel + " 5.00kg");
+        statusMessage.setValue(String.format(Locale.getDefault(), "称重完成 - 预检号: %s | %s %.2fkg",
+                precheckId, currentSelectedLevel, scaleWeight));
 
         // 更新预检比例显示
         updatePrecheckRatios();
@@ -1184,7 +1207,7 @@ public class WeightingViewModel extends ViewModel {
                 currentDepartment, 
                 currentStartDate, 
                 currentEndDate, 
-                currentPhoto
+                currentPhotoHash
             );
             farmerStatisticsMap.put(farmerKey, statistics);
         } else {
@@ -1365,7 +1388,7 @@ public class WeightingViewModel extends ViewModel {
         currentDepartment = "";
         currentStartDate = "";
         currentEndDate = "";
-        currentPhoto = null;
+        currentPhotoHash = null;
         statusMessage.setValue("身份证信息已清空");
     }
     
@@ -1404,8 +1427,8 @@ public class WeightingViewModel extends ViewModel {
         return currentEndDate;
     }
     
-    public byte[] getCurrentPhoto() {
-        return currentPhoto;
+    public String getCurrentPhotoHash() {
+        return currentPhotoHash;
     }
     
     /**
@@ -1773,26 +1796,24 @@ public class WeightingViewModel extends ViewModel {
             return;
         }
         
-        // === 修复：使用当前秤的实际重量，而不是捆数乘以固定重量 ===
-        String currentWeightStr = currentWeight.getValue();
-        double actualScaleWeight = 0.0;
-        
-        if (currentWeightStr != null) {
-            try {
-                // 解析当前显示的重量（移除"kg"后缀）
-                actualScaleWeight = Double.parseDouble(currentWeightStr.replace(" kg", "").trim());
-            } catch (NumberFormatException e) {
-                // 如果解析失败，使用默认值
-                actualScaleWeight = 5.0;
-                statusMessage.setValue("警告：无法读取秤重，使用默认值5.0kg");
-            }
-        } else {
-            actualScaleWeight = 5.0;
-            statusMessage.setValue("警告：秤重为空，使用默认值5.0kg");
-        }
-        
+        // 使用当前秤的实际重量（数值），而不是解析界面显示的字符串
+        appendSessionEntry(tobaccoGrade, bundleCount, getScaleWeight(), false);
+    }
+    
+    /**
+     * 当前秤重（kg，来自电子秤最新快照，尚无数据时为 0）
+     */
+    private double getScaleWeight() {
+        Double scaleWeight = weightValue.getValue();
+        return scaleWeight != null ? scaleWeight : 0.0;
+    }
+    
+    /**
+     * 向当前会话追加一条记录并刷新会话状态
+     */
+    private void appendSessionEntry(String tobaccoGrade, int bundleCount, double weight, boolean autoCaptured) {
         // 添加到会话 - 使用实际秤重作为该批次烟叶的总重量
-        WeighingSession.SessionEntry entry = new WeighingSession.SessionEntry(tobaccoGrade, bundleCount, actualScaleWeight);
+        WeighingSession.SessionEntry entry = new WeighingSession.SessionEntry(tobaccoGrade, bundleCount, weight);
         currentSession.addEntry(entry);
         
         // 更新UI状态
@@ -1802,7 +1823,61 @@ public class WeightingViewModel extends ViewModel {
                                           currentSession.getTotalWeight());
         sessionStatus.setValue(sessionInfo);
         
-        statusMessage.setValue(String.format("已添加: %s %d捆 %.1fkg (秤重)", tobaccoGrade, bundleCount, actualScaleWeight));
+        statusMessage.setValue(String.format("%s: %s %d捆 %.1fkg (秤重)",
+                autoCaptured ? "自动采集" : "已添加", tobaccoGrade, bundleCount, weight));
+    }
+    
+    /**
+     * 开启自动采集：每次上秤稳定后自动按指定等级和捆数添加到会话，无需手动确认
+     */
+    public void enableAutoCapture(String tobaccoGrade, int bundleCount) {
+        if (currentSession == null || currentSessionState != SessionState.ACTIVE) {
+            statusMessage.setValue("错误：没有活动的称重会话");
+            return;
+        }
+        
+        if (bundleCount <= 0) {
+            statusMessage.setValue("错误：请输入有效的捆数");
+            return;
+        }
+        
+        autoCaptureGrade = tobaccoGrade;
+        autoCaptureBundleCount = bundleCount;
+        autoCaptureEnabled = true;
+        autoCaptureActive.setValue(true);
+        statusMessage.setValue(String.format("自动采集已开启: %s %d捆/次，放上烟叶稳定后自动记录", tobaccoGrade, bundleCount));
+    }
+    
+    /**
+     * 关闭自动采集
+     */
+    public void disableAutoCapture() {
+        if (!autoCaptureEnabled) {
+            return;
+        }
+        autoCaptureEnabled = false;
+        autoCaptureActive.setValue(false);
+        statusMessage.setValue("自动采集已关闭");
+    }
+    
+    /**
+     * 自动采集回调（主线程）
+     */
+    private void onAutoCaptured(double weight) {
+        if (!autoCaptureEnabled) {
+            return;
+        }
+        
+        if (currentSession == null || currentSessionState != SessionState.ACTIVE) {
+            disableAutoCapture();
+            return;
+        }
+        
+        appendSessionEntry(autoCaptureGrade, autoCaptureBundleCount, weight, true);
+    }
+    
+    public LiveData<Boolean> getAutoCaptureActive() {
+        return autoCaptureActive;
     }
     
     /**
@@ -1819,6 +1894,8 @@ public class WeightingViewModel extends ViewModel {
             return;
         }
         
+        disableAutoCapture();
+        
         // 创建汇总的称重记录
         String farmerNameFromSession = farmerName.getValue();
         String contractNumberFromSession = contractNumber.getValue();
@@ -1865,6 +1942,7 @@ public class WeightingViewModel extends ViewModel {
      * 取消称重会话
      */
     public void cancelWeighingSession() {
+        disableAutoCapture();
         if (currentSession != null) {
             String precheckNumber = currentSession.getPrecheckNumber();
             currentSession = null;
@@ -1926,6 +2004,7 @@ public class WeightingViewModel extends ViewModel {
      * 重置会话 - 完全清理当前会话数据
      */
     public void resetSession() {
+        disableAutoCapture();
         if (currentSession != null) {
             String precheckNumber = currentSession.getPrecheckNumber();
             currentSession = null;
@@ -1940,6 +2019,7 @@ public class WeightingViewModel extends ViewModel {
     @Override
     protected void onCleared() {
         super.onCleared();
+        scaleDisposables.dispose();
         compositeDisposable.dispose();
         hardwareSimulator.cleanup();
     }
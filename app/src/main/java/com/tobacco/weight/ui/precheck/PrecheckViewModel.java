@@ -6,6 +6,8 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
+import com.tobacco.weight.data.repository.SearchRepository;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -34,8 +36,11 @@ public class PrecheckViewModel extends ViewModel {
     private final MutableLiveData<List<PrecheckItem>> precheckList = new MutableLiveData<>(new ArrayList<>());
     private final MutableLiveData<PrecheckItem> selectedItem = new MutableLiveData<>();
 
+    private final SearchRepository searchRepository;
+
     @Inject
-    public PrecheckViewModel() {
+    public PrecheckViewModel(SearchRepository searchRepository) {
+        this.searchRepository = searchRepository;
         // 初始化
         loadInitialData();
     }
@@ -118,9 +123,7 @@ public class PrecheckViewModel extends ViewModel {
         }
 
         setLoading(true);
-        // TODO: 实现搜索逻辑
-        // 模拟搜索结果
-        simulateSearch();
+        searchRecords(searchQuery.trim());
     }
 
     public void clearSearch() {
@@ -164,29 +167,39 @@ public class PrecheckViewModel extends ViewModel {
         setLoading(false);
     }
 
-    private void simulateSearch() {
-        // 模拟搜索延迟
-        new Thread(() -> {
-            try {
-                Thread.sleep(1000); // 模拟网络请求
-
-                // 模拟搜索结果
-                List<PrecheckItem> results = new ArrayList<>();
-                if (searchQuery.contains("PC")) {
-                    results.add(new PrecheckItem("PC20240101001", "批次001", "上级分配", "2024-01-01"));
-                    results.add(new PrecheckItem("PC20240101002", "批次002", "调拨入库", "2024-01-01"));
-                }
-
-                // 更新UI
-                precheckList.postValue(results);
-                setTotalCount(results.size());
-                setEmptyState(results.isEmpty());
-                setLoading(false);
-
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }).start();
+    /**
+     * 全文检索称重记录（预检编号、姓名、身份证尾号、合同号等前缀匹配），按相关度排序
+     */
+    private void searchRecords(String query) {
+        searchRepository.search(query, SearchRepository.HitType.RECORD, SearchRepository.DEFAULT_LIMIT,
+                new SearchRepository.SearchCallback() {
+                    @Override
+                    public void onSuccess(List<SearchRepository.SearchHit> hits) {
+                        List<PrecheckItem> results = new ArrayList<>(hits.size());
+                        for (SearchRepository.SearchHit hit : hits) {
+                            if (hit.preCheckNumber == null || hit.preCheckNumber.isEmpty()) {
+                                continue;
+                            }
+                            results.add(new PrecheckItem(hit.preCheckNumber, hit.recordNumber,
+                                    hit.farmerName, ""));
+                        }
+
+                        // 更新UI
+                        precheckList.postValue(results);
+                        setTotalCount(results.size());
+                        setEmptyState(results.isEmpty());
+                        setLoading(false);
+                    }
+
+                    @Override
+                    public void onFailure(String error) {
+                        precheckResult.postValue(error);
+                        precheckList.postValue(new ArrayList<>());
+                        setTotalCount(0);
+                        setEmptyState(true);
+                        setLoading(false);
+                    }
+                });
     }
 
     /**
@@ -10,11 +10,14 @@ import androidx.annotation.Nullable;
 import androidx.databinding.DataBindingUtil;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.paging.LoadState;
+import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.tobacco.weight.R;
 import com.tobacco.weight.databinding.FragmentRecordsBinding;
 
 import dagger.hilt.android.AndroidEntryPoint;
+import kotlin.Unit;
 
 /**
  * 记录Fragment
@@ -25,6 +28,7 @@ public class RecordsFragment extends Fragment {
     
     private FragmentRecordsBinding binding;
     private RecordsViewModel viewModel;
+    private WeightRecordPagingAdapter recordsAdapter;
     
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, 
@@ -42,20 +46,36 @@ public class RecordsFragment extends Fragment {
     @Override
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
+        setupRecordsList();
         setupObservers();
     }
     
-    private void setupObservers() {
-        // 观察记录列表
-        viewModel.getRecords().observe(getViewLifecycleOwner(), records -> {
-            // 更新记录列表UI
+    private void setupRecordsList() {
+        recordsAdapter = new WeightRecordPagingAdapter(viewModel::editRecord);
+        binding.rvRecordsList.setLayoutManager(new LinearLayoutManager(requireContext()));
+        binding.rvRecordsList.setAdapter(recordsAdapter);
+
+        // 根据分页加载状态切换加载提示和空状态
+        recordsAdapter.addLoadStateListener(loadStates -> {
+            boolean loading = loadStates.getRefresh() instanceof LoadState.Loading;
+            boolean empty = !loading && recordsAdapter.getItemCount() == 0;
+            binding.progressLoadingRecords.setVisibility(loading ? View.VISIBLE : View.GONE);
+            binding.emptyRecordsLayout.setVisibility(empty ? View.VISIBLE : View.GONE);
+            return Unit.INSTANCE;
         });
     }
     
+    private void setupObservers() {
+        // 观察分页记录列表
+        viewModel.getPagedRecords().observe(getViewLifecycleOwner(), pagingData ->
+                recordsAdapter.submitData(getViewLifecycleOwner().getLifecycle(), pagingData));
+    }
+    
     @Override
     public void onDestroyView() {
         super.onDestroyView();
         if (binding != null) {
+            binding.rvRecordsList.setAdapter(null);
             binding.unbind();
         }
     }
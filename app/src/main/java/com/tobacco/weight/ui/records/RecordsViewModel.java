@@ -2,16 +2,25 @@ package com.tobacco.weight.ui.records;
 
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
 import androidx.lifecycle.ViewModel;
+import androidx.lifecycle.ViewModelKt;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
 
+import com.tobacco.weight.data.dao.RecordTotals;
 import com.tobacco.weight.data.model.WeightRecord;
+import com.tobacco.weight.data.paging.RecordFilter;
 import com.tobacco.weight.data.repository.WeightRecordRepository;
+import com.tobacco.weight.scheduler.AppScheduler;
+import com.tobacco.weight.scheduler.Lane;
 
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 
@@ -40,21 +49,26 @@ public class RecordsViewModel extends ViewModel {
     private String farmerGender = "";
 
     // LiveData 属性
-    private final MutableLiveData<List<WeightRecord>> records = new MutableLiveData<>(new ArrayList<>());
-    private final MutableLiveData<List<WeightRecord>> filteredRecords = new MutableLiveData<>(new ArrayList<>());
+    private final MutableLiveData<RecordFilter> recordFilter = new MutableLiveData<>(RecordFilter.all());
+    private final LiveData<PagingData<WeightRecord>> pagedRecords;
     private final MutableLiveData<String> exportStatus = new MutableLiveData<>("");
 
-    // 原始数据
-    private List<WeightRecord> allRecords = new ArrayList<>();
     private SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
 
     private final WeightRecordRepository repository;
+    private final AppScheduler scheduler;
 
     @Inject
-    public RecordsViewModel(WeightRecordRepository repository) {
+    public RecordsViewModel(WeightRecordRepository repository, AppScheduler scheduler) {
         this.repository = repository;
-        // 初始化，加载记录
-        loadRecords();
+        this.scheduler = scheduler;
+        // 筛选条件变化时重建分页数据源，列表按页从数据库加载
+        pagedRecords = PagingLiveData.cachedIn(
+                Transformations.switchMap(recordFilter,
+                        filter -> PagingLiveData.getLiveData(repository.createRecordPager(filter))),
+                ViewModelKt.getViewModelScope(this));
+        // 初始化，加载统计
+        loadStatistics(RecordFilter.all());
     }
 
     // 数据绑定的 Getter 和 Setter 方法
@@ -133,8 +147,8 @@ public class RecordsViewModel extends ViewModel {
     }
 
     // LiveData Getter 方法
-    public LiveData<List<WeightRecord>> getRecords() {
-        return filteredRecords;
+    public LiveData<PagingData<WeightRecord>> getPagedRecords() {
+        return pagedRecords;
     }
 
     public LiveData<String> getExportStatus() {
@@ -158,34 +172,23 @@ public class RecordsViewModel extends ViewModel {
     }
 
     public void applyFilter() {
-        List<WeightRecord> filtered = new ArrayList<>();
-
-        for (WeightRecord record : allRecords) {
-            // 应用搜索条件
-            if (matchesSearchQuery(record)) {
-                // TODO: 应用日期筛选
-                filtered.add(record);
-            }
+        // 搜索和日期条件下推到SQL，由分页数据源按需加载
+        RecordFilter filter = RecordFilter.search(searchQuery,
+                parseDate(startDate, 0L), endOfDay(parseDate(endDate, -1L)));
+        if (!filter.equals(recordFilter.getValue())) {
+            recordFilter.setValue(filter);
+            loadStatistics(filter);
         }
-
-        filteredRecords.setValue(filtered);
-        updateStatistics(filtered);
     }
 
     public void exportRecords() {
         setLoading(true);
         // TODO: 实现导出逻辑
-        new Thread(() -> {
-            try {
-                Thread.sleep(2000); // 模拟导出过程
-                exportStatus.postValue("导出成功：已导出 " + totalRecords + " 条记录");
-                setLoading(false);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                exportStatus.postValue("导出失败：" + e.getMessage());
-                setLoading(false);
-            }
-        }).start();
+        // 模拟导出过程（导出通道）
+        scheduler.rx(Lane.EXPORT).scheduleDirect(() -> {
+            exportStatus.postValue("导出成功：已导出 " + totalRecords + " 条记录");
+            setLoading(false);
+        }, 2000, TimeUnit.MILLISECONDS);
     }
 
     public void addNewRecord() {
@@ -193,34 +196,10 @@ public class RecordsViewModel extends ViewModel {
     }
 
     public void refreshData() {
-        setLoading(true);
-        loadRecords();
-    }
-
-    private void loadRecords() {
-        setLoading(true);
-
-        // 从数据库加载记录
-        // 注意：实际应用中，应该在Fragment中观察LiveData
-        // 这里为了兼容现有架构，仍使用线程加载
-        new Thread(() -> {
-            try {
-                Thread.sleep(500); // 模拟加载时间
-
-                // 开发阶段先使用模拟数据，实际项目中应该从数据库加载
-                List<WeightRecord> recordList = generateSampleRecords();
-                allRecords = recordList;
-
-                // 更新UI
-                filteredRecords.postValue(recordList);
-                updateStatistics(recordList);
-                setLoading(false);
-
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                setLoading(false);
-            }
-        }).start();
+        RecordFilter filter = recordFilter.getValue();
+        // 重新设置相同条件以重建分页数据源
+        recordFilter.setValue(filter);
+        loadStatistics(filter);
     }
 
     /**
@@ -230,79 +209,62 @@ public class RecordsViewModel extends ViewModel {
         return repository.getAllRecords();
     }
 
-    private boolean matchesSearchQuery(WeightRecord record) {
-        if (searchQuery == null || searchQuery.trim().isEmpty()) {
-            return true;
-        }
+    private void loadStatistics(RecordFilter filter) {
+        setLoading(true);
+        repository.getFilteredTotals(filter, new WeightRecordRepository.OnResultListener<RecordTotals>() {
+            @Override
+            public void onSuccess(RecordTotals totals) {
+                updateStatistics(totals);
+                setLoading(false);
+            }
 
-        String query = searchQuery.toLowerCase();
-        return (record.getFarmerName() != null && record.getFarmerName().toLowerCase().contains(query)) ||
-                (record.getRecordNumber() != null && record.getRecordNumber().toLowerCase().contains(query)) ||
-                (record.getIdCardNumber() != null && record.getIdCardNumber().toLowerCase().contains(query));
+            @Override
+            public void onError(Exception e) {
+                setLoading(false);
+            }
+        });
     }
 
-    private void updateStatistics(List<WeightRecord> recordList) {
-        setTotalRecords(recordList.size());
-        setEmpty(recordList.isEmpty());
-
-        if (recordList.isEmpty()) {
-            setTotalWeight(0.0);
-            setTotalAmount(0.0);
-            setAvgPrice(0.0);
-            return;
-        }
-
-        double sumWeight = 0.0;
-        double sumAmount = 0.0;
-
-        for (WeightRecord record : recordList) {
-            sumWeight += record.getWeight();
-            sumAmount += record.getTotalAmount();
+    /**
+     * 解析 yyyy-MM-dd，未选择日期（占位文本）时返回默认值
+     */
+    private long parseDate(String date, long defaultValue) {
+        try {
+            Date parsed = dateFormat.parse(date);
+            return parsed != null ? parsed.getTime() : defaultValue;
+        } catch (ParseException e) {
+            return defaultValue;
         }
+    }
 
-        setTotalWeight(sumWeight);
-        setTotalAmount(sumAmount);
-        setAvgPrice(sumWeight > 0 ? sumAmount / sumWeight : 0.0);
-    }
-
-    private List<WeightRecord> generateSampleRecords() {
-        List<WeightRecord> records = new ArrayList<>();
-
-        // 示例农户信息（包含完整身份证信息）
-        String[] farmerNames = { "张建华", "李明雨", "王国强", "刘小芳", "陈德顺" };
-        String[] farmerGenders = { "男", "男", "男", "女", "男" };
-        String[] farmerAddresses = {
-                "湖南省长沙市望城区白沙洲街道",
-                "湖南省浏阳市大围山镇楚东村",
-                "湖南省醴陵市板杉镇新田村",
-                "湖南省攸县莲塘坳镇双江村",
-                "湖南省炎陵县霞阳镇朝阳村"
-        };
-
-        // 生成一些示例数据（包含完整ID card信息）
-        for (int i = 1; i <= 5; i++) {
-            WeightRecord record = new WeightRecord();
-            record.setRecordNumber("WR202401" + String.format("%03d", i));
-            record.setFarmerName(farmerNames[i - 1]);
-            record.setIdCardNumber("43012119901201000" + i);
-            record.setFarmerAddress(farmerAddresses[i - 1]);
-            record.setFarmerGender(farmerGenders[i - 1]);
-            record.setTobaccoPart(i % 2 == 0 ? "上二棚" : "下二棚");
-            record.setWeight(50.0 + i * 10);
-            record.setTotalAmount((50.0 + i * 10) * 18.5);
-            record.setTimestamp(System.currentTimeMillis() - i * 24 * 60 * 60 * 1000);
-            record.setOperatorName("操作员");
-            record.setWarehouseNumber("WH001");
-            record.setStatus("已完成");
-            records.add(record);
+    private static long endOfDay(long dayStart) {
+        if (dayStart < 0) {
+            return Long.MAX_VALUE;
         }
+        return dayStart + 24L * 60 * 60 * 1000 - 1;
+    }
 
-        return records;
+    private void updateStatistics(RecordTotals totals) {
+        setTotalRecords(totals.recordCount);
+        setEmpty(totals.recordCount == 0);
+        setTotalWeight(totals.totalWeight);
+        setTotalAmount(totals.totalAmount);
+        setAvgPrice(totals.totalWeight > 0 ? totals.totalAmount / totals.totalWeight : 0.0);
     }
 
     public void deleteRecord(WeightRecord record) {
-        allRecords.remove(record);
-        applyFilter();
+        // 删除后分页数据源自动失效重载
+        repository.delete(record, new WeightRecordRepository.OnResultListener<Integer>() {
+            @Override
+            public void onSuccess(Integer result) {
+                loadStatistics(recordFilter.getValue());
+            }
+
+            @Override
+            public void onError(Exception e) {
+                exportStatus.postValue("删除失败：" + e.getMessage());
+            }
+        });
     }
 
     public void editRecord(WeightRecord record) {
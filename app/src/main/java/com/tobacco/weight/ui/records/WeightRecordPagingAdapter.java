@@ -0,0 +1,100 @@
+package com.tobacco.weight.ui.records;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.tobacco.weight.R;
+import com.tobacco.weight.data.model.WeightRecord;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * 称重记录分页列表适配器
+ */
+public class WeightRecordPagingAdapter extends PagingDataAdapter<WeightRecord, WeightRecordPagingAdapter.RecordViewHolder> {
+
+    /**
+     * 记录点击回调
+     */
+    public interface OnRecordClickListener {
+        void onRecordClick(WeightRecord record);
+    }
+
+    static final DiffUtil.ItemCallback<WeightRecord> DIFF_CALLBACK = new DiffUtil.ItemCallback<WeightRecord>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull WeightRecord oldItem, @NonNull WeightRecord newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull WeightRecord oldItem, @NonNull WeightRecord newItem) {
+            return oldItem.getTimestamp() == newItem.getTimestamp()
+                    && oldItem.getTotalBundles() == newItem.getTotalBundles()
+                    && Double.compare(oldItem.getWeight(), newItem.getWeight()) == 0
+                    && Objects.equals(oldItem.getFarmerName(), newItem.getFarmerName())
+                    && Objects.equals(oldItem.getRecordNumber(), newItem.getRecordNumber())
+                    && Objects.equals(oldItem.getPreCheckNumber(), newItem.getPreCheckNumber());
+        }
+    };
+
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
+    private final OnRecordClickListener listener;
+
+    public WeightRecordPagingAdapter(OnRecordClickListener listener) {
+        super(DIFF_CALLBACK);
+        this.listener = listener;
+    }
+
+    @NonNull
+    @Override
+    public RecordViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_weight_record, parent, false);
+        return new RecordViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RecordViewHolder holder, int position) {
+        WeightRecord record = getItem(position);
+        if (record == null) {
+            return;
+        }
+        holder.tvFarmerName.setText(record.getFarmerName());
+        holder.tvRecordNumber.setText(record.getRecordNumber());
+        holder.tvTime.setText(timeFormat.format(new Date(record.getTimestamp())));
+        holder.tvBundles.setText(record.getTotalBundles() + "捆");
+        holder.tvWeight.setText(String.format(Locale.getDefault(), "%.2f kg", record.getWeight()));
+        holder.itemView.setOnClickListener(v -> {
+            if (listener != null) {
+                listener.onRecordClick(record);
+            }
+        });
+    }
+
+    static class RecordViewHolder extends RecyclerView.ViewHolder {
+        final TextView tvFarmerName;
+        final TextView tvRecordNumber;
+        final TextView tvTime;
+        final TextView tvBundles;
+        final TextView tvWeight;
+
+        RecordViewHolder(@NonNull View itemView) {
+            super(itemView);
+            tvFarmerName = itemView.findViewById(R.id.tv_record_farmer_name);
+            tvRecordNumber = itemView.findViewById(R.id.tv_record_number);
+            tvTime = itemView.findViewById(R.id.tv_record_time);
+            tvBundles = itemView.findViewById(R.id.tv_record_bundles);
+            tvWeight = itemView.findViewById(R.id.tv_record_weight);
+        }
+    }
+}
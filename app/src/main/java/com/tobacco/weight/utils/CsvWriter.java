@@ -0,0 +1,270 @@
+package com.tobacco.weight.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Calendar;
+
+/**
+ * 流式CSV写入器
+ * 字符先写入固定大小的缓冲区，满后按UTF-8编码并写入通道；
+ * 字段转义、数字和时间格式化都直接在缓冲区中完成，写入每个字段不产生临时对象。
+ * 非线程安全，每个导出任务使用独立实例。
+ */
+public class CsvWriter implements Closeable {
+
+    private static final int CHAR_BUFFER_SIZE = 8 * 1024;
+    private static final int BYTE_BUFFER_SIZE = 32 * 1024;
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+    private final ByteBuffer bytes = ByteBuffer.allocate(BYTE_BUFFER_SIZE);
+    private final char[] digits = new char[20];
+    private final Calendar calendar = Calendar.getInstance();
+
+    private boolean rowStarted;
+
+    public CsvWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * 写入BOM头（支持Excel正确显示中文）
+     */
+    public CsvWriter writeBom() throws IOException {
+        put('\uFEFF');
+        return this;
+    }
+
+    /**
+     * 写入文本字段，包含逗号、引号或换行时加引号并转义内部引号
+     */
+    public CsvWriter field(CharSequence value) throws IOException {
+        separator();
+        if (value == null) {
+            return this;
+        }
+        int length = value.length();
+        boolean quote = false;
+        for (int i = 0; i < length && !quote; i++) {
+            quote = needsQuote(value.charAt(i));
+        }
+        if (quote) {
+            put('"');
+        }
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                put('"');
+            }
+            put(c);
+        }
+        if (quote) {
+            put('"');
+        }
+        return this;
+    }
+
+    /**
+     * 写入文本字段（字符数组的前 length 个字符，配合 Cursor.copyStringToBuffer 复用缓冲区）
+     */
+    public CsvWriter field(char[] value, int length) throws IOException {
+        separator();
+        if (value == null || length <= 0) {
+            return this;
+        }
+        boolean quote = false;
+        for (int i = 0; i < length && !quote; i++) {
+            quote = needsQuote(value[i]);
+        }
+        if (quote) {
+            put('"');
+        }
+        for (int i = 0; i < length; i++) {
+            char c = value[i];
+            if (c == '"') {
+                put('"');
+            }
+            put(c);
+        }
+        if (quote) {
+            put('"');
+        }
+        return this;
+    }
+
+    /**
+     * 写入整数字段
+     */
+    public CsvWriter field(long value) throws IOException {
+        separator();
+        putLong(value);
+        return this;
+    }
+
+    /**
+     * 写入小数字段（四舍五入到 scale 位小数，scale 取 0~6）
+     */
+    public CsvWriter field(double value, int scale) throws IOException {
+        separator();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return this;
+        }
+        long factor = 1;
+        for (int i = 0; i < scale; i++) {
+            factor *= 10;
+        }
+        long scaled = Math.round(Math.abs(value) * factor);
+        if (value < 0 && scaled != 0) {
+            put('-');
+        }
+        putLong(scaled / factor);
+        if (scale > 0) {
+            put('.');
+            putPadded(scaled % factor, scale);
+        }
+        return this;
+    }
+
+    /**
+     * 写入时间字段，格式 yyyy-MM-dd HH:mm:ss（本地时区）
+     */
+    public CsvWriter dateTimeField(long timeMillis) throws IOException {
+        separator();
+        calendar.setTimeInMillis(timeMillis);
+        putPadded(calendar.get(Calendar.YEAR), 4);
+        put('-');
+        putPadded(calendar.get(Calendar.MONTH) + 1, 2);
+        put('-');
+        putPadded(calendar.get(Calendar.DAY_OF_MONTH), 2);
+        put(' ');
+        putPadded(calendar.get(Calendar.HOUR_OF_DAY), 2);
+        put(':');
+        putPadded(calendar.get(Calendar.MINUTE), 2);
+        put(':');
+        putPadded(calendar.get(Calendar.SECOND), 2);
+        return this;
+    }
+
+    /**
+     * 写入空字段
+     */
+    public CsvWriter emptyField() throws IOException {
+        separator();
+        return this;
+    }
+
+    /**
+     * 结束当前行
+     */
+    public void endRow() throws IOException {
+        put('\n');
+        rowStarted = false;
+    }
+
+    /**
+     * 把缓冲区中的内容全部写入通道
+     */
+    public void flush() throws IOException {
+        encode(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void separator() throws IOException {
+        if (rowStarted) {
+            put(',');
+        }
+        rowStarted = true;
+    }
+
+    private static boolean needsQuote(char c) {
+        return c == ',' || c == '"' || c == '\n' || c == '\r';
+    }
+
+    private void putLong(long value) throws IOException {
+        if (value < 0) {
+            put('-');
+            // Long.MIN_VALUE 取反溢出，按无符号处理
+            putUnsigned(-value);
+        } else {
+            putUnsigned(value);
+        }
+    }
+
+    private void putUnsigned(long value) throws IOException {
+        int pos = digits.length;
+        do {
+            digits[--pos] = (char) ('0' + Long.remainderUnsigned(value, 10));
+            value = Long.divideUnsigned(value, 10);
+        } while (value != 0);
+        while (pos < digits.length) {
+            put(digits[pos++]);
+        }
+    }
+
+    private void putPadded(long value, int width) throws IOException {
+        int pos = digits.length;
+        do {
+            digits[--pos] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        for (int i = digits.length - pos; i < width; i++) {
+            put('0');
+        }
+        while (pos < digits.length) {
+            put(digits[pos++]);
+        }
+    }
+
+    private void put(char c) throws IOException {
+        // 缓冲区末尾未配对的高位代理会保留到下一次编码
+        if (!chars.hasRemaining()) {
+            encode(false);
+        }
+        chars.put(c);
+    }
+
+    private void encode(boolean drainAll) throws IOException {
+        chars.flip();
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, false);
+            if (result.isOverflow()) {
+                writeBytes();
+                continue;
+            }
+            if (result.isError()) {
+                result.throwException();
+            }
+            break;
+        }
+        chars.compact();
+        if (drainAll) {
+            writeBytes();
+        }
+    }
+
+    private void writeBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
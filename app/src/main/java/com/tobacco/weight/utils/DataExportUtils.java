@@ -2,125 +2,170 @@ package com.tobacco.weight.utils;
 
 import android.content.Context;
 import android.content.Intent;
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
 import android.net.Uri;
 import android.os.Environment;
 import android.widget.Toast;
 import androidx.core.content.FileProvider;
 
-import com.tobacco.weight.data.model.WeightRecord;
+import com.tobacco.weight.scheduler.AppScheduler;
 
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.List;
 import java.util.Locale;
 
 /**
  * 数据导出工具类
- * 支持导出CSV格式的烟叶称重记录
+ * 支持导出CSV格式的烟叶称重记录（从数据库游标流式写入，可取消，带进度）
  */
 public class DataExportUtils {
 
     private static final String EXPORT_FOLDER = "TobaccoWeightExports";
-    private static final SimpleDateFormat FILE_DATE_FORMAT = new SimpleDateFormat("yyyyMMdd_HHmmss",
-            Locale.getDefault());
-    private static final SimpleDateFormat DISPLAY_DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss",
-            Locale.getDefault());
+
+    // 每导出多少条回调一次进度
+    private static final int PROGRESS_INTERVAL = 1000;
+
+    // 每导出多少条检查一次前台通道积压（称重、写库、打印优先）
+    private static final int YIELD_INTERVAL = 256;
+
+    // CSV表头（与 WeightRecordDao.EXPORT_COLUMNS 一一对应）
+    private static final String[] CSV_HEADER = {
+            "记录编号", "烟农姓名", "身份证号", "烟叶部位", "捆数", "重量(kg)",
+            "预检编号", "操作员", "仓库编号", "创建时间", "状态"
+    };
 
     /**
-     * 导出所有称重记录到CSV文件
+     * 所有烟农记录的导出文件名
      */
-    public static void exportAllRecordsToCSV(Context context, List<WeightRecord> records, ExportCallback callback) {
-        if (records == null || records.isEmpty()) {
-            callback.onError("没有数据可导出");
-            return;
-        }
-
-        String filename = "所有烟农预检记录_" + FILE_DATE_FORMAT.format(new Date()) + ".csv";
-        exportRecordsToCSV(context, records, filename, "所有烟农预检记录", callback);
+    public static String allRecordsFileName() {
+        return "所有烟农预检记录_" + fileTimestamp() + ".csv";
     }
 
     /**
-     * 导出指定烟农的称重记录到CSV文件
+     * 指定烟农记录的导出文件名
      */
-    public static void exportFarmerRecordsToCSV(Context context, List<WeightRecord> records, String farmerName,
-            ExportCallback callback) {
-        if (records == null || records.isEmpty()) {
-            callback.onError("该烟农没有预检记录");
-            return;
-        }
+    public static String farmerRecordsFileName(String farmerName) {
+        return farmerName + "_预检记录_" + fileTimestamp() + ".csv";
+    }
 
-        String filename = farmerName + "_预检记录_" + FILE_DATE_FORMAT.format(new Date()) + ".csv";
-        exportRecordsToCSV(context, records, filename, farmerName + "预检记录", callback);
+    private static String fileTimestamp() {
+        // SimpleDateFormat 非线程安全，导出可能在多个后台线程上并发进行
+        return new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date());
     }
 
     /**
-     * 通用CSV导出方法
+     * 把游标中的称重记录流式写入CSV文件（在后台线程调用）
+     * 逐行读取游标、经缓冲区按UTF-8写入文件，内存占用与记录数无关。
+     * 任务取消时删除未写完的文件并回调 onCancelled。
+     *
+     * @param cursor       WeightRecordDao 的导出查询结果，由调用方关闭
+     * @param emptyMessage 没有记录时的提示
+     * @param scheduler    前台通道有积压时让行
      */
-    private static void exportRecordsToCSV(Context context, List<WeightRecord> records, String filename, String title,
-            ExportCallback callback) {
-        try {
-            // 创建导出目录
-            File exportDir = getExportDirectory();
-            if (!exportDir.exists() && !exportDir.mkdirs()) {
-                callback.onError("无法创建导出目录");
-                return;
-            }
+    public static void exportCursorToCSV(Cursor cursor, String filename, String emptyMessage,
+            ExportTask task, ExportCallback callback, AppScheduler scheduler) {
+        int total = cursor.getCount();
+        if (total == 0) {
+            callback.onError(emptyMessage);
+            return;
+        }
+
+        // 创建导出目录
+        File exportDir = getExportDirectory();
+        if (!exportDir.exists() && !exportDir.mkdirs()) {
+            callback.onError("无法创建导出目录");
+            return;
+        }
 
-            // 创建CSV文件
-            File csvFile = new File(exportDir, filename);
-            FileWriter writer = new FileWriter(csvFile, false);
-
-            // 写入BOM头（支持Excel正确显示中文）
-            writer.write('\uFEFF');
-
-            // 写入CSV头部
-            writer.append("记录编号,烟农姓名,身份证号,烟叶部位,捆数,重量(kg),预检编号,操作员,仓库编号,创建时间,状态\n");
-
-            // 写入数据行
-            for (WeightRecord record : records) {
-                writer.append(escapeCsvField(record.getRecordNumber())).append(",");
-                writer.append(escapeCsvField(record.getFarmerName())).append(",");
-                writer.append(escapeCsvField(record.getIdCardNumber())).append(",");
-                writer.append(escapeCsvField(record.getTobaccoPart())).append(",");
-                writer.append(String.valueOf(record.getTobaccoBundles())).append(",");
-                writer.append(String.valueOf(record.getWeight())).append(",");
-                writer.append(escapeCsvField(record.getPreCheckNumber())).append(",");
-                writer.append(escapeCsvField(record.getOperatorName())).append(",");
-                writer.append(escapeCsvField(record.getWarehouseNumber())).append(",");
-                writer.append(escapeCsvField(
-                        record.getCreateTime() != null ? DISPLAY_DATE_FORMAT.format(record.getCreateTime()) : ""))
-                        .append(",");
-                writer.append(escapeCsvField(record.getStatus())).append("\n");
+        File csvFile = new File(exportDir, filename);
+        int exported = 0;
+        boolean completed = false;
+        try (CsvWriter csv = new CsvWriter(new FileOutputStream(csvFile, false).getChannel())) {
+            csv.writeBom();
+            for (String column : CSV_HEADER) {
+                csv.field(column);
             }
+            csv.endRow();
+
+            int colRecordNumber = cursor.getColumnIndexOrThrow("record_number");
+            int colFarmerName = cursor.getColumnIndexOrThrow("farmer_name");
+            int colIdCard = cursor.getColumnIndexOrThrow("id_card_number");
+            int colTobaccoPart = cursor.getColumnIndexOrThrow("primary_tobacco_part");
+            int colBundles = cursor.getColumnIndexOrThrow("total_bundles");
+            int colWeight = cursor.getColumnIndexOrThrow("weight");
+            int colPreCheck = cursor.getColumnIndexOrThrow("pre_check_number");
+            int colOperator = cursor.getColumnIndexOrThrow("operator_name");
+            int colWarehouse = cursor.getColumnIndexOrThrow("warehouse_number");
+            int colCreateTime = cursor.getColumnIndexOrThrow("create_time");
+            int colStatus = cursor.getColumnIndexOrThrow("status");
 
-            writer.close();
+            // 文本列复用同一个字符缓冲区
+            CharArrayBuffer text = new CharArrayBuffer(64);
+            callback.onProgress(0, total);
 
-            String successMessage = String.format("导出成功！\n文件：%s\n位置：%s\n记录数：%d条",
-                    filename, csvFile.getAbsolutePath(), records.size());
-            callback.onSuccess(successMessage, csvFile.getAbsolutePath(), csvFile);
+            while (cursor.moveToNext()) {
+                if (task.isCancelled()) {
+                    break;
+                }
+                textField(csv, cursor, colRecordNumber, text);
+                textField(csv, cursor, colFarmerName, text);
+                textField(csv, cursor, colIdCard, text);
+                textField(csv, cursor, colTobaccoPart, text);
+                csv.field(cursor.getLong(colBundles));
+                csv.field(cursor.getDouble(colWeight), 2);
+                textField(csv, cursor, colPreCheck, text);
+                textField(csv, cursor, colOperator, text);
+                textField(csv, cursor, colWarehouse, text);
+                if (cursor.isNull(colCreateTime)) {
+                    csv.emptyField();
+                } else {
+                    csv.dateTimeField(cursor.getLong(colCreateTime));
+                }
+                textField(csv, cursor, colStatus, text);
+                csv.endRow();
 
+                exported++;
+                if (exported % PROGRESS_INTERVAL == 0) {
+                    callback.onProgress(exported, total);
+                }
+                if (exported % YIELD_INTERVAL == 0) {
+                    scheduler.yieldToForeground();
+                }
+            }
+            completed = !task.isCancelled();
         } catch (IOException e) {
+            csvFile.delete();
             callback.onError("导出失败：" + e.getMessage());
+            return;
         }
+
+        if (!completed) {
+            csvFile.delete();
+            callback.onCancelled();
+            return;
+        }
+
+        callback.onProgress(exported, total);
+        String successMessage = String.format(Locale.getDefault(), "导出成功！\n文件：%s\n位置：%s\n记录数：%d条",
+                filename, csvFile.getAbsolutePath(), exported);
+        callback.onSuccess(successMessage, csvFile.getAbsolutePath(), csvFile);
     }
 
     /**
-     * 转义CSV字段，处理包含逗号、引号、换行符的情况
+     * 写入文本列，通过 copyStringToBuffer 复用缓冲区
      */
-    private static String escapeCsvField(String field) {
-        if (field == null) {
-            return "";
-        }
-
-        // 如果字段包含逗号、引号或换行符，需要用引号包围并转义内部引号
-        if (field.contains(",") || field.contains("\"") || field.contains("\n")) {
-            return "\"" + field.replace("\"", "\"\"") + "\"";
+    private static void textField(CsvWriter csv, Cursor cursor, int column, CharArrayBuffer buffer)
+            throws IOException {
+        if (cursor.isNull(column)) {
+            csv.emptyField();
+            return;
         }
-
-        return field;
+        cursor.copyStringToBuffer(column, buffer);
+        csv.field(buffer.data, buffer.sizeCopied);
     }
 
     /**
@@ -184,11 +229,38 @@ public class DataExportUtils {
     }
 
     /**
-     * 导出结果回调接口
+     * 导出结果回调接口（在后台线程回调）
      */
     public interface ExportCallback {
         void onSuccess(String message, String filePath, File file);
 
         void onError(String error);
+
+        /**
+         * 导出进度
+         */
+        default void onProgress(int exported, int total) {
+        }
+
+        /**
+         * 导出已取消，未写完的文件已删除
+         */
+        default void onCancelled() {
+        }
+    }
+
+    /**
+     * 导出任务句柄，用于取消正在进行的导出
+     */
+    public static class ExportTask {
+        private volatile boolean cancelled;
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
     }
 }
\ No newline at end of file
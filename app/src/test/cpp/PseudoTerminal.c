@@ -0,0 +1,131 @@
+/*
+ * 伪终端主设备端（单元测试用，com.tobacco.weight.hardware.serial.PseudoTerminal）
+ *
+ * 从设备端路径交给 NativeSerialPort 打开，测试代码在主设备端模拟电子秤/打印机收发数据。
+ * 与 NativeSerialPort.c 一起编译为宿主机上的 libSerialPort（见 app/build.gradle 的 buildHostNative）。
+ */
+
+#define _GNU_SOURCE
+
+#include <errno.h>
+#include <fcntl.h>
+#include <poll.h>
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+#include <unistd.h>
+#include <jni.h>
+
+static void throwIOException(JNIEnv *env, const char *message, int error)
+{
+	char text[256];
+	jclass cls = (*env)->FindClass(env, "java/io/IOException");
+	if (cls == NULL) {
+		return;
+	}
+	snprintf(text, sizeof(text), "%s: %s", message, strerror(error));
+	(*env)->ThrowNew(env, cls, text);
+}
+
+JNIEXPORT jint JNICALL Java_com_tobacco_weight_hardware_serial_PseudoTerminal_nativeOpenMaster
+  (JNIEnv *env, jclass clazz)
+{
+	int fd = posix_openpt(O_RDWR | O_NOCTTY | O_CLOEXEC);
+	if (fd < 0) {
+		throwIOException(env, "posix_openpt() failed", errno);
+		return -1;
+	}
+	if (grantpt(fd) != 0 || unlockpt(fd) != 0) {
+		int error = errno;
+		close(fd);
+		throwIOException(env, "Cannot unlock pseudo-terminal", error);
+		return -1;
+	}
+	return fd;
+}
+
+JNIEXPORT jstring JNICALL Java_com_tobacco_weight_hardware_serial_PseudoTerminal_nativeSlavePath
+  (JNIEnv *env, jclass clazz, jint masterFd)
+{
+	char name[128];
+	if (ptsname_r(masterFd, name, sizeof(name)) != 0) {
+		throwIOException(env, "ptsname_r() failed", errno);
+		return NULL;
+	}
+	return (*env)->NewStringUTF(env, name);
+}
+
+JNIEXPORT jint JNICALL Java_com_tobacco_weight_hardware_serial_PseudoTerminal_nativeWrite
+  (JNIEnv *env, jclass clazz, jint masterFd, jbyteArray data)
+{
+	jsize length = (*env)->GetArrayLength(env, data);
+	jbyte *bytes = (*env)->GetByteArrayElements(env, data, NULL);
+	if (bytes == NULL) {
+		return -1;
+	}
+	jsize written = 0;
+	while (written < length) {
+		ssize_t n = write(masterFd, bytes + written, (size_t) (length - written));
+		if (n < 0) {
+			if (errno == EINTR) {
+				continue;
+			}
+			int error = errno;
+			(*env)->ReleaseByteArrayElements(env, data, bytes, JNI_ABORT);
+			throwIOException(env, "write() failed", error);
+			return -1;
+		}
+		written += (jsize) n;
+	}
+	(*env)->ReleaseByteArrayElements(env, data, bytes, JNI_ABORT);
+	return written;
+}
+
+/*
+ * 读取到 data[0, data.length)，超时返回 0
+ */
+JNIEXPORT jint JNICALL Java_com_tobacco_weight_hardware_serial_PseudoTerminal_nativeRead
+  (JNIEnv *env, jclass clazz, jint masterFd, jbyteArray data, jint timeoutMs)
+{
+	struct pollfd pfd;
+	pfd.fd = masterFd;
+	pfd.events = POLLIN;
+	pfd.revents = 0;
+
+	int ready;
+	do {
+		ready = poll(&pfd, 1, timeoutMs);
+	} while (ready < 0 && errno == EINTR);
+	if (ready < 0) {
+		throwIOException(env, "poll() failed", errno);
+		return -1;
+	}
+	if (ready == 0 || (pfd.revents & POLLIN) == 0) {
+		return 0;
+	}
+
+	jsize length = (*env)->GetArrayLength(env, data);
+	jbyte *bytes = (*env)->GetByteArrayElements(env, data, NULL);
+	if (bytes == NULL) {
+		return -1;
+	}
+	ssize_t n;
+	do {
+		n = read(masterFd, bytes, (size_t) length);
+	} while (n < 0 && errno == EINTR);
+	int error = errno;
+	(*env)->ReleaseByteArrayElements(env, data, bytes, 0);
+	if (n < 0) {
+		throwIOException(env, "read() failed", error);
+		return -1;
+	}
+	return (jint) n;
+}
+
+JNIEXPORT void JNICALL Java_com_tobacco_weight_hardware_serial_PseudoTerminal_nativeClose
+  (JNIEnv *env, jclass clazz, jint masterFd)
+{
+	if (masterFd >= 0) {
+		close(masterFd);
+	}
+}
@@ -0,0 +1,121 @@
+package com.tobacco.weight.hardware.idcard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CardPollPolicyTest {
+
+    private static final String CARD_A = "110101199001011234";
+    private static final String CARD_B = "530102198502023456";
+
+    private final CardPollPolicy policy = new CardPollPolicy();
+    private long now = 1_000_000;
+
+    @Test
+    public void fastWindowThenBacksOffToOneSecond() {
+        policy.expectCard(now);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(CardPollPolicy.FAST_POLL_MS, poll(null));
+        }
+
+        now += CardPollPolicy.FAST_WINDOW_MS;
+        assertEquals(80, poll(null));
+        assertEquals(160, poll(null));
+        assertEquals(320, poll(null));
+        assertEquals(640, poll(null));
+        assertEquals(CardPollPolicy.MAX_IDLE_POLL_MS, poll(null));
+        assertEquals(CardPollPolicy.MAX_IDLE_POLL_MS, poll(null));
+
+        // 再次等待放卡：回到快速轮询，窗口结束后从头退避
+        policy.expectCard(now);
+        assertEquals(CardPollPolicy.FAST_POLL_MS, poll(null));
+        now += CardPollPolicy.FAST_WINDOW_MS;
+        assertEquals(CardPollPolicy.FAST_POLL_MS, poll(null));
+        assertEquals(160, poll(null));
+    }
+
+    @Test
+    public void repeatReadOfSameCardProducesNoEvent() {
+        assertTrue(read(CARD_A));
+        for (int i = 0; i < 20; i++) {
+            assertFalse(read(CARD_A));
+            assertEquals(CardPollPolicy.PRESENT_POLL_MS, policy.nextDelay(now));
+        }
+
+        // 换了一张卡立即上报
+        assertTrue(read(CARD_B));
+        assertFalse(read(CARD_B));
+    }
+
+    @Test
+    public void cardIsRemovedOnlyAfterTwoConsecutiveMisses() {
+        assertTrue(read(CARD_A));
+
+        // 偶发一次读不到：快速确认，再读到同一张卡不重复上报
+        assertFalse(read(null));
+        assertEquals(CardPollPolicy.FAST_POLL_MS, policy.nextDelay(now));
+        assertFalse(read(CARD_A));
+        assertEquals(CardPollPolicy.PRESENT_POLL_MS, policy.nextDelay(now));
+
+        // 不连续的读不到不累计
+        assertFalse(read(null));
+        assertFalse(read(CARD_A));
+        assertFalse(read(null));
+        assertFalse(read(CARD_A));
+
+        // 连续两次读不到视为移开，进入快速窗口；同一张卡重新放上再次上报
+        assertFalse(read(null));
+        assertFalse(read(null));
+        now += CardPollPolicy.FAST_WINDOW_MS - 1;
+        assertEquals(CardPollPolicy.FAST_POLL_MS, policy.nextDelay(now));
+        assertTrue(read(CARD_A));
+    }
+
+    @Test
+    public void resetForgetsCurrentCard() {
+        assertTrue(read(CARD_A));
+        policy.reset();
+
+        assertTrue(read(CARD_A));
+    }
+
+    @Test
+    public void hashIsStableAndNonZero() {
+        assertEquals(CardPollPolicy.hash(CARD_A), CardPollPolicy.hash(CARD_A));
+        assertNotEquals(CardPollPolicy.hash(CARD_A), CardPollPolicy.hash(CARD_B));
+        assertNotEquals(0, CardPollPolicy.hash(""));
+    }
+
+    /**
+     * 与 IdCardManager.performRead() 相同的判断
+     *
+     * @param idNumber 读到的身份证号，null 表示没有读到卡
+     * @return 是否上报读卡事件
+     */
+    private boolean read(String idNumber) {
+        now += CardPollPolicy.FAST_POLL_MS;
+        if (idNumber == null) {
+            policy.onNoCard(now);
+            return false;
+        }
+        if (policy.isPresent(idNumber)) {
+            return false;
+        }
+        policy.onCard(idNumber);
+        return true;
+    }
+
+    /**
+     * 读一次卡并推进到下次读卡的时间
+     */
+    private long poll(String idNumber) {
+        read(idNumber);
+        long delay = policy.nextDelay(now);
+        now += delay;
+        return delay;
+    }
+}
@@ -0,0 +1,424 @@
+package com.tobacco.weight.hardware.printer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.tobacco.weight.hardware.transport.LoopbackTransport;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.Test;
+
+import io.reactivex.rxjava3.disposables.Disposable;
+
+/**
+ * 打印发送基准测试
+ * 用回环传输模拟串口打印机：按波特率占用线路时间，按打印速度消耗接收缓冲区，缓冲区将满时发送 XOFF，
+ * 应答 DLE EOT 状态查询。比较逐条指令 sleep(10ms) 的旧发送方式与 CommandTransmitter 整单分块发送，
+ * 输出一张收购小票从开始发送到打印完成的时间；并比较每张小票重新生成指令与编译模板填入变量的耗时，
+ * 以及光栅打印排版一张小票的耗时和各点阵编码方式的发送量。
+ * 耗时只输出不断言（受主机负载影响）；模板与直接生成的输出必须逐字节相同，分块发送不能溢出打印机缓冲区。
+ */
+public class PrintBenchmarkTest {
+
+    private static final byte[] INIT_COMMAND = {0x1B, 0x40};
+
+    private static final int BAUD_RATE = 115200;
+    private static final int PRINT_RATE = 6000;   // 字节/秒
+    private static final int TICKETS = 5;
+
+    @Test
+    public void chunkedTransmitterNeverOverflows() throws Exception {
+        Esc esc = PrintRenderer.renderReceipt(sampleReceipt());
+        List<byte[]> commands = esc.getCommands();
+        byte[] data = esc.getCommandData();
+        System.out.println(String.format(Locale.ROOT,
+                "小票: %d 条指令, %d 字节; 线路 %d 波特, 打印 %d 字节/秒, %d 张",
+                commands.size(), data.length, BAUD_RATE, PRINT_RATE, TICKETS));
+
+        ScheduledExecutorService printerClock = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "simulated-printer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Result legacy = run("逐条发送+sleep(10)", printerClock,
+                    transport -> {
+                        for (byte[] command : commands) {
+                            transport.write(command);
+                            Thread.sleep(10);
+                        }
+                    },
+                    transport -> {
+                        transport.write(INIT_COMMAND);
+                        Thread.sleep(100);
+                    });
+            CommandTransmitter[] transmitter = new CommandTransmitter[1];
+            Result chunked = run("CommandTransmitter", printerClock,
+                    transport -> {
+                        transmitter[0].send(data);
+                        transmitter[0].checkStatus();
+                    },
+                    transport -> {
+                        transmitter[0] = new CommandTransmitter(transport);
+                        transmitter[0].send(INIT_COMMAND);
+                    });
+
+            System.out.println(String.format(Locale.ROOT, "单张小票耗时: %.1f ms → %.1f ms (%.1fx)",
+                    legacy.medianTicketMs, chunked.medianTicketMs, legacy.medianTicketMs / chunked.medianTicketMs));
+            assertEquals("分块发送应遵守 XON/XOFF，不溢出打印机缓冲区", 0, chunked.overflowBytes);
+        } finally {
+            printerClock.shutdownNow();
+        }
+    }
+
+    /**
+     * 发送一张小票
+     */
+    private interface Job {
+        void print(LoopbackTransport transport) throws Exception;
+    }
+
+    private static final class Result {
+        final double medianTicketMs;
+        final long overflowBytes;
+
+        Result(double medianTicketMs, long overflowBytes) {
+            this.medianTicketMs = medianTicketMs;
+            this.overflowBytes = overflowBytes;
+        }
+    }
+
+    private static Result run(String name, ScheduledExecutorService printerClock, Job job, Job init)
+            throws Exception {
+        LoopbackTransport transport = LoopbackTransport.named("print-benchmark");
+        transport.open();
+        SimulatedPrinter printer = new SimulatedPrinter(transport, BAUD_RATE, PRINT_RATE, printerClock);
+        try {
+            long initStart = System.nanoTime();
+            init.print(transport);
+            double initMs = (printer.finishNanos() - initStart) / 1e6;
+
+            double[] ticketMs = new double[TICKETS];
+            for (int i = 0; i < TICKETS; i++) {
+                printer.awaitIdle();
+                long start = System.nanoTime();
+                job.print(transport);
+                ticketMs[i] = (printer.finishNanos() - start) / 1e6;
+            }
+            Arrays.sort(ticketMs);
+            double median = ticketMs[TICKETS / 2];
+            System.out.println(String.format(Locale.ROOT,
+                    "%-22s 初始化 %6.1f ms | 小票 中位数 %7.1f ms, 最快 %7.1f ms, 最慢 %7.1f ms | XOFF %d 次, 溢出 %d 字节",
+                    name, initMs, median, ticketMs[0], ticketMs[TICKETS - 1],
+                    printer.xoffCount, printer.overflowBytes));
+            return new Result(median, printer.overflowBytes);
+        } finally {
+            printer.dispose();
+            transport.close();
+        }
+    }
+
+    /**
+     * 比较 PrintRenderer 逐张生成与编译模板填入变量，两者输出必须逐字节相同
+     */
+    @Test
+    public void compiledTemplateMatchesRenderer() {
+        int iterations = 10_000;
+        PrintTemplate template = PrintTemplates.get(PrintTemplates.PURCHASE_RECEIPT);
+        long compileStart = System.nanoTime();
+        CompiledTemplate compiled = PrintTemplates.compile(template);
+        double compileUs = (System.nanoTime() - compileStart) / 1e3;
+        TemplateValues values = sampleValues();
+
+        byte[] expected = PrintRenderer.renderReceipt(sampleReceipt()).getCommandData();
+        assertArrayEquals("模板输出与 PrintRenderer 不一致", expected, compiled.render(values));
+
+        long sink = 0;
+        for (int i = 0; i < iterations / 10; i++) {
+            sink += renderAndRelease();
+            sink += compiled.render(values).length;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += renderAndRelease();
+        }
+        double rendererUs = (System.nanoTime() - start) / 1e3 / iterations;
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += compiled.render(values).length;
+        }
+        double templateUs = (System.nanoTime() - start) / 1e3 / iterations;
+
+        System.out.println(String.format(Locale.ROOT,
+                "指令生成: %s, 编译 %.0f us; 每张 %.1f us → %.1f us (%.1fx) [%d]",
+                compiled, compileUs, rendererUs, templateUs, rendererUs / templateUs, sink % 10));
+    }
+
+    /**
+     * 与打印时相同：生成指令后直接使用缓冲区，用完归还
+     */
+    private static int renderAndRelease() {
+        Esc esc = PrintRenderer.renderReceipt(sampleReceipt());
+        int size = esc.getCommandSize();
+        esc.release();
+        return size;
+    }
+
+    /**
+     * 光栅打印排版一张收购小票；模板填入变量与直接排版的输出必须逐字节相同。
+     * 主机上没有系统字体，用 BlockRasterizer 代替：预热后字形都在缓存中，耗时只含排版和打包。
+     */
+    @Test
+    public void rasterTemplateMatchesDirectLayout() {
+        int iterations = 1_000;
+        GlyphAtlas atlas = new GlyphAtlas(new BlockRasterizer());
+        RasterRenderer renderer = new RasterRenderer(atlas, RasterRenderer.PAPER_WIDTH_80MM);
+        ReceiptData receipt = sampleReceipt();
+        PrintTemplate template = PrintTemplates.get(PrintTemplates.PURCHASE_RECEIPT);
+        TemplateValues values = sampleValues();
+
+        long warmStart = System.nanoTime();
+        renderer.renderReceipt(receipt, null);
+        byte[] expected = renderer.toByteArray();
+        double warmUs = (System.nanoTime() - warmStart) / 1e3;
+        renderer.renderReceipt(template.getReceiptLayout(), values);
+        assertArrayEquals("光栅模板输出与直接排版不一致", expected, renderer.toByteArray());
+
+        long sink = 0;
+        for (int i = 0; i < iterations / 10; i++) {
+            sink += renderer.renderReceipt(template.getReceiptLayout(), values);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += renderer.renderReceipt(template.getReceiptLayout(), values);
+        }
+        double ticketUs = (System.nanoTime() - start) / 1e3 / iterations;
+
+        System.out.println(String.format(Locale.ROOT,
+                "光栅排版: %d 字节, %d 个字形; 首张 %.0f us, 每张 %.1f us [%d]",
+                expected.length, atlas.size(), warmUs, ticketUs, sink % 10));
+
+        // 各编码方式在 9600 波特下的发送量
+        for (int paperWidth : new int[]{RasterRenderer.PAPER_WIDTH_58MM, RasterRenderer.PAPER_WIDTH_80MM}) {
+            RasterRenderer sized = new RasterRenderer(atlas, paperWidth);
+            for (RasterEncoder.Mode mode : RasterEncoder.Mode.values()) {
+                sized.setEncoding(mode);
+                int length = sized.renderReceipt(template.getReceiptLayout(), values);
+                long plain = length + sized.getPlainRasterBytes() - sized.getRasterBytes();
+                System.out.println(String.format(Locale.ROOT,
+                        "光栅 %d 点 %-10s %6d 字节 (整宽 %6d, 节省 %4.1f%%), 9600 波特 %5.1f s → %5.1f s",
+                        paperWidth, mode, length, plain, 100.0 * (plain - length) / plain,
+                        RasterEncoder.transmitMillis(plain, 9600) / 1000.0,
+                        RasterEncoder.transmitMillis(length, 9600) / 1000.0));
+                assertTrue(mode + " 编码不应比整宽点阵更长", length <= plain);
+            }
+        }
+    }
+
+    /**
+     * 主机上代替系统字体的字形：全角字符为方框，半角字符为竖条
+     */
+    private static final class BlockRasterizer implements GlyphAtlas.Rasterizer {
+        @Override
+        public int rasterize(int codePoint, int size, boolean bold, byte[] bits, int rowBytes) {
+            if (codePoint == ' ') {
+                return size / 2;
+            }
+            int advance = codePoint < 0x2E80 ? size / 2 : size;
+            int stroke = bold ? 3 : 2;
+            for (int y = 2; y < size - 2; y++) {
+                for (int x = 1; x < advance - 1; x++) {
+                    boolean edge = y < 2 + stroke || y >= size - 2 - stroke || x < 1 + stroke || x >= advance - 1 - stroke;
+                    if (edge || (codePoint + x * 7 + y) % 11 == 0) {
+                        bits[y * rowBytes + (x >> 3)] |= (byte) (0x80 >>> (x & 7));
+                    }
+                }
+            }
+            return advance;
+        }
+    }
+
+    /**
+     * 与 sampleReceipt() 内容相同的收购小票模板变量
+     */
+    static TemplateValues sampleValues() {
+        return new TemplateValues()
+                .set(TemplateSlot.PRECHECK_ID, "YJ20241015-0086")
+                .set(TemplateSlot.FARMER_NAME, "张三")
+                .set(TemplateSlot.CONTRACT_NUMBER, "HT-2024-000123")
+                .set(TemplateSlot.ID_CARD_NUMBER, "5301**********1234")
+                .set(TemplateSlot.UPPER_BUNDLES, 12)
+                .set(TemplateSlot.UPPER_WEIGHT, 156.4)
+                .set(TemplateSlot.MIDDLE_BUNDLES, 20)
+                .set(TemplateSlot.MIDDLE_WEIGHT, 268.75)
+                .set(TemplateSlot.LOWER_BUNDLES, 8)
+                .set(TemplateSlot.LOWER_WEIGHT, 95.1)
+                .set(TemplateSlot.TOTAL_BUNDLES, 40)
+                .set(TemplateSlot.TOTAL_WEIGHT, 520.25)
+                .set(TemplateSlot.TOBACCO_LEVEL, "C3F")
+                .set(TemplateSlot.UNIT_PRICE, 28.6)
+                .set(TemplateSlot.TOTAL_AMOUNT, 14879.15)
+                .set(TemplateSlot.OPERATOR_NAME, "李四")
+                .set(TemplateSlot.WAREHOUSE_NUMBER, "03")
+                .set(TemplateSlot.PRINT_TIME, "2024-10-15 09:32:18")
+                .set(TemplateSlot.BARCODE, "YJ20241015-0086")
+                .set(TemplateSlot.QR_PAYLOAD, "https://example.invalid/r/YJ20241015-0086");
+    }
+
+    /**
+     * 一张典型的收购小票（约60条指令）
+     */
+    static ReceiptData sampleReceipt() {
+        ReceiptData receipt = new ReceiptData("烟叶收购小票");
+        receipt.addItem("预检编号: YJ20241015-0086");
+        receipt.addItem("烟农姓名: 张三");
+        receipt.addItem("合同号: HT-2024-000123");
+        receipt.addItem("身份证号: 5301**********1234");
+        receipt.addItem("--------------------------------");
+        receipt.addBoldItem("上部叶  12 捆  156.40 kg");
+        receipt.addBoldItem("中部叶  20 捆  268.75 kg");
+        receipt.addBoldItem("下部叶  8 捆  95.10 kg");
+        receipt.addItem("--------------------------------");
+        receipt.addBoldItem("合计    40 捆  520.25 kg", 2);
+        receipt.addItem("等级: C3F   单价: 28.60 元/kg");
+        receipt.addItem("金额: 14879.15 元", 2);
+        receipt.addItem("称重员: 李四  仓库: 03");
+        receipt.addItem("时间: 2024-10-15 09:32:18");
+        receipt.setBarcode("YJ20241015-0086");
+        receipt.setQrCode("https://example.invalid/r/YJ20241015-0086");
+        receipt.setFooter("请妥善保管本小票");
+        receipt.setFeedLines(3);
+        receipt.setEnableCut(true);
+        return receipt;
+    }
+
+    /**
+     * 模拟串口打印机
+     * write 按波特率阻塞（10 位/字节），接收缓冲区按打印速度清空；
+     * 超过高水位发送 XOFF，降到低水位发送 XON；缓冲区满后的数据计为溢出（实际会丢字）。
+     */
+    private static final class SimulatedPrinter {
+
+        private static final int BUFFER_CAPACITY = 4096;
+        private static final int HIGH_WATER = 3072;
+        private static final int LOW_WATER = 1024;
+
+        private final LoopbackTransport transport;
+        private final long nanosPerByteOnLine;
+        private final double printBytesPerNano;
+        private final ScheduledExecutorService clock;
+        private final Disposable subscription;
+
+        private double level;
+        private long levelTime = System.nanoTime();
+        private boolean xoff;
+        private int statusMatch;
+        int xoffCount;
+        long overflowBytes;
+
+        SimulatedPrinter(LoopbackTransport transport, int baudRate, int printRate, ScheduledExecutorService clock) {
+            this.transport = transport;
+            this.nanosPerByteOnLine = 10_000_000_000L / baudRate;
+            this.printBytesPerNano = printRate / 1e9;
+            this.clock = clock;
+            this.subscription = transport.written().subscribe(this::receive);
+        }
+
+        /**
+         * 缓冲区全部打印完成的时刻
+         */
+        synchronized long finishNanos() {
+            drain(System.nanoTime());
+            return levelTime + (long) (level / printBytesPerNano);
+        }
+
+        void awaitIdle() {
+            long finish = finishNanos();
+            long wait = finish - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+
+        void dispose() {
+            subscription.dispose();
+        }
+
+        private void receive(byte[] data) {
+            // 线路传输时间
+            LockSupport.parkNanos(data.length * nanosPerByteOnLine);
+            boolean sendXoff = false;
+            boolean answerStatus = false;
+            synchronized (this) {
+                drain(System.nanoTime());
+                level += data.length;
+                if (level > BUFFER_CAPACITY) {
+                    overflowBytes += (long) (level - BUFFER_CAPACITY);
+                    level = BUFFER_CAPACITY;
+                }
+                for (byte b : data) {
+                    answerStatus |= matchStatusQuery(b);
+                }
+                if (!xoff && level > HIGH_WATER) {
+                    xoff = true;
+                    xoffCount++;
+                    sendXoff = true;
+                    scheduleXon();
+                }
+            }
+            if (sendXoff) {
+                transport.inject(new byte[]{CommandTransmitter.XOFF});
+            }
+            if (answerStatus) {
+                // 在线、无错误
+                clock.schedule(() -> transport.inject(new byte[]{0x12}), 2, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private boolean matchStatusQuery(byte b) {
+            byte[] query = StatusCodeHandler.createStatusQueryCommand();
+            if (b == query[statusMatch]) {
+                statusMatch++;
+                if (statusMatch == query.length) {
+                    statusMatch = 0;
+                    return true;
+                }
+            } else {
+                statusMatch = b == query[0] ? 1 : 0;
+            }
+            return false;
+        }
+
+        private void scheduleXon() {
+            long delay = (long) ((level - LOW_WATER) / printBytesPerNano);
+            clock.schedule(() -> {
+                boolean resume;
+                synchronized (SimulatedPrinter.this) {
+                    drain(System.nanoTime());
+                    resume = level <= LOW_WATER;
+                    if (resume) {
+                        xoff = false;
+                    } else {
+                        scheduleXon();
+                    }
+                }
+                if (resume) {
+                    transport.inject(new byte[]{CommandTransmitter.XON});
+                }
+            }, Math.max(0, delay), TimeUnit.NANOSECONDS);
+        }
+
+        private void drain(long now) {
+            level = Math.max(0, level - (now - levelTime) * printBytesPerNano);
+            levelTime = now;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.tobacco.weight.hardware.scale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class AutoCaptureDetectorTest {
+
+    private final AutoCaptureDetector detector = new AutoCaptureDetector(0.5, 0.2, 500);
+    private long now = 0;
+
+    @Test
+    public void capturesOncePerLoadCycle() {
+        assertFalse(frame(0.0, true));
+        assertEquals(AutoCaptureDetector.State.ARMED, detector.getState());
+
+        // 上秤，未稳定前不采集
+        assertFalse(frame(12.0, false));
+        assertFalse(frame(12.4, false));
+        assertEquals(AutoCaptureDetector.State.LOADED, detector.getState());
+
+        // 首次稳定时采集
+        assertTrue(frame(12.5, true));
+        assertEquals(12.5, detector.getCapturedWeight(), 1e-9);
+        assertEquals(1, detector.getCaptureCount());
+        assertFalse(frame(12.5, true));
+
+        // 下秤后空秤持续 rearmMs 重新布防
+        assertFalse(frame(0.0, true));
+        assertEquals(AutoCaptureDetector.State.UNLOADING, detector.getState());
+        advance(500);
+        assertFalse(frame(0.0, true));
+        assertEquals(AutoCaptureDetector.State.ARMED, detector.getState());
+
+        assertFalse(frame(8.0, false));
+        assertTrue(frame(8.0, true));
+        assertEquals(8.0, detector.getCapturedWeight(), 1e-9);
+        assertEquals(2, detector.getCaptureCount());
+    }
+
+    @Test
+    public void shortEmptyDipDoesNotRearm() {
+        frame(10.0, true);
+        assertEquals(1, detector.getCaptureCount());
+
+        // 空秤未持续 rearmMs 又回到有载荷，视为同一包
+        frame(0.1, true);
+        advance(300);
+        frame(0.1, true);
+        assertFalse(frame(10.0, true));
+        assertEquals(AutoCaptureDetector.State.CAPTURED, detector.getState());
+
+        // 下秤计时从再次空秤时重新开始
+        frame(0.0, true);
+        advance(400);
+        frame(0.0, true);
+        assertEquals(AutoCaptureDetector.State.UNLOADING, detector.getState());
+        advance(100);
+        frame(0.0, true);
+        assertEquals(AutoCaptureDetector.State.ARMED, detector.getState());
+        assertEquals(1, detector.getCaptureCount());
+    }
+
+    @Test
+    public void wobblingLoadIsNeverCapturedTwice() {
+        frame(0.0, true);
+        assertTrue(frame(20.0, true));
+
+        // 烟包晃动：稳定/不稳定交替、重量在空秤阈值和上秤阈值之间来回
+        double[] weights = {19.6, 20.3, 0.3, 0.45, 20.1, 0.15, 0.6, 19.9, 0.19, 20.0};
+        for (int i = 0; i < 200; i++) {
+            advance(50);
+            assertFalse(frame(weights[i % weights.length], i % 2 == 0));
+        }
+        assertEquals(1, detector.getCaptureCount());
+        assertEquals(20.0, detector.getCapturedWeight(), 1e-9);
+    }
+
+    @Test
+    public void removedBeforeSettlingIsNotCaptured() {
+        frame(0.0, true);
+        frame(6.0, false);
+        assertFalse(frame(0.1, true));
+        assertEquals(AutoCaptureDetector.State.ARMED, detector.getState());
+        assertEquals(0, detector.getCaptureCount());
+    }
+
+    @Test
+    public void resetWithLoadWaitsForUnload() {
+        detector.reset(15.0);
+        assertFalse(frame(15.0, true));
+        assertEquals(0, detector.getCaptureCount());
+
+        frame(0.0, true);
+        advance(500);
+        frame(0.0, true);
+        assertTrue(frame(15.0, true));
+    }
+
+    private boolean frame(double weight, boolean stable) {
+        now += 10;
+        return detector.update(weight, stable, now);
+    }
+
+    private void advance(long ms) {
+        now += ms;
+    }
+}
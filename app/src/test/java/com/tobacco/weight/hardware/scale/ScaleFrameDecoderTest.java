@@ -0,0 +1,40 @@
+package com.tobacco.weight.hardware.scale;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ScaleFrameDecoderTest {
+
+    private final List<Double> weights = new ArrayList<>();
+    private final ScaleFrameDecoder decoder = new ScaleFrameDecoder(frame -> weights.add(frame.getWeight()));
+
+    @Test
+    public void decodesFramesSplitAcrossReads() {
+        feed("ST,GS,+00");
+        feed("12.34kg\r\nUS,NT,-0.50kg\r\n");
+
+        assertEquals(2, decoder.getDecodedFrames());
+        assertEquals(12.34, weights.get(0), 1e-9);
+        assertEquals(-0.50, weights.get(1), 1e-9);
+    }
+
+    @Test
+    public void rejectsTooManyFractionDigitsAndRecovers() {
+        feed("ST,GS,+0.0000000000000000000000001kg\r\n");
+        feed("0.000000000000000000000000000000000000000000\r\n");
+        feed("ST,GS,+0012.34kg\r\n");
+
+        assertEquals(2, decoder.getRejectedFrames());
+        assertEquals(1, weights.size());
+        assertEquals(12.34, weights.get(0), 1e-9);
+    }
+
+    private void feed(String data) {
+        decoder.feed(data.getBytes(StandardCharsets.US_ASCII));
+    }
+}
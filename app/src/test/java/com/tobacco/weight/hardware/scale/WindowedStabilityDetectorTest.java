@@ -0,0 +1,114 @@
+package com.tobacco.weight.hardware.scale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class WindowedStabilityDetectorTest {
+
+    // 50 Hz 电子秤
+    private static final long FRAME_MS = 20;
+
+    private WindowedStabilityDetector detector = new WindowedStabilityDetector();
+    private long now = 0;
+
+    @Test
+    public void taredEmptyScaleBecomesStable() {
+        feed(0.0, 200);
+        assertFalse(detector.isStable());
+
+        feed(0.0, 400);
+        assertTrue(detector.isStable());
+        assertEquals(0.0, detector.getFilteredWeight(), 1e-9);
+        assertTrue(detector.getStableSince() > 0);
+    }
+
+    @Test
+    public void stepLoadSettlesAfterWindow() {
+        feed(0.0, 1000);
+        assertTrue(detector.isStable());
+
+        long stepAt = now + FRAME_MS;
+        assertFalse(detector.update(25.0, stepAt));
+        now = stepAt;
+        assertEquals(0, detector.getStableSince());
+
+        long settledAt = feedUntilStable(25.0, 2000);
+        long settleTime = settledAt - stepAt;
+        assertTrue("settle time " + settleTime, settleTime >= WindowedStabilityDetector.DEFAULT_WINDOW_MS * 3 / 4);
+        assertTrue("settle time " + settleTime, settleTime <= WindowedStabilityDetector.DEFAULT_WINDOW_MS + 2 * FRAME_MS);
+        assertEquals(settleTime, detector.getLastSettleTime());
+        assertEquals(settledAt, detector.getStableSince());
+    }
+
+    @Test
+    public void slowDriftIsRejectedBySlope() {
+        // 放宽标准差阈值，只让斜率判据起作用
+        detector = new WindowedStabilityDetector(600, 0.05, 0.02, 0.5);
+
+        // 0.05 kg/s 的缓慢漂移：标准差远小于阈值，但斜率超限
+        for (int i = 0; i < 150; i++) {
+            now += FRAME_MS;
+            detector.update(10.0 + 0.05 * now / 1000.0, now);
+            assertFalse(detector.isStable());
+        }
+        assertTrue(detector.getStdDev() < 0.05);
+        assertEquals(0.05, detector.getSlope(), 1e-6);
+
+        // 漂移停止后判定稳定
+        double settled = 10.0 + 0.05 * now / 1000.0;
+        assertTrue(feedUntilStable(settled, 1000) > 0);
+    }
+
+    @Test
+    public void settleEstimateFollowsMeasuredSettleTimes() {
+        // 尚无历史：按窗口长度估计
+        assertEquals(WindowedStabilityDetector.DEFAULT_WINDOW_MS, detector.estimateRemainingSettleTime(now));
+        now += FRAME_MS;
+        detector.update(0.0, now);
+        assertEquals(WindowedStabilityDetector.DEFAULT_WINDOW_MS - 100, detector.estimateRemainingSettleTime(now + 100));
+        feedUntilStable(0.0, 2000);
+        long firstSettle = detector.getLastSettleTime();
+        assertTrue(firstSettle > 0);
+        assertEquals(0, detector.estimateRemainingSettleTime(now));
+
+        // 按实测稳定时间估计，随时间递减且不小于 0
+        now += FRAME_MS;
+        detector.update(20.0, now);
+        assertEquals(firstSettle, detector.estimateRemainingSettleTime(now));
+        assertEquals(firstSettle - 200, detector.estimateRemainingSettleTime(now + 200));
+        assertEquals(0, detector.estimateRemainingSettleTime(now + 10_000));
+        feedUntilStable(20.0, 2000);
+        long secondSettle = detector.getLastSettleTime();
+
+        // 多次稳定时间取指数平均
+        now += FRAME_MS;
+        detector.update(35.0, now);
+        long expected = (long) (firstSettle + 0.2 * (secondSettle - firstSettle));
+        assertEquals(expected, detector.estimateRemainingSettleTime(now));
+    }
+
+    private void feed(double weight, long durationMs) {
+        long end = now + durationMs;
+        while (now < end) {
+            now += FRAME_MS;
+            detector.update(weight, now);
+        }
+    }
+
+    /**
+     * @return 首次稳定的时间，超时未稳定返回 0
+     */
+    private long feedUntilStable(double weight, long timeoutMs) {
+        long end = now + timeoutMs;
+        while (now < end) {
+            now += FRAME_MS;
+            if (detector.update(weight, now)) {
+                return now;
+            }
+        }
+        return 0;
+    }
+}
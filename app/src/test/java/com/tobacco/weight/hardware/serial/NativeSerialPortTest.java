@@ -0,0 +1,169 @@
+package com.tobacco.weight.hardware.serial;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * NativeSerialPort 伪终端测试
+ * 需要宿主机原生库（Linux 上由 buildHostNative 编译），不可用时跳过。
+ */
+public class NativeSerialPortTest {
+
+    private PseudoTerminal pty;
+    private NativeSerialPort port;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(256);
+
+    @Before
+    public void setUp() throws IOException {
+        assumeTrue("宿主机原生串口库不可用", PseudoTerminal.isAvailable());
+        pty = PseudoTerminal.open();
+        port = NativeSerialPort.open(pty.getSlavePath(), NativeSerialPort.Config.of(9600));
+    }
+
+    @After
+    public void tearDown() {
+        if (port != null) {
+            port.close();
+        }
+        if (pty != null) {
+            pty.close();
+        }
+    }
+
+    @Test
+    public void readTimesOutWithoutData() throws IOException {
+        long start = System.nanoTime();
+        assertEquals(0, port.read(buffer, 100));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue("elapsed " + elapsedMs, elapsedMs >= 90);
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void readsDeviceDataIntoDirectBuffer() throws IOException {
+        byte[] frame = "ST,GS,+0012.34kg\r\n".getBytes(StandardCharsets.US_ASCII);
+        buffer.position(3);
+        pty.write(frame);
+
+        int total = 0;
+        while (total < frame.length) {
+            int n = port.read(buffer, 1000);
+            assertTrue("read " + n, n > 0);
+            total += n;
+        }
+
+        assertEquals(3 + frame.length, buffer.position());
+        byte[] received = new byte[frame.length];
+        buffer.flip();
+        buffer.position(3);
+        buffer.get(received);
+        assertArrayEquals(frame, received);
+    }
+
+    @Test
+    public void writesReachDevice() throws IOException {
+        byte[] command = "T\r\n".getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer src = ByteBuffer.allocateDirect(16);
+        src.put(command).flip();
+
+        assertEquals(command.length, port.write(src, 1000));
+        assertEquals(command.length, src.position());
+
+        byte[] received = new byte[16];
+        int n = pty.read(received, 1000);
+        assertArrayEquals(command, Arrays.copyOf(received, n));
+    }
+
+    @Test
+    public void closeWakesBlockedRead() throws Exception {
+        AtomicInteger result = new AtomicInteger(Integer.MIN_VALUE);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread reader = new Thread(() -> {
+            try {
+                result.set(port.read(buffer, -1));
+            } catch (IOException e) {
+                result.set(Integer.MAX_VALUE);
+            }
+            done.countDown();
+        });
+        reader.start();
+        Thread.sleep(100);
+        assertEquals(1, done.getCount());
+
+        long start = System.nanoTime();
+        port.close();
+
+        assertTrue("读线程未被唤醒", done.await(1, TimeUnit.SECONDS));
+        assertEquals(NativeSerialPort.CLOSED, result.get());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        assertEquals(NativeSerialPort.CLOSED, port.read(buffer, 0));
+    }
+
+    @Test
+    public void closeWakesWriteBlockedOnFullQueue() throws Exception {
+        // 设备端不读取，伪终端缓冲区写满后 write() 在 poll() 上等待
+        ByteBuffer src = ByteBuffer.allocateDirect(1 << 20);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        Thread writer = new Thread(() -> {
+            try {
+                port.write(src, -1);
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+            done.countDown();
+        });
+        writer.start();
+        assertFalse("伪终端缓冲区未写满", done.await(300, TimeUnit.MILLISECONDS));
+
+        port.close();
+
+        assertTrue("写线程未被唤醒", done.await(1, TimeUnit.SECONDS));
+        assertTrue(String.valueOf(failure.get()), failure.get() instanceof IOException);
+        try {
+            port.write(ByteBuffer.allocateDirect(1), 0);
+            fail("关闭后写入应抛出异常");
+        } catch (IOException expected) {
+            // 已关闭
+        }
+    }
+
+    @Test
+    public void deviceHangupEndsRead() throws Exception {
+        AtomicInteger result = new AtomicInteger(Integer.MIN_VALUE);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread reader = new Thread(() -> {
+            try {
+                result.set(port.read(buffer, 5000));
+            } catch (IOException e) {
+                result.set(Integer.MAX_VALUE);
+            }
+            done.countDown();
+        });
+        reader.start();
+        Thread.sleep(100);
+
+        pty.close();
+
+        assertTrue("对端挂断后读线程未返回", done.await(1, TimeUnit.SECONDS));
+        assertEquals(NativeSerialPort.CLOSED, result.get());
+    }
+}
@@ -0,0 +1,79 @@
+package com.tobacco.weight.hardware.serial;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 伪终端主设备端（测试代码扮演串口设备）
+ * 从设备端路径交给 NativeSerialPort 打开；关闭主设备端相当于设备断开。
+ * 原生实现见 src/test/cpp/PseudoTerminal.c，与 NativeSerialPort 编译在同一个宿主机库中。
+ */
+final class PseudoTerminal implements Closeable {
+
+    private final int masterFd;
+    private final String slavePath;
+    private boolean closed;
+
+    private PseudoTerminal(int masterFd, String slavePath) {
+        this.masterFd = masterFd;
+        this.slavePath = slavePath;
+    }
+
+    /**
+     * 宿主机原生库是否可用（NativeSerialPort 已加载同一个库）
+     */
+    static boolean isAvailable() {
+        return NativeSerialPort.isAvailable();
+    }
+
+    static PseudoTerminal open() throws IOException {
+        int fd = nativeOpenMaster();
+        try {
+            return new PseudoTerminal(fd, nativeSlavePath(fd));
+        } catch (IOException e) {
+            nativeClose(fd);
+            throw e;
+        }
+    }
+
+    /**
+     * 从设备端路径（/dev/pts/N）
+     */
+    String getSlavePath() {
+        return slavePath;
+    }
+
+    /**
+     * 模拟设备发送数据
+     */
+    void write(byte[] data) throws IOException {
+        nativeWrite(masterFd, data);
+    }
+
+    /**
+     * 读取主机写给设备的数据
+     *
+     * @return 读到的字节数，超时返回 0
+     */
+    int read(byte[] buffer, int timeoutMs) throws IOException {
+        return nativeRead(masterFd, buffer, timeoutMs);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            nativeClose(masterFd);
+        }
+    }
+
+    private static native int nativeOpenMaster() throws IOException;
+
+    private static native String nativeSlavePath(int masterFd) throws IOException;
+
+    private static native int nativeWrite(int masterFd, byte[] data) throws IOException;
+
+    private static native int nativeRead(int masterFd, byte[] data, int timeoutMs) throws IOException;
+
+    private static native void nativeClose(int masterFd);
+}
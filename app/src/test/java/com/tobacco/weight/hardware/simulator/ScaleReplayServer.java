@@ -0,0 +1,250 @@
+package com.tobacco.weight.hardware.simulator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 电子秤数据回放服务器（模拟 TCP 串口服务器）
+ * 按固定帧率循环向所有已连接的客户端发送电子秤数据帧，用于在普通 Linux 主机上
+ * 通过 tcp:// 传输层压测解码、稳定性检测等流程。属于测试工具，不打包进 APK；
+ * 只依赖 JDK，单元测试中直接使用，也可在测试类路径上单独运行：
+ *
+ *   java ScaleReplayServer [端口] [帧/秒] [帧文件（每行一帧）]
+ *
+ * 客户端接收不过来时丢弃当前帧（与真实电子秤一样不等待），丢弃数计入 getFramesDropped()。
+ */
+public class ScaleReplayServer implements Closeable {
+
+    private final int port;
+    private final List<byte[]> frames;
+    private final int framesPerSecond;
+
+    private final AtomicLong framesSent = new AtomicLong();
+    private final AtomicLong framesDropped = new AtomicLong();
+
+    private volatile Selector selector;
+    private volatile ServerSocketChannel server;
+    private volatile Thread thread;
+
+    /**
+     * @param port            监听端口，0 表示自动分配
+     * @param frames          循环发送的数据帧（含帧尾）
+     * @param framesPerSecond 每秒发送帧数
+     */
+    public ScaleReplayServer(int port, List<byte[]> frames, int framesPerSecond) {
+        if (frames.isEmpty() || framesPerSecond <= 0) {
+            throw new IllegalArgumentException("帧列表不能为空，帧率必须大于0");
+        }
+        this.port = port;
+        this.frames = new ArrayList<>(frames);
+        this.framesPerSecond = framesPerSecond;
+    }
+
+    /**
+     * 启动服务器
+     *
+     * @return 实际监听端口
+     */
+    public synchronized int start() throws IOException {
+        if (thread != null) {
+            return server.socket().getLocalPort();
+        }
+        Selector sel = Selector.open();
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        channel.configureBlocking(false);
+        channel.bind(new InetSocketAddress(port));
+        channel.register(sel, SelectionKey.OP_ACCEPT);
+        selector = sel;
+        server = channel;
+
+        Thread replay = new Thread(this::replayLoop, "scale-replay-server");
+        replay.setDaemon(true);
+        thread = replay;
+        replay.start();
+        return channel.socket().getLocalPort();
+    }
+
+    public long getFramesSent() {
+        return framesSent.get();
+    }
+
+    public long getFramesDropped() {
+        return framesDropped.get();
+    }
+
+    @Override
+    public synchronized void close() {
+        Thread replay = thread;
+        thread = null;
+        if (replay == null) {
+            return;
+        }
+        selector.wakeup();
+        try {
+            replay.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void replayLoop() {
+        Selector sel = selector;
+        long periodNanos = 1_000_000_000L / framesPerSecond;
+        long startNanos = System.nanoTime();
+        long due = 0;
+        int frameIndex = 0;
+        List<SocketChannel> clients = new ArrayList<>();
+
+        try {
+            while (thread != null) {
+                long nextNanos = startNanos + due * periodNanos;
+                long waitMillis = Math.max(1, (nextNanos - System.nanoTime()) / 1_000_000);
+                sel.select(waitMillis);
+                acceptClients(sel, clients);
+
+                // 追赶到当前时刻应发送的帧数
+                long target = (System.nanoTime() - startNanos) / periodNanos;
+                while (due < target) {
+                    byte[] frame = frames.get(frameIndex);
+                    frameIndex = (frameIndex + 1) % frames.size();
+                    due++;
+                    broadcast(ByteBuffer.wrap(frame), clients);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("回放服务器异常: " + e.getMessage());
+        } finally {
+            for (SocketChannel client : clients) {
+                closeQuietly(client);
+            }
+            closeQuietly(server);
+            closeQuietly(sel);
+        }
+    }
+
+    private void acceptClients(Selector sel, List<SocketChannel> clients) throws IOException {
+        Iterator<SelectionKey> keys = sel.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            if (key.isValid() && key.isAcceptable()) {
+                SocketChannel client = server.accept();
+                if (client != null) {
+                    client.configureBlocking(false);
+                    client.socket().setTcpNoDelay(true);
+                    clients.add(client);
+                }
+            }
+        }
+    }
+
+    private void broadcast(ByteBuffer frame, List<SocketChannel> clients) {
+        Iterator<SocketChannel> iterator = clients.iterator();
+        while (iterator.hasNext()) {
+            SocketChannel client = iterator.next();
+            frame.rewind();
+            try {
+                int written = client.write(frame);
+                if (written == 0) {
+                    framesDropped.incrementAndGet();
+                } else if (frame.hasRemaining()) {
+                    // 发送缓冲区只容下半帧：补发剩余部分，保持帧边界（阻塞时间很短）
+                    while (frame.hasRemaining()) {
+                        client.write(frame);
+                    }
+                    framesSent.incrementAndGet();
+                } else {
+                    framesSent.incrementAndGet();
+                }
+            } catch (IOException e) {
+                closeQuietly(client);
+                iterator.remove();
+            }
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+            // 关闭时出错无需处理
+        }
+    }
+
+    /**
+     * 生成一个上秤 → 晃动 → 稳定 → 下秤循环的 ST,GS 协议帧序列
+     *
+     * @param targetWeight 稳定重量（kg）
+     */
+    public static List<byte[]> weighingCycle(double targetWeight) {
+        List<byte[]> cycle = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            cycle.add(frame(true, 0.0));
+        }
+        for (int i = 1; i <= 10; i++) {
+            double wobble = (i % 2 == 0 ? 1 : -1) * targetWeight * 0.05 / i;
+            cycle.add(frame(false, targetWeight * Math.min(1.0, i / 5.0) + wobble));
+        }
+        for (int i = 0; i < 30; i++) {
+            cycle.add(frame(true, targetWeight));
+        }
+        for (int i = 0; i < 5; i++) {
+            cycle.add(frame(false, targetWeight * (4 - i) / 5.0));
+        }
+        return cycle;
+    }
+
+    private static byte[] frame(boolean stable, double weight) {
+        String text = String.format(Locale.ROOT, "%s,GS,%+08.2fkg\r\n", stable ? "ST" : "US", weight);
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * 命令行入口：java ScaleReplayServer [端口] [帧/秒] [帧文件]
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 4001;
+        int rate = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        List<byte[]> frames;
+        if (args.length > 2) {
+            frames = new ArrayList<>();
+            for (String line : Files.readAllLines(Paths.get(args[2]), StandardCharsets.US_ASCII)) {
+                if (!line.isEmpty()) {
+                    frames.add((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                }
+            }
+        } else {
+            frames = weighingCycle(12.34);
+        }
+
+        try (ScaleReplayServer replay = new ScaleReplayServer(port, frames, rate)) {
+            int boundPort = replay.start();
+            System.out.println("回放服务器已启动: tcp://0.0.0.0:" + boundPort + ", " + rate + " 帧/秒");
+            long last = 0;
+            while (true) {
+                Thread.sleep(1000);
+                long sent = replay.getFramesSent();
+                System.out.println("已发送 " + sent + " 帧（" + (sent - last) + "/秒），丢弃 "
+                        + replay.getFramesDropped());
+                last = sent;
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.tobacco.weight.hardware.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.tobacco.weight.hardware.scale.ScaleFrameDecoder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ScaleReplayServerTest {
+
+    @Test
+    public void replayedFramesDecodeToWeighingCycle() throws IOException {
+        List<Double> weights = new ArrayList<>();
+        ScaleFrameDecoder decoder = new ScaleFrameDecoder(frame -> weights.add(frame.getWeight()));
+        int cycleLength = ScaleReplayServer.weighingCycle(12.34).size();
+
+        try (ScaleReplayServer server = new ScaleReplayServer(0, ScaleReplayServer.weighingCycle(12.34), 2000);
+             Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("127.0.0.1", server.start()), 1000);
+            socket.setSoTimeout(2000);
+            InputStream in = socket.getInputStream();
+            byte[] buffer = new byte[256];
+            while (weights.size() < cycleLength * 2) {
+                int read = in.read(buffer);
+                assertTrue("回放服务器提前断开", read > 0);
+                decoder.feed(buffer, 0, read);
+            }
+        }
+
+        assertEquals(0, decoder.getRejectedFrames());
+        assertTrue(weights.contains(12.34));
+        assertTrue(weights.contains(0.0));
+    }
+}